@@ -0,0 +1,181 @@
+package com.doradosystems.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.doradosystems.mis.dao.ClaimValidationBatchDao;
+import com.doradosystems.mis.dao.ClaimValidationRecordBulkDao;
+import com.doradosystems.mis.dao.ClaimValidationRecordDao;
+import com.doradosystems.mis.dao.ClaimValidationRecordQueryDao;
+import com.doradosystems.mis.dao.ClaimValidationResponseBulkDao;
+import com.doradosystems.mis.dao.ClaimValidationResponseDao;
+import com.doradosystems.mis.dao.ClaimValidationSummaryDao;
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationRecord;
+import com.doradosystems.mis.domain.ClaimValidationResponse;
+import com.mchange.v2.c3p0.ComboPooledDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import liquibase.integration.spring.SpringLiquibase;
+
+/**
+ * Database shared by every benchmark in a fork.
+ * <p>
+ * An embedded PostgreSQL is started unless {@code benchmark.jdbc.url} names an existing database, in which case the
+ * liquibase changelog is applied to it and its claim validation tables are truncated first. So that a mistyped URL
+ * cannot wipe a shared database, the URL must point at localhost unless {@code benchmark.allowTruncate=true}. The
+ * schema is created by the same liquibase changelog the integration tests use. Connections come from HikariCP, or from
+ * c3p0 configured as the old {@code dataSource} bean when {@code benchmark.pool=c3p0}.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+@State(Scope.Benchmark)
+public class BenchmarkDatabase {
+
+    private static final String SCHEMA = "mis_claim_validation_service";
+    private static final int MAX_POOL_SIZE = 64;
+    private static final Pattern HOST = Pattern.compile("^jdbc:postgresql://(\\[[^\\]]*\\]|[^/:]*)");
+    private static final List<String> LOCAL_HOSTS = Arrays.asList("", "localhost", "127.0.0.1", "[::1]");
+
+    private EmbeddedPostgres postgres;
+    private DataSource dataSource;
+    private Runnable closePool;
+
+    ClaimValidationBatchDao batchDao;
+    ClaimValidationRecordDao recordDao;
+    ClaimValidationResponseDao responseDao;
+    ClaimValidationRecordBulkDao recordBulkDao;
+    ClaimValidationResponseBulkDao responseBulkDao;
+    ClaimValidationRecordQueryDao recordQueryDao;
+    ClaimValidationSummaryDao summaryDao;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        String jdbcUrl = System.getProperty("benchmark.jdbc.url", "");
+        if (jdbcUrl.isEmpty()) {
+            postgres = EmbeddedPostgres.builder().start();
+            jdbcUrl = postgres.getJdbcUrl("postgres", "postgres") + "&currentSchema=" + SCHEMA;
+        } else {
+            checkTruncateAllowed(jdbcUrl);
+        }
+
+        if ("c3p0".equals(System.getProperty("benchmark.pool"))) {
+            ComboPooledDataSource c3p0 = new ComboPooledDataSource();
+            c3p0.setDriverClass("org.postgresql.Driver");
+            c3p0.setJdbcUrl(jdbcUrl);
+            c3p0.setMinPoolSize(1);
+            c3p0.setMaxPoolSize(MAX_POOL_SIZE);
+            c3p0.setTestConnectionOnCheckout(true);
+            dataSource = c3p0;
+            closePool = c3p0::close;
+        } else {
+            HikariDataSource hikari = new HikariDataSource();
+            hikari.setDriverClassName("org.postgresql.Driver");
+            hikari.setJdbcUrl(jdbcUrl);
+            hikari.setMaximumPoolSize(MAX_POOL_SIZE);
+            dataSource = hikari;
+            closePool = hikari::close;
+        }
+
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDataSource(dataSource);
+        liquibase.setChangeLog("classpath:db/changelog/db.changelog-master.xml");
+        // the service schema does not exist yet on a fresh database, so liquibase keeps its own tables in public
+        liquibase.setDefaultSchema("public");
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        liquibase.afterPropertiesSet();
+
+        if (postgres == null) {
+            new JdbcTemplate(dataSource).execute("TRUNCATE " + SCHEMA + ".claim_validation_batch CASCADE");
+        }
+
+        batchDao = new ClaimValidationBatchDao(dataSource);
+        recordDao = new ClaimValidationRecordDao(dataSource);
+        responseDao = new ClaimValidationResponseDao(dataSource);
+        recordBulkDao = new ClaimValidationRecordBulkDao(dataSource);
+        responseBulkDao = new ClaimValidationResponseBulkDao(dataSource);
+        recordQueryDao = new ClaimValidationRecordQueryDao(dataSource);
+        summaryDao = new ClaimValidationSummaryDao(dataSource);
+    }
+
+    /**
+     * Refuses a {@code benchmark.jdbc.url} on another host, whose tables the benchmark would truncate, unless
+     * {@code benchmark.allowTruncate=true}.
+     */
+    static void checkTruncateAllowed(String jdbcUrl) {
+        if (Boolean.getBoolean("benchmark.allowTruncate")) {
+            return;
+        }
+        // jdbc:postgresql:database without a host connects to localhost
+        Matcher matcher = HOST.matcher(jdbcUrl);
+        String host = matcher.find() ? matcher.group(1).toLowerCase(Locale.ROOT) : "";
+        if (!LOCAL_HOSTS.contains(host)) {
+            throw new IllegalStateException("Refusing to truncate the claim validation tables at " + jdbcUrl
+                    + "; benchmark against localhost or set -Dbenchmark.allowTruncate=true");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        if (closePool != null) {
+            closePool.run();
+        }
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    UUID addBatch(ClaimValidationBatch.Status status) throws Exception {
+        return batchDao.add(new ClaimValidationBatch(null, 1L, "filename", status, 1L, "gcn", null, null));
+    }
+
+    static ClaimValidationRecord newRecord(UUID batchId, int index, int payloadSize) {
+        return new ClaimValidationRecord(null, batchId, 1L, ClaimValidationRecord.Status.INCOMPLETE,
+                "claimNumber" + index, payload(payloadSize), null, null);
+    }
+
+    static List<ClaimValidationRecord> newRecords(UUID batchId, int count, int payloadSize) {
+        List<ClaimValidationRecord> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            records.add(newRecord(batchId, i, payloadSize));
+        }
+        return records;
+    }
+
+    static ClaimValidationResponse newResponse(UUID batchId, UUID recordId, int index, int payloadSize) {
+        return new ClaimValidationResponse(null, batchId, 1L, ClaimValidationResponse.Status.PENDING,
+                "claimNumber" + index, payload(payloadSize), null, null, recordId);
+    }
+
+    static List<ClaimValidationResponse> newResponses(UUID batchId, UUID recordId, int count, int payloadSize) {
+        List<ClaimValidationResponse> responses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            responses.add(newResponse(batchId, recordId, i, payloadSize));
+        }
+        return responses;
+    }
+
+    private static String payload(int size) {
+        char[] payload = new char[size];
+        Arrays.fill(payload, 'x');
+        return new String(payload);
+    }
+
+}
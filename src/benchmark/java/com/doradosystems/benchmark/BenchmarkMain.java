@@ -0,0 +1,42 @@
+package com.doradosystems.benchmark;
+
+import java.io.File;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the DAO benchmarks once per thread count in {@code benchmark.threads} and writes each run's results as JSON
+ * to {@code benchmark.result.dir/jmh-result-threads-N.json}, so runs from different releases can be diffed.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        String include = System.getProperty("benchmark.include", "ClaimValidation.*Benchmark");
+        File resultDir = new File(System.getProperty("benchmark.result.dir", "target/jmh"));
+        if (!resultDir.isDirectory() && !resultDir.mkdirs()) {
+            throw new IllegalStateException("Unable to create " + resultDir);
+        }
+
+        for (String value : System.getProperty("benchmark.threads", "1").split(",")) {
+            int threads = Integer.parseInt(value.trim());
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(new File(resultDir, "jmh-result-threads-" + threads + ".json").getPath())
+                    .build();
+            new Runner(options).run();
+        }
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.doradosystems.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationBatch.Status;
+
+/**
+ *
+ * @author Arthur Tolentino
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClaimValidationBatchDaoBenchmark {
+
+    private static final int BATCH_COUNT = 1000;
+
+    private List<UUID> batchIds;
+
+    @Setup(Level.Trial)
+    public void seed(BenchmarkDatabase database) throws Exception {
+        batchIds = new ArrayList<>(BATCH_COUNT);
+        for (int i = 0; i < BATCH_COUNT; i++) {
+            batchIds.add(database.addBatch(Status.LOADING));
+        }
+    }
+
+    @Benchmark
+    public UUID add(BenchmarkDatabase database) throws Exception {
+        return database.addBatch(Status.LOADING);
+    }
+
+    @Benchmark
+    public ClaimValidationBatch get(BenchmarkDatabase database) throws Exception {
+        return database.batchDao.get(randomBatchId());
+    }
+
+    @Benchmark
+    public int countByStatus(BenchmarkDatabase database) throws Exception {
+        return database.batchDao.countByStatus(Status.LOADING);
+    }
+
+    @Benchmark
+    public int updateStatus(BenchmarkDatabase database) throws Exception {
+        Status status = ThreadLocalRandom.current().nextBoolean() ? Status.LOADING : Status.PROCESSING;
+        return database.batchDao.updateStatus(randomBatchId(), status);
+    }
+
+    private UUID randomBatchId() {
+        return batchIds.get(ThreadLocalRandom.current().nextInt(batchIds.size()));
+    }
+
+}
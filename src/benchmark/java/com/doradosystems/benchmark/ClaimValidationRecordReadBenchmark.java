@@ -0,0 +1,85 @@
+package com.doradosystems.benchmark;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.doradosystems.mis.dao.ClaimValidationSummarySession;
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationRecord;
+import com.doradosystems.mis.domain.ClaimValidationRecord.Status;
+import com.doradosystems.mis.domain.ClaimValidationRecordSummary;
+
+/**
+ * Reads of claim validation records for batches of increasing size.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClaimValidationRecordReadBenchmark {
+
+    @Param({ "100", "1000", "10000" })
+    private int batchSize;
+    @Param({ "256", "4096" })
+    private int payloadSize;
+
+    private UUID batchId;
+    private List<UUID> recordIds;
+
+    @Setup(Level.Trial)
+    public void seed(BenchmarkDatabase database) throws Exception {
+        batchId = database.addBatch(ClaimValidationBatch.Status.PROCESSING);
+        recordIds = database.recordBulkDao.addAll(BenchmarkDatabase.newRecords(batchId, batchSize, payloadSize));
+    }
+
+    @Benchmark
+    public ClaimValidationRecord get(BenchmarkDatabase database) throws Exception {
+        return database.recordDao.get(recordIds.get(ThreadLocalRandom.current().nextInt(recordIds.size())));
+    }
+
+    @Benchmark
+    public List<ClaimValidationRecord> getByBatchIdAndRunNumber(BenchmarkDatabase database) throws Exception {
+        return database.recordDao.getByBatchIdAndRunNumber(batchId, 1L);
+    }
+
+    @Benchmark
+    public List<ClaimValidationRecordSummary> getRecordSummaries(BenchmarkDatabase database) throws Exception {
+        try (ClaimValidationSummarySession session = database.summaryDao.openSession()) {
+            return session.getRecordSummaries(batchId, 1L);
+        }
+    }
+
+    @Benchmark
+    public int forEachByBatchIdAndRunNumber(BenchmarkDatabase database) throws Exception {
+        AtomicInteger count = new AtomicInteger();
+        database.recordQueryDao.forEachByBatchIdAndRunNumber(batchId, 1L, record -> count.incrementAndGet());
+        return count.get();
+    }
+
+    @Benchmark
+    public int countByBatchIdAndRunNumberAndStatus(BenchmarkDatabase database) throws Exception {
+        return database.recordDao.countByBatchIdAndRunNumberAndStatus(batchId, 1L, Status.INCOMPLETE);
+    }
+
+}
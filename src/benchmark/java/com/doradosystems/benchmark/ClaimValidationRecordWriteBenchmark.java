@@ -0,0 +1,95 @@
+package com.doradosystems.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationRecord;
+import com.doradosystems.mis.domain.ClaimValidationRecord.Status;
+
+/**
+ * Single-row versus bulk writes of claim validation records. Bulk benchmarks report rows per second so they can be
+ * compared with their single-row counterparts directly.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClaimValidationRecordWriteBenchmark {
+
+    private static final int BULK_SIZE = 100;
+    private static final int SEEDED_RECORDS = 10000;
+
+    @Param({ "256", "4096" })
+    private int payloadSize;
+
+    private UUID batchId;
+    private List<UUID> recordIds;
+    private List<ClaimValidationRecord> bulk;
+
+    @Setup(Level.Trial)
+    public void seed(BenchmarkDatabase database) throws Exception {
+        batchId = database.addBatch(ClaimValidationBatch.Status.PROCESSING);
+        recordIds = database.recordBulkDao.addAll(BenchmarkDatabase.newRecords(batchId, SEEDED_RECORDS, payloadSize));
+        bulk = BenchmarkDatabase.newRecords(batchId, BULK_SIZE, payloadSize);
+    }
+
+    @Benchmark
+    public UUID add(BenchmarkDatabase database) throws Exception {
+        return database.recordDao.add(BenchmarkDatabase.newRecord(batchId, 0, payloadSize));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BULK_SIZE)
+    public List<UUID> addAll(BenchmarkDatabase database) throws Exception {
+        return database.recordBulkDao.addAll(bulk);
+    }
+
+    @Benchmark
+    public int updateStatus(BenchmarkDatabase database) throws Exception {
+        return database.recordDao.updateStatus(randomRecordId(), randomStatus());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BULK_SIZE)
+    public Set<UUID> updateStatusBulk(BenchmarkDatabase database) throws Exception {
+        List<UUID> ids = new ArrayList<>(BULK_SIZE);
+        for (int i = 0; i < BULK_SIZE; i++) {
+            ids.add(randomRecordId());
+        }
+        return database.recordBulkDao.updateStatus(ids, randomStatus());
+    }
+
+    private UUID randomRecordId() {
+        return recordIds.get(ThreadLocalRandom.current().nextInt(recordIds.size()));
+    }
+
+    private static Status randomStatus() {
+        Status[] statuses = Status.values();
+        return statuses[ThreadLocalRandom.current().nextInt(statuses.length)];
+    }
+
+}
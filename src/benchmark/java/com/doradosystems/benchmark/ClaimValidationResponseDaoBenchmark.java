@@ -0,0 +1,83 @@
+package com.doradosystems.benchmark;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.doradosystems.mis.domain.BulkAddResult;
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationResponse;
+import com.doradosystems.mis.domain.ClaimValidationResponse.Status;
+
+/**
+ *
+ * @author Arthur Tolentino
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClaimValidationResponseDaoBenchmark {
+
+    private static final int BULK_SIZE = 100;
+    private static final int SEEDED_RESPONSES = 1000;
+
+    @Param({ "256", "4096" })
+    private int payloadSize;
+
+    private UUID batchId;
+    private List<ClaimValidationResponse> bulk;
+
+    @Setup(Level.Trial)
+    public void seed(BenchmarkDatabase database) throws Exception {
+        batchId = database.addBatch(ClaimValidationBatch.Status.PROCESSING);
+        UUID recordId = database.recordDao.add(BenchmarkDatabase.newRecord(batchId, 0, payloadSize));
+        database.responseBulkDao.addAll(BenchmarkDatabase.newResponses(batchId, recordId, SEEDED_RESPONSES,
+                payloadSize));
+
+        UUID writeBatchId = database.addBatch(ClaimValidationBatch.Status.PROCESSING);
+        UUID writeRecordId = database.recordDao.add(BenchmarkDatabase.newRecord(writeBatchId, 0, payloadSize));
+        bulk = BenchmarkDatabase.newResponses(writeBatchId, writeRecordId, BULK_SIZE, payloadSize);
+    }
+
+    @Benchmark
+    public UUID add(BenchmarkDatabase database) throws Exception {
+        return database.responseDao.add(bulk.get(0));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BULK_SIZE)
+    public BulkAddResult addAll(BenchmarkDatabase database) throws Exception {
+        return database.responseBulkDao.addAll(bulk);
+    }
+
+    @Benchmark
+    public List<ClaimValidationResponse> get(BenchmarkDatabase database) throws Exception {
+        return database.responseDao.get(batchId, 1L);
+    }
+
+    @Benchmark
+    public int updateStatus(BenchmarkDatabase database) throws Exception {
+        Status status = ThreadLocalRandom.current().nextBoolean() ? Status.PENDING : Status.COMPLETE;
+        return database.responseDao.updateStatus(batchId, 1L, status);
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.doradosystems.mis.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses payloads with zlib, optionally primed with a {@link PayloadDictionary}.
+ * <p>
+ * A dictionary lets even short claims reference the fixed layout text they share with the samples it was trained on.
+ * The zlib stream records the dictionary's Adler-32 checksum, so values written with an older dictionary can be read
+ * as long as that dictionary is still passed to the constructor.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class DeflatePayloadCodec implements PayloadCodec {
+
+    public static final byte FORMAT = 1;
+
+    private final int level;
+    private final PayloadDictionary dictionary;
+    private final Map<Integer, PayloadDictionary> dictionaries = new HashMap<>();
+
+    public DeflatePayloadCodec() {
+        this(Deflater.DEFAULT_COMPRESSION, null);
+    }
+
+    /**
+     * @param dictionary
+     *            used for writing, or {@code null} for none
+     * @param readOnlyDictionaries
+     *            older dictionaries still needed to read existing values
+     */
+    public DeflatePayloadCodec(int level, PayloadDictionary dictionary, PayloadDictionary... readOnlyDictionaries) {
+        this.level = level;
+        this.dictionary = dictionary;
+        for (PayloadDictionary readOnlyDictionary : readOnlyDictionaries) {
+            dictionaries.put(readOnlyDictionary.getId(), readOnlyDictionary);
+        }
+        if (dictionary != null) {
+            dictionaries.put(dictionary.getId(), dictionary);
+        }
+    }
+
+    @Override
+    public byte getFormat() {
+        return FORMAT;
+    }
+
+    @Override
+    public byte[] encode(String payload) {
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(level);
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary.getBytes());
+            }
+            deflater.setInput(bytes);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 16);
+            out.write(FORMAT);
+            byte[] buffer = new byte[Math.max(64, bytes.length)];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public String decode(byte[] data) {
+        PayloadCodecs.checkFormat(data, FORMAT);
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, 1, data.length - 1);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+            byte[] buffer = new byte[Math.max(256, data.length * 4)];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0) {
+                    if (inflater.needsDictionary()) {
+                        inflater.setDictionary(dictionary(inflater.getAdler()).getBytes());
+                    } else if (inflater.needsInput()) {
+                        throw new IllegalArgumentException("Truncated deflate payload");
+                    }
+                }
+                out.write(buffer, 0, count);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt deflate payload", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    public PayloadDictionary getDictionary() {
+        return dictionary;
+    }
+
+    @Override
+    public String toString() {
+        return dictionary == null ? "deflate" : "deflate+dictionary";
+    }
+
+    private PayloadDictionary dictionary(int id) {
+        PayloadDictionary found = dictionaries.get(id);
+        if (found == null) {
+            throw new IllegalArgumentException("Payload was written with unknown dictionary " + Integer.toHexString(id));
+        }
+        return found;
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.doradosystems.mis.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Stores payloads as UTF-8 without compression.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class IdentityPayloadCodec implements PayloadCodec {
+
+    public static final byte FORMAT = 0;
+
+    @Override
+    public byte getFormat() {
+        return FORMAT;
+    }
+
+    @Override
+    public byte[] encode(String payload) {
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        byte[] data = new byte[bytes.length + 1];
+        data[0] = FORMAT;
+        System.arraycopy(bytes, 0, data, 1, bytes.length);
+        return data;
+    }
+
+    @Override
+    public String decode(byte[] data) {
+        PayloadCodecs.checkFormat(data, FORMAT);
+        return new String(Arrays.copyOfRange(data, 1, data.length), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return "identity";
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.doradosystems.mis.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+/**
+ * Compresses payloads with LZ4: a lower ratio than {@link DeflatePayloadCodec} but several times faster to decode.
+ * The format byte is followed by the uncompressed length as a 4-byte big-endian integer.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class Lz4PayloadCodec implements PayloadCodec {
+
+    public static final byte FORMAT = 2;
+
+    private static final int HEADER_LENGTH = 5;
+
+    private final LZ4Compressor compressor;
+    private final LZ4FastDecompressor decompressor;
+
+    public Lz4PayloadCodec() {
+        LZ4Factory factory = LZ4Factory.fastestInstance();
+        this.compressor = factory.fastCompressor();
+        this.decompressor = factory.fastDecompressor();
+    }
+
+    @Override
+    public byte getFormat() {
+        return FORMAT;
+    }
+
+    @Override
+    public byte[] encode(String payload) {
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        byte[] data = new byte[HEADER_LENGTH + compressor.maxCompressedLength(bytes.length)];
+        ByteBuffer.wrap(data).put(FORMAT).putInt(bytes.length);
+        int length = compressor.compress(bytes, 0, bytes.length, data, HEADER_LENGTH);
+        byte[] trimmed = new byte[HEADER_LENGTH + length];
+        System.arraycopy(data, 0, trimmed, 0, trimmed.length);
+        return trimmed;
+    }
+
+    @Override
+    public String decode(byte[] data) {
+        PayloadCodecs.checkFormat(data, FORMAT);
+        if (data.length < HEADER_LENGTH) {
+            throw new IllegalArgumentException("Truncated LZ4 payload");
+        }
+        int length = ByteBuffer.wrap(data, 1, 4).getInt();
+        if (length < 0) {
+            throw new IllegalArgumentException("Corrupt LZ4 payload length " + length);
+        }
+        byte[] bytes = new byte[length];
+        try {
+            decompressor.decompress(data, HEADER_LENGTH, bytes, 0, bytes.length);
+        } catch (LZ4Exception e) {
+            throw new IllegalArgumentException("Corrupt LZ4 payload", e);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return "lz4";
+    }
+
+}
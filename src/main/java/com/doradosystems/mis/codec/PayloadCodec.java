@@ -0,0 +1,26 @@
+package com.doradosystems.mis.codec;
+
+/**
+ * Converts record and response payloads to the bytes stored in their {@code bytea} columns and back.
+ * <p>
+ * Every encoded value starts with the codec's {@link #getFormat()} byte, so {@link PayloadCodecs} can pick the codec
+ * to decode a value with regardless of which codec is currently used for writing.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public interface PayloadCodec {
+
+    byte getFormat();
+
+    byte[] encode(String payload);
+
+    /**
+     * Decodes a value previously returned by {@link #encode(String)}, format byte included.
+     *
+     * @throws IllegalArgumentException
+     *             if {@code data} is corrupt or was not written by this codec
+     */
+    String decode(byte[] data);
+
+}
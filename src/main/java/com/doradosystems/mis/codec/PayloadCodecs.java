@@ -0,0 +1,127 @@
+package com.doradosystems.mis.codec;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.zip.Deflater;
+
+/**
+ * Encodes payloads with one codec and decodes them with whichever codec wrote them, selected by the leading format
+ * byte. A codec can therefore be changed without rewriting existing rows.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class PayloadCodecs {
+
+    /**
+     * Writes uncompressed and reads every format that does not need a dictionary. Deflate values written with a
+     * dictionary fail to decode.
+     */
+    public static final PayloadCodecs DEFAULT = new PayloadCodecs(new IdentityPayloadCodec());
+
+    private final PayloadCodec writeCodec;
+    private final PayloadCodec[] readCodecs = new PayloadCodec[3];
+
+    /**
+     * @param readCodecs
+     *            codecs to decode with instead of the default instance for their format, e.g. a
+     *            {@link DeflatePayloadCodec} holding older dictionaries
+     */
+    public PayloadCodecs(PayloadCodec writeCodec, PayloadCodec... readCodecs) {
+        this.writeCodec = writeCodec;
+        register(new IdentityPayloadCodec());
+        register(new DeflatePayloadCodec());
+        register(new Lz4PayloadCodec());
+        for (PayloadCodec readCodec : readCodecs) {
+            register(readCodec);
+        }
+        register(writeCodec);
+    }
+
+    /**
+     * Returns an instance writing with the codec called {@code name}: {@code identity}, {@code deflate} or
+     * {@code lz4}.
+     * <p>
+     * {@code deflate:<file>[,<file>...]} writes with deflate primed by the dictionary stored in the first file, as
+     * returned by {@link PayloadDictionary#getBytes()}; the other files hold older dictionaries still needed to read
+     * existing values.
+     *
+     * @throws UncheckedIOException
+     *             if a dictionary file cannot be read
+     */
+    public static PayloadCodecs named(String name) {
+        int colon = name.indexOf(':');
+        if (colon >= 0) {
+            if (!"deflate".equalsIgnoreCase(name.substring(0, colon))) {
+                throw new IllegalArgumentException("Only deflate takes a dictionary but was " + name);
+            }
+            String[] files = name.substring(colon + 1).split(",");
+            PayloadDictionary[] readOnlyDictionaries = new PayloadDictionary[files.length - 1];
+            for (int i = 1; i < files.length; i++) {
+                readOnlyDictionaries[i - 1] = readDictionary(files[i]);
+            }
+            return new PayloadCodecs(new DeflatePayloadCodec(Deflater.DEFAULT_COMPRESSION, readDictionary(files[0]),
+                    readOnlyDictionaries));
+        }
+        switch (name.toLowerCase(Locale.ROOT)) {
+        case "identity":
+            return DEFAULT;
+        case "deflate":
+            return new PayloadCodecs(new DeflatePayloadCodec());
+        case "lz4":
+            return new PayloadCodecs(new Lz4PayloadCodec());
+        default:
+            throw new IllegalArgumentException("Unknown payload codec " + name);
+        }
+    }
+
+    /**
+     * Returns {@code null} for a {@code null} payload.
+     */
+    public byte[] encode(String payload) {
+        return payload == null ? null : writeCodec.encode(payload);
+    }
+
+    /**
+     * Returns {@code null} for {@code null} data.
+     *
+     * @throws IllegalArgumentException
+     *             if the format byte is unknown or the data is corrupt
+     */
+    public String decode(byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (data.length == 0 || data[0] < 0 || data[0] >= readCodecs.length) {
+            throw new IllegalArgumentException("Unknown payload format " + (data.length == 0 ? "(empty)" : data[0]));
+        }
+        return readCodecs[data[0]].decode(data);
+    }
+
+    public PayloadCodec getWriteCodec() {
+        return writeCodec;
+    }
+
+    static void checkFormat(byte[] data, byte format) {
+        if (data.length == 0 || data[0] != format) {
+            throw new IllegalArgumentException("Expected payload format " + format + " but was "
+                    + (data.length == 0 ? "(empty)" : data[0]));
+        }
+    }
+
+    private static PayloadDictionary readDictionary(String file) {
+        try {
+            return new PayloadDictionary(Files.readAllBytes(Paths.get(file.trim())));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read payload dictionary " + file, e);
+        }
+    }
+
+    private void register(PayloadCodec codec) {
+        readCodecs[codec.getFormat()] = codec;
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.doradosystems.mis.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.Adler32;
+
+/**
+ * Preset dictionary for {@link DeflatePayloadCodec}, identified by its Adler-32 checksum.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public final class PayloadDictionary {
+
+    /**
+     * Largest dictionary deflate can use; it only looks back this far.
+     */
+    public static final int MAX_SIZE = 32 * 1024;
+
+    private static final int GRAM_LENGTH = 8;
+
+    private final byte[] bytes;
+    private final int id;
+
+    public PayloadDictionary(byte[] bytes) {
+        if (bytes.length > MAX_SIZE) {
+            throw new IllegalArgumentException("Dictionary must be at most " + MAX_SIZE + " bytes but was "
+                    + bytes.length);
+        }
+        this.bytes = bytes.clone();
+        Adler32 adler = new Adler32();
+        adler.update(bytes);
+        this.id = (int) adler.getValue();
+    }
+
+    /**
+     * Builds a dictionary of at most {@code maxSize} bytes from text fragments that recur across {@code samples}.
+     * <p>
+     * A fragment is a maximal run of 8-character sequences that each occur in at least half of the samples, so the
+     * fixed layout and filler shared by claims are kept while claim-specific values are not. Fragments found in the
+     * most samples are placed last, where deflate reaches them with the shortest distances.
+     */
+    public static PayloadDictionary train(Collection<String> samples, int maxSize) {
+        Map<String, Integer> gramFrequency = new HashMap<>();
+        for (String sample : samples) {
+            Set<String> grams = new HashSet<>();
+            for (int i = 0; i + GRAM_LENGTH <= sample.length(); i++) {
+                grams.add(sample.substring(i, i + GRAM_LENGTH));
+            }
+            grams.forEach(gram -> gramFrequency.merge(gram, 1, Integer::sum));
+        }
+
+        int threshold = Math.max(2, samples.size() / 2);
+        Map<String, Integer> fragments = new HashMap<>();
+        for (String sample : samples) {
+            int i = 0;
+            while (i + GRAM_LENGTH <= sample.length()) {
+                if (gramFrequency.get(sample.substring(i, i + GRAM_LENGTH)) < threshold) {
+                    i++;
+                    continue;
+                }
+                int start = i;
+                while (i + GRAM_LENGTH <= sample.length()
+                        && gramFrequency.get(sample.substring(i, i + GRAM_LENGTH)) >= threshold) {
+                    i++;
+                }
+                fragments.merge(sample.substring(start, i - 1 + GRAM_LENGTH), 1, Integer::sum);
+            }
+        }
+
+        List<Map.Entry<String, Integer>> ranked = new ArrayList<>(fragments.entrySet());
+        ranked.sort(Map.Entry.<String, Integer> comparingByValue().reversed());
+        int limit = Math.min(maxSize, MAX_SIZE);
+        List<byte[]> selected = new ArrayList<>();
+        int size = 0;
+        for (Map.Entry<String, Integer> fragment : ranked) {
+            byte[] fragmentBytes = fragment.getKey().getBytes(StandardCharsets.UTF_8);
+            if (size + fragmentBytes.length <= limit) {
+                selected.add(fragmentBytes);
+                size += fragmentBytes.length;
+            }
+        }
+
+        byte[] dictionary = new byte[size];
+        int offset = size;
+        for (byte[] fragmentBytes : selected) {
+            offset -= fragmentBytes.length;
+            System.arraycopy(fragmentBytes, 0, dictionary, offset, fragmentBytes.length);
+        }
+        return new PayloadDictionary(dictionary);
+    }
+
+    public byte[] getBytes() {
+        return bytes.clone();
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getSize() {
+        return bytes.length;
+    }
+
+    @Override
+    public String toString() {
+        return "PayloadDictionary [id=" + Integer.toHexString(id) + ", size=" + bytes.length + "]";
+    }
+
+}
@@ -0,0 +1,152 @@
+package com.doradosystems.mis.concurrent;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Fixed set of single-threaded lanes, each with a bounded queue. Tasks submitted with equal keys run on the same lane
+ * and therefore one at a time, in submission order; tasks without a key are spread round-robin.
+ * <p>
+ * Size it to the connection pool: each lane holds at most one connection at a time, so callers can have up to
+ * {@code lanes * queueCapacity} operations in flight without more threads or connection waits. When a lane's queue is
+ * full, {@link OverflowPolicy} decides whether the caller blocks or the returned future fails.
+ * <p>
+ * A key is pinned to its lane: however many lanes are idle, the tasks of one busy key run one at a time on one thread,
+ * and share that lane's queue with every other key hashed to it. Submit work that does not need ordering with a
+ * {@code null} key so that it can run on any lane.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class StripedExecutor {
+
+    private static final Logger LOGGER = Logger.getLogger(StripedExecutor.class);
+
+    private static final long SHUTDOWN_CHECK_MILLIS = 100;
+
+    public enum OverflowPolicy {
+        /**
+         * The caller waits for queue space. This is backpressure on the caller's thread.
+         */
+        BLOCK,
+        /**
+         * The returned future completes with a {@link RejectedExecutionException}.
+         */
+        FAIL
+    }
+
+    private final ThreadPoolExecutor[] lanes;
+    private final AtomicInteger nextLane = new AtomicInteger();
+
+    public StripedExecutor(int lanes, int queueCapacity, OverflowPolicy overflowPolicy) {
+        if (lanes < 1) {
+            throw new IllegalArgumentException("lanes must be greater than zero but was " + lanes);
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity must be greater than zero but was " + queueCapacity);
+        }
+        RejectedExecutionHandler handler = overflowPolicy == OverflowPolicy.BLOCK ? StripedExecutor::waitForSpace
+                : new ThreadPoolExecutor.AbortPolicy();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.lanes = new ThreadPoolExecutor[lanes];
+        for (int i = 0; i < lanes; i++) {
+            this.lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                        Thread thread = new Thread(runnable, "claim-validation-dao-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }, handler);
+        }
+    }
+
+    /**
+     * Runs {@code task} on the lane for {@code key}, or on the next lane if {@code key} is {@code null}. The future
+     * completes on the lane's thread, so dependent stages that do real work should use the {@code *Async} variants.
+     */
+    public <T> CompletableFuture<T> submit(Object key, Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            lane(key).execute(() -> {
+                try {
+                    future.complete(task.call());
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Returns the number of tasks waiting across all lanes.
+     */
+    public int getQueueSize() {
+        int size = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            size += lane.getQueue().size();
+        }
+        return size;
+    }
+
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    /**
+     * Stops accepting tasks and waits up to {@code timeout} for queued tasks to finish.
+     *
+     * @return {@code true} if every queued task finished
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (ThreadPoolExecutor lane : lanes) {
+            if (!lane.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void shutdown() throws InterruptedException {
+        if (!shutdown(30, TimeUnit.SECONDS)) {
+            LOGGER.warn(getQueueSize() + " DAO tasks were still queued at shutdown");
+        }
+    }
+
+    private ThreadPoolExecutor lane(Object key) {
+        int hash = key == null ? nextLane.getAndIncrement() : key.hashCode();
+        return lanes[Math.floorMod(hash, lanes.length)];
+    }
+
+    private static void waitForSpace(Runnable task, ThreadPoolExecutor lane) {
+        try {
+            // poll, so that a shutdown while waiting rejects the task instead of leaving it in a dead queue
+            while (!lane.getQueue().offer(task, SHUTDOWN_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (lane.isShutdown()) {
+                    throw new RejectedExecutionException("DAO executor has been shut down");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for queue space", e);
+        }
+        // the lane may have shut down, and its thread exited, between the check and the offer
+        if (lane.isShutdown() && lane.getQueue().remove(task)) {
+            throw new RejectedExecutionException("DAO executor has been shut down");
+        }
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.doradosystems.mis.dao;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import com.doradosystems.mis.concurrent.StripedExecutor;
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationBatch.Status;
+
+/**
+ * Non-blocking facade over {@link ClaimValidationBatchDao}. Calls naming a batch id run in submission order relative
+ * to each other; the others are spread across the executor's lanes.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class AsyncClaimValidationBatchDao {
+
+    private final ClaimValidationBatchDao delegate;
+    private final StripedExecutor executor;
+
+    public AsyncClaimValidationBatchDao(ClaimValidationBatchDao delegate, StripedExecutor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<UUID> add(ClaimValidationBatch claimValidationBatch) {
+        return executor.submit(null, () -> delegate.add(claimValidationBatch));
+    }
+
+    public CompletableFuture<ClaimValidationBatch> get(UUID claimValidationBatchId) {
+        return executor.submit(claimValidationBatchId, () -> delegate.get(claimValidationBatchId));
+    }
+
+    public CompletableFuture<List<ClaimValidationBatch>> getByStatus(Status status) {
+        return executor.submit(null, () -> delegate.getByStatus(status));
+    }
+
+    public CompletableFuture<List<ClaimValidationBatch>> getByStatusWithCreateTimeAscending(Status status,
+            int limit) {
+        return executor.submit(null, () -> delegate.getByStatusWithCreateTimeAscending(status, limit));
+    }
+
+    public CompletableFuture<Integer> countByStatus(Status status) {
+        return executor.submit(null, () -> delegate.countByStatus(status));
+    }
+
+    public CompletableFuture<Integer> updateStatus(UUID claimValidationBatchId, Status status) {
+        return executor.submit(claimValidationBatchId, () -> delegate.updateStatus(claimValidationBatchId, status));
+    }
+
+    public CompletableFuture<Integer> updateStatusAndRunNumber(UUID claimValidationBatchId, Status status,
+            Long runNumber) {
+        return executor.submit(claimValidationBatchId,
+                () -> delegate.updateStatusAndRunNumber(claimValidationBatchId, status, runNumber));
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.doradosystems.mis.dao;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import com.doradosystems.mis.concurrent.StripedExecutor;
+import com.doradosystems.mis.domain.ClaimValidationRecord;
+import com.doradosystems.mis.domain.ClaimValidationRecord.Status;
+
+/**
+ * Non-blocking facade over {@link ClaimValidationRecordDao}. Each call returns immediately with a future that
+ * completes with the DAO's result, or exceptionally with its {@code DataPersistenceException} or
+ * {@code NotFoundException}.
+ * <p>
+ * Every call that reads or writes records of a batch is keyed by the batch id, so all of them run in submission order
+ * relative to each other; a record's {@link #updateStatus(UUID, UUID, Status)} cannot overtake the {@link #add} that
+ * created it. That also means all calls for one batch run on one thread, one at a time. {@link #get(UUID)} is the
+ * exception: it is not keyed, so it may run before writes submitted earlier, but reads of a busy batch need not queue
+ * behind its writes.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class AsyncClaimValidationRecordDao {
+
+    private final ClaimValidationRecordDao delegate;
+    private final StripedExecutor executor;
+
+    public AsyncClaimValidationRecordDao(ClaimValidationRecordDao delegate, StripedExecutor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<UUID> add(ClaimValidationRecord claimValidationRecord) {
+        return executor.submit(claimValidationRecord.getClaimValidationBatchId(),
+                () -> delegate.add(claimValidationRecord));
+    }
+
+    /**
+     * Reads a record in submission order with the other calls for its batch.
+     */
+    public CompletableFuture<ClaimValidationRecord> get(UUID claimValidationBatchId, UUID claimValidationRecordId) {
+        return executor.submit(claimValidationBatchId, () -> delegate.get(claimValidationRecordId));
+    }
+
+    /**
+     * Reads a record on any lane, without waiting for calls submitted earlier.
+     */
+    public CompletableFuture<ClaimValidationRecord> get(UUID claimValidationRecordId) {
+        return executor.submit(null, () -> delegate.get(claimValidationRecordId));
+    }
+
+    public CompletableFuture<List<ClaimValidationRecord>> getByBatchIdAndRunNumber(UUID claimValidationBatchId,
+            Long runNumber) {
+        return executor.submit(claimValidationBatchId,
+                () -> delegate.getByBatchIdAndRunNumber(claimValidationBatchId, runNumber));
+    }
+
+    public CompletableFuture<List<ClaimValidationRecord>> getByBatchIdAndRunNumberOrderByUpdateDateDescending(
+            UUID claimValidationBatchId, Long runNumber, int limit) {
+        return executor.submit(claimValidationBatchId, () -> delegate
+                .getByBatchIdAndRunNumberOrderByUpdateDateDescending(claimValidationBatchId, runNumber, limit));
+    }
+
+    public CompletableFuture<Integer> countByBatchIdAndRunNumberAndStatus(UUID claimValidationBatchId,
+            Long runNumber, Status status) {
+        return executor.submit(claimValidationBatchId,
+                () -> delegate.countByBatchIdAndRunNumberAndStatus(claimValidationBatchId, runNumber, status));
+    }
+
+    public CompletableFuture<Integer> updateStatus(UUID claimValidationBatchId, UUID claimValidationRecordId,
+            Status status) {
+        return executor.submit(claimValidationBatchId, () -> delegate.updateStatus(claimValidationRecordId, status));
+    }
+
+    public CompletableFuture<Integer> updateStatusAndRunNumber(UUID claimValidationBatchId, Long runNumber,
+            Status status, Long newRunNumber, Status newStatus) {
+        return executor.submit(claimValidationBatchId, () -> delegate.updateStatusAndRunNumber(claimValidationBatchId,
+                runNumber, status, newRunNumber, newStatus));
+    }
+
+}
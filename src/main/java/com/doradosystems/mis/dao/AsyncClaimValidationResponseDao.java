@@ -0,0 +1,47 @@
+package com.doradosystems.mis.dao;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import com.doradosystems.mis.concurrent.StripedExecutor;
+import com.doradosystems.mis.domain.ClaimValidationResponse;
+import com.doradosystems.mis.domain.ClaimValidationResponse.Status;
+import com.doradosystems.mis.domain.ClaimValidationResponseIdentifier;
+
+/**
+ * Non-blocking facade over {@link ClaimValidationResponseDao}. Calls naming a batch id run in submission order
+ * relative to each other.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class AsyncClaimValidationResponseDao {
+
+    private final ClaimValidationResponseDao delegate;
+    private final StripedExecutor executor;
+
+    public AsyncClaimValidationResponseDao(ClaimValidationResponseDao delegate, StripedExecutor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<UUID> add(ClaimValidationResponse claimValidationResponse) {
+        return executor.submit(claimValidationResponse.getClaimValidationBatchId(),
+                () -> delegate.add(claimValidationResponse));
+    }
+
+    public CompletableFuture<List<ClaimValidationResponse>> get(UUID claimValidationBatchId, Long runNumber) {
+        return executor.submit(claimValidationBatchId, () -> delegate.get(claimValidationBatchId, runNumber));
+    }
+
+    public CompletableFuture<List<ClaimValidationResponseIdentifier>> getPendingResponseIdentifiers() {
+        return executor.submit(null, delegate::getPendingResponseIdentifiers);
+    }
+
+    public CompletableFuture<Integer> updateStatus(UUID claimValidationBatchId, Long runNumber, Status status) {
+        return executor.submit(claimValidationBatchId,
+                () -> delegate.updateStatus(claimValidationBatchId, runNumber, status));
+    }
+
+}
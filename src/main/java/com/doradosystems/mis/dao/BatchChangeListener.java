@@ -0,0 +1,18 @@
+package com.doradosystems.mis.dao;
+
+import java.util.UUID;
+
+/**
+ * Told about batches changed by a DAO other than the one the listener wraps, e.g. to drop cached copies.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public interface BatchChangeListener {
+
+    /**
+     * Called once the transaction that changed the batch has completed, whether it committed or rolled back.
+     */
+    void batchChanged(UUID claimValidationBatchId);
+
+}
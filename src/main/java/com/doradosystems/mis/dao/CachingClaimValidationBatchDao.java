@@ -0,0 +1,231 @@
+package com.doradosystems.mis.dao;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import com.doradosystems.exception.DataPersistenceException;
+import com.doradosystems.exception.NotFoundException;
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationBatch.Status;
+
+/**
+ * {@link ClaimValidationBatchDao} that caches {@link #get(UUID)}, so it can be injected wherever a
+ * {@link ClaimValidationBatchDao} is, e.g. into {@link InstrumentedClaimValidationBatchDao}. Calls other than
+ * {@link #get(UUID)} and the status updates are inherited.
+ * <p>
+ * Entries are evicted least-recently-used once {@code maximumSize} is reached and expire {@code timeToLive} after
+ * they were loaded. Ids that do not exist are cached for {@code notFoundTimeToLive}. Status updates made through this
+ * class invalidate the entry, and a load that raced with an invalidation is not stored, so a cached read is never
+ * older than a write made through this instance. Writes made elsewhere are visible at once if the writer calls
+ * {@link #batchChanged(UUID)}, as {@link ClaimValidationRunRolloverDao} and {@link ClaimValidationBatchWorkQueue} do
+ * for their listeners, so register the cache with both. Any other write, e.g. batches deleted by
+ * {@link ClaimValidationPartitionDao} or changed outside this module, is only visible after {@code timeToLive}; only
+ * callers that tolerate reading a batch that old may use the cache.
+ * <p>
+ * The entries are split by id over {@code concurrencyLevel} segments, each with its own lock and an equal share of
+ * {@code maximumSize}, so concurrent gets of different batches rarely wait for each other. Eviction is
+ * least-recently-used within a segment, not across the whole cache.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class CachingClaimValidationBatchDao extends ClaimValidationBatchDao implements BatchChangeListener {
+
+    public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    private static final Object NOT_FOUND = new Object();
+
+    private final long timeToLiveNanos;
+    private final long notFoundTimeToLiveNanos;
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CachingClaimValidationBatchDao(DataSource dataSource, int maximumSize, Duration timeToLive,
+            Duration notFoundTimeToLive) {
+        this(dataSource, maximumSize, timeToLive, notFoundTimeToLive, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    public CachingClaimValidationBatchDao(DataSource dataSource, int maximumSize, Duration timeToLive,
+            Duration notFoundTimeToLive, int concurrencyLevel) {
+        super(dataSource);
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("maximumSize must be greater than zero but was " + maximumSize);
+        }
+        if (concurrencyLevel < 1) {
+            throw new IllegalArgumentException(
+                    "concurrencyLevel must be greater than zero but was " + concurrencyLevel);
+        }
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.notFoundTimeToLiveNanos = notFoundTimeToLive.toNanos();
+        this.segments = new Segment[Math.min(concurrencyLevel, maximumSize)];
+        for (int i = 0; i < segments.length; i++) {
+            // spread the remainder so that the segments add up to maximumSize
+            segments[i] = new Segment(maximumSize / segments.length + (i < maximumSize % segments.length ? 1 : 0));
+        }
+    }
+
+    @Override
+    public ClaimValidationBatch get(UUID claimValidationBatchId) throws DataPersistenceException, NotFoundException {
+        long now = System.nanoTime();
+        Segment segment = segmentFor(claimValidationBatchId);
+        long generation;
+        synchronized (segment) {
+            Entry entry = segment.get(claimValidationBatchId);
+            if (entry != null) {
+                if (now - entry.loadedAt < entry.timeToLiveNanos) {
+                    hits.increment();
+                    return entry.unwrap(claimValidationBatchId);
+                }
+                segment.remove(claimValidationBatchId);
+                evictions.increment();
+            }
+            generation = segment.invalidations;
+        }
+        misses.increment();
+
+        ClaimValidationBatch batch;
+        try {
+            batch = super.get(claimValidationBatchId);
+        } catch (NotFoundException e) {
+            store(segment, claimValidationBatchId, new Entry(NOT_FOUND, now, notFoundTimeToLiveNanos), generation);
+            throw e;
+        }
+        store(segment, claimValidationBatchId, new Entry(batch, now, timeToLiveNanos), generation);
+        return batch;
+    }
+
+    @Override
+    public int updateStatus(UUID claimValidationBatchId, Status status)
+            throws DataPersistenceException, NotFoundException {
+        try {
+            return super.updateStatus(claimValidationBatchId, status);
+        } finally {
+            invalidate(claimValidationBatchId);
+        }
+    }
+
+    @Override
+    public int updateStatusAndRunNumber(UUID claimValidationBatchId, Status status, Long runNumber)
+            throws DataPersistenceException, NotFoundException {
+        try {
+            return super.updateStatusAndRunNumber(claimValidationBatchId, status, runNumber);
+        } finally {
+            invalidate(claimValidationBatchId);
+        }
+    }
+
+    /**
+     * Drops the cached entry for a batch, e.g. after it was changed through another DAO.
+     */
+    public void invalidate(UUID claimValidationBatchId) {
+        Segment segment = segmentFor(claimValidationBatchId);
+        synchronized (segment) {
+            segment.invalidations++;
+            segment.remove(claimValidationBatchId);
+        }
+    }
+
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.invalidations++;
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * Same as {@link #invalidate(UUID)}.
+     */
+    @Override
+    public void batchChanged(UUID claimValidationBatchId) {
+        invalidate(claimValidationBatchId);
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public int getSize() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    private Segment segmentFor(UUID claimValidationBatchId) {
+        return segments[Math.floorMod(claimValidationBatchId.hashCode(), segments.length)];
+    }
+
+    private static void store(Segment segment, UUID claimValidationBatchId, Entry entry, long generation) {
+        synchronized (segment) {
+            if (generation == segment.invalidations) {
+                segment.put(claimValidationBatchId, entry);
+            }
+        }
+    }
+
+    /**
+     * One lock's share of the entries, guarded by synchronizing on the segment itself.
+     */
+    private final class Segment extends LinkedHashMap<UUID, Entry> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maximumSize;
+        private long invalidations;
+
+        Segment(int maximumSize) {
+            super(16, 0.75f, true);
+            this.maximumSize = maximumSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, Entry> eldest) {
+            if (size() > maximumSize) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static final class Entry {
+
+        private final Object value;
+        private final long loadedAt;
+        private final long timeToLiveNanos;
+
+        Entry(Object value, long loadedAt, long timeToLiveNanos) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+            this.timeToLiveNanos = timeToLiveNanos;
+        }
+
+        ClaimValidationBatch unwrap(UUID claimValidationBatchId) throws NotFoundException {
+            if (value == NOT_FOUND) {
+                throw new NotFoundException("Claim validation batch " + claimValidationBatchId + " not found");
+            }
+            return (ClaimValidationBatch) value;
+        }
+    }
+
+}
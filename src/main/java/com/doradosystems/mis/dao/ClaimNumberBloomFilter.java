@@ -0,0 +1,100 @@
+package com.doradosystems.mis.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter over claim numbers.
+ * <p>
+ * {@link #mightContain(String)} never returns {@code false} for a claim number that was {@link #put(String) put},
+ * and returns {@code true} for a claim number that was not put with roughly the false positive probability the filter
+ * was sized for, as long as no more than {@code expectedInsertions} claim numbers were put. Claim numbers cannot be
+ * removed.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public final class ClaimNumberBloomFilter {
+
+    /** Bit indexes are derived from 32-bit hashes. */
+    private static final long MAXIMUM_BITS = 1L << 32;
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    public ClaimNumberBloomFilter(int expectedInsertions, double falsePositiveProbability) {
+        if (expectedInsertions < 1) {
+            throw new IllegalArgumentException("expectedInsertions must be greater than zero but was "
+                    + expectedInsertions);
+        }
+        if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("falsePositiveProbability must be between 0 and 1 but was "
+                    + falsePositiveProbability);
+        }
+        long optimalBits = Math.min(MAXIMUM_BITS, (long) Math.ceil(-expectedInsertions
+                * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2))));
+        this.bits = new AtomicLongArray((int) ((Math.max(optimalBits, Long.SIZE) + Long.SIZE - 1) / Long.SIZE));
+        this.bitCount = (long) bits.length() * Long.SIZE;
+        this.hashCount = Math.max(1, (int) Math.round((double) optimalBits / expectedInsertions * Math.log(2)));
+    }
+
+    public void put(String claimNumber) {
+        long hash = hash(claimNumber);
+        int first = (int) hash;
+        int second = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = index(first + i * second);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long value;
+            do {
+                value = bits.get(word);
+            } while ((value & mask) == 0 && !bits.compareAndSet(word, value, value | mask));
+        }
+    }
+
+    public boolean mightContain(String claimNumber) {
+        long hash = hash(claimNumber);
+        int first = (int) hash;
+        int second = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = index(first + i * second);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    private long index(int combinedHash) {
+        return ((combinedHash & 0xffffffffL) * bitCount) >>> 32;
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 mixer so both halves are usable as independent
+     * hashes.
+     */
+    private static long hash(String claimNumber) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : claimNumber.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.doradosystems.mis.dao;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.apache.log4j.Logger;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.doradosystems.exception.DataPersistenceException;
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationBatch.Status;
+
+/**
+ * Paged read operations for {@link ClaimValidationBatch}es.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class ClaimValidationBatchQueryDao {
+
+    private static final Logger LOGGER = Logger.getLogger(ClaimValidationBatchQueryDao.class);
+
+    private static final String SELECT_PAGE_BY_STATUS_SQL = "SELECT " + ClaimValidationRowMappers.BATCH_COLUMNS
+            + " FROM mis_claim_validation_service.claim_validation_batch"
+            + " WHERE status = ?::mis_claim_validation_service.status"
+            + " ORDER BY create_date, claim_validation_batch_id LIMIT ?";
+    private static final String SELECT_NEXT_PAGE_BY_STATUS_SQL = "SELECT " + ClaimValidationRowMappers.BATCH_COLUMNS
+            + " FROM mis_claim_validation_service.claim_validation_batch"
+            + " WHERE status = ?::mis_claim_validation_service.status"
+            + " AND (create_date, claim_validation_batch_id) > (?, ?)"
+            + " ORDER BY create_date, claim_validation_batch_id LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ClaimValidationBatchQueryDao(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Returns a page of batches in {@code status}, oldest first. Batches created at the same instant are ordered by
+     * ascending id.
+     * <p>
+     * Pass {@code null} for {@code afterCreateDate} and {@code afterId} to read the first page; for later pages pass
+     * the create date and id of the last batch of the previous page.
+     */
+    public List<ClaimValidationBatch> getByStatusWithCreateTimeAscending(Status status, Date afterCreateDate,
+            UUID afterId, int limit) throws DataPersistenceException {
+        try {
+            if (afterCreateDate == null || afterId == null) {
+                return jdbcTemplate.query(SELECT_PAGE_BY_STATUS_SQL, ClaimValidationRowMappers.BATCH,
+                        status.toString(), limit);
+            }
+            return jdbcTemplate.query(SELECT_NEXT_PAGE_BY_STATUS_SQL, ClaimValidationRowMappers.BATCH,
+                    status.toString(), ClaimValidationRowMappers.toTimestamp(afterCreateDate), afterId, limit);
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to page claim validation batches with status " + status, e);
+            throw new DataPersistenceException("Unable to page claim validation batches with status " + status, e);
+        }
+    }
+
+}
@@ -0,0 +1,207 @@
+package com.doradosystems.mis.dao;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.sql.DataSource;
+
+import org.apache.log4j.Logger;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.doradosystems.exception.DataPersistenceException;
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationBatch.Status;
+import com.doradosystems.mis.domain.ClaimValidationBatchLease;
+
+/**
+ * Hands out {@link ClaimValidationBatch}es to competing workers.
+ * <p>
+ * {@link #claimNext(Status, Status, int)} moves batches to a new status and records this queue's {@code owner}, a
+ * fresh lease token and a lease expiry in one statement. Rows locked by another claimer are skipped rather than waited
+ * on, so any number of nodes can poll concurrently without ever receiving the same batch. A worker that dies keeps its
+ * lease until it expires, after which {@link #reclaimExpired(Status, Status)} makes the batch claimable again.
+ * <p>
+ * Renewing and releasing require the token of the claim, not just the owner, so a worker whose lease expired cannot
+ * renew or release a later claim of the same batch, even one made under the same owner.
+ * <p>
+ * Claiming, releasing and reclaiming change the status of batches, so the {@link BatchChangeListener}s are told about
+ * each of them, e.g. to keep a {@link CachingClaimValidationBatchDao} from serving the old status. Inside a
+ * transaction started by the caller they are told once it completes, otherwise as soon as the statement returns.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class ClaimValidationBatchWorkQueue {
+
+    private static final Logger LOGGER = Logger.getLogger(ClaimValidationBatchWorkQueue.class);
+
+    private static final String CLAIM_SQL = "UPDATE mis_claim_validation_service.claim_validation_batch"
+            + " SET status = ?::mis_claim_validation_service.status, lease_owner = ?, lease_token = ?,"
+            + " lease_expires_at = now() + ? * interval '1 millisecond', updated_date = now()"
+            + " WHERE claim_validation_batch_id IN ("
+            + "SELECT claim_validation_batch_id FROM mis_claim_validation_service.claim_validation_batch"
+            + " WHERE status = ?::mis_claim_validation_service.status"
+            + " ORDER BY create_date, claim_validation_batch_id LIMIT ? FOR UPDATE SKIP LOCKED)"
+            + " RETURNING " + ClaimValidationRowMappers.BATCH_COLUMNS + ", lease_token, lease_expires_at";
+    private static final String RENEW_SQL = "UPDATE mis_claim_validation_service.claim_validation_batch"
+            + " SET lease_expires_at = now() + ? * interval '1 millisecond'"
+            + " WHERE claim_validation_batch_id = ? AND lease_token = ?";
+    private static final String RELEASE_SQL = "UPDATE mis_claim_validation_service.claim_validation_batch"
+            + " SET status = ?::mis_claim_validation_service.status, lease_owner = NULL, lease_token = NULL,"
+            + " lease_expires_at = NULL, updated_date = now()"
+            + " WHERE claim_validation_batch_id = ? AND lease_token = ?";
+    private static final String RECLAIM_SQL = "UPDATE mis_claim_validation_service.claim_validation_batch"
+            + " SET status = ?::mis_claim_validation_service.status, lease_owner = NULL, lease_token = NULL,"
+            + " lease_expires_at = NULL, updated_date = now()"
+            + " WHERE status = ?::mis_claim_validation_service.status AND lease_expires_at < now()"
+            + " RETURNING claim_validation_batch_id";
+
+    private static final RowMapper<ClaimValidationBatchLease> LEASE = (rs, rowNum) -> new ClaimValidationBatchLease(
+            ClaimValidationRowMappers.BATCH.mapRow(rs, rowNum),
+            (UUID) rs.getObject("lease_token"),
+            rs.getTimestamp("lease_expires_at"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String owner;
+    private final long leaseMillis;
+    private final List<BatchChangeListener> batchChangeListeners = new CopyOnWriteArrayList<>();
+
+    public ClaimValidationBatchWorkQueue(DataSource dataSource, String owner, Duration lease) {
+        if (lease.isNegative() || lease.isZero()) {
+            throw new IllegalArgumentException("lease must be positive but was " + lease);
+        }
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.owner = owner;
+        this.leaseMillis = lease.toMillis();
+    }
+
+    public void setBatchChangeListeners(List<BatchChangeListener> batchChangeListeners) {
+        this.batchChangeListeners.clear();
+        this.batchChangeListeners.addAll(batchChangeListeners);
+    }
+
+    public void addBatchChangeListener(BatchChangeListener listener) {
+        batchChangeListeners.add(listener);
+    }
+
+    /**
+     * Claims up to {@code limit} of the oldest batches in status {@code from}, moving them to {@code to} and leasing
+     * them to this queue's owner under one new lease token.
+     *
+     * @return the leases on the claimed batches, possibly fewer than {@code limit}, in no particular order
+     */
+    public List<ClaimValidationBatchLease> claimNext(Status from, Status to, int limit)
+            throws DataPersistenceException {
+        try {
+            List<ClaimValidationBatchLease> leases = jdbcTemplate.query(CLAIM_SQL, LEASE, to.toString(), owner,
+                    UUID.randomUUID(), leaseMillis, from.toString(), limit);
+            List<UUID> ids = new ArrayList<>(leases.size());
+            for (ClaimValidationBatchLease lease : leases) {
+                ids.add(lease.getClaimValidationBatchId());
+            }
+            notifyBatchesChanged(ids);
+            return leases;
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to claim claim validation batches with status " + from, e);
+            throw new DataPersistenceException("Unable to claim claim validation batches with status " + from, e);
+        }
+    }
+
+    /**
+     * Extends a lease that is still held.
+     *
+     * @return {@code false} if the lease expired and the batch was reclaimed, or the lease was released
+     */
+    public boolean renewLease(ClaimValidationBatchLease lease) throws DataPersistenceException {
+        try {
+            return jdbcTemplate.update(RENEW_SQL, leaseMillis, lease.getClaimValidationBatchId(),
+                    lease.getLeaseToken()) == 1;
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to renew " + lease, e);
+            throw new DataPersistenceException("Unable to renew " + lease, e);
+        }
+    }
+
+    /**
+     * Moves a batch claimed with {@code lease} to {@code status} and drops the lease.
+     *
+     * @return {@code false} if the lease is no longer held, e.g. because it expired and the batch was reclaimed
+     */
+    public boolean release(ClaimValidationBatchLease lease, Status status) throws DataPersistenceException {
+        try {
+            if (jdbcTemplate.update(RELEASE_SQL, status.toString(), lease.getClaimValidationBatchId(),
+                    lease.getLeaseToken()) == 0) {
+                return false;
+            }
+            notifyBatchesChanged(Collections.singleton(lease.getClaimValidationBatchId()));
+            return true;
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to release " + lease, e);
+            throw new DataPersistenceException("Unable to release " + lease, e);
+        }
+    }
+
+    /**
+     * Returns batches in status {@code leased} whose lease has expired to status {@code to}, whoever owned them.
+     *
+     * @return the number of batches reclaimed
+     */
+    public int reclaimExpired(Status leased, Status to) throws DataPersistenceException {
+        try {
+            List<UUID> reclaimed = jdbcTemplate.queryForList(RECLAIM_SQL, UUID.class, to.toString(),
+                    leased.toString());
+            if (!reclaimed.isEmpty()) {
+                LOGGER.info("Reclaimed " + reclaimed.size() + " claim validation batches with expired leases");
+                notifyBatchesChanged(reclaimed);
+            }
+            return reclaimed.size();
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to reclaim claim validation batches with status " + leased, e);
+            throw new DataPersistenceException("Unable to reclaim claim validation batches with status " + leased, e);
+        }
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    private void notifyBatchesChanged(Collection<UUID> claimValidationBatchIds) {
+        if (claimValidationBatchIds.isEmpty() || batchChangeListeners.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            notifyListeners(claimValidationBatchIds);
+            return;
+        }
+        // a listener told before the commit could reload and keep the old row
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+            @Override
+            public void afterCompletion(int status) {
+                notifyListeners(claimValidationBatchIds);
+            }
+        });
+    }
+
+    private void notifyListeners(Collection<UUID> claimValidationBatchIds) {
+        for (UUID claimValidationBatchId : claimValidationBatchIds) {
+            for (BatchChangeListener listener : batchChangeListeners) {
+                try {
+                    listener.batchChanged(claimValidationBatchId);
+                } catch (RuntimeException e) {
+                    LOGGER.error("Listener failed on claim validation batch " + claimValidationBatchId, e);
+                }
+            }
+        }
+    }
+
+}
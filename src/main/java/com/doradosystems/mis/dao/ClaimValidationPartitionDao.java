@@ -0,0 +1,253 @@
+package com.doradosystems.mis.dao;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.apache.log4j.Logger;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.doradosystems.exception.DataPersistenceException;
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+
+/**
+ * Manages the per-batch partitions of {@code claim_validation_record} and {@code claim_validation_response}.
+ * <p>
+ * A batch's partitions must be created before its first record is written; {@link #addBatch(ClaimValidationBatch)}
+ * does both. Records of batches without partitions land in the default partition, which works but is neither
+ * pruned nor cheap to purge.
+ * <p>
+ * A partition is created as a standalone table and then attached, which takes a SHARE UPDATE EXCLUSIVE lock on the
+ * parent, so reads and writes of other batches go on. Attaching still takes an ACCESS EXCLUSIVE lock on the default
+ * partition and scans all of it to prove it holds no rows of the new batch, so adding a batch costs time in
+ * proportion to the rows left in the default partition and blocks queries that read it meanwhile. Run
+ * {@link #drainDefaultPartition()} once after migrating to move the rows of existing batches into partitions of
+ * their own and keep that scan short.
+ * <p>
+ * Each batch adds two tables with their TOAST tables and indexes, about a dozen relations and their catalog rows.
+ * Queries that filter on the batch id are pruned to one partition and do not slow down as batches accumulate.
+ * Queries that do not plan, lock and probe every partition. Those include the claim number lookups of
+ * {@link ClaimValidationRecordQueryDao} and the status counts, and every access by record or response id alone:
+ * {@code get(id)} and {@code updateStatus(id)} of the record and response DAOs, the bulk status updates, the response
+ * work queue's {@code complete}, the bulk response DAO's record check and the write-behind flush. Indexes on the ids
+ * keep each probe to one index lookup per partition, but such queries still take a lock on each partition and on
+ * each index they probe, and the shared lock table holds {@code max_locks_per_transaction} (64 by default) times
+ * {@code max_connections} entries, so over a few thousand batches they can fail with "out of shared memory". Keep the
+ * number of live batches in the hundreds with {@link #purgeOlderThan(Instant)}, or raise
+ * {@code max_locks_per_transaction} accordingly.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class ClaimValidationPartitionDao {
+
+    private static final Logger LOGGER = Logger.getLogger(ClaimValidationPartitionDao.class);
+
+    private static final String SCHEMA = "mis_claim_validation_service";
+    private static final String RECORD_TABLE = "claim_validation_record";
+    private static final String RESPONSE_TABLE = "claim_validation_response";
+
+    private static final String SELECT_BATCH_IDS_CREATED_BEFORE_SQL = "SELECT claim_validation_batch_id"
+            + " FROM mis_claim_validation_service.claim_validation_batch WHERE create_date < ?"
+            + " ORDER BY create_date";
+    private static final String PARTITION_EXISTS_SQL = "SELECT to_regclass(?) IS NOT NULL";
+    private static final String PARTITION_ATTACHED_SQL = "SELECT EXISTS (SELECT 1 FROM pg_inherits"
+            + " WHERE inhrelid = to_regclass(?))";
+    private static final String SELECT_DEFAULT_PARTITION_BATCH_IDS_SQL = "SELECT claim_validation_batch_id"
+            + " FROM mis_claim_validation_service.claim_validation_record_default"
+            + " UNION SELECT claim_validation_batch_id"
+            + " FROM mis_claim_validation_service.claim_validation_response_default";
+    private static final String DELETE_RESPONSES_SQL = "DELETE FROM mis_claim_validation_service.claim_validation_response"
+            + " WHERE claim_validation_batch_id = ?";
+    private static final String DELETE_RECORDS_SQL = "DELETE FROM mis_claim_validation_service.claim_validation_record"
+            + " WHERE claim_validation_batch_id = ?";
+    private static final String DELETE_BATCH_SQL = "DELETE FROM mis_claim_validation_service.claim_validation_batch"
+            + " WHERE claim_validation_batch_id = ?";
+
+    private final ClaimValidationBatchDao batchDao;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public ClaimValidationPartitionDao(DataSource dataSource, ClaimValidationBatchDao batchDao) {
+        this.batchDao = batchDao;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    /**
+     * Adds a batch and creates its record and response partitions.
+     */
+    public UUID addBatch(ClaimValidationBatch claimValidationBatch) throws DataPersistenceException {
+        UUID id = batchDao.add(claimValidationBatch);
+        createPartitions(id);
+        return id;
+    }
+
+    /**
+     * Creates the record and response partitions of a batch if they do not exist yet.
+     *
+     * @throws DataPersistenceException
+     *             if the default partition already holds rows of the batch
+     */
+    public void createPartitions(UUID claimValidationBatchId) throws DataPersistenceException {
+        try {
+            transactionTemplate.execute(status -> {
+                createPartition(RECORD_TABLE, claimValidationBatchId);
+                createPartition(RESPONSE_TABLE, claimValidationBatchId);
+                return null;
+            });
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to create partitions for claim validation batch " + claimValidationBatchId, e);
+            throw new DataPersistenceException("Unable to create partitions for claim validation batch "
+                    + claimValidationBatchId, e);
+        }
+    }
+
+    public boolean hasPartitions(UUID claimValidationBatchId) throws DataPersistenceException {
+        try {
+            return partitionExists(partitionName(RECORD_TABLE, claimValidationBatchId));
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to look up partitions of claim validation batch " + claimValidationBatchId, e);
+            throw new DataPersistenceException("Unable to look up partitions of claim validation batch "
+                    + claimValidationBatchId, e);
+        }
+    }
+
+    /**
+     * Moves the rows of every batch in the default partition into partitions of their own, one batch per
+     * transaction. Each move locks the default partition and scans what is left of it, so run this once, off-peak,
+     * after migrating an existing database; later batches get their partitions from
+     * {@link #addBatch(ClaimValidationBatch)}. The moved rows keep their status counts, and no status change is
+     * published for them.
+     *
+     * @return the number of batches moved
+     * @throws DataPersistenceException
+     *             if a batch could not be moved. Batches moved before it stay moved.
+     */
+    public int drainDefaultPartition() throws DataPersistenceException {
+        List<UUID> batchIds;
+        try {
+            batchIds = jdbcTemplate.queryForList(SELECT_DEFAULT_PARTITION_BATCH_IDS_SQL, UUID.class);
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to find claim validation batches in the default partition", e);
+            throw new DataPersistenceException("Unable to find claim validation batches in the default partition", e);
+        }
+        int drained = 0;
+        for (UUID batchId : batchIds) {
+            try {
+                transactionTemplate.execute(status -> {
+                    // responses first, so that no attached response references the records while they move
+                    moveOutOfDefault(RESPONSE_TABLE, batchId);
+                    moveOutOfDefault(RECORD_TABLE, batchId);
+                    createPartition(RECORD_TABLE, batchId);
+                    createPartition(RESPONSE_TABLE, batchId);
+                    return null;
+                });
+            } catch (DataAccessException e) {
+                LOGGER.error("Unable to move claim validation batch " + batchId + " out of the default partition", e);
+                throw new DataPersistenceException("Unable to move claim validation batch " + batchId
+                        + " out of the default partition; " + drained + " batches were already moved", e);
+            }
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * Removes every batch created before {@code cutoff} together with its records and responses, one batch per
+     * transaction. Partitioned batches are removed by dropping their partitions, which takes constant time whatever
+     * their size; rows left in the default partition are deleted.
+     *
+     * @return the number of batches removed
+     * @throws DataPersistenceException
+     *             if a batch could not be removed. Batches removed before it stay removed.
+     */
+    public int purgeOlderThan(Instant cutoff) throws DataPersistenceException {
+        List<UUID> batchIds;
+        try {
+            batchIds = jdbcTemplate.queryForList(SELECT_BATCH_IDS_CREATED_BEFORE_SQL, UUID.class,
+                    Timestamp.from(cutoff));
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to find claim validation batches created before " + cutoff, e);
+            throw new DataPersistenceException("Unable to find claim validation batches created before " + cutoff, e);
+        }
+        int purged = 0;
+        for (UUID batchId : batchIds) {
+            try {
+                transactionTemplate.execute(status -> {
+                    dropPartition(RESPONSE_TABLE, batchId);
+                    dropPartition(RECORD_TABLE, batchId);
+                    jdbcTemplate.update(DELETE_RESPONSES_SQL, batchId);
+                    jdbcTemplate.update(DELETE_RECORDS_SQL, batchId);
+                    jdbcTemplate.update(DELETE_BATCH_SQL, batchId);
+                    return null;
+                });
+            } catch (DataAccessException e) {
+                LOGGER.error("Unable to purge claim validation batch " + batchId, e);
+                throw new DataPersistenceException("Unable to purge claim validation batch " + batchId + "; " + purged
+                        + " batches were already purged", e);
+            }
+            purged++;
+        }
+        return purged;
+    }
+
+    /**
+     * Returns the schema-qualified name of a batch's partition of {@code table}. UUIDs are fixed-length hex, so the
+     * name is safe to use unquoted and fits PostgreSQL's 63-character limit.
+     */
+    static String partitionName(String table, UUID claimValidationBatchId) {
+        return SCHEMA + "." + table + "_" + claimValidationBatchId.toString().replace("-", "");
+    }
+
+    private void createPartition(String table, UUID claimValidationBatchId) {
+        if (!partitionAttached(partitionName(table, claimValidationBatchId))) {
+            createStandaloneTable(table, claimValidationBatchId);
+            attachPartition(table, claimValidationBatchId);
+        }
+    }
+
+    /**
+     * Creates the table that becomes a batch's partition. CREATE TABLE ... PARTITION OF would lock the parent
+     * ACCESS EXCLUSIVE; attaching a table afterwards only needs SHARE UPDATE EXCLUSIVE.
+     */
+    private void createStandaloneTable(String table, UUID claimValidationBatchId) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(table, claimValidationBatchId) + " (LIKE "
+                + SCHEMA + "." + table + " INCLUDING DEFAULTS INCLUDING STORAGE)");
+    }
+
+    private void attachPartition(String table, UUID claimValidationBatchId) {
+        jdbcTemplate.execute("ALTER TABLE " + SCHEMA + "." + table + " ATTACH PARTITION "
+                + partitionName(table, claimValidationBatchId) + " FOR VALUES IN ('" + claimValidationBatchId + "')");
+    }
+
+    private void moveOutOfDefault(String table, UUID claimValidationBatchId) {
+        createStandaloneTable(table, claimValidationBatchId);
+        jdbcTemplate.update("WITH moved AS (DELETE FROM " + SCHEMA + "." + table + "_default"
+                + " WHERE claim_validation_batch_id = ? RETURNING *) INSERT INTO "
+                + partitionName(table, claimValidationBatchId) + " SELECT * FROM moved", claimValidationBatchId);
+    }
+
+    private void dropPartition(String table, UUID claimValidationBatchId) {
+        String partition = partitionName(table, claimValidationBatchId);
+        if (partitionExists(partition)) {
+            jdbcTemplate.execute("ALTER TABLE " + SCHEMA + "." + table + " DETACH PARTITION " + partition);
+            jdbcTemplate.execute("DROP TABLE " + partition);
+        }
+    }
+
+    private boolean partitionExists(String partition) {
+        return jdbcTemplate.queryForObject(PARTITION_EXISTS_SQL, Boolean.class, partition);
+    }
+
+    private boolean partitionAttached(String partition) {
+        return jdbcTemplate.queryForObject(PARTITION_ATTACHED_SQL, Boolean.class, partition);
+    }
+
+}
@@ -0,0 +1,194 @@
+package com.doradosystems.mis.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.apache.log4j.Logger;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.doradosystems.exception.DataPersistenceException;
+import com.doradosystems.mis.domain.ClaimValidationRecord;
+import com.doradosystems.mis.domain.ClaimValidationRecord.Status;
+
+/**
+ * Bulk write operations for {@link ClaimValidationRecord}s.
+ * <p>
+ * Records are written in chunks of {@code chunkSize} rows using a single batched prepared statement per chunk. Each
+ * chunk is committed in its own transaction, so a failing chunk leaves every previous chunk in place. Status
+ * transitions for an id set are applied with one {@code UPDATE ... RETURNING} that takes the ids as a single
+ * {@code uuid[]} parameter, however many there are.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class ClaimValidationRecordBulkDao {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    private static final Logger LOGGER = Logger.getLogger(ClaimValidationRecordBulkDao.class);
+
+    private static final String INSERT_SQL = "INSERT INTO mis_claim_validation_service.claim_validation_record "
+            + "(claim_validation_record_id, claim_validation_batch_id, run_number, status, claim_number, record) "
+            + "VALUES (?, ?, ?, ?::mis_claim_validation_service.status, ?, ?)";
+    private static final String UPDATE_STATUS_SQL = "UPDATE mis_claim_validation_service.claim_validation_record"
+            + " SET status = :status::mis_claim_validation_service.status, updated_date = now()"
+            + " WHERE claim_validation_record_id = ANY(:ids::uuid[])"
+            + " RETURNING claim_validation_record_id";
+    private static final String COMPARE_AND_SET_STATUS_SQL = "UPDATE mis_claim_validation_service.claim_validation_record"
+            + " SET status = :status::mis_claim_validation_service.status, updated_date = now()"
+            + " WHERE claim_validation_record_id = ANY(:ids::uuid[])"
+            + " AND status = :expectedStatus::mis_claim_validation_service.status"
+            + " RETURNING claim_validation_record_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public ClaimValidationRecordBulkDao(DataSource dataSource) {
+        this(dataSource, DEFAULT_CHUNK_SIZE);
+    }
+
+    public ClaimValidationRecordBulkDao(DataSource dataSource, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be greater than zero but was " + chunkSize);
+        }
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Adds every record in {@code records}.
+     *
+     * @return the generated ids, in the same order as {@code records}
+     * @throws DataPersistenceException
+     *             if a chunk could not be written. Chunks written before the failing one remain committed.
+     */
+    public List<UUID> addAll(Collection<ClaimValidationRecord> records) throws DataPersistenceException {
+        return addAll(records.iterator());
+    }
+
+    /**
+     * Adds every record returned by {@code records} without materializing more than one chunk at a time.
+     *
+     * @return the generated ids, in the same order as {@code records}
+     * @throws DataPersistenceException
+     *             if a chunk could not be written. Chunks written before the failing one remain committed.
+     */
+    public List<UUID> addAll(Iterator<ClaimValidationRecord> records) throws DataPersistenceException {
+        List<UUID> ids = new ArrayList<>();
+        List<ClaimValidationRecord> chunk = new ArrayList<>(chunkSize);
+        int chunkNumber = 0;
+        while (records.hasNext()) {
+            chunk.add(records.next());
+            if (chunk.size() == chunkSize) {
+                ids.addAll(insertChunk(chunk, chunkNumber++, ids.size()));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            ids.addAll(insertChunk(chunk, chunkNumber, ids.size()));
+        }
+        return ids;
+    }
+
+    /**
+     * Moves every record in {@code claimValidationRecordIds} to {@code status} in one transaction.
+     *
+     * @return the ids that were updated; ids that do not exist are left out
+     */
+    public Set<UUID> updateStatus(Collection<UUID> claimValidationRecordIds, Status status)
+            throws DataPersistenceException {
+        return updateStatus(UPDATE_STATUS_SQL, claimValidationRecordIds,
+                new MapSqlParameterSource("status", status.toString()));
+    }
+
+    /**
+     * Moves the records in {@code claimValidationRecordIds} that are currently in {@code expectedStatus} to
+     * {@code status} in one transaction.
+     *
+     * @return the ids that transitioned; ids that were in another status, e.g. because a concurrent caller moved them
+     *         first, or that do not exist are left out
+     */
+    public Set<UUID> compareAndSetStatus(Collection<UUID> claimValidationRecordIds, Status expectedStatus,
+            Status status) throws DataPersistenceException {
+        return updateStatus(COMPARE_AND_SET_STATUS_SQL, claimValidationRecordIds,
+                new MapSqlParameterSource("status", status.toString())
+                        .addValue("expectedStatus", expectedStatus.toString()));
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    private List<UUID> insertChunk(List<ClaimValidationRecord> chunk, int chunkNumber, int offset)
+            throws DataPersistenceException {
+        List<UUID> ids = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            ids.add(UUID.randomUUID());
+        }
+        try {
+            transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ClaimValidationRecord record = chunk.get(i);
+                    ps.setObject(1, ids.get(i));
+                    ps.setObject(2, record.getClaimValidationBatchId());
+                    // null run numbers and statuses reach the NOT NULL constraints instead of throwing here
+                    ps.setObject(3, record.getRunNumber(), Types.BIGINT);
+                    ps.setString(4, Objects.toString(record.getStatus(), null));
+                    ps.setString(5, record.getClaimNumber());
+                    ps.setString(6, record.getRecord());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return chunk.size();
+                }
+            }));
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to add chunk " + chunkNumber + " of claim validation records", e);
+            throw new DataPersistenceException("Unable to add chunk " + chunkNumber + " (records " + offset + " to "
+                    + (offset + chunk.size() - 1) + "); " + offset + " records were already added", e);
+        }
+        return ids;
+    }
+
+    private Set<UUID> updateStatus(String sql, Collection<UUID> claimValidationRecordIds,
+            MapSqlParameterSource parameters) throws DataPersistenceException {
+        if (claimValidationRecordIds.isEmpty()) {
+            return new HashSet<>();
+        }
+        try {
+            return new LinkedHashSet<>(namedParameterJdbcTemplate.queryForList(sql,
+                    parameters.addValue("ids", SqlArrays.uuids(claimValidationRecordIds)), UUID.class));
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to update status of " + claimValidationRecordIds.size()
+                    + " claim validation records", e);
+            throw new DataPersistenceException("Unable to update status of " + claimValidationRecordIds.size()
+                    + " claim validation records", e);
+        }
+    }
+
+}
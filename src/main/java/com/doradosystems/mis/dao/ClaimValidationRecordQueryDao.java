@@ -0,0 +1,229 @@
+package com.doradosystems.mis.dao;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.apache.log4j.Logger;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import com.doradosystems.exception.DataPersistenceException;
+import com.doradosystems.mis.codec.PayloadCodecs;
+import com.doradosystems.mis.domain.ClaimValidationRecord;
+
+/**
+ * Read operations for {@link ClaimValidationRecord}s that do not materialize whole result sets.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class ClaimValidationRecordQueryDao {
+
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
+    private static final Logger LOGGER = Logger.getLogger(ClaimValidationRecordQueryDao.class);
+
+    private static final String SELECT_BY_BATCH_ID_AND_RUN_NUMBER_SQL = "SELECT "
+            + ClaimValidationRowMappers.RECORD_COLUMNS
+            + " FROM mis_claim_validation_service.claim_validation_record"
+            + " WHERE claim_validation_batch_id = ? AND run_number = ?";
+    private static final String SELECT_PAGE_BY_UPDATE_DATE_DESCENDING_SQL = "SELECT "
+            + ClaimValidationRowMappers.RECORD_COLUMNS
+            + " FROM mis_claim_validation_service.claim_validation_record"
+            + " WHERE claim_validation_batch_id = ? AND run_number = ?"
+            + " ORDER BY updated_date DESC, claim_validation_record_id DESC LIMIT ?";
+    private static final String SELECT_NEXT_PAGE_BY_UPDATE_DATE_DESCENDING_SQL = "SELECT "
+            + ClaimValidationRowMappers.RECORD_COLUMNS
+            + " FROM mis_claim_validation_service.claim_validation_record"
+            + " WHERE claim_validation_batch_id = ? AND run_number = ?"
+            + " AND (updated_date, claim_validation_record_id) < (?, ?)"
+            + " ORDER BY updated_date DESC, claim_validation_record_id DESC LIMIT ?";
+    private static final String SELECT_BY_CLAIM_NUMBERS_SQL = "SELECT "
+            + ClaimValidationRowMappers.RECORD_COLUMNS
+            + " FROM mis_claim_validation_service.claim_validation_record"
+            + " WHERE claim_number = ANY(:claimNumbers::varchar[])"
+            + " ORDER BY create_date, claim_validation_record_id";
+    private static final String SELECT_BY_CLIENT_ID_AND_CLAIM_NUMBERS_SQL = "SELECT r.claim_validation_record_id,"
+            + " r.claim_validation_batch_id, r.run_number, r.status, r.claim_number, r.record, r.record_data,"
+            + " r.create_date, r.updated_date"
+            + " FROM mis_claim_validation_service.claim_validation_record r"
+            + " JOIN mis_claim_validation_service.claim_validation_batch b"
+            + " ON b.claim_validation_batch_id = r.claim_validation_batch_id"
+            + " WHERE r.claim_number = ANY(:claimNumbers::varchar[]) AND b.client_id = :clientId"
+            + " ORDER BY r.create_date, r.claim_validation_record_id";
+    private static final String SELECT_CLAIM_NUMBERS_BY_CLIENT_ID_SQL = "SELECT r.claim_number"
+            + " FROM mis_claim_validation_service.claim_validation_record r"
+            + " JOIN mis_claim_validation_service.claim_validation_batch b"
+            + " ON b.claim_validation_batch_id = r.claim_validation_batch_id"
+            + " WHERE b.client_id = ? AND r.claim_number IS NOT NULL";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final int fetchSize;
+    private final RowMapper<ClaimValidationRecord> rowMapper;
+
+    public ClaimValidationRecordQueryDao(DataSource dataSource) {
+        this(dataSource, DEFAULT_FETCH_SIZE);
+    }
+
+    public ClaimValidationRecordQueryDao(DataSource dataSource, int fetchSize) {
+        this(dataSource, fetchSize, PayloadCodecs.DEFAULT);
+    }
+
+    /**
+     * @param codecs
+     *            decodes payloads written by {@link CompressingClaimValidationRecordDao}
+     */
+    public ClaimValidationRecordQueryDao(DataSource dataSource, int fetchSize, PayloadCodecs codecs) {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("fetchSize must be greater than zero but was " + fetchSize);
+        }
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.fetchSize = fetchSize;
+        this.rowMapper = ClaimValidationRowMappers.record(codecs);
+    }
+
+    /**
+     * Streams the records of a batch run through a server-side cursor, {@code fetchSize} rows at a time. Rows are not
+     * returned in any particular order.
+     * <p>
+     * The stream holds a pooled connection until it is closed, so callers must close it, e.g. with
+     * try-with-resources.
+     */
+    public Stream<ClaimValidationRecord> streamByBatchIdAndRunNumber(UUID claimValidationBatchId, Long runNumber)
+            throws DataPersistenceException {
+        try {
+            return CursorStreams.stream(dataSource, SELECT_BY_BATCH_ID_AND_RUN_NUMBER_SQL, fetchSize, ps -> {
+                ps.setObject(1, claimValidationBatchId);
+                ps.setLong(2, runNumber);
+            }, rowMapper);
+        } catch (SQLException | DataAccessException e) {
+            LOGGER.error("Unable to open cursor for claim validation batch " + claimValidationBatchId + " run "
+                    + runNumber, e);
+            throw new DataPersistenceException("Unable to open cursor for claim validation batch "
+                    + claimValidationBatchId + " run " + runNumber, e);
+        }
+    }
+
+    /**
+     * Passes each record of a batch run to {@code consumer}, holding at most {@code fetchSize} rows in memory.
+     */
+    public void forEachByBatchIdAndRunNumber(UUID claimValidationBatchId, Long runNumber,
+            Consumer<ClaimValidationRecord> consumer) throws DataPersistenceException {
+        try (Stream<ClaimValidationRecord> records = streamByBatchIdAndRunNumber(claimValidationBatchId, runNumber)) {
+            records.forEach(consumer);
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to read claim validation batch " + claimValidationBatchId + " run " + runNumber, e);
+            throw new DataPersistenceException("Unable to read claim validation batch " + claimValidationBatchId
+                    + " run " + runNumber, e);
+        }
+    }
+
+    /**
+     * Returns a page of a batch run's records, most recently updated first. Records updated at the same instant are
+     * ordered by descending id.
+     * <p>
+     * Pass {@code null} for {@code afterUpdatedDate} and {@code afterId} to read the first page; for later pages pass
+     * the updated date and id of the last record of the previous page. Each page costs one index range scan however
+     * deep it is.
+     */
+    public List<ClaimValidationRecord> getByBatchIdAndRunNumberOrderByUpdateDateDescending(
+            UUID claimValidationBatchId, Long runNumber, Date afterUpdatedDate, UUID afterId, int limit)
+            throws DataPersistenceException {
+        try {
+            if (afterUpdatedDate == null || afterId == null) {
+                return jdbcTemplate.query(SELECT_PAGE_BY_UPDATE_DATE_DESCENDING_SQL, rowMapper,
+                        claimValidationBatchId, runNumber, limit);
+            }
+            return jdbcTemplate.query(SELECT_NEXT_PAGE_BY_UPDATE_DATE_DESCENDING_SQL, rowMapper,
+                    claimValidationBatchId, runNumber, ClaimValidationRowMappers.toTimestamp(afterUpdatedDate),
+                    afterId, limit);
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to page claim validation batch " + claimValidationBatchId + " run " + runNumber, e);
+            throw new DataPersistenceException("Unable to page claim validation batch " + claimValidationBatchId
+                    + " run " + runNumber, e);
+        }
+    }
+
+    /**
+     * Returns every record with the claim number, across batches and run numbers, oldest first.
+     */
+    public List<ClaimValidationRecord> getByClaimNumber(String claimNumber) throws DataPersistenceException {
+        List<ClaimValidationRecord> records = getByClaimNumbers(Collections.singleton(claimNumber)).get(claimNumber);
+        return records == null ? Collections.emptyList() : records;
+    }
+
+    /**
+     * Returns the records of every claim number in {@code claimNumbers}, across batches and run numbers, keyed by claim
+     * number. Claim numbers without records are absent from the result. All claim numbers are looked up with one index
+     * query that takes them as a single array parameter.
+     */
+    public Map<String, List<ClaimValidationRecord>> getByClaimNumbers(Collection<String> claimNumbers)
+            throws DataPersistenceException {
+        return getByClaimNumbers(SELECT_BY_CLAIM_NUMBERS_SQL, new MapSqlParameterSource(), claimNumbers);
+    }
+
+    /**
+     * Same as {@link #getByClaimNumbers(Collection)}, restricted to the batches of one client.
+     */
+    public Map<String, List<ClaimValidationRecord>> getByClientIdAndClaimNumbers(Long clientId,
+            Collection<String> claimNumbers) throws DataPersistenceException {
+        return getByClaimNumbers(SELECT_BY_CLIENT_ID_AND_CLAIM_NUMBERS_SQL,
+                new MapSqlParameterSource("clientId", clientId), claimNumbers);
+    }
+
+    /**
+     * Passes the claim number of every record of a client's batches to {@code consumer}, holding at most
+     * {@code fetchSize} rows in memory. A claim number is passed once per record.
+     */
+    public void forEachClaimNumberByClientId(Long clientId, Consumer<String> consumer)
+            throws DataPersistenceException {
+        try (Stream<String> claimNumbers = CursorStreams.stream(dataSource, SELECT_CLAIM_NUMBERS_BY_CLIENT_ID_SQL,
+                fetchSize, ps -> ps.setLong(1, clientId), (rs, rowNum) -> rs.getString(1))) {
+            claimNumbers.forEach(consumer);
+        } catch (SQLException | DataAccessException e) {
+            LOGGER.error("Unable to read claim numbers of client " + clientId, e);
+            throw new DataPersistenceException("Unable to read claim numbers of client " + clientId, e);
+        }
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    private Map<String, List<ClaimValidationRecord>> getByClaimNumbers(String sql, MapSqlParameterSource parameters,
+            Collection<String> claimNumbers) throws DataPersistenceException {
+        Map<String, List<ClaimValidationRecord>> results = new LinkedHashMap<>();
+        if (claimNumbers.isEmpty()) {
+            return results;
+        }
+        try {
+            parameters.addValue("claimNumbers", SqlArrays.varchars(claimNumbers));
+            for (ClaimValidationRecord record : namedParameterJdbcTemplate.query(sql, parameters, rowMapper)) {
+                results.computeIfAbsent(record.getClaimNumber(), claimNumber -> new ArrayList<>()).add(record);
+            }
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to look up " + claimNumbers.size() + " claim numbers", e);
+            throw new DataPersistenceException("Unable to look up " + claimNumbers.size() + " claim numbers", e);
+        }
+        return results;
+    }
+
+}
@@ -0,0 +1,250 @@
+package com.doradosystems.mis.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.apache.log4j.Logger;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.doradosystems.exception.DataPersistenceException;
+import com.doradosystems.mis.domain.BulkAddResult;
+import com.doradosystems.mis.domain.ClaimValidationResponse;
+import com.doradosystems.mis.domain.ClaimValidationResponse.Status;
+
+/**
+ * Bulk write operations for {@link ClaimValidationResponse}s.
+ * <p>
+ * Foreign keys are checked up front with one query per referenced table, taking all referenced ids as a single
+ * {@code uuid[]} parameter, so each offending response is reported individually in the returned
+ * {@link BulkAddResult}. As the partitioned foreign key requires, a response's record must belong to the response's
+ * batch. The check takes {@code FOR KEY SHARE} locks on the referenced batches and records and runs in the same
+ * transaction as the insert, so a batch or record deleted concurrently is either reported as missing or waits for the
+ * insert to commit. The remaining responses are written in batched
+ * statements of {@code chunkSize} rows, all in that one transaction.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class ClaimValidationResponseBulkDao {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    private static final Logger LOGGER = Logger.getLogger(ClaimValidationResponseBulkDao.class);
+
+    private static final String INSERT_SQL = "INSERT INTO mis_claim_validation_service.claim_validation_response "
+            + "(claim_validation_response_id, claim_validation_batch_id, run_number, status, claim_number, response, "
+            + "claim_validation_record_id) VALUES (?, ?, ?, ?::mis_claim_validation_service.status, ?, ?, ?)";
+    private static final String EXISTING_BATCH_IDS_SQL = "SELECT claim_validation_batch_id "
+            + "FROM mis_claim_validation_service.claim_validation_batch WHERE claim_validation_batch_id = ANY(:ids::uuid[])"
+            + " FOR KEY SHARE";
+    private static final String EXISTING_RECORDS_SQL = "SELECT claim_validation_record_id, claim_validation_batch_id"
+            + " FROM mis_claim_validation_service.claim_validation_record WHERE claim_validation_record_id = ANY(:ids::uuid[])"
+            + " FOR KEY SHARE";
+    private static final String UPDATE_STATUS_SQL = "UPDATE mis_claim_validation_service.claim_validation_response"
+            + " SET status = :status::mis_claim_validation_service.status, updated_date = now()"
+            + " WHERE claim_validation_response_id = ANY(:ids::uuid[])"
+            + " RETURNING claim_validation_response_id";
+    private static final String COMPARE_AND_SET_STATUS_SQL = "UPDATE mis_claim_validation_service.claim_validation_response"
+            + " SET status = :status::mis_claim_validation_service.status, updated_date = now()"
+            + " WHERE claim_validation_response_id = ANY(:ids::uuid[])"
+            + " AND status = :expectedStatus::mis_claim_validation_service.status"
+            + " RETURNING claim_validation_response_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public ClaimValidationResponseBulkDao(DataSource dataSource) {
+        this(dataSource, DEFAULT_CHUNK_SIZE);
+    }
+
+    public ClaimValidationResponseBulkDao(DataSource dataSource, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be greater than zero but was " + chunkSize);
+        }
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Adds every response whose batch and record exist. Responses referencing a missing batch or record are skipped
+     * and reported in {@link BulkAddResult#getFailures()}.
+     *
+     * @throws DataPersistenceException
+     *             if the valid responses could not be written. None of them are written in that case.
+     */
+    public BulkAddResult addAll(Collection<ClaimValidationResponse> responses) throws DataPersistenceException {
+        List<ClaimValidationResponse> input = new ArrayList<>(responses);
+        if (input.isEmpty()) {
+            return new BulkAddResult(new ArrayList<UUID>(), new LinkedHashMap<Integer, String>());
+        }
+        Set<UUID> batchIds = new HashSet<>();
+        Set<UUID> recordIds = new HashSet<>();
+        for (ClaimValidationResponse response : input) {
+            batchIds.add(response.getClaimValidationBatchId());
+            recordIds.add(response.getClaimValidationRecordId());
+        }
+
+        try {
+            return transactionTemplate.execute(status -> {
+                Set<UUID> existingBatchIds = findExisting(EXISTING_BATCH_IDS_SQL, batchIds);
+                Map<UUID, UUID> existingRecordBatchIds = findExistingRecords(recordIds);
+
+                List<UUID> ids = new ArrayList<>(input.size());
+                Map<Integer, String> failures = new LinkedHashMap<>();
+                List<ClaimValidationResponse> valid = new ArrayList<>(input.size());
+                List<UUID> validIds = new ArrayList<>(input.size());
+                for (int i = 0; i < input.size(); i++) {
+                    ClaimValidationResponse response = input.get(i);
+                    String failure = null;
+                    if (!existingBatchIds.contains(response.getClaimValidationBatchId())) {
+                        failure = "claim validation batch " + response.getClaimValidationBatchId()
+                                + " does not exist";
+                    } else if (!existingRecordBatchIds.containsKey(response.getClaimValidationRecordId())) {
+                        failure = "claim validation record " + response.getClaimValidationRecordId()
+                                + " does not exist";
+                    } else if (!existingRecordBatchIds.get(response.getClaimValidationRecordId())
+                            .equals(response.getClaimValidationBatchId())) {
+                        failure = "claim validation record " + response.getClaimValidationRecordId()
+                                + " does not belong to claim validation batch " + response.getClaimValidationBatchId();
+                    }
+                    if (failure == null) {
+                        UUID id = UUID.randomUUID();
+                        ids.add(id);
+                        valid.add(response);
+                        validIds.add(id);
+                    } else {
+                        ids.add(null);
+                        failures.put(i, failure);
+                    }
+                }
+                for (int from = 0; from < valid.size(); from += chunkSize) {
+                    int to = Math.min(from + chunkSize, valid.size());
+                    insert(valid.subList(from, to), validIds.subList(from, to));
+                }
+                return new BulkAddResult(ids, failures);
+            });
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to add " + input.size() + " claim validation responses", e);
+            throw new DataPersistenceException("Unable to add " + input.size() + " claim validation responses", e);
+        }
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Moves every response in {@code claimValidationResponseIds} to {@code status} in one transaction.
+     *
+     * @return the ids that were updated; ids that do not exist are left out
+     */
+    public Set<UUID> updateStatus(Collection<UUID> claimValidationResponseIds, Status status)
+            throws DataPersistenceException {
+        return updateStatus(UPDATE_STATUS_SQL, claimValidationResponseIds,
+                new MapSqlParameterSource("status", status.toString()));
+    }
+
+    /**
+     * Moves the responses in {@code claimValidationResponseIds} that are currently in {@code expectedStatus} to
+     * {@code status} in one transaction.
+     *
+     * @return the ids that transitioned; ids that were in another status or do not exist are left out
+     */
+    public Set<UUID> compareAndSetStatus(Collection<UUID> claimValidationResponseIds, Status expectedStatus,
+            Status status) throws DataPersistenceException {
+        return updateStatus(COMPARE_AND_SET_STATUS_SQL, claimValidationResponseIds,
+                new MapSqlParameterSource("status", status.toString())
+                        .addValue("expectedStatus", expectedStatus.toString()));
+    }
+
+    private Set<UUID> updateStatus(String sql, Collection<UUID> claimValidationResponseIds,
+            MapSqlParameterSource parameters) throws DataPersistenceException {
+        if (claimValidationResponseIds.isEmpty()) {
+            return new HashSet<>();
+        }
+        try {
+            return new LinkedHashSet<>(namedParameterJdbcTemplate.queryForList(sql,
+                    parameters.addValue("ids", SqlArrays.uuids(claimValidationResponseIds)), UUID.class));
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to update status of " + claimValidationResponseIds.size()
+                    + " claim validation responses", e);
+            throw new DataPersistenceException("Unable to update status of " + claimValidationResponseIds.size()
+                    + " claim validation responses", e);
+        }
+    }
+
+    private void insert(List<ClaimValidationResponse> responses, List<UUID> ids) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ClaimValidationResponse response = responses.get(i);
+                ps.setObject(1, ids.get(i));
+                ps.setObject(2, response.getClaimValidationBatchId());
+                // null run numbers and statuses reach the NOT NULL constraints instead of throwing here
+                ps.setObject(3, response.getRunNumber(), Types.BIGINT);
+                ps.setString(4, Objects.toString(response.getStatus(), null));
+                ps.setString(5, response.getClaimNumber());
+                ps.setString(6, response.getResponse());
+                ps.setObject(7, response.getClaimValidationRecordId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return responses.size();
+            }
+        });
+    }
+
+    private Set<UUID> findExisting(String sql, Set<UUID> ids) {
+        ids.remove(null);
+        if (ids.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return new HashSet<>(namedParameterJdbcTemplate.queryForList(sql,
+                new MapSqlParameterSource("ids", SqlArrays.uuids(ids)), UUID.class));
+    }
+
+    /**
+     * Returns the batch id of every record in {@code ids} that exists, keyed by record id.
+     */
+    private Map<UUID, UUID> findExistingRecords(Set<UUID> ids) {
+        ids.remove(null);
+        Map<UUID, UUID> existing = new HashMap<>();
+        if (ids.isEmpty()) {
+            return existing;
+        }
+        namedParameterJdbcTemplate.query(EXISTING_RECORDS_SQL, new MapSqlParameterSource("ids", SqlArrays.uuids(ids)),
+                rs -> {
+                    existing.put((UUID) rs.getObject("claim_validation_record_id"),
+                            (UUID) rs.getObject("claim_validation_batch_id"));
+                });
+        return existing;
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.doradosystems.mis.dao;
+
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.apache.log4j.Logger;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.RowMapper;
+
+import com.doradosystems.exception.DataPersistenceException;
+import com.doradosystems.mis.codec.PayloadCodecs;
+import com.doradosystems.mis.domain.ClaimValidationResponse;
+
+/**
+ * Read operations for {@link ClaimValidationResponse}s that do not materialize whole result sets.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class ClaimValidationResponseQueryDao {
+
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
+    private static final Logger LOGGER = Logger.getLogger(ClaimValidationResponseQueryDao.class);
+
+    private static final String SELECT_BY_BATCH_ID_AND_RUN_NUMBER_SQL = "SELECT "
+            + ClaimValidationRowMappers.RESPONSE_COLUMNS
+            + " FROM mis_claim_validation_service.claim_validation_response"
+            + " WHERE claim_validation_batch_id = ? AND run_number = ?";
+
+    private final DataSource dataSource;
+    private final int fetchSize;
+    private final RowMapper<ClaimValidationResponse> rowMapper;
+
+    public ClaimValidationResponseQueryDao(DataSource dataSource) {
+        this(dataSource, DEFAULT_FETCH_SIZE);
+    }
+
+    public ClaimValidationResponseQueryDao(DataSource dataSource, int fetchSize) {
+        this(dataSource, fetchSize, PayloadCodecs.DEFAULT);
+    }
+
+    /**
+     * @param codecs
+     *            decodes payloads written by {@link CompressingClaimValidationResponseDao}
+     */
+    public ClaimValidationResponseQueryDao(DataSource dataSource, int fetchSize, PayloadCodecs codecs) {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("fetchSize must be greater than zero but was " + fetchSize);
+        }
+        this.dataSource = dataSource;
+        this.fetchSize = fetchSize;
+        this.rowMapper = ClaimValidationRowMappers.response(codecs);
+    }
+
+    /**
+     * Streams the responses of a batch run through a server-side cursor, {@code fetchSize} rows at a time. Rows are
+     * not returned in any particular order.
+     * <p>
+     * The stream holds a pooled connection until it is closed, so callers must close it, e.g. with
+     * try-with-resources.
+     */
+    public Stream<ClaimValidationResponse> streamByBatchIdAndRunNumber(UUID claimValidationBatchId, Long runNumber)
+            throws DataPersistenceException {
+        try {
+            return CursorStreams.stream(dataSource, SELECT_BY_BATCH_ID_AND_RUN_NUMBER_SQL, fetchSize, ps -> {
+                ps.setObject(1, claimValidationBatchId);
+                ps.setLong(2, runNumber);
+            }, rowMapper);
+        } catch (SQLException | DataAccessException e) {
+            LOGGER.error("Unable to open cursor for claim validation batch " + claimValidationBatchId + " run "
+                    + runNumber, e);
+            throw new DataPersistenceException("Unable to open cursor for claim validation batch "
+                    + claimValidationBatchId + " run " + runNumber, e);
+        }
+    }
+
+    /**
+     * Passes each response of a batch run to {@code consumer}, holding at most {@code fetchSize} rows in memory.
+     */
+    public void forEachByBatchIdAndRunNumber(UUID claimValidationBatchId, Long runNumber,
+            Consumer<ClaimValidationResponse> consumer) throws DataPersistenceException {
+        try (Stream<ClaimValidationResponse> responses = streamByBatchIdAndRunNumber(claimValidationBatchId,
+                runNumber)) {
+            responses.forEach(consumer);
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to read claim validation batch " + claimValidationBatchId + " run " + runNumber, e);
+            throw new DataPersistenceException("Unable to read claim validation batch " + claimValidationBatchId
+                    + " run " + runNumber, e);
+        }
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+}
@@ -0,0 +1,207 @@
+package com.doradosystems.mis.dao;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.apache.log4j.Logger;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.doradosystems.exception.DataPersistenceException;
+import com.doradosystems.mis.domain.ClaimValidationResponse;
+import com.doradosystems.mis.domain.ClaimValidationResponse.Status;
+import com.doradosystems.mis.domain.ClaimValidationResponseLease;
+
+/**
+ * Hands out pending (batch, run) response groups to competing dispatchers.
+ * <p>
+ * A claim inserts a row into {@code claim_validation_response_lease} for each group, or takes over a row whose lease
+ * has expired, and in the same statement moves up to {@code maxResponsesPerLease} of the group's
+ * {@link Status#PENDING} responses to {@link Status#PROCESSING}. The primary key on (batch, run) makes concurrent
+ * claimers of the same group serialize, and only one of them gets it back. The lease lists the responses it claimed,
+ * and completing it only moves those, so responses beyond {@code maxResponsesPerLease} and responses added to the
+ * group after the claim stay pending for the next claim of the group, once this one is completed or has expired. Claimed responses are no longer
+ * pending, so pollers of {@link ClaimValidationResponseDao#getPendingResponseIdentifiers()} do not dispatch them
+ * again either. {@link Status#PROCESSING} responses belong to this queue: if a lease expires they are claimed again
+ * together with the group's pending responses.
+ * <p>
+ * Completing a lease is idempotent: only the holder of the current lease token can complete it, and only once. A
+ * group whose responses were all moved on by the time the claim reached them, e.g. because the holder of an expired
+ * lease completed it concurrently, is not returned, and its lease row is deleted again in the claiming transaction.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class ClaimValidationResponseWorkQueue {
+
+    public static final int DEFAULT_MAX_RESPONSES_PER_LEASE = 1000;
+
+    private static final Logger LOGGER = Logger.getLogger(ClaimValidationResponseWorkQueue.class);
+
+    private static final String CLAIM_SQL = "WITH leased AS ("
+            + "INSERT INTO mis_claim_validation_service.claim_validation_response_lease"
+            + " (claim_validation_batch_id, run_number, lease_token, lease_owner, lease_expires_at)"
+            + " SELECT DISTINCT r.claim_validation_batch_id, r.run_number, ?, ?, now() + ? * interval '1 millisecond'"
+            + " FROM mis_claim_validation_service.claim_validation_response r"
+            + " WHERE r.status IN (?::mis_claim_validation_service.status, ?::mis_claim_validation_service.status)"
+            + " AND NOT EXISTS (SELECT 1 FROM mis_claim_validation_service.claim_validation_response_lease l"
+            + " WHERE l.claim_validation_batch_id = r.claim_validation_batch_id AND l.run_number = r.run_number"
+            + " AND l.lease_expires_at >= now())"
+            + " LIMIT ?"
+            + " ON CONFLICT (claim_validation_batch_id, run_number) DO UPDATE"
+            + " SET lease_token = EXCLUDED.lease_token, lease_owner = EXCLUDED.lease_owner,"
+            + " lease_expires_at = EXCLUDED.lease_expires_at"
+            + " WHERE claim_validation_response_lease.lease_expires_at < now()"
+            + " RETURNING claim_validation_batch_id, run_number, lease_token, lease_expires_at"
+            + "), claimed AS ("
+            + "UPDATE mis_claim_validation_service.claim_validation_response r"
+            + " SET status = ?::mis_claim_validation_service.status, updated_date = now()"
+            + " FROM (SELECT l.claim_validation_batch_id, l.run_number, p.claim_validation_response_id FROM leased l"
+            + " CROSS JOIN LATERAL (SELECT p.claim_validation_response_id"
+            + " FROM mis_claim_validation_service.claim_validation_response p"
+            + " WHERE p.claim_validation_batch_id = l.claim_validation_batch_id AND p.run_number = l.run_number"
+            + " AND p.status IN (?::mis_claim_validation_service.status, ?::mis_claim_validation_service.status)"
+            + " LIMIT ?) p) c"
+            + " WHERE r.claim_validation_batch_id = c.claim_validation_batch_id AND r.run_number = c.run_number"
+            + " AND r.claim_validation_response_id = c.claim_validation_response_id"
+            + " AND r.status IN (?::mis_claim_validation_service.status, ?::mis_claim_validation_service.status)"
+            + " RETURNING r.claim_validation_batch_id, r.run_number, r.claim_validation_response_id"
+            + ")"
+            + " SELECT l.claim_validation_batch_id, l.run_number, l.lease_token, l.lease_expires_at,"
+            + " array_remove(array_agg(c.claim_validation_response_id), NULL) AS claim_validation_response_ids"
+            + " FROM leased l LEFT JOIN claimed c"
+            + " ON c.claim_validation_batch_id = l.claim_validation_batch_id AND c.run_number = l.run_number"
+            + " GROUP BY l.claim_validation_batch_id, l.run_number, l.lease_token, l.lease_expires_at";
+    private static final String RENEW_SQL = "UPDATE mis_claim_validation_service.claim_validation_response_lease"
+            + " SET lease_expires_at = now() + ? * interval '1 millisecond'"
+            + " WHERE claim_validation_batch_id = ? AND run_number = ? AND lease_token = ?";
+    private static final String DELETE_LEASE_SQL = "DELETE FROM mis_claim_validation_service.claim_validation_response_lease"
+            + " WHERE claim_validation_batch_id = ? AND run_number = ? AND lease_token = ?";
+    private static final String COMPLETE_SQL = "UPDATE mis_claim_validation_service.claim_validation_response"
+            + " SET status = :status::mis_claim_validation_service.status, updated_date = now()"
+            + " WHERE claim_validation_batch_id = :batchId AND run_number = :runNumber"
+            + " AND claim_validation_response_id = ANY(:ids::uuid[])"
+            + " AND status = :claimedStatus::mis_claim_validation_service.status";
+
+    private static final RowMapper<ClaimValidationResponseLease> LEASE = (rs, rowNum) -> new ClaimValidationResponseLease(
+            (UUID) rs.getObject("claim_validation_batch_id"),
+            rs.getLong("run_number"),
+            (UUID) rs.getObject("lease_token"),
+            rs.getTimestamp("lease_expires_at"),
+            Arrays.asList((UUID[]) rs.getArray("claim_validation_response_ids").getArray()));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String owner;
+    private final int maxResponsesPerLease;
+
+    public ClaimValidationResponseWorkQueue(DataSource dataSource, String owner) {
+        this(dataSource, owner, DEFAULT_MAX_RESPONSES_PER_LEASE);
+    }
+
+    public ClaimValidationResponseWorkQueue(DataSource dataSource, String owner, int maxResponsesPerLease) {
+        if (maxResponsesPerLease < 1) {
+            throw new IllegalArgumentException("maxResponsesPerLease must be greater than zero but was "
+                    + maxResponsesPerLease);
+        }
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.owner = owner;
+        this.maxResponsesPerLease = maxResponsesPerLease;
+    }
+
+    /**
+     * Claims up to {@code max} (batch, run) groups that still have {@link Status#PENDING} responses and are not leased
+     * to another dispatcher, and moves up to {@code maxResponsesPerLease} responses of each to
+     * {@link Status#PROCESSING}.
+     *
+     * @return one lease per group of which at least one response was claimed
+     */
+    public List<ClaimValidationResponseLease> claimPendingResponseIdentifiers(int max, Duration lease)
+            throws DataPersistenceException {
+        try {
+            return transactionTemplate.execute(transaction -> {
+                List<ClaimValidationResponseLease> claimed = new ArrayList<>();
+                for (ClaimValidationResponseLease leased : jdbcTemplate.query(CLAIM_SQL, LEASE, UUID.randomUUID(),
+                        owner, lease.toMillis(), Status.PENDING.toString(), Status.PROCESSING.toString(), max,
+                        Status.PROCESSING.toString(), Status.PENDING.toString(), Status.PROCESSING.toString(),
+                        maxResponsesPerLease, Status.PENDING.toString(), Status.PROCESSING.toString())) {
+                    if (leased.getClaimValidationResponseIds().isEmpty()) {
+                        jdbcTemplate.update(DELETE_LEASE_SQL, leased.getClaimValidationBatchId(),
+                                leased.getRunNumber(), leased.getLeaseToken());
+                    } else {
+                        claimed.add(leased);
+                    }
+                }
+                return claimed;
+            });
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to claim pending claim validation responses", e);
+            throw new DataPersistenceException("Unable to claim pending claim validation responses", e);
+        }
+    }
+
+    /**
+     * Extends a lease that is still held.
+     *
+     * @return {@code false} if the lease expired and was taken over, or was already completed
+     */
+    public boolean renew(ClaimValidationResponseLease lease, Duration duration) throws DataPersistenceException {
+        try {
+            return jdbcTemplate.update(RENEW_SQL, duration.toMillis(), lease.getClaimValidationBatchId(),
+                    lease.getRunNumber(), lease.getLeaseToken()) == 1;
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to renew " + lease, e);
+            throw new DataPersistenceException("Unable to renew " + lease, e);
+        }
+    }
+
+    /**
+     * Moves the responses claimed with a lease to {@code status} and drops the lease, in one transaction. Responses
+     * added to the group after the claim are left pending.
+     *
+     * @return {@code false}, without changing any response, if the lease is no longer held, e.g. because it was
+     *         already completed or it expired and another dispatcher took it over
+     */
+    public boolean complete(ClaimValidationResponseLease lease, ClaimValidationResponse.Status status)
+            throws DataPersistenceException {
+        try {
+            return transactionTemplate.execute(transaction -> {
+                if (jdbcTemplate.update(DELETE_LEASE_SQL, lease.getClaimValidationBatchId(), lease.getRunNumber(),
+                        lease.getLeaseToken()) == 0) {
+                    return false;
+                }
+                namedParameterJdbcTemplate.update(COMPLETE_SQL, new MapSqlParameterSource("status", status.toString())
+                        .addValue("batchId", lease.getClaimValidationBatchId())
+                        .addValue("runNumber", lease.getRunNumber())
+                        .addValue("ids", SqlArrays.uuids(lease.getClaimValidationResponseIds()))
+                        .addValue("claimedStatus", Status.PROCESSING.toString()));
+                return true;
+            });
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to complete " + lease, e);
+            throw new DataPersistenceException("Unable to complete " + lease, e);
+        }
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public int getMaxResponsesPerLease() {
+        return maxResponsesPerLease;
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.doradosystems.mis.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.UUID;
+
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.RowMapper;
+
+import com.doradosystems.mis.codec.PayloadCodecs;
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationRecord;
+import com.doradosystems.mis.domain.ClaimValidationResponse;
+
+/**
+ * Row mappers for the {@code mis_claim_validation_service} tables, shared by the DAOs in this package.
+ * <p>
+ * {@link #RECORD_COLUMNS} and {@link #RESPONSE_COLUMNS} include the {@code record_data} and {@code response_data}
+ * columns written by {@link CompressingClaimValidationRecordDao} and {@link CompressingClaimValidationResponseDao}, and
+ * {@link #record(PayloadCodecs)} and {@link #response(PayloadCodecs)} decode them, so every reader in this package
+ * sees the payload however it was stored.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+final class ClaimValidationRowMappers {
+
+    static final String BATCH_COLUMNS = "claim_validation_batch_id, client_id, filename, status, run_number, "
+            + "global_control_number, create_date, updated_date";
+    static final String RECORD_COLUMNS = "claim_validation_record_id, claim_validation_batch_id, run_number, status, "
+            + "claim_number, record, record_data, create_date, updated_date";
+    static final String RESPONSE_COLUMNS = "claim_validation_response_id, claim_validation_batch_id, run_number, "
+            + "status, claim_number, response, response_data, create_date, updated_date, claim_validation_record_id";
+    static final String RECORD_SUMMARY_COLUMNS = "claim_validation_record_id, claim_validation_batch_id, run_number, "
+            + "status, claim_number, create_date, updated_date";
+    static final String RESPONSE_SUMMARY_COLUMNS = "claim_validation_response_id, claim_validation_batch_id, "
+            + "run_number, status, claim_number, create_date, updated_date, claim_validation_record_id";
+
+    static final RowMapper<ClaimValidationBatch> BATCH = (rs, rowNum) -> new ClaimValidationBatch(
+            (UUID) rs.getObject("claim_validation_batch_id"),
+            rs.getLong("client_id"),
+            rs.getString("filename"),
+            ClaimValidationBatch.Status.valueOf(rs.getString("status")),
+            rs.getLong("run_number"),
+            rs.getString("global_control_number"),
+            rs.getTimestamp("create_date"),
+            rs.getTimestamp("updated_date"));
+
+    private ClaimValidationRowMappers() {
+    }
+
+    static RowMapper<ClaimValidationRecord> record(PayloadCodecs codecs) {
+        return (rs, rowNum) -> new ClaimValidationRecord(
+                (UUID) rs.getObject("claim_validation_record_id"),
+                (UUID) rs.getObject("claim_validation_batch_id"),
+                rs.getLong("run_number"),
+                ClaimValidationRecord.Status.valueOf(rs.getString("status")),
+                rs.getString("claim_number"),
+                payload(rs, "record", codecs),
+                rs.getTimestamp("create_date"),
+                rs.getTimestamp("updated_date"));
+    }
+
+    static RowMapper<ClaimValidationResponse> response(PayloadCodecs codecs) {
+        return (rs, rowNum) -> new ClaimValidationResponse(
+                (UUID) rs.getObject("claim_validation_response_id"),
+                (UUID) rs.getObject("claim_validation_batch_id"),
+                rs.getLong("run_number"),
+                ClaimValidationResponse.Status.valueOf(rs.getString("status")),
+                rs.getString("claim_number"),
+                payload(rs, "response", codecs),
+                rs.getTimestamp("create_date"),
+                rs.getTimestamp("updated_date"),
+                (UUID) rs.getObject("claim_validation_record_id"));
+    }
+
+    /**
+     * Returns the decoded {@code column + "_data"} of the current row, or {@code column} if that is {@code null}.
+     *
+     * @throws DataRetrievalFailureException
+     *             if the data cannot be decoded with {@code codecs}
+     */
+    static String payload(ResultSet rs, String column, PayloadCodecs codecs) throws SQLException {
+        byte[] data = rs.getBytes(column + "_data");
+        if (data == null) {
+            return rs.getString(column);
+        }
+        try {
+            return codecs.decode(data);
+        } catch (IllegalArgumentException e) {
+            throw new DataRetrievalFailureException("Unable to decode " + column + "_data", e);
+        }
+    }
+
+    static Timestamp toTimestamp(Date date) {
+        return date instanceof Timestamp ? (Timestamp) date : new Timestamp(date.getTime());
+    }
+
+}
@@ -0,0 +1,157 @@
+package com.doradosystems.mis.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.sql.DataSource;
+
+import org.apache.log4j.Logger;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.doradosystems.exception.DataPersistenceException;
+import com.doradosystems.exception.NotFoundException;
+import com.doradosystems.mis.domain.RunRolloverResult;
+import com.doradosystems.mis.domain.RunRolloverStatusMapping;
+
+/**
+ * Moves a batch with all of its records and responses to a new run in one transaction, for reprocessing.
+ * <p>
+ * The batch row is updated first, which locks it, so concurrent rollovers of the same batch run one after the other
+ * and only the first one finds the batch at {@code fromRunNumber}. Records and responses are then moved with one
+ * statement each, whatever their number. Any failure rolls back all three, so a batch is never left half rolled over.
+ * <p>
+ * The transaction joins one already started on {@code transactionManager} by the caller. Once it completes, the
+ * {@link BatchChangeListener}s are told about the rolled over batch, so that a {@link CachingClaimValidationBatchDao}
+ * does not keep serving the old run number.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class ClaimValidationRunRolloverDao {
+
+    private static final Logger LOGGER = Logger.getLogger(ClaimValidationRunRolloverDao.class);
+
+    private static final String UPDATE_BATCH_SQL = "UPDATE mis_claim_validation_service.claim_validation_batch"
+            + " SET run_number = ?, status = ?::mis_claim_validation_service.status, updated_date = now()"
+            + " WHERE claim_validation_batch_id = ? AND run_number = ?";
+    private static final String SELECT_BATCH_RUN_NUMBER_SQL = "SELECT run_number"
+            + " FROM mis_claim_validation_service.claim_validation_batch WHERE claim_validation_batch_id = ?";
+    private static final String RECORD_TABLE = "mis_claim_validation_service.claim_validation_record";
+    private static final String RESPONSE_TABLE = "mis_claim_validation_service.claim_validation_response";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final List<BatchChangeListener> batchChangeListeners = new CopyOnWriteArrayList<>();
+
+    public ClaimValidationRunRolloverDao(DataSource dataSource, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public void setBatchChangeListeners(List<BatchChangeListener> batchChangeListeners) {
+        this.batchChangeListeners.clear();
+        this.batchChangeListeners.addAll(batchChangeListeners);
+    }
+
+    public void addBatchChangeListener(BatchChangeListener listener) {
+        batchChangeListeners.add(listener);
+    }
+
+    /**
+     * Moves the batch from {@code fromRunNumber} to {@code toRunNumber} and gives it the batch status of
+     * {@code statusMapping}. Its records and responses of {@code fromRunNumber} move along, changing status as mapped.
+     *
+     * @return the number of records and responses moved, or {@code null} if the batch is not at {@code fromRunNumber},
+     *         e.g. because another rollover got there first
+     * @throws NotFoundException
+     *             if the batch does not exist
+     * @throws DataPersistenceException
+     *             if the rollover failed. Nothing is changed.
+     */
+    public RunRolloverResult rolloverRun(UUID claimValidationBatchId, Long fromRunNumber, Long toRunNumber,
+            RunRolloverStatusMapping statusMapping) throws DataPersistenceException, NotFoundException {
+        if (fromRunNumber.equals(toRunNumber)) {
+            throw new IllegalArgumentException("toRunNumber must differ from fromRunNumber " + fromRunNumber);
+        }
+        List<Long> currentRunNumber = new ArrayList<>(1);
+        RunRolloverResult result;
+        try {
+            result = transactionTemplate.execute(status -> {
+                int updated = jdbcTemplate.update(UPDATE_BATCH_SQL, toRunNumber,
+                        statusMapping.getBatchStatus().name(), claimValidationBatchId, fromRunNumber);
+                if (updated == 0) {
+                    currentRunNumber.addAll(jdbcTemplate.queryForList(SELECT_BATCH_RUN_NUMBER_SQL, Long.class,
+                            claimValidationBatchId));
+                    return null;
+                }
+                notifyAfterCompletion(claimValidationBatchId);
+                int records = updateRun(RECORD_TABLE, claimValidationBatchId, fromRunNumber, toRunNumber,
+                        statusMapping.getRecordStatuses());
+                int responses = updateRun(RESPONSE_TABLE, claimValidationBatchId, fromRunNumber, toRunNumber,
+                        statusMapping.getResponseStatuses());
+                return new RunRolloverResult(claimValidationBatchId, fromRunNumber, toRunNumber, records, responses);
+            });
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to roll claim validation batch " + claimValidationBatchId + " over from run "
+                    + fromRunNumber + " to " + toRunNumber, e);
+            throw new DataPersistenceException("Unable to roll claim validation batch " + claimValidationBatchId
+                    + " over from run " + fromRunNumber + " to " + toRunNumber, e);
+        }
+        if (result == null) {
+            if (currentRunNumber.isEmpty()) {
+                throw new NotFoundException("Claim validation batch " + claimValidationBatchId + " not found");
+            }
+            LOGGER.warn("Not rolling over claim validation batch " + claimValidationBatchId + " which is at run "
+                    + currentRunNumber.get(0) + ", not " + fromRunNumber);
+        } else {
+            LOGGER.info("Rolled over " + result);
+        }
+        return result;
+    }
+
+    private void notifyAfterCompletion(UUID claimValidationBatchId) {
+        // a listener told before the commit could reload and keep the old row
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+            @Override
+            public void afterCompletion(int status) {
+                for (BatchChangeListener listener : batchChangeListeners) {
+                    try {
+                        listener.batchChanged(claimValidationBatchId);
+                    } catch (RuntimeException e) {
+                        LOGGER.error("Listener failed on claim validation batch " + claimValidationBatchId, e);
+                    }
+                }
+            }
+        });
+    }
+
+    private int updateRun(String table, UUID claimValidationBatchId, Long fromRunNumber, Long toRunNumber,
+            Map<? extends Enum<?>, ? extends Enum<?>> statuses) {
+        StringBuilder sql = new StringBuilder("UPDATE ").append(table).append(" SET run_number = ?");
+        List<Object> parameters = new ArrayList<>();
+        parameters.add(toRunNumber);
+        if (!statuses.isEmpty()) {
+            sql.append(", status = CASE status");
+            for (Map.Entry<? extends Enum<?>, ? extends Enum<?>> entry : statuses.entrySet()) {
+                sql.append(" WHEN ?::mis_claim_validation_service.status THEN ?::mis_claim_validation_service.status");
+                parameters.add(entry.getKey().name());
+                parameters.add(entry.getValue().name());
+            }
+            sql.append(" ELSE status END");
+        }
+        sql.append(", updated_date = now() WHERE claim_validation_batch_id = ? AND run_number = ?");
+        parameters.add(claimValidationBatchId);
+        parameters.add(fromRunNumber);
+        return jdbcTemplate.update(sql.toString(), parameters.toArray());
+    }
+
+}
@@ -0,0 +1,283 @@
+package com.doradosystems.mis.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.apache.log4j.Logger;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import com.doradosystems.mis.domain.StatusChangeEvent;
+import com.doradosystems.mis.domain.StatusChangeEvent.Type;
+
+/**
+ * Delivers batch, record and response status transitions to listeners as they are committed, replacing polling of
+ * {@code getByStatus}, {@code countByStatus} and {@code getPendingResponseIdentifiers()}.
+ * <p>
+ * The database records transitions in the {@code claim_validation_status_change} table from triggers, whichever DAO
+ * made them, and publishes each on the {@value #CHANNEL} channel. This class listens on one connection of its own
+ * from {@code dataSource}, which should therefore not be a pool, and waits on it for notifications, delivering them
+ * as they arrive. Listeners are called on that thread, one event at a time, so they should hand slow work off.
+ * <p>
+ * Every {@code pollInterval} the feed records the oldest transaction still running on the server. When the
+ * connection fails it reconnects after {@code reconnectDelay}. Notifications sent while it was disconnected are gone,
+ * so it then replays every change written by that transaction or a later one, which covers transactions that were
+ * open for any length of time before the connection failed. It uses the position recorded one poll before the last,
+ * so that notifications still on their way at the last poll are covered too. Delivery is therefore at least once:
+ * catch-up events may repeat events already delivered.
+ * <p>
+ * Changes older than {@code retention} are deleted, at most once a minute; a feed disconnected for longer than that
+ * misses the deleted ones.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class ClaimValidationStatusChangeFeed implements AutoCloseable {
+
+    public static final String CHANNEL = "claim_validation_status";
+
+    private static final Logger LOGGER = Logger.getLogger(ClaimValidationStatusChangeFeed.class);
+
+    private static final String APPLICATION_NAME = "claim-validation-status-feed";
+    private static final long PURGE_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final String POLL_SQL = "SELECT txid_snapshot_xmin(txid_current_snapshot())";
+    private static final String CATCH_UP_SQL = "SELECT type, claim_validation_batch_id, run_number, status,"
+            + " row_count, create_date FROM mis_claim_validation_service.claim_validation_status_change"
+            + " WHERE transaction_id >= ? ORDER BY claim_validation_status_change_id";
+    private static final String PURGE_SQL = "DELETE FROM mis_claim_validation_service.claim_validation_status_change"
+            + " WHERE create_date < clock_timestamp() - ? * interval '1 millisecond'";
+
+    /**
+     * Receives status transitions.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void onStatusChange(StatusChangeEvent event);
+    }
+
+    private final DataSource dataSource;
+    private final long pollIntervalMillis;
+    private final long reconnectDelayMillis;
+    private final long retentionMillis;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Thread thread;
+    private final AtomicLong notifications = new AtomicLong();
+    private final AtomicLong catchUpEvents = new AtomicLong();
+    private final AtomicLong reconnects = new AtomicLong();
+    private volatile boolean connected;
+    private volatile boolean closed;
+    private long catchUpFrom = -1;
+    private long lastPurgeMillis;
+
+    public ClaimValidationStatusChangeFeed(DataSource dataSource, Duration pollInterval, Duration reconnectDelay,
+            Duration retention) {
+        if (pollInterval.toMillis() < 1) {
+            throw new IllegalArgumentException("pollInterval must be at least 1 ms but was " + pollInterval);
+        }
+        this.dataSource = dataSource;
+        this.pollIntervalMillis = pollInterval.toMillis();
+        this.reconnectDelayMillis = reconnectDelay.toMillis();
+        this.retentionMillis = retention.toMillis();
+        this.thread = new Thread(this::run, APPLICATION_NAME);
+        thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Returns whether the feed is listening. Transitions committed while it is not are delivered by the catch-up
+     * query once it reconnects.
+     */
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Returns the number of events delivered from notifications.
+     */
+    public long getNotificationCount() {
+        return notifications.get();
+    }
+
+    /**
+     * Returns the number of events delivered by catch-up queries.
+     */
+    public long getCatchUpEventCount() {
+        return catchUpEvents.get();
+    }
+
+    public long getReconnectCount() {
+        return reconnects.get();
+    }
+
+    /**
+     * Stops listening and releases the connection.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        thread.interrupt();
+        thread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private void run() {
+        while (!closed) {
+            try {
+                listen();
+            } catch (SQLException | RuntimeException e) {
+                if (!closed) {
+                    LOGGER.warn("Lost claim validation status notifications connection, reconnecting in "
+                            + reconnectDelayMillis + " ms", e);
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                connected = false;
+            }
+            try {
+                Thread.sleep(reconnectDelayMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void listen() throws SQLException, InterruptedException {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement()) {
+            connection.setAutoCommit(true);
+            connection.setClientInfo("ApplicationName", APPLICATION_NAME);
+            PGConnection pgConnection = connection.unwrap(PGConnection.class);
+            statement.execute("LISTEN " + CHANNEL);
+            // changes committed from now on are notified; the rest were written by this transaction or an older one
+            long polled = poll(statement);
+            if (catchUpFrom >= 0) {
+                reconnects.incrementAndGet();
+                catchUp(connection, catchUpFrom);
+            }
+            catchUpFrom = polled;
+            connected = true;
+            LOGGER.info("Listening for claim validation status notifications");
+            while (!closed) {
+                long previous = polled;
+                // the query also makes the driver read notifications the server sent before answering it
+                polled = poll(statement);
+                deliver(pgConnection.getNotifications());
+                catchUpFrom = previous;
+                long deadline = System.currentTimeMillis() + pollIntervalMillis;
+                long remaining;
+                while (!closed && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                    deliver(pgConnection.getNotifications((int) remaining));
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                purge(connection);
+            }
+        }
+    }
+
+    /**
+     * Makes the server send pending notifications and returns the oldest transaction still running.
+     */
+    private long poll(Statement statement) throws SQLException {
+        try (ResultSet rs = statement.executeQuery(POLL_SQL)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private void deliver(PGNotification[] received) {
+        if (received == null) {
+            return;
+        }
+        for (PGNotification notification : received) {
+            StatusChangeEvent event = parse(notification.getParameter());
+            if (event != null) {
+                notifications.incrementAndGet();
+                deliver(event);
+            }
+        }
+    }
+
+    private void catchUp(Connection connection, long fromTransactionId) throws SQLException {
+        int delivered = 0;
+        try (PreparedStatement ps = connection.prepareStatement(CATCH_UP_SQL)) {
+            ps.setLong(1, fromTransactionId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    deliver(new StatusChangeEvent(Type.valueOf(rs.getString("type")),
+                            (UUID) rs.getObject("claim_validation_batch_id"), (Long) rs.getObject("run_number"),
+                            rs.getString("status"), rs.getLong("row_count"), rs.getTimestamp("create_date"), true));
+                    delivered++;
+                }
+            }
+        }
+        catchUpEvents.addAndGet(delivered);
+        LOGGER.info("Caught up on " + delivered + " claim validation status changes since transaction "
+                + fromTransactionId);
+    }
+
+    private void purge(Connection connection) throws SQLException {
+        long now = System.currentTimeMillis();
+        if (now - lastPurgeMillis < PURGE_INTERVAL_MILLIS) {
+            return;
+        }
+        lastPurgeMillis = now;
+        try (PreparedStatement ps = connection.prepareStatement(PURGE_SQL)) {
+            ps.setLong(1, retentionMillis);
+            int deleted = ps.executeUpdate();
+            if (deleted > 0) {
+                LOGGER.debug("Deleted " + deleted + " claim validation status changes older than " + retentionMillis
+                        + " ms");
+            }
+        }
+    }
+
+    private StatusChangeEvent parse(String payload) {
+        try {
+            JSONObject json = new JSONObject(payload);
+            return new StatusChangeEvent(Type.valueOf(json.getString("type")),
+                    UUID.fromString(json.getString("batchId")), json.getLong("runNumber"), json.getString("status"),
+                    json.getLong("count"), new Date(json.getLong("at")), false);
+        } catch (JSONException | IllegalArgumentException e) {
+            LOGGER.error("Ignoring malformed claim validation status notification " + payload, e);
+            return null;
+        }
+    }
+
+    private void deliver(StatusChangeEvent event) {
+        for (Listener listener : listeners) {
+            try {
+                listener.onStatusChange(event);
+            } catch (RuntimeException e) {
+                LOGGER.error("Listener failed on " + event, e);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,150 @@
+package com.doradosystems.mis.dao;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.apache.log4j.Logger;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.doradosystems.exception.DataPersistenceException;
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationRecord;
+
+/**
+ * Record status counts read from the trigger-maintained {@code claim_validation_record_status_count} table instead of
+ * {@code COUNT(*)} scans. Each lookup is a primary key read, whatever the size of the batch.
+ * <p>
+ * Batch counts are a {@code COUNT(*)} over the {@code (status, create_date)} index of the batch table. A counter row
+ * per batch status would be updated by every batch write, so all of them would queue on the same few rows, while the
+ * batch table stays small enough to count.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class ClaimValidationStatusCountDao {
+
+    private static final Logger LOGGER = Logger.getLogger(ClaimValidationStatusCountDao.class);
+
+    private static final String COUNT_BATCHES_SQL = "SELECT count(*)"
+            + " FROM mis_claim_validation_service.claim_validation_batch"
+            + " WHERE status = ?::mis_claim_validation_service.status";
+    private static final String COUNT_RECORDS_SQL = "SELECT COALESCE(SUM(record_count), 0)"
+            + " FROM mis_claim_validation_service.claim_validation_record_status_count"
+            + " WHERE claim_validation_batch_id = ? AND run_number = ? AND status = ?::mis_claim_validation_service.status";
+    private static final String HISTOGRAM_SQL = "SELECT status, record_count"
+            + " FROM mis_claim_validation_service.claim_validation_record_status_count"
+            + " WHERE claim_validation_batch_id = ? AND run_number = ?";
+    private static final String LOCK_SQL = "LOCK TABLE mis_claim_validation_service.claim_validation_record"
+            + " IN SHARE MODE";
+    private static final String DELETE_RECORD_COUNTS_SQL = "DELETE FROM"
+            + " mis_claim_validation_service.claim_validation_record_status_count";
+    private static final String RECOMPUTE_RECORD_COUNTS_SQL = "INSERT INTO"
+            + " mis_claim_validation_service.claim_validation_record_status_count"
+            + " (claim_validation_batch_id, run_number, status, record_count)"
+            + " SELECT claim_validation_batch_id, run_number, status, count(*)"
+            + " FROM mis_claim_validation_service.claim_validation_record"
+            + " GROUP BY claim_validation_batch_id, run_number, status";
+    private static final String RECORD_COUNT_DRIFT_SQL = "SELECT"
+            + " COALESCE(c.claim_validation_batch_id, r.claim_validation_batch_id) || '/'"
+            + " || COALESCE(c.run_number, r.run_number) || '/' || COALESCE(c.status, r.status)"
+            + " FROM (SELECT * FROM mis_claim_validation_service.claim_validation_record_status_count"
+            + " WHERE record_count <> 0) c"
+            + " FULL OUTER JOIN (SELECT claim_validation_batch_id, run_number, status, count(*) AS record_count"
+            + " FROM mis_claim_validation_service.claim_validation_record"
+            + " GROUP BY claim_validation_batch_id, run_number, status) r"
+            + " ON c.claim_validation_batch_id = r.claim_validation_batch_id AND c.run_number = r.run_number"
+            + " AND c.status = r.status"
+            + " WHERE c.record_count IS DISTINCT FROM r.record_count";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public ClaimValidationStatusCountDao(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    public int countByStatus(ClaimValidationBatch.Status status) throws DataPersistenceException {
+        try {
+            return jdbcTemplate.queryForObject(COUNT_BATCHES_SQL, Integer.class, status.toString());
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to count claim validation batches with status " + status, e);
+            throw new DataPersistenceException("Unable to count claim validation batches with status " + status, e);
+        }
+    }
+
+    public int countByBatchIdAndRunNumberAndStatus(UUID claimValidationBatchId, Long runNumber,
+            ClaimValidationRecord.Status status) throws DataPersistenceException {
+        try {
+            return jdbcTemplate.queryForObject(COUNT_RECORDS_SQL, Integer.class, claimValidationBatchId, runNumber,
+                    status.toString());
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to count claim validation records for batch " + claimValidationBatchId + " run "
+                    + runNumber + " with status " + status, e);
+            throw new DataPersistenceException("Unable to count claim validation records for batch "
+                    + claimValidationBatchId + " run " + runNumber + " with status " + status, e);
+        }
+    }
+
+    /**
+     * Returns the number of records in every status for a batch run. Statuses without records map to zero.
+     */
+    public Map<ClaimValidationRecord.Status, Integer> getStatusHistogram(UUID claimValidationBatchId, Long runNumber)
+            throws DataPersistenceException {
+        Map<ClaimValidationRecord.Status, Integer> histogram = new EnumMap<>(ClaimValidationRecord.Status.class);
+        for (ClaimValidationRecord.Status status : ClaimValidationRecord.Status.values()) {
+            histogram.put(status, 0);
+        }
+        try {
+            jdbcTemplate.query(HISTOGRAM_SQL, (RowCallbackHandler) rs -> {
+                histogram.put(ClaimValidationRecord.Status.valueOf(rs.getString("status")), rs.getInt("record_count"));
+            }, claimValidationBatchId, runNumber);
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to read status histogram for batch " + claimValidationBatchId + " run " + runNumber,
+                    e);
+            throw new DataPersistenceException("Unable to read status histogram for batch " + claimValidationBatchId
+                    + " run " + runNumber, e);
+        }
+        return histogram;
+    }
+
+    /**
+     * Rebuilds every record counter from {@code COUNT(*)} over the record table. Record writers are blocked while this
+     * runs, so it is meant for repair after a {@code TRUNCATE} or a suspected drift, not for routine use.
+     */
+    public void recompute() throws DataPersistenceException {
+        try {
+            transactionTemplate.execute(transaction -> {
+                jdbcTemplate.execute(LOCK_SQL);
+                jdbcTemplate.update(DELETE_RECORD_COUNTS_SQL);
+                return jdbcTemplate.update(RECOMPUTE_RECORD_COUNTS_SQL);
+            });
+            LOGGER.info("Recomputed claim validation status counts");
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to recompute claim validation status counts", e);
+            throw new DataPersistenceException("Unable to recompute claim validation status counts", e);
+        }
+    }
+
+    /**
+     * Lists (batch, run, status) counters whose value differs from {@code COUNT(*)}, as
+     * {@code batchId/runNumber/status}. An empty result means the counters are exact.
+     */
+    public List<String> findRecordCountDrift() throws DataPersistenceException {
+        try {
+            return jdbcTemplate.queryForList(RECORD_COUNT_DRIFT_SQL, String.class);
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to compare claim validation status counts", e);
+            throw new DataPersistenceException("Unable to compare claim validation status counts", e);
+        }
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.doradosystems.mis.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.apache.log4j.Logger;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import com.doradosystems.exception.DataPersistenceException;
+import com.doradosystems.mis.codec.PayloadCodecs;
+
+/**
+ * Opens {@link ClaimValidationSummarySession}s, which list records and responses without their payload columns.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class ClaimValidationSummaryDao {
+
+    private static final Logger LOGGER = Logger.getLogger(ClaimValidationSummaryDao.class);
+
+    private final DataSource dataSource;
+    private final PayloadCodecs codecs;
+
+    public ClaimValidationSummaryDao(DataSource dataSource) {
+        this(dataSource, PayloadCodecs.DEFAULT);
+    }
+
+    /**
+     * @param codecs
+     *            decodes payloads written by {@link CompressingClaimValidationRecordDao} and
+     *            {@link CompressingClaimValidationResponseDao}
+     */
+    public ClaimValidationSummaryDao(DataSource dataSource, PayloadCodecs codecs) {
+        this.dataSource = dataSource;
+        this.codecs = codecs;
+    }
+
+    /**
+     * Borrows a connection and starts a read-only, repeatable-read transaction on it. The session must be closed,
+     * typically with try-with-resources, to return the connection to the pool. Until then the session's snapshot
+     * keeps VACUUM from cleaning up rows that became dead after it was taken, so keep sessions short.
+     */
+    public ClaimValidationSummarySession openSession() throws DataPersistenceException {
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            return new ClaimValidationSummarySession(connection, codecs);
+        } catch (SQLException e) {
+            JdbcUtils.closeConnection(connection);
+            LOGGER.error("Unable to open claim validation summary session", e);
+            throw new DataPersistenceException("Unable to open claim validation summary session", e);
+        }
+    }
+
+}
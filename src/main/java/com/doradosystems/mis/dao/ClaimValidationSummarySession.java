@@ -0,0 +1,291 @@
+package com.doradosystems.mis.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import com.doradosystems.exception.DataPersistenceException;
+import com.doradosystems.exception.NotFoundException;
+import com.doradosystems.mis.codec.PayloadCodecs;
+import com.doradosystems.mis.domain.ClaimValidationRecord;
+import com.doradosystems.mis.domain.ClaimValidationRecordSummary;
+import com.doradosystems.mis.domain.ClaimValidationResponse;
+import com.doradosystems.mis.domain.ClaimValidationResponseSummary;
+import com.doradosystems.mis.domain.LazyPayload;
+
+/**
+ * Reads record and response summaries on one connection, leaving the {@code record} and {@code response} columns in
+ * the database until a summary's {@link LazyPayload} is first read.
+ * <p>
+ * The session runs in a read-only, repeatable-read transaction, so a payload loaded later belongs to the same
+ * snapshot as its summary. Payloads not loaded before {@link #close()} can no longer be loaded; their
+ * {@link LazyPayload#get()} throws {@link IllegalStateException}. A session is meant for one thread at a time.
+ * <p>
+ * Both choices have a cost. The session holds a pooled connection and its snapshot until it is closed, and while the
+ * snapshot is open VACUUM cannot remove any row version, in any table of the database, that became dead after it was
+ * taken. Keep sessions short, e.g. one per request, and never park one between requests. Each
+ * {@link LazyPayload#get()} is one query, so reading the payloads of a whole list one by one is one query per summary;
+ * {@link #loadRecordPayloads(Collection)} and {@link #loadResponsePayloads(Collection)} load them for a list with one
+ * query per {@value InClauses#MAX_SIZE} summaries.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class ClaimValidationSummarySession implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(ClaimValidationSummarySession.class);
+
+    private static final String SELECT_RECORD_SUMMARY_SQL = "SELECT "
+            + ClaimValidationRowMappers.RECORD_SUMMARY_COLUMNS
+            + " FROM mis_claim_validation_service.claim_validation_record WHERE claim_validation_record_id = ?";
+    private static final String SELECT_RECORD_SUMMARIES_SQL = "SELECT "
+            + ClaimValidationRowMappers.RECORD_SUMMARY_COLUMNS
+            + " FROM mis_claim_validation_service.claim_validation_record"
+            + " WHERE claim_validation_batch_id = ? AND run_number = ?";
+    private static final String SELECT_RESPONSE_SUMMARIES_SQL = "SELECT "
+            + ClaimValidationRowMappers.RESPONSE_SUMMARY_COLUMNS
+            + " FROM mis_claim_validation_service.claim_validation_response"
+            + " WHERE claim_validation_batch_id = ? AND run_number = ?";
+    private static final String SELECT_RECORD_PAYLOAD_SQL = "SELECT record, record_data"
+            + " FROM mis_claim_validation_service.claim_validation_record WHERE claim_validation_record_id = ?";
+    private static final String SELECT_RESPONSE_PAYLOAD_SQL = "SELECT response, response_data"
+            + " FROM mis_claim_validation_service.claim_validation_response WHERE claim_validation_response_id = ?";
+    private static final String SELECT_RECORD_PAYLOADS_SQL = "SELECT claim_validation_record_id, record, record_data"
+            + " FROM mis_claim_validation_service.claim_validation_record WHERE claim_validation_record_id IN (:ids)";
+    private static final String SELECT_RESPONSE_PAYLOADS_SQL = "SELECT claim_validation_response_id, response,"
+            + " response_data FROM mis_claim_validation_service.claim_validation_response"
+            + " WHERE claim_validation_response_id IN (:ids)";
+
+    private final Connection connection;
+    private final int isolation;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final PayloadCodecs codecs;
+    // payloads read by loadRecordPayloads and loadResponsePayloads, until their LazyPayload takes them
+    private final Map<UUID, String> fetchedPayloads = new HashMap<>();
+    private final AtomicLong payloadLoads = new AtomicLong();
+    private final AtomicLong payloadQueries = new AtomicLong();
+    private volatile boolean closed;
+
+    private final RowMapper<ClaimValidationRecordSummary> recordSummaryMapper = (rs, rowNum) -> {
+        UUID id = (UUID) rs.getObject("claim_validation_record_id");
+        return new ClaimValidationRecordSummary(
+                id,
+                (UUID) rs.getObject("claim_validation_batch_id"),
+                rs.getLong("run_number"),
+                ClaimValidationRecord.Status.valueOf(rs.getString("status")),
+                rs.getString("claim_number"),
+                rs.getTimestamp("create_date"),
+                rs.getTimestamp("updated_date"),
+                new LazyPayload(() -> loadPayload(SELECT_RECORD_PAYLOAD_SQL, "record", id)));
+    };
+
+    private final RowMapper<ClaimValidationResponseSummary> responseSummaryMapper = (rs, rowNum) -> {
+        UUID id = (UUID) rs.getObject("claim_validation_response_id");
+        return new ClaimValidationResponseSummary(
+                id,
+                (UUID) rs.getObject("claim_validation_batch_id"),
+                rs.getLong("run_number"),
+                ClaimValidationResponse.Status.valueOf(rs.getString("status")),
+                rs.getString("claim_number"),
+                rs.getTimestamp("create_date"),
+                rs.getTimestamp("updated_date"),
+                (UUID) rs.getObject("claim_validation_record_id"),
+                new LazyPayload(() -> loadPayload(SELECT_RESPONSE_PAYLOAD_SQL, "response", id)));
+    };
+
+    ClaimValidationSummarySession(Connection connection, PayloadCodecs codecs) throws SQLException {
+        this.connection = connection;
+        this.codecs = codecs;
+        this.isolation = connection.getTransactionIsolation();
+        connection.setAutoCommit(false);
+        connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        connection.setReadOnly(true);
+        this.jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    public ClaimValidationRecordSummary getRecordSummary(UUID claimValidationRecordId)
+            throws DataPersistenceException, NotFoundException {
+        checkOpen();
+        try {
+            return jdbcTemplate.queryForObject(SELECT_RECORD_SUMMARY_SQL, recordSummaryMapper, claimValidationRecordId);
+        } catch (EmptyResultDataAccessException e) {
+            throw new NotFoundException("Claim validation record " + claimValidationRecordId + " not found");
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to read claim validation record " + claimValidationRecordId, e);
+            throw new DataPersistenceException("Unable to read claim validation record " + claimValidationRecordId, e);
+        }
+    }
+
+    public List<ClaimValidationRecordSummary> getRecordSummaries(UUID claimValidationBatchId, Long runNumber)
+            throws DataPersistenceException {
+        checkOpen();
+        try {
+            return jdbcTemplate.query(SELECT_RECORD_SUMMARIES_SQL, recordSummaryMapper, claimValidationBatchId,
+                    runNumber);
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to read claim validation batch " + claimValidationBatchId + " run " + runNumber, e);
+            throw new DataPersistenceException("Unable to read claim validation batch " + claimValidationBatchId
+                    + " run " + runNumber, e);
+        }
+    }
+
+    public List<ClaimValidationResponseSummary> getResponseSummaries(UUID claimValidationBatchId, Long runNumber)
+            throws DataPersistenceException {
+        checkOpen();
+        try {
+            return jdbcTemplate.query(SELECT_RESPONSE_SUMMARIES_SQL, responseSummaryMapper, claimValidationBatchId,
+                    runNumber);
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to read claim validation responses of batch " + claimValidationBatchId + " run "
+                    + runNumber, e);
+            throw new DataPersistenceException("Unable to read claim validation responses of batch "
+                    + claimValidationBatchId + " run " + runNumber, e);
+        }
+    }
+
+    /**
+     * Loads the payloads of {@code summaries} that are not loaded yet, with one query per {@value InClauses#MAX_SIZE}
+     * summaries instead of one each.
+     */
+    public void loadRecordPayloads(Collection<ClaimValidationRecordSummary> summaries)
+            throws DataPersistenceException {
+        checkOpen();
+        List<UUID> ids = new ArrayList<>(summaries.size());
+        for (ClaimValidationRecordSummary summary : summaries) {
+            if (!summary.getRecord().isLoaded()) {
+                ids.add(summary.getClaimValidationRecordId());
+            }
+        }
+        fetchPayloads(SELECT_RECORD_PAYLOADS_SQL, "record", ids);
+        for (ClaimValidationRecordSummary summary : summaries) {
+            summary.getRecord().get();
+        }
+    }
+
+    /**
+     * Loads the payloads of {@code summaries} that are not loaded yet, with one query per {@value InClauses#MAX_SIZE}
+     * summaries instead of one each.
+     */
+    public void loadResponsePayloads(Collection<ClaimValidationResponseSummary> summaries)
+            throws DataPersistenceException {
+        checkOpen();
+        List<UUID> ids = new ArrayList<>(summaries.size());
+        for (ClaimValidationResponseSummary summary : summaries) {
+            if (!summary.getResponse().isLoaded()) {
+                ids.add(summary.getClaimValidationResponseId());
+            }
+        }
+        fetchPayloads(SELECT_RESPONSE_PAYLOADS_SQL, "response", ids);
+        for (ClaimValidationResponseSummary summary : summaries) {
+            summary.getResponse().get();
+        }
+    }
+
+    /**
+     * Returns the number of payloads loaded through this session.
+     */
+    public long getPayloadLoadCount() {
+        return payloadLoads.get();
+    }
+
+    /**
+     * Returns the number of queries this session ran to load payloads.
+     */
+    public long getPayloadQueryCount() {
+        return payloadQueries.get();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Ends the transaction and returns the connection to the pool. Calling it again has no effect.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        synchronized (fetchedPayloads) {
+            fetchedPayloads.clear();
+        }
+        try {
+            connection.rollback();
+            connection.setReadOnly(false);
+            connection.setTransactionIsolation(isolation);
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            LOGGER.warn("Unable to reset connection after closing summary session", e);
+        }
+        JdbcUtils.closeConnection(connection);
+    }
+
+    private String loadPayload(String sql, String column, UUID id) throws DataPersistenceException {
+        if (closed) {
+            throw new IllegalStateException("Unable to load " + column + " of " + id
+                    + ": the summary session it was read in has been closed");
+        }
+        synchronized (fetchedPayloads) {
+            if (fetchedPayloads.containsKey(id)) {
+                payloadLoads.incrementAndGet();
+                return fetchedPayloads.remove(id);
+            }
+        }
+        try {
+            String payload = jdbcTemplate.queryForObject(sql,
+                    (rs, rowNum) -> ClaimValidationRowMappers.payload(rs, column, codecs), id);
+            payloadLoads.incrementAndGet();
+            payloadQueries.incrementAndGet();
+            return payload;
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to load " + column + " of " + id, e);
+            throw new DataPersistenceException("Unable to load " + column + " of " + id, e);
+        }
+    }
+
+    private void fetchPayloads(String sql, String column, List<UUID> ids) throws DataPersistenceException {
+        try {
+            for (List<UUID> partition : InClauses.partition(ids)) {
+                namedParameterJdbcTemplate.query(sql, new MapSqlParameterSource("ids", partition),
+                        (RowCallbackHandler) rs -> {
+                            String payload = ClaimValidationRowMappers.payload(rs, column, codecs);
+                            synchronized (fetchedPayloads) {
+                                fetchedPayloads.put((UUID) rs.getObject(1), payload);
+                            }
+                        });
+                payloadQueries.incrementAndGet();
+            }
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to load " + ids.size() + " " + column + " payloads", e);
+            throw new DataPersistenceException("Unable to load " + ids.size() + " " + column + " payloads", e);
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Summary session has been closed");
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.doradosystems.mis.dao;
+
+import java.util.List;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.apache.log4j.Logger;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import com.doradosystems.exception.DataPersistenceException;
+import com.doradosystems.exception.NotFoundException;
+import com.doradosystems.mis.codec.PayloadCodecs;
+import com.doradosystems.mis.domain.ClaimValidationRecord;
+
+/**
+ * {@link ClaimValidationRecordDao} that stores the {@code record} payload encoded in the {@code record_data} column.
+ * <p>
+ * New records are written with {@link PayloadCodecs#encode(String)} and a {@code null} {@code record} column. Reads
+ * decode {@code record_data} when present and fall back to {@code record} otherwise, so rows written by
+ * {@link ClaimValidationRecordDao} remain readable. Calls that do not touch the payload are inherited.
+ * <p>
+ * A plain {@link ClaimValidationRecordDao} only reads the {@code record} column and returns a {@code null} payload for
+ * rows written here. Once this class writes, every reader must decode: pass an instance of this class, not a plain
+ * {@link ClaimValidationRecordDao}, to {@link AsyncClaimValidationRecordDao},
+ * {@link WriteBehindClaimValidationRecordDao} and {@link ReplicaReadingClaimValidationRecordDao}, and give {@link ClaimValidationRecordQueryDao} and
+ * {@link ClaimValidationSummaryDao} the same {@link PayloadCodecs}. Readers outside this module that use their own
+ * {@link ClaimValidationRecordDao} cannot read compressed rows.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class CompressingClaimValidationRecordDao extends ClaimValidationRecordDao {
+
+    private static final Logger LOGGER = Logger.getLogger(CompressingClaimValidationRecordDao.class);
+
+    private static final String INSERT_SQL = "INSERT INTO mis_claim_validation_service.claim_validation_record "
+            + "(claim_validation_record_id, claim_validation_batch_id, run_number, status, claim_number, record_data) "
+            + "VALUES (?, ?, ?, ?::mis_claim_validation_service.status, ?, ?)";
+    private static final String SELECT_SQL = "SELECT " + ClaimValidationRowMappers.RECORD_COLUMNS
+            + " FROM mis_claim_validation_service.claim_validation_record WHERE claim_validation_record_id = ?";
+    private static final String SELECT_BY_BATCH_ID_AND_RUN_NUMBER_SQL = "SELECT "
+            + ClaimValidationRowMappers.RECORD_COLUMNS
+            + " FROM mis_claim_validation_service.claim_validation_record"
+            + " WHERE claim_validation_batch_id = ? AND run_number = ?";
+    private static final String SELECT_BY_UPDATE_DATE_DESCENDING_SQL = SELECT_BY_BATCH_ID_AND_RUN_NUMBER_SQL
+            + " ORDER BY updated_date DESC LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PayloadCodecs codecs;
+    private final RowMapper<ClaimValidationRecord> rowMapper;
+
+    public CompressingClaimValidationRecordDao(DataSource dataSource, PayloadCodecs codecs) {
+        super(dataSource);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.codecs = codecs;
+        this.rowMapper = ClaimValidationRowMappers.record(codecs);
+    }
+
+    @Override
+    public UUID add(ClaimValidationRecord claimValidationRecord) throws DataPersistenceException {
+        UUID id = UUID.randomUUID();
+        try {
+            jdbcTemplate.update(INSERT_SQL, id, claimValidationRecord.getClaimValidationBatchId(),
+                    claimValidationRecord.getRunNumber(), claimValidationRecord.getStatus().toString(),
+                    claimValidationRecord.getClaimNumber(), codecs.encode(claimValidationRecord.getRecord()));
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to add claim validation record", e);
+            throw new DataPersistenceException("Unable to add claim validation record", e);
+        }
+        return id;
+    }
+
+    @Override
+    public ClaimValidationRecord get(UUID claimValidationRecordId) throws DataPersistenceException, NotFoundException {
+        try {
+            return jdbcTemplate.queryForObject(SELECT_SQL, rowMapper, claimValidationRecordId);
+        } catch (EmptyResultDataAccessException e) {
+            throw new NotFoundException("Claim validation record " + claimValidationRecordId + " not found");
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to read claim validation record " + claimValidationRecordId, e);
+            throw new DataPersistenceException("Unable to read claim validation record " + claimValidationRecordId, e);
+        }
+    }
+
+    @Override
+    public List<ClaimValidationRecord> getByBatchIdAndRunNumber(UUID claimValidationBatchId, Long runNumber)
+            throws DataPersistenceException {
+        try {
+            return jdbcTemplate.query(SELECT_BY_BATCH_ID_AND_RUN_NUMBER_SQL, rowMapper, claimValidationBatchId,
+                    runNumber);
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to read claim validation batch " + claimValidationBatchId + " run " + runNumber, e);
+            throw new DataPersistenceException("Unable to read claim validation batch " + claimValidationBatchId
+                    + " run " + runNumber, e);
+        }
+    }
+
+    @Override
+    public List<ClaimValidationRecord> getByBatchIdAndRunNumberOrderByUpdateDateDescending(
+            UUID claimValidationBatchId, Long runNumber, int limit) throws DataPersistenceException {
+        try {
+            return jdbcTemplate.query(SELECT_BY_UPDATE_DATE_DESCENDING_SQL, rowMapper, claimValidationBatchId,
+                    runNumber, limit);
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to read claim validation batch " + claimValidationBatchId + " run " + runNumber, e);
+            throw new DataPersistenceException("Unable to read claim validation batch " + claimValidationBatchId
+                    + " run " + runNumber, e);
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.doradosystems.mis.dao;
+
+import java.util.List;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.apache.log4j.Logger;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import com.doradosystems.exception.DataPersistenceException;
+import com.doradosystems.mis.codec.PayloadCodecs;
+import com.doradosystems.mis.domain.ClaimValidationResponse;
+
+/**
+ * {@link ClaimValidationResponseDao} that stores the {@code response} payload encoded in the {@code response_data}
+ * column. Rows without {@code response_data} are read from {@code response} as before.
+ * <p>
+ * As with {@link CompressingClaimValidationRecordDao}, a plain {@link ClaimValidationResponseDao} returns a
+ * {@code null} payload for rows written here: pass an instance of this class to
+ * {@link AsyncClaimValidationResponseDao} and {@link ReplicaReadingClaimValidationResponseDao}, and give
+ * {@link ClaimValidationResponseQueryDao} and {@link ClaimValidationSummaryDao} the same {@link PayloadCodecs}.
+ * Readers outside this module that use their own {@link ClaimValidationResponseDao} cannot read compressed rows.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class CompressingClaimValidationResponseDao extends ClaimValidationResponseDao {
+
+    private static final Logger LOGGER = Logger.getLogger(CompressingClaimValidationResponseDao.class);
+
+    private static final String INSERT_SQL = "INSERT INTO mis_claim_validation_service.claim_validation_response "
+            + "(claim_validation_response_id, claim_validation_batch_id, run_number, status, claim_number, "
+            + "response_data, claim_validation_record_id) "
+            + "VALUES (?, ?, ?, ?::mis_claim_validation_service.status, ?, ?, ?)";
+    private static final String SELECT_BY_BATCH_ID_AND_RUN_NUMBER_SQL = "SELECT "
+            + ClaimValidationRowMappers.RESPONSE_COLUMNS
+            + " FROM mis_claim_validation_service.claim_validation_response"
+            + " WHERE claim_validation_batch_id = ? AND run_number = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PayloadCodecs codecs;
+    private final RowMapper<ClaimValidationResponse> rowMapper;
+
+    public CompressingClaimValidationResponseDao(DataSource dataSource, PayloadCodecs codecs) {
+        super(dataSource);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.codecs = codecs;
+        this.rowMapper = ClaimValidationRowMappers.response(codecs);
+    }
+
+    @Override
+    public UUID add(ClaimValidationResponse claimValidationResponse) throws DataPersistenceException {
+        UUID id = UUID.randomUUID();
+        try {
+            jdbcTemplate.update(INSERT_SQL, id, claimValidationResponse.getClaimValidationBatchId(),
+                    claimValidationResponse.getRunNumber(), claimValidationResponse.getStatus().toString(),
+                    claimValidationResponse.getClaimNumber(), codecs.encode(claimValidationResponse.getResponse()),
+                    claimValidationResponse.getClaimValidationRecordId());
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to add claim validation response", e);
+            throw new DataPersistenceException("Unable to add claim validation response", e);
+        }
+        return id;
+    }
+
+    @Override
+    public List<ClaimValidationResponse> get(UUID claimValidationBatchId, Long runNumber)
+            throws DataPersistenceException {
+        try {
+            return jdbcTemplate.query(SELECT_BY_BATCH_ID_AND_RUN_NUMBER_SQL, rowMapper, claimValidationBatchId,
+                    runNumber);
+        } catch (DataAccessException e) {
+            LOGGER.error("Unable to read claim validation responses of batch " + claimValidationBatchId + " run "
+                    + runNumber, e);
+            throw new DataPersistenceException("Unable to read claim validation responses of batch "
+                    + claimValidationBatchId + " run " + runNumber, e);
+        }
+    }
+
+}
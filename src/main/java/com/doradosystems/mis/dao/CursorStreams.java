@@ -0,0 +1,112 @@
+package com.doradosystems.mis.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.sql.DataSource;
+
+import org.apache.log4j.Logger;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.JdbcUtils;
+
+/**
+ * Opens lazily consumed {@link Stream}s over a PostgreSQL server-side cursor.
+ * <p>
+ * The driver only uses a cursor when auto-commit is off and a fetch size is set, so each stream holds its own
+ * connection inside a read-only transaction until the stream is closed. Streams must be closed, typically with
+ * try-with-resources; closing early releases the cursor and returns the connection to the pool.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+final class CursorStreams {
+
+    private static final Logger LOGGER = Logger.getLogger(CursorStreams.class);
+
+    private CursorStreams() {
+    }
+
+    static <T> Stream<T> stream(DataSource dataSource, String sql, int fetchSize, PreparedStatementSetter setter,
+            RowMapper<T> rowMapper) throws SQLException {
+        Connection connection = dataSource.getConnection();
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+            ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            setter.setValues(ps);
+            rs = ps.executeQuery();
+        } catch (SQLException | RuntimeException e) {
+            close(connection, ps, rs);
+            throw e;
+        }
+        Cursor<T> cursor = new Cursor<>(connection, ps, rs, rowMapper);
+        return StreamSupport.stream(cursor, false).onClose(cursor::close);
+    }
+
+    private static void close(Connection connection, PreparedStatement ps, ResultSet rs) {
+        JdbcUtils.closeResultSet(rs);
+        JdbcUtils.closeStatement(ps);
+        try {
+            connection.rollback();
+            connection.setReadOnly(false);
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            LOGGER.warn("Unable to reset connection after closing cursor", e);
+        }
+        JdbcUtils.closeConnection(connection);
+    }
+
+    private static final class Cursor<T> extends Spliterators.AbstractSpliterator<T> {
+
+        private final Connection connection;
+        private final PreparedStatement ps;
+        private final ResultSet rs;
+        private final RowMapper<T> rowMapper;
+        private int rowNum;
+        private boolean closed;
+
+        Cursor(Connection connection, PreparedStatement ps, ResultSet rs, RowMapper<T> rowMapper) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.connection = connection;
+            this.ps = ps;
+            this.rs = rs;
+            this.rowMapper = rowMapper;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (closed) {
+                return false;
+            }
+            try {
+                if (!rs.next()) {
+                    return false;
+                }
+                action.accept(rowMapper.mapRow(rs, rowNum++));
+                return true;
+            } catch (SQLException e) {
+                throw new DataRetrievalFailureException("Unable to read row " + rowNum + " from cursor", e);
+            }
+        }
+
+        void close() {
+            if (!closed) {
+                closed = true;
+                CursorStreams.close(connection, ps, rs);
+            }
+        }
+    }
+
+}
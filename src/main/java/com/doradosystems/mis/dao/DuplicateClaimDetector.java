@@ -0,0 +1,219 @@
+package com.doradosystems.mis.dao;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+import com.doradosystems.exception.DataPersistenceException;
+import com.doradosystems.mis.domain.ClaimValidationRecord;
+
+/**
+ * Finds claims a client already submitted in an earlier file.
+ * <p>
+ * Each client gets a {@link ScalableClaimNumberBloomFilter} over the claim numbers of its stored records, built on
+ * first use by streaming them from the database. It starts sized for {@code initialClaimsPerClient} claims and grows
+ * with the client. Claim numbers the filter has never seen are reported as new without a database round trip; the
+ * rest are confirmed with one indexed lookup, which discards the filter's false positives. Callers should
+ * {@link #register(Long, Collection) register} the claim numbers of records they add, and
+ * {@link #invalidate(Long) invalidate} a client whose records were deleted.
+ * <p>
+ * Filters live in this JVM only and are not told about records stored by other nodes, or by write paths that do not
+ * call {@link #register(Long, Collection)}. Those claims are reported as new until the client's filter is rebuilt,
+ * which happens on the first lookup after it is {@code maxFilterAge} old; lookups go on using the old filter while one
+ * thread rebuilds it. A duplicate can therefore be missed for up to {@code maxFilterAge} after another node stored it.
+ * Where that is not acceptable, e.g. with several nodes accepting files of the same client, look claim numbers up
+ * with {@link ClaimValidationRecordQueryDao#getByClientIdAndClaimNumbers(Long, Collection)} instead.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class DuplicateClaimDetector {
+
+    public static final Duration DEFAULT_MAX_FILTER_AGE = Duration.ofMinutes(5);
+
+    private static final Logger LOGGER = Logger.getLogger(DuplicateClaimDetector.class);
+
+    private final ClaimValidationRecordQueryDao queryDao;
+    private final int initialClaimsPerClient;
+    private final double falsePositiveProbability;
+    private final long maxFilterAgeNanos;
+    private final Map<Long, ClientFilter> filters = new ConcurrentHashMap<>();
+    private final AtomicLong checked = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+
+    public DuplicateClaimDetector(ClaimValidationRecordQueryDao queryDao, int initialClaimsPerClient,
+            double falsePositiveProbability) {
+        this(queryDao, initialClaimsPerClient, falsePositiveProbability, DEFAULT_MAX_FILTER_AGE);
+    }
+
+    public DuplicateClaimDetector(ClaimValidationRecordQueryDao queryDao, int initialClaimsPerClient,
+            double falsePositiveProbability, Duration maxFilterAge) {
+        if (initialClaimsPerClient < 1) {
+            throw new IllegalArgumentException("initialClaimsPerClient must be greater than zero but was "
+                    + initialClaimsPerClient);
+        }
+        if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("falsePositiveProbability must be between 0 and 1 but was "
+                    + falsePositiveProbability);
+        }
+        if (maxFilterAge.isNegative() || maxFilterAge.isZero()) {
+            throw new IllegalArgumentException("maxFilterAge must be positive but was " + maxFilterAge);
+        }
+        this.queryDao = queryDao;
+        this.initialClaimsPerClient = initialClaimsPerClient;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.maxFilterAgeNanos = maxFilterAge.toNanos();
+    }
+
+    /**
+     * Returns the stored records of the client that share a claim number with {@code claimNumbers}, keyed by claim
+     * number. Claim numbers absent from the result are new for the client.
+     */
+    public Map<String, List<ClaimValidationRecord>> findDuplicates(Long clientId, Collection<String> claimNumbers)
+            throws DataPersistenceException {
+        ScalableClaimNumberBloomFilter filter = filter(clientId);
+        List<String> candidates = new ArrayList<>();
+        for (String claimNumber : claimNumbers) {
+            if (claimNumber != null && filter.mightContain(claimNumber)) {
+                candidates.add(claimNumber);
+            }
+        }
+        checked.addAndGet(claimNumbers.size());
+        skipped.addAndGet(claimNumbers.size() - candidates.size());
+        if (candidates.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, List<ClaimValidationRecord>> duplicates = queryDao.getByClientIdAndClaimNumbers(clientId,
+                candidates);
+        falsePositives.addAndGet(candidates.stream().distinct().filter(c -> !duplicates.containsKey(c)).count());
+        return duplicates;
+    }
+
+    public boolean isDuplicate(Long clientId, String claimNumber) throws DataPersistenceException {
+        return !findDuplicates(clientId, Collections.singleton(claimNumber)).isEmpty();
+    }
+
+    /**
+     * Adds claim numbers of newly stored records to the client's filter. Call it once the records are committed; a
+     * filter that has not been built yet will read them from the database instead.
+     */
+    public void register(Long clientId, Collection<String> claimNumbers) {
+        ClientFilter clientFilter = filters.get(clientId);
+        if (clientFilter == null) {
+            return;
+        }
+        synchronized (clientFilter) {
+            if (clientFilter.filter == null) {
+                return;
+            }
+            for (String claimNumber : claimNumbers) {
+                if (claimNumber != null) {
+                    clientFilter.filter.put(claimNumber);
+                    if (clientFilter.registeredDuringRebuild != null) {
+                        clientFilter.registeredDuringRebuild.add(claimNumber);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Discards the client's filter; the next lookup rebuilds it from the database.
+     */
+    public void invalidate(Long clientId) {
+        filters.remove(clientId);
+    }
+
+    /**
+     * Returns the bits of the client's filter, or 0 if it has not been built.
+     */
+    public long getFilterBitCount(Long clientId) {
+        ClientFilter clientFilter = filters.get(clientId);
+        ScalableClaimNumberBloomFilter filter = clientFilter == null ? null : clientFilter.filter;
+        return filter == null ? 0 : filter.getBitCount();
+    }
+
+    /**
+     * Returns the number of claim numbers passed to {@link #findDuplicates(Long, Collection)}.
+     */
+    public long getCheckedCount() {
+        return checked.get();
+    }
+
+    /**
+     * Returns the number of checked claim numbers the filter reported as new without querying the database.
+     */
+    public long getSkippedCount() {
+        return skipped.get();
+    }
+
+    /**
+     * Returns the number of claim numbers the filter reported as possibly stored that the database did not have.
+     */
+    public long getFalsePositiveCount() {
+        return falsePositives.get();
+    }
+
+    private ScalableClaimNumberBloomFilter filter(Long clientId) throws DataPersistenceException {
+        ClientFilter clientFilter = filters.computeIfAbsent(clientId, id -> new ClientFilter());
+        ScalableClaimNumberBloomFilter current;
+        synchronized (clientFilter) {
+            if (clientFilter.filter == null) {
+                clientFilter.filter = load(clientId);
+                clientFilter.loadedAt = System.nanoTime();
+                return clientFilter.filter;
+            }
+            current = clientFilter.filter;
+            if (System.nanoTime() - clientFilter.loadedAt < maxFilterAgeNanos
+                    || clientFilter.registeredDuringRebuild != null) {
+                return current;
+            }
+            clientFilter.registeredDuringRebuild = new ArrayList<>();
+        }
+        // rebuild outside the lock, so that other lookups keep using the current filter meanwhile
+        ScalableClaimNumberBloomFilter rebuilt = null;
+        try {
+            rebuilt = load(clientId);
+        } finally {
+            synchronized (clientFilter) {
+                if (rebuilt != null) {
+                    clientFilter.registeredDuringRebuild.forEach(rebuilt::put);
+                    clientFilter.filter = rebuilt;
+                    clientFilter.loadedAt = System.nanoTime();
+                }
+                clientFilter.registeredDuringRebuild = null;
+            }
+        }
+        return rebuilt;
+    }
+
+    private ScalableClaimNumberBloomFilter load(Long clientId) throws DataPersistenceException {
+        long start = System.nanoTime();
+        ScalableClaimNumberBloomFilter filter = new ScalableClaimNumberBloomFilter(initialClaimsPerClient,
+                falsePositiveProbability);
+        AtomicLong loaded = new AtomicLong();
+        queryDao.forEachClaimNumberByClientId(clientId, claimNumber -> {
+            filter.put(claimNumber);
+            loaded.incrementAndGet();
+        });
+        LOGGER.info("Loaded " + loaded + " claim numbers of client " + clientId + " into a filter of "
+                + filter.getBitCount() / 8 + " bytes in " + (System.nanoTime() - start) / 1000000 + " ms");
+        return filter;
+    }
+
+    private static final class ClientFilter {
+        private ScalableClaimNumberBloomFilter filter;
+        private long loadedAt;
+        // claim numbers registered while the filter is rebuilt, which the rebuilt filter may have missed
+        private List<String> registeredDuringRebuild;
+    }
+
+}
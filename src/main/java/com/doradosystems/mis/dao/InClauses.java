@@ -0,0 +1,40 @@
+package com.doradosystems.mis.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Splits parameter collections so expanded {@code IN (:ids)} lists stay well below the driver's bind parameter limit.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+final class InClauses {
+
+    static final int MAX_SIZE = 1000;
+
+    private InClauses() {
+    }
+
+    static <T> List<List<T>> partition(Collection<T> values) {
+        return partition(values, MAX_SIZE);
+    }
+
+    static <T> List<List<T>> partition(Collection<T> values, int size) {
+        List<List<T>> partitions = new ArrayList<>();
+        List<T> current = new ArrayList<>(Math.min(size, values.size()));
+        for (T value : values) {
+            current.add(value);
+            if (current.size() == size) {
+                partitions.add(current);
+                current = new ArrayList<>(size);
+            }
+        }
+        if (!current.isEmpty()) {
+            partitions.add(current);
+        }
+        return partitions;
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.doradosystems.mis.dao;
+
+import java.util.List;
+import java.util.UUID;
+
+import com.doradosystems.exception.DataPersistenceException;
+import com.doradosystems.exception.NotFoundException;
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationBatch.Status;
+import com.doradosystems.mis.metrics.DaoMetrics;
+
+/**
+ * {@link ClaimValidationBatchDao} that reports every call to a {@link DaoMetrics}.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class InstrumentedClaimValidationBatchDao {
+
+    public static final String ADD = "ClaimValidationBatchDao.add";
+    public static final String GET = "ClaimValidationBatchDao.get";
+    public static final String GET_BY_STATUS = "ClaimValidationBatchDao.getByStatus";
+    public static final String GET_BY_STATUS_WITH_CREATE_TIME_ASCENDING =
+            "ClaimValidationBatchDao.getByStatusWithCreateTimeAscending";
+    public static final String COUNT_BY_STATUS = "ClaimValidationBatchDao.countByStatus";
+    public static final String UPDATE_STATUS = "ClaimValidationBatchDao.updateStatus";
+    public static final String UPDATE_STATUS_AND_RUN_NUMBER = "ClaimValidationBatchDao.updateStatusAndRunNumber";
+
+    private final ClaimValidationBatchDao delegate;
+    private final DaoMetrics metrics;
+
+    public InstrumentedClaimValidationBatchDao(ClaimValidationBatchDao delegate) {
+        this(delegate, DaoMetrics.NOOP);
+    }
+
+    public InstrumentedClaimValidationBatchDao(ClaimValidationBatchDao delegate, DaoMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    public UUID add(ClaimValidationBatch claimValidationBatch) throws DataPersistenceException {
+        long start = metrics.startTime();
+        try {
+            UUID id = delegate.add(claimValidationBatch);
+            metrics.recordSuccess(ADD, start, 1);
+            return id;
+        } catch (Exception e) {
+            metrics.recordError(ADD, start, e);
+            throw e;
+        }
+    }
+
+    public ClaimValidationBatch get(UUID claimValidationBatchId) throws DataPersistenceException, NotFoundException {
+        long start = metrics.startTime();
+        try {
+            ClaimValidationBatch batch = delegate.get(claimValidationBatchId);
+            metrics.recordSuccess(GET, start, 1);
+            return batch;
+        } catch (Exception e) {
+            metrics.recordError(GET, start, e);
+            throw e;
+        }
+    }
+
+    public List<ClaimValidationBatch> getByStatus(Status status) throws DataPersistenceException {
+        long start = metrics.startTime();
+        try {
+            List<ClaimValidationBatch> batches = delegate.getByStatus(status);
+            metrics.recordSuccess(GET_BY_STATUS, start, batches.size());
+            return batches;
+        } catch (Exception e) {
+            metrics.recordError(GET_BY_STATUS, start, e);
+            throw e;
+        }
+    }
+
+    public List<ClaimValidationBatch> getByStatusWithCreateTimeAscending(Status status, int limit)
+            throws DataPersistenceException {
+        long start = metrics.startTime();
+        try {
+            List<ClaimValidationBatch> batches = delegate.getByStatusWithCreateTimeAscending(status, limit);
+            metrics.recordSuccess(GET_BY_STATUS_WITH_CREATE_TIME_ASCENDING, start, batches.size());
+            return batches;
+        } catch (Exception e) {
+            metrics.recordError(GET_BY_STATUS_WITH_CREATE_TIME_ASCENDING, start, e);
+            throw e;
+        }
+    }
+
+    public int countByStatus(Status status) throws DataPersistenceException {
+        long start = metrics.startTime();
+        try {
+            int count = delegate.countByStatus(status);
+            metrics.recordSuccess(COUNT_BY_STATUS, start, 1);
+            return count;
+        } catch (Exception e) {
+            metrics.recordError(COUNT_BY_STATUS, start, e);
+            throw e;
+        }
+    }
+
+    public int updateStatus(UUID claimValidationBatchId, Status status)
+            throws DataPersistenceException, NotFoundException {
+        long start = metrics.startTime();
+        try {
+            int updated = delegate.updateStatus(claimValidationBatchId, status);
+            metrics.recordSuccess(UPDATE_STATUS, start, updated);
+            return updated;
+        } catch (Exception e) {
+            metrics.recordError(UPDATE_STATUS, start, e);
+            throw e;
+        }
+    }
+
+    public int updateStatusAndRunNumber(UUID claimValidationBatchId, Status status, Long runNumber)
+            throws DataPersistenceException, NotFoundException {
+        long start = metrics.startTime();
+        try {
+            int updated = delegate.updateStatusAndRunNumber(claimValidationBatchId, status, runNumber);
+            metrics.recordSuccess(UPDATE_STATUS_AND_RUN_NUMBER, start, updated);
+            return updated;
+        } catch (Exception e) {
+            metrics.recordError(UPDATE_STATUS_AND_RUN_NUMBER, start, e);
+            throw e;
+        }
+    }
+
+}
@@ -0,0 +1,134 @@
+package com.doradosystems.mis.dao;
+
+import java.util.List;
+import java.util.UUID;
+
+import com.doradosystems.exception.DataPersistenceException;
+import com.doradosystems.exception.NotFoundException;
+import com.doradosystems.mis.domain.ClaimValidationRecord;
+import com.doradosystems.mis.domain.ClaimValidationRecord.Status;
+import com.doradosystems.mis.metrics.DaoMetrics;
+
+/**
+ * {@link ClaimValidationRecordDao} that reports every call to a {@link DaoMetrics}.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class InstrumentedClaimValidationRecordDao {
+
+    public static final String ADD = "ClaimValidationRecordDao.add";
+    public static final String GET = "ClaimValidationRecordDao.get";
+    public static final String GET_BY_BATCH_ID_AND_RUN_NUMBER = "ClaimValidationRecordDao.getByBatchIdAndRunNumber";
+    public static final String GET_BY_BATCH_ID_AND_RUN_NUMBER_ORDER_BY_UPDATE_DATE_DESCENDING =
+            "ClaimValidationRecordDao.getByBatchIdAndRunNumberOrderByUpdateDateDescending";
+    public static final String COUNT_BY_BATCH_ID_AND_RUN_NUMBER_AND_STATUS =
+            "ClaimValidationRecordDao.countByBatchIdAndRunNumberAndStatus";
+    public static final String UPDATE_STATUS = "ClaimValidationRecordDao.updateStatus";
+    public static final String UPDATE_STATUS_AND_RUN_NUMBER = "ClaimValidationRecordDao.updateStatusAndRunNumber";
+
+    private final ClaimValidationRecordDao delegate;
+    private final DaoMetrics metrics;
+
+    public InstrumentedClaimValidationRecordDao(ClaimValidationRecordDao delegate) {
+        this(delegate, DaoMetrics.NOOP);
+    }
+
+    public InstrumentedClaimValidationRecordDao(ClaimValidationRecordDao delegate, DaoMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    public UUID add(ClaimValidationRecord claimValidationRecord) throws DataPersistenceException {
+        long start = metrics.startTime();
+        try {
+            UUID id = delegate.add(claimValidationRecord);
+            metrics.recordSuccess(ADD, start, 1);
+            return id;
+        } catch (Exception e) {
+            metrics.recordError(ADD, start, e);
+            throw e;
+        }
+    }
+
+    public ClaimValidationRecord get(UUID claimValidationRecordId) throws DataPersistenceException, NotFoundException {
+        long start = metrics.startTime();
+        try {
+            ClaimValidationRecord record = delegate.get(claimValidationRecordId);
+            metrics.recordSuccess(GET, start, 1);
+            return record;
+        } catch (Exception e) {
+            metrics.recordError(GET, start, e);
+            throw e;
+        }
+    }
+
+    public List<ClaimValidationRecord> getByBatchIdAndRunNumber(UUID claimValidationBatchId, Long runNumber)
+            throws DataPersistenceException {
+        long start = metrics.startTime();
+        try {
+            List<ClaimValidationRecord> records = delegate.getByBatchIdAndRunNumber(claimValidationBatchId, runNumber);
+            metrics.recordSuccess(GET_BY_BATCH_ID_AND_RUN_NUMBER, start, records.size());
+            return records;
+        } catch (Exception e) {
+            metrics.recordError(GET_BY_BATCH_ID_AND_RUN_NUMBER, start, e);
+            throw e;
+        }
+    }
+
+    public List<ClaimValidationRecord> getByBatchIdAndRunNumberOrderByUpdateDateDescending(
+            UUID claimValidationBatchId, Long runNumber, int limit) throws DataPersistenceException {
+        long start = metrics.startTime();
+        try {
+            List<ClaimValidationRecord> records = delegate
+                    .getByBatchIdAndRunNumberOrderByUpdateDateDescending(claimValidationBatchId, runNumber, limit);
+            metrics.recordSuccess(GET_BY_BATCH_ID_AND_RUN_NUMBER_ORDER_BY_UPDATE_DATE_DESCENDING, start,
+                    records.size());
+            return records;
+        } catch (Exception e) {
+            metrics.recordError(GET_BY_BATCH_ID_AND_RUN_NUMBER_ORDER_BY_UPDATE_DATE_DESCENDING, start, e);
+            throw e;
+        }
+    }
+
+    public int countByBatchIdAndRunNumberAndStatus(UUID claimValidationBatchId, Long runNumber, Status status)
+            throws DataPersistenceException {
+        long start = metrics.startTime();
+        try {
+            int count = delegate.countByBatchIdAndRunNumberAndStatus(claimValidationBatchId, runNumber, status);
+            metrics.recordSuccess(COUNT_BY_BATCH_ID_AND_RUN_NUMBER_AND_STATUS, start, 1);
+            return count;
+        } catch (Exception e) {
+            metrics.recordError(COUNT_BY_BATCH_ID_AND_RUN_NUMBER_AND_STATUS, start, e);
+            throw e;
+        }
+    }
+
+    public int updateStatus(UUID claimValidationRecordId, Status status)
+            throws DataPersistenceException, NotFoundException {
+        long start = metrics.startTime();
+        try {
+            int updated = delegate.updateStatus(claimValidationRecordId, status);
+            metrics.recordSuccess(UPDATE_STATUS, start, updated);
+            return updated;
+        } catch (Exception e) {
+            metrics.recordError(UPDATE_STATUS, start, e);
+            throw e;
+        }
+    }
+
+    public int updateStatusAndRunNumber(UUID claimValidationBatchId, Long runNumber, Status status,
+            Long newRunNumber, Status newStatus) throws DataPersistenceException, NotFoundException {
+        long start = metrics.startTime();
+        try {
+            int updated = delegate.updateStatusAndRunNumber(claimValidationBatchId, runNumber, status, newRunNumber,
+                    newStatus);
+            metrics.recordSuccess(UPDATE_STATUS_AND_RUN_NUMBER, start, updated);
+            return updated;
+        } catch (Exception e) {
+            metrics.recordError(UPDATE_STATUS_AND_RUN_NUMBER, start, e);
+            throw e;
+        }
+    }
+
+}
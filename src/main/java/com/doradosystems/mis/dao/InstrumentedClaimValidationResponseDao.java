@@ -0,0 +1,89 @@
+package com.doradosystems.mis.dao;
+
+import java.util.List;
+import java.util.UUID;
+
+import com.doradosystems.exception.DataPersistenceException;
+import com.doradosystems.exception.NotFoundException;
+import com.doradosystems.mis.domain.ClaimValidationResponse;
+import com.doradosystems.mis.domain.ClaimValidationResponse.Status;
+import com.doradosystems.mis.domain.ClaimValidationResponseIdentifier;
+import com.doradosystems.mis.metrics.DaoMetrics;
+
+/**
+ * {@link ClaimValidationResponseDao} that reports every call to a {@link DaoMetrics}.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class InstrumentedClaimValidationResponseDao {
+
+    public static final String ADD = "ClaimValidationResponseDao.add";
+    public static final String GET = "ClaimValidationResponseDao.get";
+    public static final String GET_PENDING_RESPONSE_IDENTIFIERS =
+            "ClaimValidationResponseDao.getPendingResponseIdentifiers";
+    public static final String UPDATE_STATUS = "ClaimValidationResponseDao.updateStatus";
+
+    private final ClaimValidationResponseDao delegate;
+    private final DaoMetrics metrics;
+
+    public InstrumentedClaimValidationResponseDao(ClaimValidationResponseDao delegate) {
+        this(delegate, DaoMetrics.NOOP);
+    }
+
+    public InstrumentedClaimValidationResponseDao(ClaimValidationResponseDao delegate, DaoMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    public UUID add(ClaimValidationResponse claimValidationResponse) throws DataPersistenceException {
+        long start = metrics.startTime();
+        try {
+            UUID id = delegate.add(claimValidationResponse);
+            metrics.recordSuccess(ADD, start, 1);
+            return id;
+        } catch (Exception e) {
+            metrics.recordError(ADD, start, e);
+            throw e;
+        }
+    }
+
+    public List<ClaimValidationResponse> get(UUID claimValidationBatchId, Long runNumber)
+            throws DataPersistenceException, NotFoundException {
+        long start = metrics.startTime();
+        try {
+            List<ClaimValidationResponse> responses = delegate.get(claimValidationBatchId, runNumber);
+            metrics.recordSuccess(GET, start, responses.size());
+            return responses;
+        } catch (Exception e) {
+            metrics.recordError(GET, start, e);
+            throw e;
+        }
+    }
+
+    public List<ClaimValidationResponseIdentifier> getPendingResponseIdentifiers() throws DataPersistenceException {
+        long start = metrics.startTime();
+        try {
+            List<ClaimValidationResponseIdentifier> identifiers = delegate.getPendingResponseIdentifiers();
+            metrics.recordSuccess(GET_PENDING_RESPONSE_IDENTIFIERS, start, identifiers.size());
+            return identifiers;
+        } catch (Exception e) {
+            metrics.recordError(GET_PENDING_RESPONSE_IDENTIFIERS, start, e);
+            throw e;
+        }
+    }
+
+    public int updateStatus(UUID claimValidationBatchId, Long runNumber, Status status)
+            throws DataPersistenceException, NotFoundException {
+        long start = metrics.startTime();
+        try {
+            int updated = delegate.updateStatus(claimValidationBatchId, runNumber, status);
+            metrics.recordSuccess(UPDATE_STATUS, start, updated);
+            return updated;
+        } catch (Exception e) {
+            metrics.recordError(UPDATE_STATUS, start, e);
+            throw e;
+        }
+    }
+
+}
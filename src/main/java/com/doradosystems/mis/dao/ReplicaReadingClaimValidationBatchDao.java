@@ -0,0 +1,70 @@
+package com.doradosystems.mis.dao;
+
+import java.util.List;
+import java.util.UUID;
+
+import com.doradosystems.exception.DataPersistenceException;
+import com.doradosystems.exception.NotFoundException;
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationBatch.Status;
+import com.doradosystems.mis.jdbc.ReplicaRoutingDataSource;
+import com.doradosystems.mis.jdbc.ReplicaRoutingDataSource.ReadScope;
+
+/**
+ * {@link ClaimValidationBatchDao} whose read methods may be served by a replica. {@code delegate} must use
+ * {@code routingDataSource}.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class ReplicaReadingClaimValidationBatchDao {
+
+    private final ClaimValidationBatchDao delegate;
+    private final ReplicaRoutingDataSource routingDataSource;
+
+    public ReplicaReadingClaimValidationBatchDao(ClaimValidationBatchDao delegate,
+            ReplicaRoutingDataSource routingDataSource) {
+        this.delegate = delegate;
+        this.routingDataSource = routingDataSource;
+    }
+
+    public UUID add(ClaimValidationBatch claimValidationBatch) throws DataPersistenceException {
+        return delegate.add(claimValidationBatch);
+    }
+
+    public ClaimValidationBatch get(UUID claimValidationBatchId) throws DataPersistenceException, NotFoundException {
+        try (ReadScope read = routingDataSource.read()) {
+            return delegate.get(claimValidationBatchId);
+        }
+    }
+
+    public List<ClaimValidationBatch> getByStatus(Status status) throws DataPersistenceException {
+        try (ReadScope read = routingDataSource.read()) {
+            return delegate.getByStatus(status);
+        }
+    }
+
+    public List<ClaimValidationBatch> getByStatusWithCreateTimeAscending(Status status, int limit)
+            throws DataPersistenceException {
+        try (ReadScope read = routingDataSource.read()) {
+            return delegate.getByStatusWithCreateTimeAscending(status, limit);
+        }
+    }
+
+    public int countByStatus(Status status) throws DataPersistenceException {
+        try (ReadScope read = routingDataSource.read()) {
+            return delegate.countByStatus(status);
+        }
+    }
+
+    public int updateStatus(UUID claimValidationBatchId, Status status)
+            throws DataPersistenceException, NotFoundException {
+        return delegate.updateStatus(claimValidationBatchId, status);
+    }
+
+    public int updateStatusAndRunNumber(UUID claimValidationBatchId, Status status, Long runNumber)
+            throws DataPersistenceException, NotFoundException {
+        return delegate.updateStatusAndRunNumber(claimValidationBatchId, status, runNumber);
+    }
+
+}
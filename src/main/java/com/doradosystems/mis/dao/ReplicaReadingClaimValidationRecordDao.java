@@ -0,0 +1,73 @@
+package com.doradosystems.mis.dao;
+
+import java.util.List;
+import java.util.UUID;
+
+import com.doradosystems.exception.DataPersistenceException;
+import com.doradosystems.exception.NotFoundException;
+import com.doradosystems.mis.domain.ClaimValidationRecord;
+import com.doradosystems.mis.domain.ClaimValidationRecord.Status;
+import com.doradosystems.mis.jdbc.ReplicaRoutingDataSource;
+import com.doradosystems.mis.jdbc.ReplicaRoutingDataSource.ReadScope;
+
+/**
+ * {@link ClaimValidationRecordDao} whose read methods may be served by a replica. {@code delegate} must use
+ * {@code routingDataSource}.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class ReplicaReadingClaimValidationRecordDao {
+
+    private final ClaimValidationRecordDao delegate;
+    private final ReplicaRoutingDataSource routingDataSource;
+
+    public ReplicaReadingClaimValidationRecordDao(ClaimValidationRecordDao delegate,
+            ReplicaRoutingDataSource routingDataSource) {
+        this.delegate = delegate;
+        this.routingDataSource = routingDataSource;
+    }
+
+    public UUID add(ClaimValidationRecord claimValidationRecord) throws DataPersistenceException {
+        return delegate.add(claimValidationRecord);
+    }
+
+    public ClaimValidationRecord get(UUID claimValidationRecordId) throws DataPersistenceException, NotFoundException {
+        try (ReadScope read = routingDataSource.read()) {
+            return delegate.get(claimValidationRecordId);
+        }
+    }
+
+    public List<ClaimValidationRecord> getByBatchIdAndRunNumber(UUID claimValidationBatchId, Long runNumber)
+            throws DataPersistenceException {
+        try (ReadScope read = routingDataSource.read()) {
+            return delegate.getByBatchIdAndRunNumber(claimValidationBatchId, runNumber);
+        }
+    }
+
+    public List<ClaimValidationRecord> getByBatchIdAndRunNumberOrderByUpdateDateDescending(
+            UUID claimValidationBatchId, Long runNumber, int limit) throws DataPersistenceException {
+        try (ReadScope read = routingDataSource.read()) {
+            return delegate.getByBatchIdAndRunNumberOrderByUpdateDateDescending(claimValidationBatchId, runNumber,
+                    limit);
+        }
+    }
+
+    public int countByBatchIdAndRunNumberAndStatus(UUID claimValidationBatchId, Long runNumber, Status status)
+            throws DataPersistenceException {
+        try (ReadScope read = routingDataSource.read()) {
+            return delegate.countByBatchIdAndRunNumberAndStatus(claimValidationBatchId, runNumber, status);
+        }
+    }
+
+    public int updateStatus(UUID claimValidationRecordId, Status status)
+            throws DataPersistenceException, NotFoundException {
+        return delegate.updateStatus(claimValidationRecordId, status);
+    }
+
+    public int updateStatusAndRunNumber(UUID claimValidationBatchId, Long runNumber, Status status,
+            Long newRunNumber, Status newStatus) throws DataPersistenceException, NotFoundException {
+        return delegate.updateStatusAndRunNumber(claimValidationBatchId, runNumber, status, newRunNumber, newStatus);
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.doradosystems.mis.dao;
+
+import java.util.List;
+import java.util.UUID;
+
+import com.doradosystems.exception.DataPersistenceException;
+import com.doradosystems.exception.NotFoundException;
+import com.doradosystems.mis.domain.ClaimValidationResponse;
+import com.doradosystems.mis.domain.ClaimValidationResponse.Status;
+import com.doradosystems.mis.domain.ClaimValidationResponseIdentifier;
+import com.doradosystems.mis.jdbc.ReplicaRoutingDataSource;
+import com.doradosystems.mis.jdbc.ReplicaRoutingDataSource.ReadScope;
+
+/**
+ * {@link ClaimValidationResponseDao} whose read methods may be served by a replica. {@code delegate} must use
+ * {@code routingDataSource}.
+ * <p>
+ * {@link #getPendingResponseIdentifiers()} may miss responses that became pending within the staleness bound; callers
+ * that must see them use the {@code ClaimValidationResponseWorkQueue} on the primary instead.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class ReplicaReadingClaimValidationResponseDao {
+
+    private final ClaimValidationResponseDao delegate;
+    private final ReplicaRoutingDataSource routingDataSource;
+
+    public ReplicaReadingClaimValidationResponseDao(ClaimValidationResponseDao delegate,
+            ReplicaRoutingDataSource routingDataSource) {
+        this.delegate = delegate;
+        this.routingDataSource = routingDataSource;
+    }
+
+    public UUID add(ClaimValidationResponse claimValidationResponse) throws DataPersistenceException {
+        return delegate.add(claimValidationResponse);
+    }
+
+    public List<ClaimValidationResponse> get(UUID claimValidationBatchId, Long runNumber)
+            throws DataPersistenceException, NotFoundException {
+        try (ReadScope read = routingDataSource.read()) {
+            return delegate.get(claimValidationBatchId, runNumber);
+        }
+    }
+
+    public List<ClaimValidationResponseIdentifier> getPendingResponseIdentifiers() throws DataPersistenceException {
+        try (ReadScope read = routingDataSource.read()) {
+            return delegate.getPendingResponseIdentifiers();
+        }
+    }
+
+    public int updateStatus(UUID claimValidationBatchId, Long runNumber, Status status)
+            throws DataPersistenceException, NotFoundException {
+        return delegate.updateStatus(claimValidationBatchId, runNumber, status);
+    }
+
+}
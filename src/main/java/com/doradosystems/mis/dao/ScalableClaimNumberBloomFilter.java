@@ -0,0 +1,70 @@
+package com.doradosystems.mis.dao;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Thread-safe Bloom filter over claim numbers that grows with the number of claim numbers put.
+ * <p>
+ * It starts as one {@link ClaimNumberBloomFilter} sized for {@code initialCapacity} claim numbers. When that is full,
+ * claim numbers go to a new filter twice as large whose false positive probability is half that of the one before,
+ * so the overall false positive probability stays below {@code falsePositiveProbability} however many claim numbers
+ * are put, and memory follows the number of claim numbers instead of a fixed maximum: a client with a thousand claims
+ * needs a few kilobytes rather than the 1.2 MB of a filter sized for a million.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public final class ScalableClaimNumberBloomFilter {
+
+    private final List<ClaimNumberBloomFilter> filters = new CopyOnWriteArrayList<>();
+    private final double falsePositiveProbability;
+    private int capacity;
+    private int size;
+
+    public ScalableClaimNumberBloomFilter(int initialCapacity, double falsePositiveProbability) {
+        if (initialCapacity < 1) {
+            throw new IllegalArgumentException("initialCapacity must be greater than zero but was " + initialCapacity);
+        }
+        if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("falsePositiveProbability must be between 0 and 1 but was "
+                    + falsePositiveProbability);
+        }
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.capacity = initialCapacity;
+        filters.add(new ClaimNumberBloomFilter(initialCapacity, falsePositiveProbability / 2));
+    }
+
+    public synchronized void put(String claimNumber) {
+        if (size == capacity) {
+            // stage i gets p / 2^(i+1), so the stages' false positive probabilities add up to less than p
+            capacity = (int) Math.min(Integer.MAX_VALUE, 2L * capacity);
+            filters.add(new ClaimNumberBloomFilter(capacity,
+                    falsePositiveProbability / Math.pow(2, filters.size() + 1)));
+            size = 0;
+        }
+        filters.get(filters.size() - 1).put(claimNumber);
+        size++;
+    }
+
+    public boolean mightContain(String claimNumber) {
+        for (ClaimNumberBloomFilter filter : filters) {
+            if (filter.mightContain(claimNumber)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the bits of all stages together.
+     */
+    public long getBitCount() {
+        long bits = 0;
+        for (ClaimNumberBloomFilter filter : filters) {
+            bits += filter.getBitCount();
+        }
+        return bits;
+    }
+
+}
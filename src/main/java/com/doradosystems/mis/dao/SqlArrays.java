@@ -0,0 +1,45 @@
+package com.doradosystems.mis.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.support.AbstractSqlTypeValue;
+
+/**
+ * Binds a collection as one SQL array parameter, for {@code = ANY(?)} instead of an expanded {@code IN} list. The
+ * statement text is the same for any number of values, so the driver and the server can reuse one prepared
+ * statement, and no bind parameter limit applies. Duplicates are dropped.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+final class SqlArrays {
+
+    private SqlArrays() {
+    }
+
+    static SqlTypeValue uuids(Collection<UUID> values) {
+        return of("uuid", values);
+    }
+
+    static SqlTypeValue varchars(Collection<String> values) {
+        return of("varchar", values);
+    }
+
+    private static SqlTypeValue of(String elementType, Collection<?> values) {
+        Object[] elements = new LinkedHashSet<>(values).toArray();
+        return new AbstractSqlTypeValue() {
+
+            @Override
+            protected Object createTypeValue(Connection connection, int sqlType, String typeName)
+                    throws SQLException {
+                return connection.createArrayOf(elementType, elements);
+            }
+        };
+    }
+
+}
@@ -0,0 +1,328 @@
+package com.doradosystems.mis.dao;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+import com.doradosystems.exception.DataPersistenceException;
+import com.doradosystems.exception.NotFoundException;
+import com.doradosystems.mis.domain.ClaimValidationRecord;
+import com.doradosystems.mis.domain.ClaimValidationRecord.Status;
+
+/**
+ * Write-behind buffer for {@link ClaimValidationRecordDao#updateStatus(UUID, Status)}.
+ * <p>
+ * Status updates are held in memory, keeping only the latest status per record, and written with
+ * {@link ClaimValidationRecordBulkDao} once {@code maximumPending} records are buffered or every
+ * {@code flushInterval}, whichever comes first. A record that moves through several statuses between flushes is
+ * therefore updated once.
+ * <p>
+ * {@link #updateStatus(UUID, Status)} is written unconditionally when flushed, so it overwrites whatever status
+ * another writer gave the record between the call and the flush. Where other writers move the same records, buffer
+ * with {@link #compareAndSetStatus(UUID, Status, Status)} instead: the flush then only moves records still in the
+ * expected status, and successive buffered transitions of a record collapse into one from the first expected status.
+ * <p>
+ * Reads through this class see its own buffered writes: {@link #get(UUID)} writes the record's pending status first,
+ * and batch-scoped reads and updates flush the whole buffer. {@link #close()} flushes whatever is left. Updates still
+ * buffered when the process dies without closing this instance are lost, so only use it for statuses that the caller
+ * can recompute after a restart. Because updates are deferred, they cannot report a missing record, nor a record that
+ * left the expected status; such updates are logged and counted by {@link #getDroppedCount()} when flushed.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class WriteBehindClaimValidationRecordDao implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(WriteBehindClaimValidationRecordDao.class);
+
+    private final ClaimValidationRecordDao delegate;
+    private final ClaimValidationRecordBulkDao bulkDao;
+    private final int maximumPending;
+    private final ScheduledExecutorService scheduler;
+    private final Map<UUID, PendingStatus> pending = new LinkedHashMap<>();
+    private final Object flushLock = new Object();
+    private final AtomicLong updates = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private boolean closed;
+
+    public WriteBehindClaimValidationRecordDao(ClaimValidationRecordDao delegate, ClaimValidationRecordBulkDao bulkDao,
+            int maximumPending, Duration flushInterval) {
+        if (maximumPending < 1) {
+            throw new IllegalArgumentException("maximumPending must be greater than zero but was " + maximumPending);
+        }
+        this.delegate = delegate;
+        this.bulkDao = bulkDao;
+        this.maximumPending = maximumPending;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "claim-validation-record-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalNanos = flushInterval.toNanos();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public UUID add(ClaimValidationRecord claimValidationRecord) throws DataPersistenceException {
+        return delegate.add(claimValidationRecord);
+    }
+
+    public ClaimValidationRecord get(UUID claimValidationRecordId) throws DataPersistenceException, NotFoundException {
+        synchronized (flushLock) {
+            PendingStatus status;
+            synchronized (pending) {
+                status = pending.remove(claimValidationRecordId);
+            }
+            if (status != null) {
+                write(Collections.singletonMap(claimValidationRecordId, status));
+            }
+        }
+        return delegate.get(claimValidationRecordId);
+    }
+
+    public List<ClaimValidationRecord> getByBatchIdAndRunNumber(UUID claimValidationBatchId, Long runNumber)
+            throws DataPersistenceException {
+        flush();
+        return delegate.getByBatchIdAndRunNumber(claimValidationBatchId, runNumber);
+    }
+
+    public List<ClaimValidationRecord> getByBatchIdAndRunNumberOrderByUpdateDateDescending(
+            UUID claimValidationBatchId, Long runNumber, int limit) throws DataPersistenceException {
+        flush();
+        return delegate.getByBatchIdAndRunNumberOrderByUpdateDateDescending(claimValidationBatchId, runNumber, limit);
+    }
+
+    public int countByBatchIdAndRunNumberAndStatus(UUID claimValidationBatchId, Long runNumber, Status status)
+            throws DataPersistenceException {
+        flush();
+        return delegate.countByBatchIdAndRunNumberAndStatus(claimValidationBatchId, runNumber, status);
+    }
+
+    /**
+     * Buffers the update, replacing any status still pending for the record. Flushes on the caller's thread when the
+     * buffer is full.
+     *
+     * @return always 1; whether the record exists is only known when the buffer is flushed
+     * @throws DataPersistenceException
+     *             if the buffer was full and could not be flushed. The update stays buffered.
+     * @throws IllegalStateException
+     *             if this instance has been closed
+     */
+    public int updateStatus(UUID claimValidationRecordId, Status status) throws DataPersistenceException {
+        boolean full;
+        synchronized (pending) {
+            if (closed) {
+                throw new IllegalStateException("Write-behind buffer has been closed");
+            }
+            pending.put(claimValidationRecordId, new PendingStatus(null, status));
+            full = pending.size() >= maximumPending;
+        }
+        updates.incrementAndGet();
+        if (full) {
+            flush();
+        }
+        return 1;
+    }
+
+    /**
+     * Buffers a move of the record from {@code expectedStatus} to {@code status}, which the flush only applies if the
+     * record is still in {@code expectedStatus}. If a status is already pending for the record, the update is buffered
+     * only if it continues from that status, and then keeps the pending update's condition. Flushes on the caller's
+     * thread when the buffer is full.
+     *
+     * @return 1 if the update was buffered, 0 if the status pending for the record is not {@code expectedStatus}
+     * @throws DataPersistenceException
+     *             if the buffer was full and could not be flushed. The update stays buffered.
+     * @throws IllegalStateException
+     *             if this instance has been closed
+     */
+    public int compareAndSetStatus(UUID claimValidationRecordId, Status expectedStatus, Status status)
+            throws DataPersistenceException {
+        boolean full;
+        synchronized (pending) {
+            if (closed) {
+                throw new IllegalStateException("Write-behind buffer has been closed");
+            }
+            PendingStatus previous = pending.get(claimValidationRecordId);
+            if (previous == null) {
+                pending.put(claimValidationRecordId, new PendingStatus(expectedStatus, status));
+            } else if (previous.status == expectedStatus) {
+                pending.put(claimValidationRecordId, new PendingStatus(previous.expectedStatus, status));
+            } else {
+                return 0;
+            }
+            full = pending.size() >= maximumPending;
+        }
+        updates.incrementAndGet();
+        if (full) {
+            flush();
+        }
+        return 1;
+    }
+
+    public int updateStatusAndRunNumber(UUID claimValidationBatchId, Long runNumber, Status status, Long newRunNumber,
+            Status newStatus) throws DataPersistenceException {
+        flush();
+        return delegate.updateStatusAndRunNumber(claimValidationBatchId, runNumber, status, newRunNumber, newStatus);
+    }
+
+    /**
+     * Writes every buffered update. Flushes run one at a time, so a later status for a record is never overwritten by
+     * an earlier one.
+     *
+     * @throws DataPersistenceException
+     *             if a write failed. Updates that were not written are buffered again unless the record has been given
+     *             a newer status in the meantime.
+     */
+    public void flush() throws DataPersistenceException {
+        synchronized (flushLock) {
+            Map<UUID, PendingStatus> batch;
+            synchronized (pending) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = new LinkedHashMap<>(pending);
+                pending.clear();
+            }
+            write(batch);
+        }
+    }
+
+    /**
+     * Stops the flush timer and writes every buffered update. Later calls to {@link #updateStatus(UUID, Status)} fail.
+     */
+    @Override
+    public void close() throws DataPersistenceException {
+        synchronized (pending) {
+            closed = true;
+        }
+        scheduler.shutdown();
+        flush();
+    }
+
+    public int getPendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * Returns the number of {@link #updateStatus(UUID, Status)} calls accepted.
+     */
+    public long getUpdateCount() {
+        return updates.get();
+    }
+
+    /**
+     * Returns the number of rows actually updated; the difference to {@link #getUpdateCount()} is what coalescing
+     * saved.
+     */
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    /**
+     * Returns the number of buffered updates discarded at flush time because their record did not exist or, for
+     * {@link #compareAndSetStatus(UUID, Status, Status)}, was no longer in the expected status.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getFlushCount() {
+        return flushes.get();
+    }
+
+    private void write(Map<UUID, PendingStatus> batch) throws DataPersistenceException {
+        Map<PendingStatus, List<UUID>> byStatus = new LinkedHashMap<>();
+        for (Map.Entry<UUID, PendingStatus> entry : batch.entrySet()) {
+            byStatus.computeIfAbsent(entry.getValue(), status -> new ArrayList<>()).add(entry.getKey());
+        }
+        Map<UUID, PendingStatus> unwritten = new LinkedHashMap<>(batch);
+        flushes.incrementAndGet();
+        for (Map.Entry<PendingStatus, List<UUID>> entry : byStatus.entrySet()) {
+            PendingStatus status = entry.getKey();
+            Set<UUID> updated;
+            try {
+                updated = status.expectedStatus == null ? bulkDao.updateStatus(entry.getValue(), status.status)
+                        : bulkDao.compareAndSetStatus(entry.getValue(), status.expectedStatus, status.status);
+            } catch (DataPersistenceException e) {
+                requeue(unwritten);
+                throw e;
+            }
+            for (UUID id : entry.getValue()) {
+                unwritten.remove(id);
+                if (!updated.contains(id)) {
+                    dropped.incrementAndGet();
+                    LOGGER.warn("Dropping buffered " + status + " for claim validation record " + id
+                            + (status.expectedStatus == null ? " which does not exist"
+                                    : " which does not exist or is no longer " + status.expectedStatus));
+                }
+            }
+            written.addAndGet(updated.size());
+        }
+    }
+
+    private void requeue(Map<UUID, PendingStatus> unwritten) {
+        synchronized (pending) {
+            for (Map.Entry<UUID, PendingStatus> entry : unwritten.entrySet()) {
+                pending.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (DataPersistenceException | RuntimeException e) {
+            LOGGER.error("Unable to flush buffered claim validation record statuses", e);
+        }
+    }
+
+    /**
+     * A buffered status, applied only to records in {@code expectedStatus} unless that is {@code null}.
+     */
+    private static final class PendingStatus {
+
+        private final Status expectedStatus;
+        private final Status status;
+
+        PendingStatus(Status expectedStatus, Status status) {
+            this.expectedStatus = expectedStatus;
+            this.status = status;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof PendingStatus)) {
+                return false;
+            }
+            PendingStatus other = (PendingStatus) obj;
+            return expectedStatus == other.expectedStatus && status == other.status;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(expectedStatus, status);
+        }
+
+        @Override
+        public String toString() {
+            return expectedStatus == null ? "status " + status : "status " + expectedStatus + " -> " + status;
+        }
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.doradosystems.mis.domain;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Outcome of a bulk add where each element is validated on its own.
+ * <p>
+ * {@link #getIds()} is parallel to the input: an element that was rejected has a {@code null} id and its reason is
+ * available from {@link #getFailures()}, keyed by the element's position in the input.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class BulkAddResult {
+
+    private final List<UUID> ids;
+    private final Map<Integer, String> failures;
+
+    public BulkAddResult(List<UUID> ids, Map<Integer, String> failures) {
+        this.ids = Collections.unmodifiableList(ids);
+        this.failures = Collections.unmodifiableMap(failures);
+    }
+
+    public List<UUID> getIds() {
+        return ids;
+    }
+
+    public Map<Integer, String> getFailures() {
+        return failures;
+    }
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+
+    public int getAddedCount() {
+        return ids.size() - failures.size();
+    }
+
+    @Override
+    public String toString() {
+        return "BulkAddResult [added=" + getAddedCount() + ", failures=" + failures + "]";
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.doradosystems.mis.domain;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * A {@link ClaimValidationBatch} claimed by one worker until {@link #getLeaseExpiresAt()}. The lease token identifies
+ * this claim; a later claim of the same batch, even by the same owner, gets another one.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class ClaimValidationBatchLease {
+
+    private final ClaimValidationBatch claimValidationBatch;
+    private final UUID leaseToken;
+    private final Date leaseExpiresAt;
+
+    public ClaimValidationBatchLease(ClaimValidationBatch claimValidationBatch, UUID leaseToken, Date leaseExpiresAt) {
+        this.claimValidationBatch = claimValidationBatch;
+        this.leaseToken = leaseToken;
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
+    public ClaimValidationBatch getClaimValidationBatch() {
+        return claimValidationBatch;
+    }
+
+    public UUID getClaimValidationBatchId() {
+        return claimValidationBatch.getClaimValidationBatchId();
+    }
+
+    public UUID getLeaseToken() {
+        return leaseToken;
+    }
+
+    public Date getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    @Override
+    public String toString() {
+        return "ClaimValidationBatchLease [claimValidationBatchId=" + getClaimValidationBatchId() + ", leaseToken="
+                + leaseToken + ", leaseExpiresAt=" + leaseExpiresAt + "]";
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.doradosystems.mis.domain;
+
+import java.util.Date;
+import java.util.UUID;
+
+import com.doradosystems.mis.domain.ClaimValidationRecord.Status;
+
+/**
+ * The columns of a {@link ClaimValidationRecord} without its {@code record} payload, which is available on demand
+ * through {@link #getRecord()}.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class ClaimValidationRecordSummary {
+
+    private final UUID claimValidationRecordId;
+    private final UUID claimValidationBatchId;
+    private final Long runNumber;
+    private final Status status;
+    private final String claimNumber;
+    private final Date createDate;
+    private final Date updatedDate;
+    private final LazyPayload record;
+
+    public ClaimValidationRecordSummary(UUID claimValidationRecordId, UUID claimValidationBatchId, Long runNumber,
+            Status status, String claimNumber, Date createDate, Date updatedDate, LazyPayload record) {
+        this.claimValidationRecordId = claimValidationRecordId;
+        this.claimValidationBatchId = claimValidationBatchId;
+        this.runNumber = runNumber;
+        this.status = status;
+        this.claimNumber = claimNumber;
+        this.createDate = createDate;
+        this.updatedDate = updatedDate;
+        this.record = record;
+    }
+
+    public UUID getClaimValidationRecordId() {
+        return claimValidationRecordId;
+    }
+
+    public UUID getClaimValidationBatchId() {
+        return claimValidationBatchId;
+    }
+
+    public Long getRunNumber() {
+        return runNumber;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getClaimNumber() {
+        return claimNumber;
+    }
+
+    public Date getCreateDate() {
+        return createDate;
+    }
+
+    public Date getUpdatedDate() {
+        return updatedDate;
+    }
+
+    public LazyPayload getRecord() {
+        return record;
+    }
+
+    @Override
+    public String toString() {
+        return "ClaimValidationRecordSummary [claimValidationRecordId=" + claimValidationRecordId
+                + ", claimValidationBatchId=" + claimValidationBatchId + ", runNumber=" + runNumber + ", status="
+                + status + ", claimNumber=" + claimNumber + ", createDate=" + createDate + ", updatedDate="
+                + updatedDate + ", record=" + record + "]";
+    }
+
+}
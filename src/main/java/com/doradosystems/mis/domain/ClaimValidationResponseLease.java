@@ -0,0 +1,60 @@
+package com.doradosystems.mis.domain;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A pending (batch, run) group of {@link ClaimValidationResponse}s claimed by one dispatcher until
+ * {@link #getLeaseExpiresAt()}. {@link #getClaimValidationResponseIds()} are the responses of the group that were
+ * pending when it was claimed.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class ClaimValidationResponseLease {
+
+    private final UUID claimValidationBatchId;
+    private final Long runNumber;
+    private final UUID leaseToken;
+    private final Date leaseExpiresAt;
+    private final List<UUID> claimValidationResponseIds;
+
+    public ClaimValidationResponseLease(UUID claimValidationBatchId, Long runNumber, UUID leaseToken,
+            Date leaseExpiresAt, List<UUID> claimValidationResponseIds) {
+        this.claimValidationBatchId = claimValidationBatchId;
+        this.runNumber = runNumber;
+        this.leaseToken = leaseToken;
+        this.leaseExpiresAt = leaseExpiresAt;
+        this.claimValidationResponseIds = Collections.unmodifiableList(claimValidationResponseIds);
+    }
+
+    public UUID getClaimValidationBatchId() {
+        return claimValidationBatchId;
+    }
+
+    public Long getRunNumber() {
+        return runNumber;
+    }
+
+    public UUID getLeaseToken() {
+        return leaseToken;
+    }
+
+    public Date getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    public List<UUID> getClaimValidationResponseIds() {
+        return claimValidationResponseIds;
+    }
+
+    @Override
+    public String toString() {
+        return "ClaimValidationResponseLease [claimValidationBatchId=" + claimValidationBatchId + ", runNumber="
+                + runNumber + ", leaseToken=" + leaseToken + ", leaseExpiresAt=" + leaseExpiresAt + ", responses="
+                + claimValidationResponseIds.size() + "]";
+    }
+
+}
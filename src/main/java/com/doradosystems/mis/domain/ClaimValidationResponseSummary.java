@@ -0,0 +1,86 @@
+package com.doradosystems.mis.domain;
+
+import java.util.Date;
+import java.util.UUID;
+
+import com.doradosystems.mis.domain.ClaimValidationResponse.Status;
+
+/**
+ * The columns of a {@link ClaimValidationResponse} without its {@code response} payload, which is available on
+ * demand through {@link #getResponse()}.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class ClaimValidationResponseSummary {
+
+    private final UUID claimValidationResponseId;
+    private final UUID claimValidationBatchId;
+    private final Long runNumber;
+    private final Status status;
+    private final String claimNumber;
+    private final Date createDate;
+    private final Date updatedDate;
+    private final UUID claimValidationRecordId;
+    private final LazyPayload response;
+
+    public ClaimValidationResponseSummary(UUID claimValidationResponseId, UUID claimValidationBatchId,
+            Long runNumber, Status status, String claimNumber, Date createDate, Date updatedDate,
+            UUID claimValidationRecordId, LazyPayload response) {
+        this.claimValidationResponseId = claimValidationResponseId;
+        this.claimValidationBatchId = claimValidationBatchId;
+        this.runNumber = runNumber;
+        this.status = status;
+        this.claimNumber = claimNumber;
+        this.createDate = createDate;
+        this.updatedDate = updatedDate;
+        this.claimValidationRecordId = claimValidationRecordId;
+        this.response = response;
+    }
+
+    public UUID getClaimValidationResponseId() {
+        return claimValidationResponseId;
+    }
+
+    public UUID getClaimValidationBatchId() {
+        return claimValidationBatchId;
+    }
+
+    public Long getRunNumber() {
+        return runNumber;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getClaimNumber() {
+        return claimNumber;
+    }
+
+    public Date getCreateDate() {
+        return createDate;
+    }
+
+    public Date getUpdatedDate() {
+        return updatedDate;
+    }
+
+    public UUID getClaimValidationRecordId() {
+        return claimValidationRecordId;
+    }
+
+    public LazyPayload getResponse() {
+        return response;
+    }
+
+    @Override
+    public String toString() {
+        return "ClaimValidationResponseSummary [claimValidationResponseId=" + claimValidationResponseId
+                + ", claimValidationBatchId=" + claimValidationBatchId + ", runNumber=" + runNumber + ", status="
+                + status + ", claimNumber=" + claimNumber + ", createDate=" + createDate + ", updatedDate="
+                + updatedDate + ", claimValidationRecordId=" + claimValidationRecordId + ", response=" + response
+                + "]";
+    }
+
+}
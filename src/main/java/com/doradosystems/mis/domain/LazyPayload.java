@@ -0,0 +1,51 @@
+package com.doradosystems.mis.domain;
+
+import com.doradosystems.exception.DataPersistenceException;
+
+/**
+ * Handle to a record or response payload that is read from the database the first time {@link #get()} is called.
+ * The value is kept once loaded, so later calls do not touch the database.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public final class LazyPayload {
+
+    @FunctionalInterface
+    public interface Loader {
+
+        String load() throws DataPersistenceException;
+    }
+
+    private final Loader loader;
+    private String value;
+    private boolean loaded;
+
+    public LazyPayload(Loader loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * Returns the payload, loading it on the first call.
+     *
+     * @throws IllegalStateException
+     *             if the payload was not loaded before the session it came from was closed
+     */
+    public synchronized String get() throws DataPersistenceException {
+        if (!loaded) {
+            value = loader.load();
+            loaded = true;
+        }
+        return value;
+    }
+
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return loaded ? "LazyPayload [length=" + (value == null ? 0 : value.length()) + "]" : "LazyPayload [not loaded]";
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.doradosystems.mis.domain;
+
+import java.util.UUID;
+
+/**
+ * Outcome of moving a batch to a new run.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class RunRolloverResult {
+
+    private final UUID claimValidationBatchId;
+    private final Long fromRunNumber;
+    private final Long toRunNumber;
+    private final int recordCount;
+    private final int responseCount;
+
+    public RunRolloverResult(UUID claimValidationBatchId, Long fromRunNumber, Long toRunNumber, int recordCount,
+            int responseCount) {
+        this.claimValidationBatchId = claimValidationBatchId;
+        this.fromRunNumber = fromRunNumber;
+        this.toRunNumber = toRunNumber;
+        this.recordCount = recordCount;
+        this.responseCount = responseCount;
+    }
+
+    public UUID getClaimValidationBatchId() {
+        return claimValidationBatchId;
+    }
+
+    public Long getFromRunNumber() {
+        return fromRunNumber;
+    }
+
+    public Long getToRunNumber() {
+        return toRunNumber;
+    }
+
+    /**
+     * Returns the number of records moved to the new run.
+     */
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Returns the number of responses moved to the new run.
+     */
+    public int getResponseCount() {
+        return responseCount;
+    }
+
+    @Override
+    public String toString() {
+        return "RunRolloverResult [claimValidationBatchId=" + claimValidationBatchId + ", fromRunNumber="
+                + fromRunNumber + ", toRunNumber=" + toRunNumber + ", recordCount=" + recordCount
+                + ", responseCount=" + responseCount + "]";
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.doradosystems.mis.domain;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Statuses a batch, its records and its responses take when the batch moves to a new run.
+ * <p>
+ * Records and responses whose current status has no mapping keep it.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class RunRolloverStatusMapping {
+
+    private final ClaimValidationBatch.Status batchStatus;
+    private final Map<ClaimValidationRecord.Status, ClaimValidationRecord.Status> recordStatuses;
+    private final Map<ClaimValidationResponse.Status, ClaimValidationResponse.Status> responseStatuses;
+
+    public RunRolloverStatusMapping(ClaimValidationBatch.Status batchStatus,
+            Map<ClaimValidationRecord.Status, ClaimValidationRecord.Status> recordStatuses,
+            Map<ClaimValidationResponse.Status, ClaimValidationResponse.Status> responseStatuses) {
+        if (batchStatus == null) {
+            throw new IllegalArgumentException("batchStatus must not be null");
+        }
+        this.batchStatus = batchStatus;
+        this.recordStatuses = Collections.unmodifiableMap(recordStatuses.isEmpty()
+                ? new EnumMap<>(ClaimValidationRecord.Status.class) : new EnumMap<>(recordStatuses));
+        this.responseStatuses = Collections.unmodifiableMap(responseStatuses.isEmpty()
+                ? new EnumMap<>(ClaimValidationResponse.Status.class) : new EnumMap<>(responseStatuses));
+    }
+
+    public ClaimValidationBatch.Status getBatchStatus() {
+        return batchStatus;
+    }
+
+    public Map<ClaimValidationRecord.Status, ClaimValidationRecord.Status> getRecordStatuses() {
+        return recordStatuses;
+    }
+
+    public Map<ClaimValidationResponse.Status, ClaimValidationResponse.Status> getResponseStatuses() {
+        return responseStatuses;
+    }
+
+    @Override
+    public String toString() {
+        return "RunRolloverStatusMapping [batchStatus=" + batchStatus + ", recordStatuses=" + recordStatuses
+                + ", responseStatuses=" + responseStatuses + "]";
+    }
+
+}
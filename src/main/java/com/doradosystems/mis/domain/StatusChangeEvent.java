@@ -0,0 +1,79 @@
+package com.doradosystems.mis.domain;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Rows of a batch run that moved into a status.
+ * <p>
+ * One event covers every row of the same {@link Type}, batch, run and status written by one statement. Events
+ * replayed after the feed reconnected are flagged with {@link #isCatchUp()}; they carry the same values as the
+ * notification that was missed, and may repeat events already delivered.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class StatusChangeEvent {
+
+    public enum Type {
+        BATCH, RECORD, RESPONSE
+    }
+
+    private final Type type;
+    private final UUID claimValidationBatchId;
+    private final Long runNumber;
+    private final String status;
+    private final long count;
+    private final Date occurredDate;
+    private final boolean catchUp;
+
+    public StatusChangeEvent(Type type, UUID claimValidationBatchId, Long runNumber, String status, long count,
+            Date occurredDate, boolean catchUp) {
+        this.type = type;
+        this.claimValidationBatchId = claimValidationBatchId;
+        this.runNumber = runNumber;
+        this.status = status;
+        this.count = count;
+        this.occurredDate = occurredDate;
+        this.catchUp = catchUp;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public UUID getClaimValidationBatchId() {
+        return claimValidationBatchId;
+    }
+
+    public Long getRunNumber() {
+        return runNumber;
+    }
+
+    /**
+     * Returns the name of the new status, a constant of the {@code Status} enum matching {@link #getType()}.
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public Date getOccurredDate() {
+        return occurredDate;
+    }
+
+    public boolean isCatchUp() {
+        return catchUp;
+    }
+
+    @Override
+    public String toString() {
+        return "StatusChangeEvent [type=" + type + ", claimValidationBatchId=" + claimValidationBatchId
+                + ", runNumber=" + runNumber + ", status=" + status + ", count=" + count + ", occurredDate="
+                + occurredDate + ", catchUp=" + catchUp + "]";
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.doradosystems.mis.jdbc;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free accumulator for connection checkout times, shared by the {@link ConnectionPoolMetrics} implementations.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+final class AcquireStatistics {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final LongAdder timeouts = new LongAdder();
+
+    void recordAcquire(long nanos) {
+        count.increment();
+        totalNanos.add(nanos);
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    void recordTimeout() {
+        timeouts.increment();
+    }
+
+    long getCount() {
+        return count.sum();
+    }
+
+    long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    long getTimeouts() {
+        return timeouts.sum();
+    }
+
+}
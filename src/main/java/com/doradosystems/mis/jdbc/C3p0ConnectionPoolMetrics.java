@@ -0,0 +1,110 @@
+package com.doradosystems.mis.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.apache.log4j.Logger;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import com.mchange.v2.c3p0.ComboPooledDataSource;
+import com.mchange.v2.resourcepool.TimeoutException;
+
+/**
+ * {@link ConnectionPoolMetrics} for a c3p0 pool. c3p0 has no checkout callbacks, so this wraps the pool and times
+ * {@link #getConnection()} itself; use it in place of the pool wherever a {@code DataSource} is injected.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class C3p0ConnectionPoolMetrics extends DelegatingDataSource implements ConnectionPoolMetrics {
+
+    private static final Logger LOGGER = Logger.getLogger(C3p0ConnectionPoolMetrics.class);
+
+    private final ComboPooledDataSource pool;
+    private final AcquireStatistics statistics = new AcquireStatistics();
+
+    public C3p0ConnectionPoolMetrics(ComboPooledDataSource pool) {
+        super(pool);
+        this.pool = pool;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection;
+        try {
+            connection = super.getConnection();
+        } catch (SQLException e) {
+            if (isCheckoutTimeout(e)) {
+                statistics.recordTimeout();
+            }
+            throw e;
+        }
+        statistics.recordAcquire(System.nanoTime() - start);
+        return connection;
+    }
+
+    /**
+     * c3p0 reports an exhausted {@code checkoutTimeout} as a plain {@link SQLException} caused by its own
+     * {@link TimeoutException}; other failures, e.g. a database that refuses connections, have other causes.
+     */
+    static boolean isCheckoutTimeout(SQLException e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int getActiveConnections() {
+        try {
+            return pool.getNumBusyConnectionsDefaultUser();
+        } catch (SQLException e) {
+            LOGGER.warn("Unable to read busy connection count", e);
+            return 0;
+        }
+    }
+
+    @Override
+    public int getIdleConnections() {
+        try {
+            return pool.getNumIdleConnectionsDefaultUser();
+        } catch (SQLException e) {
+            LOGGER.warn("Unable to read idle connection count", e);
+            return 0;
+        }
+    }
+
+    @Override
+    public int getThreadsAwaitingConnection() {
+        try {
+            return pool.getNumThreadsAwaitingCheckoutDefaultUser();
+        } catch (SQLException e) {
+            LOGGER.warn("Unable to read awaiting thread count", e);
+            return 0;
+        }
+    }
+
+    @Override
+    public long getAcquireCount() {
+        return statistics.getCount();
+    }
+
+    @Override
+    public long getAcquireTimeNanos() {
+        return statistics.getTotalNanos();
+    }
+
+    @Override
+    public long getMaxAcquireTimeNanos() {
+        return statistics.getMaxNanos();
+    }
+
+    @Override
+    public long getConnectionTimeoutCount() {
+        return statistics.getTimeouts();
+    }
+
+}
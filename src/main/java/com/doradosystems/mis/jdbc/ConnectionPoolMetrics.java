@@ -0,0 +1,37 @@
+package com.doradosystems.mis.jdbc;
+
+/**
+ * Pool-independent view of a connection pool's state and checkout behaviour.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public interface ConnectionPoolMetrics {
+
+    int getActiveConnections();
+
+    int getIdleConnections();
+
+    /**
+     * Threads currently blocked waiting for a connection.
+     */
+    int getThreadsAwaitingConnection();
+
+    /**
+     * Connections handed out since the pool started.
+     */
+    long getAcquireCount();
+
+    /**
+     * Total time callers spent waiting for the connections counted by {@link #getAcquireCount()}.
+     */
+    long getAcquireTimeNanos();
+
+    long getMaxAcquireTimeNanos();
+
+    /**
+     * Checkouts that gave up because no connection became available in time.
+     */
+    long getConnectionTimeoutCount();
+
+}
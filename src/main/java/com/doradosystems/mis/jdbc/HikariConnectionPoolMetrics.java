@@ -0,0 +1,74 @@
+package com.doradosystems.mis.jdbc;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+/**
+ * {@link ConnectionPoolMetrics} for a HikariCP pool. Register it as the pool's {@code metricsTrackerFactory}; the
+ * pool then reports every checkout and timeout to it, and pool sizes are read from Hikari's own statistics.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class HikariConnectionPoolMetrics implements ConnectionPoolMetrics, MetricsTrackerFactory {
+
+    private final AcquireStatistics statistics = new AcquireStatistics();
+    private volatile PoolStats poolStats;
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolStats = poolStats;
+        return new IMetricsTracker() {
+
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                statistics.recordAcquire(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                statistics.recordTimeout();
+            }
+        };
+    }
+
+    @Override
+    public int getActiveConnections() {
+        PoolStats stats = poolStats;
+        return stats == null ? 0 : stats.getActiveConnections();
+    }
+
+    @Override
+    public int getIdleConnections() {
+        PoolStats stats = poolStats;
+        return stats == null ? 0 : stats.getIdleConnections();
+    }
+
+    @Override
+    public int getThreadsAwaitingConnection() {
+        PoolStats stats = poolStats;
+        return stats == null ? 0 : stats.getPendingThreads();
+    }
+
+    @Override
+    public long getAcquireCount() {
+        return statistics.getCount();
+    }
+
+    @Override
+    public long getAcquireTimeNanos() {
+        return statistics.getTotalNanos();
+    }
+
+    @Override
+    public long getMaxAcquireTimeNanos() {
+        return statistics.getMaxNanos();
+    }
+
+    @Override
+    public long getConnectionTimeoutCount() {
+        return statistics.getTimeouts();
+    }
+
+}
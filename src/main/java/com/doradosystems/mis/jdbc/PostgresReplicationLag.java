@@ -0,0 +1,103 @@
+package com.doradosystems.mis.jdbc;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.apache.log4j.Logger;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Replication lag of a PostgreSQL standby, for {@link ReplicaRoutingDataSource}.
+ * <p>
+ * The lag is measured against the primary: the primary's current WAL position is read first, and if the standby has
+ * replayed up to it the lag is zero, so an idle primary does not make its replicas look stale. Otherwise it is the age
+ * of the last transaction the standby replayed. A standby whose WAL receiver is not streaming reports
+ * {@link #UNAVAILABLE}, however recently it replayed, since it will fall further behind unnoticed; so does a replica
+ * that cannot be queried. {@link #UNAVAILABLE} exceeds any staleness bound. A replica that is not a standby at all has
+ * no lag. Reading {@code pg_stat_wal_receiver} takes a role with {@code pg_read_all_stats}, e.g. {@code pg_monitor}.
+ * <p>
+ * The lag is measured at most once per {@code refreshInterval}, by one caller while the others go on with the last
+ * measurement. Between measurements the time since the last one is added, so that the reported lag stays an upper
+ * bound and {@code maxStaleness} holds instead of being exceeded by up to {@code refreshInterval}.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class PostgresReplicationLag implements Supplier<Duration> {
+
+    public static final Duration UNAVAILABLE = Duration.ofSeconds(Long.MAX_VALUE);
+
+    private static final Logger LOGGER = Logger.getLogger(PostgresReplicationLag.class);
+
+    private static final String PRIMARY_LSN_SQL = "SELECT pg_current_wal_lsn()::text";
+    private static final String LAG_SQL = "SELECT CASE"
+            + " WHEN NOT pg_is_in_recovery() THEN 0"
+            + " WHEN NOT EXISTS (SELECT 1 FROM pg_stat_wal_receiver WHERE status = 'streaming') THEN NULL"
+            + " WHEN pg_last_wal_replay_lsn() >= ?::pg_lsn THEN 0"
+            + " ELSE (extract(epoch FROM now() - pg_last_xact_replay_timestamp()) * 1000)::bigint END";
+
+    private final JdbcTemplate primaryJdbcTemplate;
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final long refreshIntervalNanos;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile Measurement measurement;
+
+    public PostgresReplicationLag(DataSource primary, DataSource replica, Duration refreshInterval) {
+        this.primaryJdbcTemplate = new JdbcTemplate(primary);
+        this.replicaJdbcTemplate = new JdbcTemplate(replica);
+        this.refreshIntervalNanos = refreshInterval.toNanos();
+    }
+
+    @Override
+    public Duration get() {
+        Measurement current = measurement;
+        if ((current == null || System.nanoTime() - current.measuredNanos >= refreshIntervalNanos)
+                && refreshing.compareAndSet(false, true)) {
+            try {
+                current = measure();
+                measurement = current;
+            } finally {
+                refreshing.set(false);
+            }
+        }
+        if (current == null || current.lag == UNAVAILABLE) {
+            // not measured yet while another caller is measuring, or unavailable
+            return UNAVAILABLE;
+        }
+        return current.lag.plusNanos(System.nanoTime() - current.measuredNanos);
+    }
+
+    private Measurement measure() {
+        long now = System.nanoTime();
+        try {
+            String primaryLsn = primaryJdbcTemplate.queryForObject(PRIMARY_LSN_SQL, String.class);
+            Long lagMillis = replicaJdbcTemplate.queryForObject(LAG_SQL, Long.class, primaryLsn);
+            if (lagMillis == null) {
+                LOGGER.warn("Replica is not streaming from the primary or has not replayed anything yet, treating it as"
+                        + " unavailable");
+                return new Measurement(UNAVAILABLE, now);
+            }
+            return new Measurement(Duration.ofMillis(lagMillis), now);
+        } catch (DataAccessException e) {
+            LOGGER.warn("Unable to read replication lag, treating the replica as unavailable", e);
+            return new Measurement(UNAVAILABLE, now);
+        }
+    }
+
+    private static final class Measurement {
+
+        private final Duration lag;
+        private final long measuredNanos;
+
+        Measurement(Duration lag, long measuredNanos) {
+            this.lag = lag;
+            this.measuredNanos = measuredNanos;
+        }
+
+    }
+
+}
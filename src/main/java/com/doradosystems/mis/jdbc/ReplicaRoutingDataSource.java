@@ -0,0 +1,168 @@
+package com.doradosystems.mis.jdbc;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * {@link DataSource} that hands out replica connections for reads and primary connections for everything else.
+ * <p>
+ * A connection comes from the replica only when it is requested inside a {@link #read()} scope, the replica's lag as
+ * reported by {@code replicaLag} is within {@code maxStaleness}, no transaction is active on the thread, and the
+ * thread's current {@link #unitOfWork()} has not written yet. Any connection requested outside a read scope counts as
+ * a write, so once a unit of work has written, its later reads go to the primary and see that write.
+ * <p>
+ * Scopes are bound to the calling thread; work handed to other threads, e.g. through the asynchronous DAOs, is not
+ * part of the caller's unit of work.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private enum Target {
+        PRIMARY, REPLICA
+    }
+
+    private final Supplier<Duration> replicaLag;
+    private final Duration maxStaleness;
+    private final ThreadLocal<Boolean> reading = ThreadLocal.withInitial(() -> Boolean.FALSE);
+    private final ThreadLocal<UnitOfWork> unitOfWork = new ThreadLocal<>();
+    private final AtomicLong primaryConnections = new AtomicLong();
+    private final AtomicLong replicaConnections = new AtomicLong();
+    private final AtomicLong staleReads = new AtomicLong();
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, Supplier<Duration> replicaLag,
+            Duration maxStaleness) {
+        this.replicaLag = replicaLag;
+        this.maxStaleness = maxStaleness;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Target.PRIMARY, primary);
+        targets.put(Target.REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Opens a scope in which connections may come from the replica. Scopes nest.
+     */
+    public ReadScope read() {
+        return new ReadScope(reading.get());
+    }
+
+    /**
+     * Opens a unit of work on the calling thread; once it writes, its reads go to the primary until it is closed. A
+     * nested unit of work joins the enclosing one.
+     */
+    public UnitOfWork unitOfWork() {
+        UnitOfWork current = unitOfWork.get();
+        if (current != null) {
+            return new UnitOfWork(current);
+        }
+        UnitOfWork work = new UnitOfWork(null);
+        unitOfWork.set(work);
+        return work;
+    }
+
+    /**
+     * Returns the number of connections handed out from the primary.
+     */
+    public long getPrimaryConnectionCount() {
+        return primaryConnections.get();
+    }
+
+    /**
+     * Returns the number of connections handed out from the replica.
+     */
+    public long getReplicaConnectionCount() {
+        return replicaConnections.get();
+    }
+
+    /**
+     * Returns the number of reads sent to the primary because the replica lagged more than {@code maxStaleness}.
+     */
+    public long getStaleReadCount() {
+        return staleReads.get();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        UnitOfWork work = unitOfWork.get();
+        if (!reading.get()) {
+            if (work != null) {
+                work.written = true;
+            }
+            return primary();
+        }
+        if ((work != null && work.written) || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return primary();
+        }
+        if (replicaLag.get().compareTo(maxStaleness) > 0) {
+            staleReads.incrementAndGet();
+            return primary();
+        }
+        replicaConnections.incrementAndGet();
+        return Target.REPLICA;
+    }
+
+    private Target primary() {
+        primaryConnections.incrementAndGet();
+        return Target.PRIMARY;
+    }
+
+    /**
+     * Scope opened by {@link ReplicaRoutingDataSource#read()}; closing it restores the enclosing scope.
+     */
+    public final class ReadScope implements AutoCloseable {
+
+        private final boolean previous;
+
+        private ReadScope(boolean previous) {
+            this.previous = previous;
+            reading.set(Boolean.TRUE);
+        }
+
+        @Override
+        public void close() {
+            reading.set(previous);
+        }
+
+    }
+
+    /**
+     * Unit of work opened by {@link ReplicaRoutingDataSource#unitOfWork()}.
+     */
+    public final class UnitOfWork implements AutoCloseable {
+
+        private final UnitOfWork enclosing;
+        private boolean written;
+
+        private UnitOfWork(UnitOfWork enclosing) {
+            this.enclosing = enclosing;
+        }
+
+        /**
+         * Returns whether the unit of work has requested a primary connection outside a read scope.
+         */
+        public boolean hasWritten() {
+            return enclosing == null ? written : enclosing.hasWritten();
+        }
+
+        @Override
+        public void close() {
+            if (enclosing == null) {
+                unitOfWork.remove();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.doradosystems.mis.jdbc;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A statement that took longer than the threshold of a {@link SlowQueryCapturingDataSource}.
+ * <p>
+ * Only the displayed, redacted form of the bind parameters is kept. Values that are displayed in full, such as ids,
+ * numbers and short strings, are also kept so that {@link SlowQueryCapturingDataSource#explain(SlowQuery)} can bind
+ * them again; truncated and redacted values are not kept at all.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class SlowQuery {
+
+    private final String sql;
+    private final List<List<String>> batchBindParameters;
+    private final int batchSize;
+    private final int parameterCount;
+    private final long elapsedNanos;
+    private final Date capturedAt;
+    private final String threadName;
+    // the setter calls of the first row whose values are shown in full, replayed under EXPLAIN
+    private final Map<Integer, BindCall> replayableBindCalls;
+
+    SlowQuery(String sql, List<List<String>> batchBindParameters, int batchSize, int parameterCount,
+            Map<Integer, BindCall> replayableBindCalls, long elapsedNanos) {
+        this.sql = sql;
+        this.batchBindParameters = Collections.unmodifiableList(batchBindParameters);
+        this.batchSize = batchSize;
+        this.parameterCount = parameterCount;
+        this.replayableBindCalls = replayableBindCalls;
+        this.elapsedNanos = elapsedNanos;
+        this.capturedAt = new Date();
+        this.threadName = Thread.currentThread().getName();
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Bind parameters in index order, with long values truncated. For a batch these are the parameters of its first
+     * row.
+     */
+    public List<String> getBindParameters() {
+        return batchBindParameters.isEmpty() ? Collections.<String> emptyList() : batchBindParameters.get(0);
+    }
+
+    /**
+     * Bind parameters of each row of a batch, in the order they were added, up to
+     * {@link SlowQueryCapturingDataSource#MAX_BATCH_ROWS} rows. A single execution has one row.
+     */
+    public List<List<String>> getBatchBindParameters() {
+        return batchBindParameters;
+    }
+
+    /**
+     * Returns the number of rows in the batch, or 0 if the statement was not executed as a batch.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    public Date getCapturedAt() {
+        return new Date(capturedAt.getTime());
+    }
+
+    public String getThreadName() {
+        return threadName;
+    }
+
+    int getParameterCount() {
+        return parameterCount;
+    }
+
+    Map<Integer, BindCall> getReplayableBindCalls() {
+        return replayableBindCalls;
+    }
+
+    @Override
+    public String toString() {
+        String binds = batchSize == 0 ? String.valueOf(getBindParameters())
+                : "batch of " + batchSize + " " + batchBindParameters;
+        return getElapsedMillis() + " ms [" + threadName + "] " + sql + " " + binds;
+    }
+
+    static final class BindCall {
+
+        final Method method;
+        final Object[] args;
+
+        BindCall(Method method, Object[] args) {
+            this.method = method;
+            this.args = args;
+        }
+    }
+
+}
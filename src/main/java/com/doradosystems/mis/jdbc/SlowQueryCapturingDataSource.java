@@ -0,0 +1,408 @@
+package com.doradosystems.mis.jdbc;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.apache.log4j.Logger;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import com.doradosystems.mis.jdbc.SlowQuery.BindCall;
+import com.doradosystems.mis.jdbc.StatementCacheMonitor.PreparedQueries;
+
+/**
+ * {@link DataSource} that times every statement executed through its connections and records those slower than
+ * {@code threshold} in a {@link SlowQueryLog}, together with their bind parameters. String parameters longer than
+ * {@code maxBindLength}, such as {@code record} payloads and {@code response} bodies, are truncated; a
+ * {@code maxBindLength} of zero redacts them entirely. Only that redacted form outlives the statement, so payloads are
+ * not retained in the log. For a batch, the parameters of its first {@value #MAX_BATCH_ROWS} rows are recorded.
+ * <p>
+ * Connections and statements are wrapped in reflective proxies, which costs a little on every JDBC call. A parameter
+ * setter only stores a reference to its arguments in a slot of the statement; displaying and redacting them is left
+ * to the rare statement that turns out to be slow. {@link #setEnabled(boolean) Disabling} capture hands out the
+ * target's connections unwrapped, so nothing is paid at all, unless a {@link StatementCacheMonitor} is set.
+ * <p>
+ * A {@link #setStatementCacheMonitor(StatementCacheMonitor) statement cache monitor} is told about every execution of
+ * a prepared statement by the same proxies, so that monitoring the driver's statement cache does not stack a second
+ * layer of them.
+ * <p>
+ * Plans are not collected while capturing. {@link #explain(SlowQuery)} replays a captured statement under
+ * {@code EXPLAIN} on demand.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class SlowQueryCapturingDataSource extends DelegatingDataSource {
+
+    public static final int MAX_BATCH_ROWS = 10;
+
+    private static final Logger LOGGER = Logger.getLogger(SlowQueryCapturingDataSource.class);
+    // data-modifying statements in a WITH, SELECT INTO, FOR UPDATE or SHARE, sequence and advisory lock functions
+    private static final Pattern WRITING_OR_LOCKING = Pattern.compile(
+            "\\b(insert|update|delete|merge|into|truncate)\\b|\\bfor\\s+(key\\s+)?share\\b"
+                    + "|\\b(nextval|setval|pg_advisory_\\w*)\\s*\\(");
+
+    private final long thresholdNanos;
+    private final SlowQueryLog slowQueryLog;
+    private final int maxBindLength;
+    private volatile boolean enabled = true;
+    private volatile StatementCacheMonitor statementCacheMonitor;
+
+    public SlowQueryCapturingDataSource(DataSource targetDataSource, Duration threshold, SlowQueryLog slowQueryLog,
+            int maxBindLength) {
+        super(targetDataSource);
+        if (maxBindLength < 0) {
+            throw new IllegalArgumentException("maxBindLength must not be negative but was " + maxBindLength);
+        }
+        this.thresholdNanos = threshold.toNanos();
+        this.slowQueryLog = slowQueryLog;
+        this.maxBindLength = maxBindLength;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    public SlowQueryLog getSlowQueryLog() {
+        return slowQueryLog;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns capture on or off for connections obtained from now on.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public StatementCacheMonitor getStatementCacheMonitor() {
+        return statementCacheMonitor;
+    }
+
+    /**
+     * Reports executions of prepared statements on connections obtained from now on to {@code statementCacheMonitor},
+     * or to nobody if it is {@code null}.
+     */
+    public void setStatementCacheMonitor(StatementCacheMonitor statementCacheMonitor) {
+        this.statementCacheMonitor = statementCacheMonitor;
+    }
+
+    /**
+     * Runs {@code slowQuery} again under {@code EXPLAIN} on a connection of its own and returns the plan. Parameters
+     * that were truncated or redacted when captured are bound as {@code NULL}; use
+     * {@link #explain(SlowQuery, Map)} to supply them. Statements known to be read-only, {@code SELECT}s and
+     * {@code WITH} queries that neither modify data nor lock rows, are run with {@code ANALYZE, BUFFERS}. Everything
+     * else, including {@code WITH ... UPDATE ... RETURNING} and {@code SELECT ... FOR UPDATE}, is only planned,
+     * because executing it again would repeat its effects, e.g. claim a lease twice, or block on the locks of the
+     * transaction that ran it. Either way the transaction is rolled back.
+     */
+    public String explain(SlowQuery slowQuery) throws SQLException {
+        return explain(slowQuery, Collections.<Integer, Object> emptyMap());
+    }
+
+    /**
+     * Same as {@link #explain(SlowQuery)}, binding {@code parameters}, by 1-based index, with
+     * {@link PreparedStatement#setObject(int, Object)} in place of the captured values.
+     */
+    public String explain(SlowQuery slowQuery, Map<Integer, ?> parameters) throws SQLException {
+        String sql = slowQuery.getSql().trim();
+        boolean analyze = isReadOnly(sql);
+        String explainSql = (analyze ? "EXPLAIN (ANALYZE, BUFFERS) " : "EXPLAIN ") + sql;
+
+        try (Connection connection = getTargetDataSource().getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(explainSql)) {
+                for (int index = 1; index <= slowQuery.getParameterCount(); index++) {
+                    BindCall call = slowQuery.getReplayableBindCalls().get(index);
+                    if (parameters.containsKey(index)) {
+                        ps.setObject(index, parameters.get(index));
+                    } else if (call != null) {
+                        bind(ps, call);
+                    } else {
+                        ps.setNull(index, Types.OTHER);
+                    }
+                }
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        plan.append(rs.getString(1)).append('\n');
+                    }
+                }
+                return plan.toString();
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private Connection wrap(Connection connection) throws SQLException {
+        boolean capturing = enabled;
+        StatementCacheMonitor monitor = statementCacheMonitor;
+        if (!capturing && monitor == null) {
+            return connection;
+        }
+        PreparedQueries prepared = monitor == null ? null : monitor.track(connection);
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if ("prepareStatement".equals(method.getName())) {
+                        return wrap((Statement) result, PreparedStatement.class, (String) args[0], capturing,
+                                monitor, prepared);
+                    }
+                    if ("createStatement".equals(method.getName()) && capturing) {
+                        return wrap((Statement) result, Statement.class, null, true, null, null);
+                    }
+                    return result;
+                });
+    }
+
+    private Object wrap(Statement statement, Class<? extends Statement> type, String preparedSql, boolean capturing,
+            StatementCacheMonitor monitor, PreparedQueries prepared) {
+        Bindings bindings = preparedSql == null || !capturing ? null : new Bindings();
+        return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+            String name = method.getName();
+            if (bindings != null) {
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                    bindings.set((Integer) args[0], method, args);
+                } else if ("clearParameters".equals(name)) {
+                    bindings.clear();
+                } else if ("addBatch".equals(name)) {
+                    bindings.addBatch();
+                } else if ("clearBatch".equals(name)) {
+                    bindings.clearBatch();
+                }
+            }
+            if (!name.startsWith("execute")) {
+                return invoke(statement, method, args);
+            }
+
+            // Statement.execute*(sql) carries its own SQL; PreparedStatement.execute*() runs the prepared one
+            boolean adHoc = args != null && args.length > 0 && args[0] instanceof String;
+            boolean batch = "executeBatch".equals(name) || "executeLargeBatch".equals(name);
+            if (monitor != null && !adHoc) {
+                monitor.executing((PreparedStatement) statement, preparedSql, prepared);
+            }
+            if (!capturing) {
+                return invoke(statement, method, args);
+            }
+            long start = System.nanoTime();
+            try {
+                return invoke(statement, method, args);
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                if (elapsed >= thresholdNanos) {
+                    capture(adHoc ? (String) args[0] : preparedSql, adHoc ? null : bindings, batch, elapsed);
+                }
+                if (batch && bindings != null) {
+                    // the driver empties the batch once it has run
+                    bindings.clearBatch();
+                }
+            }
+        });
+    }
+
+    private void capture(String sql, Bindings bindings, boolean batch, long elapsedNanos) {
+        List<List<String>> rows = new ArrayList<>();
+        Map<Integer, BindCall> replayable = new TreeMap<>();
+        int parameterCount = 0;
+        int batchSize = 0;
+        if (bindings != null) {
+            List<Row> captured = batch ? bindings.batchRows : Collections.singletonList(bindings.current);
+            for (Row row : captured) {
+                rows.add(display(row));
+            }
+            Row first = captured.isEmpty() ? bindings.current : captured.get(0);
+            parameterCount = first.count;
+            for (int index = 1; index < first.count; index++) {
+                if (first.methods[index] != null && isShownInFull(first.methods[index], first.args[index])) {
+                    replayable.put(index, new BindCall(first.methods[index], first.args[index]));
+                }
+            }
+            batchSize = batch ? bindings.batchSize : 0;
+        }
+        SlowQuery slowQuery = new SlowQuery(sql, rows, batchSize, Math.max(0, parameterCount - 1), replayable,
+                elapsedNanos);
+        slowQueryLog.add(slowQuery);
+        LOGGER.warn("Slow query: " + slowQuery);
+    }
+
+    private List<String> display(Row row) {
+        List<String> bindParameters = new ArrayList<>(row.count);
+        for (int index = 1; index < row.count; index++) {
+            if (row.methods[index] != null) {
+                bindParameters.add(display(row.methods[index], row.args[index]));
+            }
+        }
+        return bindParameters;
+    }
+
+    private String display(Method method, Object[] args) {
+        if ("setNull".equals(method.getName())) {
+            return "NULL";
+        }
+        Object value = args[1];
+        if (value == null) {
+            return "NULL";
+        }
+        if (value instanceof CharSequence) {
+            CharSequence text = (CharSequence) value;
+            if (text.length() <= maxBindLength) {
+                return text.toString();
+            }
+            if (maxBindLength == 0) {
+                return "<redacted " + text.length() + " chars>";
+            }
+            return text.subSequence(0, maxBindLength) + "...<" + text.length() + " chars>";
+        }
+        if (value instanceof byte[]) {
+            return "<" + ((byte[]) value).length + " bytes>";
+        }
+        if (isPlainValue(value)) {
+            return String.valueOf(value);
+        }
+        // e.g. a PGobject, streams or LOBs, whose toString() could expose a payload
+        return "<" + value.getClass().getSimpleName() + ">";
+    }
+
+    private boolean isShownInFull(Method method, Object[] args) {
+        if ("setNull".equals(method.getName()) || args[1] == null) {
+            return true;
+        }
+        if (args[1] instanceof CharSequence) {
+            return ((CharSequence) args[1]).length() <= maxBindLength;
+        }
+        return isPlainValue(args[1]);
+    }
+
+    /**
+     * Returns whether {@code sql} is a query that neither modifies data nor locks rows. Any mention of a keyword that
+     * could do either, even in a literal or a column alias, counts against it.
+     */
+    private static boolean isReadOnly(String sql) {
+        String lower = sql.trim().toLowerCase(Locale.ROOT);
+        return (lower.startsWith("select") || lower.startsWith("with")) && !WRITING_OR_LOCKING.matcher(lower).find();
+    }
+
+    private static boolean isPlainValue(Object value) {
+        return value instanceof Number || value instanceof Boolean || value instanceof UUID || value instanceof Date
+                || value instanceof Temporal || value instanceof Enum;
+    }
+
+    private static void bind(PreparedStatement ps, BindCall call) throws SQLException {
+        try {
+            call.method.invoke(ps, call.args);
+        } catch (IllegalAccessException e) {
+            throw new SQLException("Unable to replay " + call.method.getName(), e);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new SQLException("Unable to replay " + call.method.getName(), e.getCause());
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * The parameter setter calls of one row, by 1-based index. Only references are stored.
+     */
+    private static final class Row {
+
+        private Method[] methods;
+        private Object[][] args;
+        // one past the highest index set
+        private int count;
+
+        Row(int capacity) {
+            this.methods = new Method[capacity];
+            this.args = new Object[capacity][];
+        }
+
+        void set(int index, Method method, Object[] arguments) {
+            if (index >= methods.length) {
+                int capacity = Math.max(index + 1, methods.length * 2);
+                methods = Arrays.copyOf(methods, capacity);
+                args = Arrays.copyOf(args, capacity);
+            }
+            methods[index] = method;
+            args[index] = arguments;
+            count = Math.max(count, index + 1);
+        }
+
+        Row copy() {
+            Row copy = new Row(count);
+            System.arraycopy(methods, 0, copy.methods, 0, count);
+            System.arraycopy(args, 0, copy.args, 0, count);
+            copy.count = count;
+            return copy;
+        }
+    }
+
+    /**
+     * The current row of a prepared statement and the first {@value #MAX_BATCH_ROWS} rows added to its batch.
+     */
+    private static final class Bindings {
+
+        private Row current = new Row(8);
+        private final List<Row> batchRows = new ArrayList<>();
+        private int batchSize;
+
+        void set(int index, Method method, Object[] arguments) {
+            current.set(index, method, arguments);
+        }
+
+        void clear() {
+            current = new Row(current.methods.length);
+        }
+
+        void addBatch() {
+            if (batchRows.size() < MAX_BATCH_ROWS) {
+                batchRows.add(current.copy());
+            }
+            batchSize++;
+        }
+
+        void clearBatch() {
+            batchRows.clear();
+            batchSize = 0;
+        }
+    }
+
+}
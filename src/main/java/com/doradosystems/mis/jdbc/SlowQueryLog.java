@@ -0,0 +1,60 @@
+package com.doradosystems.mis.jdbc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free ring buffer holding the most recent {@link SlowQuery}s. Once {@code capacity} queries have been captured,
+ * each new one overwrites the oldest.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class SlowQueryLog {
+
+    private final AtomicReferenceArray<SlowQuery> entries;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public SlowQueryLog(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be greater than zero but was " + capacity);
+        }
+        this.entries = new AtomicReferenceArray<>(capacity);
+    }
+
+    public void add(SlowQuery slowQuery) {
+        entries.set((int) (sequence.getAndIncrement() % entries.length()), slowQuery);
+    }
+
+    /**
+     * Returns the retained queries, oldest first.
+     */
+    public List<SlowQuery> dump() {
+        long end = sequence.get();
+        long start = Math.max(0, end - entries.length());
+        List<SlowQuery> result = new ArrayList<>((int) (end - start));
+        for (long i = start; i < end; i++) {
+            SlowQuery slowQuery = entries.get((int) (i % entries.length()));
+            if (slowQuery != null) {
+                result.add(slowQuery);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns how many queries were captured in total, including those already overwritten.
+     */
+    public long getCapturedCount() {
+        return sequence.get();
+    }
+
+    public void clear() {
+        for (int i = 0; i < entries.length(); i++) {
+            entries.set(i, null);
+        }
+    }
+
+}
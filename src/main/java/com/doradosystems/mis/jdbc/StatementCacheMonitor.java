@@ -0,0 +1,179 @@
+package com.doradosystems.mis.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGStatement;
+
+/**
+ * Estimates how often the PostgreSQL driver's per-connection statement cache saves the server from parsing and
+ * planning a query, for the connections of a {@link SlowQueryCapturingDataSource} it is
+ * {@link SlowQueryCapturingDataSource#setStatementCacheMonitor(StatementCacheMonitor) set on}. It adds no proxies of
+ * its own: the data source's statement proxies report each {@code execute*()} of a prepared statement to it.
+ * <p>
+ * Since 42.x the driver keeps the last {@code preparedStatementCacheQueries} SQL strings of each physical connection
+ * in a cache, so a fresh {@link PreparedStatement} for a query the connection has run before, as every
+ * {@code JdbcTemplate} call creates, picks up where the last one left off. Once a query has been executed
+ * {@code prepareThreshold} times the driver turns it into a named server-side statement, which later executions on
+ * the same connection reuse. Before each execution the monitor asks the driver, through
+ * {@link PGStatement#isUseServerPrepare()}, whether the statement will run server-prepared, and counts it per SQL
+ * string as a hit or a prepare; see {@link StatementCacheStatistics}.
+ * <p>
+ * The counts are an estimate. The driver does not say whether a server-side statement already exists, so a hit only
+ * means that the monitor saw the same SQL string run server-prepared on the same physical connection before and has
+ * not evicted it from its own least recently used list of {@code cacheSize} strings. Set {@code cacheSize} to the
+ * driver's {@code preparedStatementCacheQueries}. Hits are overcounted when the driver evicts early because of
+ * {@code preparedStatementCacheSizeMiB}, when statements are deallocated behind its back, e.g. by
+ * {@code DISCARD ALL}, or when it prepares a statement again after a schema change invalidated it. With
+ * {@code prepareThreshold=1} every execution runs server-prepared, so the hit rate is simply the share of executions
+ * repeating a recent SQL string on the same connection. {@code pg_prepared_statements}, queried on a connection,
+ * lists the statements the server actually holds for it.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class StatementCacheMonitor {
+
+    private final int cacheSize;
+    private final Map<Object, PreparedQueries> preparedQueries = Collections.synchronizedMap(new WeakHashMap<>());
+    private final ConcurrentMap<String, Counters> counters = new ConcurrentHashMap<>();
+
+    public StatementCacheMonitor(int cacheSize) {
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("cacheSize must not be negative but was " + cacheSize);
+        }
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * Returns the statistics of every SQL string executed so far, most executed first.
+     */
+    public List<StatementCacheStatistics> getStatistics() {
+        List<StatementCacheStatistics> statistics = new ArrayList<>(counters.size());
+        for (Counters counter : counters.values()) {
+            statistics.add(counter.snapshot());
+        }
+        statistics.sort(Comparator.comparingLong(StatementCacheStatistics::getExecutionCount).reversed());
+        return statistics;
+    }
+
+    public long getExecutionCount() {
+        long executions = 0;
+        for (Counters counter : counters.values()) {
+            executions += counter.executions.sum();
+        }
+        return executions;
+    }
+
+    /**
+     * Returns the estimated number of executions that reused a server-side statement.
+     */
+    public long getHitCount() {
+        long hits = 0;
+        for (Counters counter : counters.values()) {
+            hits += counter.hits.sum();
+        }
+        return hits;
+    }
+
+    /**
+     * Returns the estimated share of all executions that reused a server-side statement, or 0 if nothing was
+     * executed. See the class comment for when the estimate is too high.
+     */
+    public double getHitRate() {
+        long executions = getExecutionCount();
+        return executions == 0 ? 0 : getHitCount() / (double) executions;
+    }
+
+    /**
+     * Clears the counters. What each connection has prepared is kept, because the driver keeps it too.
+     */
+    public void reset() {
+        counters.clear();
+    }
+
+    /**
+     * Returns what the physical connection behind {@code connection} has prepared, to pass to
+     * {@link #executing(PreparedStatement, String, PreparedQueries)} for its statements.
+     */
+    PreparedQueries track(Connection connection) throws SQLException {
+        // pooled connections are proxies handed out anew on every checkout; the driver caches per physical connection
+        Object physical = connection.isWrapperFor(PGConnection.class) ? connection.unwrap(PGConnection.class)
+                : connection;
+        return preparedQueries.computeIfAbsent(physical, key -> new PreparedQueries(cacheSize));
+    }
+
+    /**
+     * Counts an execution of {@code statement}, which was prepared from {@code sql}; call it before executing.
+     */
+    void executing(PreparedStatement statement, String sql, PreparedQueries prepared) throws SQLException {
+        Counters counter = counters.computeIfAbsent(sql, Counters::new);
+        counter.executions.increment();
+        if (!statement.isWrapperFor(PGStatement.class) || !statement.unwrap(PGStatement.class).isUseServerPrepare()) {
+            return;
+        }
+        boolean hit;
+        synchronized (prepared) {
+            hit = prepared.put(sql, Boolean.TRUE) != null;
+        }
+        if (hit) {
+            counter.hits.increment();
+        } else {
+            counter.prepares.increment();
+        }
+    }
+
+    /**
+     * The SQL strings a physical connection has run server-prepared, least recently used first.
+     */
+    static final class PreparedQueries extends LinkedHashMap<String, Boolean> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maximumSize;
+
+        PreparedQueries(int maximumSize) {
+            super(16, 0.75f, true);
+            this.maximumSize = maximumSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > maximumSize;
+        }
+
+    }
+
+    private static final class Counters {
+
+        private final String sql;
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder prepares = new LongAdder();
+
+        Counters(String sql) {
+            this.sql = sql;
+        }
+
+        StatementCacheStatistics snapshot() {
+            // read hits and prepares first so that they never exceed the executions they are a share of
+            long hitCount = hits.sum();
+            long prepareCount = prepares.sum();
+            return new StatementCacheStatistics(sql, executions.sum(), hitCount, prepareCount);
+        }
+
+    }
+
+}
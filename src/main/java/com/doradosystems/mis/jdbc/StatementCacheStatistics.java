@@ -0,0 +1,65 @@
+package com.doradosystems.mis.jdbc;
+
+/**
+ * Snapshot of how one SQL string has been executed, as counted by a {@link StatementCacheMonitor}.
+ * <p>
+ * Every execution is one of three kinds: a <em>hit</em> ran a named server-side statement the connection had already
+ * prepared, so PostgreSQL skipped parsing and, once it settled on a generic plan, planning; a <em>prepare</em> created
+ * that named statement; anything else ran as an unnamed statement that was parsed and planned from scratch. Hits and
+ * prepares are told apart by the monitor's estimate of what the connection has prepared, which can count a hit where
+ * the driver in fact prepared again; see {@link StatementCacheMonitor}.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public final class StatementCacheStatistics {
+
+    private final String sql;
+    private final long executionCount;
+    private final long hitCount;
+    private final long prepareCount;
+
+    public StatementCacheStatistics(String sql, long executionCount, long hitCount, long prepareCount) {
+        this.sql = sql;
+        this.executionCount = executionCount;
+        this.hitCount = hitCount;
+        this.prepareCount = prepareCount;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public long getExecutionCount() {
+        return executionCount;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getPrepareCount() {
+        return prepareCount;
+    }
+
+    /**
+     * Returns the executions that were neither hits nor prepares.
+     */
+    public long getUnpreparedCount() {
+        return executionCount - hitCount - prepareCount;
+    }
+
+    /**
+     * Returns the share of executions that were hits, or 0 if there were none.
+     */
+    public double getHitRate() {
+        return executionCount == 0 ? 0 : hitCount / (double) executionCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d executions, %d hits, %d prepares (hit rate %.1f%%): %s", executionCount, hitCount,
+                prepareCount, getHitRate() * 100, sql);
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.doradosystems.mis.metrics;
+
+/**
+ * Receives one call per DAO method invocation made through an instrumented DAO.
+ * <p>
+ * Operations are identified by constant strings and timings are passed as {@link #startTime()} values, so
+ * instrumented calls allocate nothing of their own; with {@link #NOOP} they do not read the clock either.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public interface DaoMetrics {
+
+    /**
+     * Discards everything. This is the default for instrumented DAOs.
+     */
+    DaoMetrics NOOP = new DaoMetrics() {
+
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void recordSuccess(String operation, long startTime, int rows) {
+        }
+
+        @Override
+        public void recordError(String operation, long startTime, Exception error) {
+        }
+    };
+
+    boolean isEnabled();
+
+    /**
+     * Returns the value to pass back to {@link #recordSuccess} or {@link #recordError}.
+     */
+    default long startTime() {
+        return isEnabled() ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * @param rows
+     *            rows returned or affected by the call
+     */
+    void recordSuccess(String operation, long startTime, int rows);
+
+    void recordError(String operation, long startTime, Exception error);
+
+}
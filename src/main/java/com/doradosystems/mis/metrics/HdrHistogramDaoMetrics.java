@@ -0,0 +1,100 @@
+package com.doradosystems.mis.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * In-memory {@link DaoMetrics} keeping, per operation, call, row and per-exception-type error counts and an HDR
+ * latency histogram in nanoseconds. Recording is lock-free; the first call of an operation allocates its counters.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class HdrHistogramDaoMetrics implements DaoMetrics {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Map<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void recordSuccess(String operation, long startTime, int rows) {
+        OperationMetrics metrics = metrics(operation);
+        metrics.latency.recordValue(System.nanoTime() - startTime);
+        metrics.calls.increment();
+        metrics.rows.add(rows);
+    }
+
+    @Override
+    public void recordError(String operation, long startTime, Exception error) {
+        OperationMetrics metrics = metrics(operation);
+        metrics.latency.recordValue(System.nanoTime() - startTime);
+        metrics.calls.increment();
+        metrics.errors.computeIfAbsent(error.getClass(), type -> new LongAdder()).increment();
+    }
+
+    public Set<String> getOperations() {
+        return Collections.unmodifiableSet(operations.keySet());
+    }
+
+    public long getCallCount(String operation) {
+        OperationMetrics metrics = operations.get(operation);
+        return metrics == null ? 0 : metrics.calls.sum();
+    }
+
+    public long getRowCount(String operation) {
+        OperationMetrics metrics = operations.get(operation);
+        return metrics == null ? 0 : metrics.rows.sum();
+    }
+
+    /**
+     * Returns how many calls of {@code operation} failed with exactly {@code errorType}.
+     */
+    public long getErrorCount(String operation, Class<? extends Exception> errorType) {
+        OperationMetrics metrics = operations.get(operation);
+        if (metrics == null) {
+            return 0;
+        }
+        LongAdder errors = metrics.errors.get(errorType);
+        return errors == null ? 0 : errors.sum();
+    }
+
+    /**
+     * Returns a copy of the latency histogram of {@code operation}, in nanoseconds.
+     */
+    public Histogram getLatencyHistogram(String operation) {
+        OperationMetrics metrics = operations.get(operation);
+        return metrics == null ? new Histogram(SIGNIFICANT_DIGITS) : metrics.latency.copy();
+    }
+
+    public void reset() {
+        operations.clear();
+    }
+
+    private OperationMetrics metrics(String operation) {
+        OperationMetrics metrics = operations.get(operation);
+        if (metrics == null) {
+            metrics = operations.computeIfAbsent(operation, name -> new OperationMetrics());
+        }
+        return metrics;
+    }
+
+    private static final class OperationMetrics {
+
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final Map<Class<?>, LongAdder> errors = new ConcurrentHashMap<>();
+        private final ConcurrentHistogram latency = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+    }
+
+}
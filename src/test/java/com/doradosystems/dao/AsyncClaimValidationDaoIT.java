@@ -0,0 +1,240 @@
+package com.doradosystems.dao;
+
+import static com.doradosystems.dao.TestFixtures.newBatch;
+import static com.doradosystems.dao.TestFixtures.newRecord;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.doradosystems.exception.DataPersistenceException;
+import com.doradosystems.exception.NotFoundException;
+import com.doradosystems.mis.concurrent.StripedExecutor;
+import com.doradosystems.mis.concurrent.StripedExecutor.OverflowPolicy;
+import com.doradosystems.mis.dao.AsyncClaimValidationBatchDao;
+import com.doradosystems.mis.dao.AsyncClaimValidationRecordDao;
+import com.doradosystems.mis.dao.ClaimValidationBatchDao;
+import com.doradosystems.mis.dao.ClaimValidationRecordDao;
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationRecord.Status;
+
+/**
+ *
+ * @author Arthur Tolentino
+ *
+ */
+@RunWith(SpringRunner.class)
+@ContextConfiguration({ "/applicationContext-components.xml", "/applicationContext-property-placeholder.xml" })
+public class AsyncClaimValidationDaoIT {
+
+    private static final Logger LOGGER = Logger.getLogger(AsyncClaimValidationDaoIT.class);
+
+    @Autowired
+    private AsyncClaimValidationRecordDao dao;
+    @Autowired
+    private AsyncClaimValidationBatchDao asyncBatchDao;
+    @Autowired
+    private ClaimValidationRecordDao recordDao;
+    @Autowired
+    private ClaimValidationBatchDao batchDao;
+    @Autowired
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    @After
+    public void cleanup() throws Exception {
+        if (jdbcTemplate == null) {
+            jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+        TestDatabase.reset(jdbcTemplate);
+    }
+
+    @Test
+    public void operationsOnTheSameBatchRunInSubmissionOrder() throws Exception {
+        List<UUID> batchIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            batchIds.add(batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING)));
+        }
+
+        List<CompletableFuture<Integer>> counts = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            for (UUID batchId : batchIds) {
+                dao.add(newRecord(batchId));
+                counts.add(dao.countByBatchIdAndRunNumberAndStatus(batchId, 1L, Status.INCOMPLETE));
+            }
+        }
+        for (int i = 0; i < counts.size(); i++) {
+            assertEquals(i / batchIds.size() + 1, counts.get(i).get().intValue());
+        }
+    }
+
+    @Test
+    public void tasksWithTheSameKeyRunInSubmissionOrder() throws Exception {
+        StripedExecutor executor = new StripedExecutor(4, 100, OverflowPolicy.BLOCK);
+        Map<Integer, List<Integer>> executed = new ConcurrentHashMap<>();
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            int key = i % 10;
+            int sequence = i;
+            futures.add(executor.submit(key, () -> executed.computeIfAbsent(key, k -> new ArrayList<>())
+                    .add(sequence)));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get();
+        executor.shutdown();
+
+        for (List<Integer> sequences : executed.values()) {
+            for (int i = 1; i < sequences.size(); i++) {
+                assertTrue(sequences.get(i - 1) < sequences.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void exceptionsArePropagated() throws Exception {
+        try {
+            asyncBatchDao.get(UUID.randomUUID()).get();
+            fail("Expected NotFoundException");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(NotFoundException.class));
+        }
+        try {
+            dao.add(newRecord(UUID.randomUUID())).get();
+            fail("Expected DataPersistenceException");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(DataPersistenceException.class));
+        }
+    }
+
+    @Test
+    public void fullQueueFailsFast() throws Exception {
+        StripedExecutor executor = new StripedExecutor(1, 1, OverflowPolicy.FAIL);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> running = executor.submit(null, () -> release.await(10, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> queued = executor.submit(null, () -> true);
+
+        CompletableFuture<Boolean> rejected = executor.submit(null, () -> true);
+        assertTrue(rejected.isCompletedExceptionally());
+        try {
+            rejected.get();
+            fail("Expected RejectedExecutionException");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(RejectedExecutionException.class));
+        }
+
+        release.countDown();
+        assertTrue(running.get());
+        assertTrue(queued.get());
+        executor.shutdown();
+    }
+
+    @Test
+    public void fullQueueBlocksCaller() throws Exception {
+        StripedExecutor executor = new StripedExecutor(1, 1, OverflowPolicy.BLOCK);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.submit(null, () -> release.await(10, TimeUnit.SECONDS));
+        executor.submit(null, () -> true);
+
+        CountDownLatch submitted = new CountDownLatch(1);
+        Thread caller = new Thread(() -> {
+            executor.submit(null, () -> true);
+            submitted.countDown();
+        });
+        caller.start();
+        assertFalse(submitted.await(200, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        assertTrue(submitted.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+
+    @Test
+    public void blockedCallerIsRejectedOnShutdown() throws Exception {
+        StripedExecutor executor = new StripedExecutor(1, 1, OverflowPolicy.BLOCK);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.submit(null, () -> release.await(10, TimeUnit.SECONDS));
+        executor.submit(null, () -> true);
+
+        CompletableFuture<CompletableFuture<Boolean>> blocked = CompletableFuture
+                .supplyAsync(() -> executor.submit(null, () -> true));
+        Thread.sleep(200);
+        assertFalse(blocked.isDone());
+        assertFalse(executor.shutdown(10, TimeUnit.MILLISECONDS));
+
+        try {
+            blocked.get(10, TimeUnit.SECONDS).get();
+            fail("Expected RejectedExecutionException");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(RejectedExecutionException.class));
+        }
+        release.countDown();
+        assertTrue(executor.shutdown(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void recordStatusUpdateRunsAfterAddOfTheSameBatch() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        UUID recordId = dao.add(newRecord(batchId)).get();
+        for (int i = 0; i < 20; i++) {
+            dao.add(newRecord(batchId));
+            dao.updateStatus(batchId, recordId, i % 2 == 0 ? Status.PENDING : Status.COMPLETE);
+        }
+        assertEquals(Status.COMPLETE, dao.get(batchId, recordId).get().getStatus());
+        assertEquals(21, dao.countByBatchIdAndRunNumberAndStatus(batchId, 1L, Status.INCOMPLETE).get()
+                + dao.countByBatchIdAndRunNumberAndStatus(batchId, 1L, Status.COMPLETE).get());
+    }
+
+    @Test
+    public void throughputComparedWithBlockingApi() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        List<UUID> batchIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            batchIds.add(batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING)));
+        }
+        int size = 2000;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < size; i++) {
+            recordDao.add(newRecord(batchId));
+        }
+        long blockingNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        List<CompletableFuture<UUID>> futures = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            futures.add(dao.add(newRecord(batchIds.get(i % batchIds.size()))));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get();
+        long asyncNanos = System.nanoTime() - start;
+
+        LOGGER.info(String.format("blocking add: %.0f rows/sec, async add: %.0f rows/sec from one caller thread",
+                size / (blockingNanos / 1e9), size / (asyncNanos / 1e9)));
+        assertEquals(size, recordDao.countByBatchIdAndRunNumberAndStatus(batchId, 1L, Status.INCOMPLETE));
+    }
+
+}
@@ -0,0 +1,204 @@
+package com.doradosystems.dao;
+
+import static com.doradosystems.dao.TestFixtures.newBatch;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.doradosystems.exception.NotFoundException;
+import com.doradosystems.mis.dao.CachingClaimValidationBatchDao;
+import com.doradosystems.mis.dao.ClaimValidationBatchDao;
+import com.doradosystems.mis.dao.ClaimValidationBatchWorkQueue;
+import com.doradosystems.mis.dao.ClaimValidationRunRolloverDao;
+import com.doradosystems.mis.dao.InstrumentedClaimValidationBatchDao;
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationBatch.Status;
+import com.doradosystems.mis.domain.ClaimValidationBatchLease;
+import com.doradosystems.mis.domain.RunRolloverStatusMapping;
+
+/**
+ *
+ * @author Arthur Tolentino
+ *
+ */
+@RunWith(SpringRunner.class)
+@ContextConfiguration({ "/applicationContext-components.xml", "/applicationContext-property-placeholder.xml" })
+public class CachingClaimValidationBatchDaoIT {
+
+    @Autowired
+    private ClaimValidationBatchDao batchDao;
+    @Autowired
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private CachingClaimValidationBatchDao dao;
+
+    @Before
+    public void cleanup() throws Exception {
+        if (jdbcTemplate == null) {
+            jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+        TestDatabase.reset(jdbcTemplate);
+        dao = new CachingClaimValidationBatchDao(dataSource, 100, Duration.ofMinutes(1), Duration.ofMinutes(1));
+    }
+
+    @Test
+    public void get() throws Exception {
+        UUID id = dao.add(newBatch(Status.LOADING));
+
+        ClaimValidationBatch first = dao.get(id);
+        ClaimValidationBatch second = dao.get(id);
+        assertThat(second, sameInstance(first));
+        assertEquals(1, dao.getMissCount());
+        assertEquals(1, dao.getHitCount());
+    }
+
+    @Test
+    public void updateStatusInvalidates() throws Exception {
+        UUID id = dao.add(newBatch(Status.LOADING));
+        assertEquals(Status.LOADING, dao.get(id).getStatus());
+
+        assertEquals(1, dao.updateStatus(id, Status.PROCESSING));
+        assertEquals(Status.PROCESSING, dao.get(id).getStatus());
+        assertEquals(2, dao.getMissCount());
+    }
+
+    @Test
+    public void updateStatusAndRunNumberInvalidates() throws Exception {
+        UUID id = dao.add(newBatch(Status.LOADING));
+        dao.get(id);
+
+        assertEquals(1, dao.updateStatusAndRunNumber(id, Status.ERROR, 7L));
+        ClaimValidationBatch result = dao.get(id);
+        assertEquals(Status.ERROR, result.getStatus());
+        assertEquals(7L, result.getRunNumber().longValue());
+    }
+
+    @Test
+    public void writesThroughOtherDaoVisibleAfterTimeToLive() throws Exception {
+        dao = new CachingClaimValidationBatchDao(dataSource, 100, Duration.ofMillis(50), Duration.ofMillis(50));
+        UUID id = dao.add(newBatch(Status.LOADING));
+        dao.get(id);
+
+        batchDao.updateStatus(id, Status.COMPLETE);
+        assertEquals(Status.LOADING, dao.get(id).getStatus());
+        Thread.sleep(100);
+        assertEquals(Status.COMPLETE, dao.get(id).getStatus());
+        assertEquals(1, dao.getEvictionCount());
+    }
+
+    @Test
+    public void getByIdThatDoesNotExistIsCached() throws Exception {
+        UUID id = UUID.randomUUID();
+        for (int i = 0; i < 3; i++) {
+            try {
+                dao.get(id);
+                fail("Expected NotFoundException");
+            } catch (NotFoundException e) {
+                // expected
+            }
+        }
+        assertEquals(1, dao.getMissCount());
+        assertEquals(2, dao.getHitCount());
+    }
+
+    @Test(expected = NotFoundException.class)
+    public void updateStatusWhereIdDoesNotExist() throws Exception {
+        dao.updateStatus(UUID.randomUUID(), Status.ERROR);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() throws Exception {
+        // one segment, so that eviction is least-recently-used across every entry
+        dao = new CachingClaimValidationBatchDao(dataSource, 2, Duration.ofMinutes(1), Duration.ofMinutes(1), 1);
+        UUID first = dao.add(newBatch(Status.LOADING));
+        UUID second = dao.add(newBatch(Status.LOADING));
+        UUID third = dao.add(newBatch(Status.LOADING));
+
+        dao.get(first);
+        dao.get(second);
+        dao.get(first);
+        dao.get(third);
+        assertEquals(2, dao.getSize());
+        assertEquals(1, dao.getEvictionCount());
+
+        dao.get(first);
+        assertEquals(2, dao.getHitCount());
+        dao.get(second);
+        assertEquals(4, dao.getMissCount());
+    }
+
+    @Test
+    public void segmentsShareMaximumSize() throws Exception {
+        dao = new CachingClaimValidationBatchDao(dataSource, 3, Duration.ofMinutes(1), Duration.ofMinutes(1), 16);
+        for (int i = 0; i < 10; i++) {
+            dao.get(dao.add(newBatch(Status.LOADING)));
+        }
+        assertThat(dao.getSize(), lessThanOrEqualTo(3));
+        assertEquals(10 - dao.getSize(), dao.getEvictionCount());
+    }
+
+    @Test
+    public void rolloverInvalidates() throws Exception {
+        ClaimValidationRunRolloverDao rolloverDao = new ClaimValidationRunRolloverDao(dataSource,
+                new DataSourceTransactionManager(dataSource));
+        rolloverDao.addBatchChangeListener(dao);
+        UUID id = dao.add(newBatch(Status.COMPLETE));
+        assertEquals(Long.valueOf(1L), dao.get(id).getRunNumber());
+
+        rolloverDao.rolloverRun(id, 1L, 2L, new RunRolloverStatusMapping(Status.PROCESSING,
+                Collections.emptyMap(), Collections.emptyMap()));
+        ClaimValidationBatch batch = dao.get(id);
+        assertEquals(Long.valueOf(2L), batch.getRunNumber());
+        assertEquals(Status.PROCESSING, batch.getStatus());
+        assertEquals(2, dao.getMissCount());
+    }
+
+    @Test
+    public void workQueueInvalidates() throws Exception {
+        ClaimValidationBatchWorkQueue workQueue = new ClaimValidationBatchWorkQueue(dataSource, "worker",
+                Duration.ofMillis(1));
+        workQueue.addBatchChangeListener(dao);
+        UUID id = dao.add(newBatch(Status.LOADING));
+        dao.get(id);
+
+        ClaimValidationBatchLease lease = workQueue.claimNext(Status.LOADING, Status.PROCESSING, 1).get(0);
+        assertEquals(Status.PROCESSING, dao.get(id).getStatus());
+        Thread.sleep(50);
+        assertEquals(1, workQueue.reclaimExpired(Status.PROCESSING, Status.LOADING));
+        assertEquals(Status.LOADING, dao.get(id).getStatus());
+        lease = workQueue.claimNext(Status.LOADING, Status.PROCESSING, 1).get(0);
+        dao.get(id);
+        assertTrue(workQueue.release(lease, Status.COMPLETE));
+        assertEquals(Status.COMPLETE, dao.get(id).getStatus());
+        assertEquals(4, dao.getMissCount());
+    }
+
+    @Test
+    public void dropInForClaimValidationBatchDao() throws Exception {
+        InstrumentedClaimValidationBatchDao instrumented = new InstrumentedClaimValidationBatchDao(dao);
+        UUID id = instrumented.add(newBatch(Status.LOADING));
+        instrumented.get(id);
+        instrumented.get(id);
+        assertEquals(1, dao.getHitCount());
+        assertEquals(1, instrumented.countByStatus(Status.LOADING));
+    }
+
+}
@@ -45,7 +45,7 @@ public class ClaimValidationBatchDaoIT {
         if (jdbcTemplate == null) {
             jdbcTemplate = new JdbcTemplate(dataSource);
         }
-        jdbcTemplate.update("DELETE FROM mis_claim_validation_service.claim_validation_batch");
+        TestDatabase.reset(jdbcTemplate);
     }
     
     @Test
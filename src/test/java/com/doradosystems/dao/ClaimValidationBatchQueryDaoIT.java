@@ -0,0 +1,123 @@
+package com.doradosystems.dao;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.doradosystems.mis.dao.ClaimValidationBatchDao;
+import com.doradosystems.mis.dao.ClaimValidationBatchQueryDao;
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationBatch.Status;
+
+/**
+ *
+ * @author Arthur Tolentino
+ *
+ */
+@RunWith(SpringRunner.class)
+@ContextConfiguration({ "/applicationContext-components.xml", "/applicationContext-property-placeholder.xml" })
+public class ClaimValidationBatchQueryDaoIT {
+
+    @Autowired
+    private ClaimValidationBatchQueryDao dao;
+    @Autowired
+    private ClaimValidationBatchDao batchDao;
+    @Autowired
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void cleanup() throws Exception {
+        if (jdbcTemplate == null) {
+            jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+        TestDatabase.reset(jdbcTemplate);
+    }
+
+    @Test
+    public void getByStatusWithCreateTimeAscendingPages() throws Exception {
+        List<UUID> ids = addBatches(Status.PROCESSING, 5);
+        addBatches(Status.COMPLETE, 2);
+
+        assertEquals(ids, readAllPages(Status.PROCESSING, 2, null));
+    }
+
+    @Test
+    public void getByStatusWithCreateTimeAscendingWithEqualCreateDates() throws Exception {
+        addBatches(Status.PROCESSING, 7);
+        jdbcTemplate.update("UPDATE mis_claim_validation_service.claim_validation_batch SET create_date = ?",
+                new Timestamp(System.currentTimeMillis()));
+        List<UUID> expected = jdbcTemplate.queryForList("SELECT claim_validation_batch_id"
+                + " FROM mis_claim_validation_service.claim_validation_batch"
+                + " ORDER BY claim_validation_batch_id", UUID.class);
+
+        assertEquals(expected, readAllPages(Status.PROCESSING, 3, null));
+    }
+
+    @Test
+    public void getByStatusWithCreateTimeAscendingWithConcurrentInserts() throws Exception {
+        List<UUID> ids = addBatches(Status.PROCESSING, 6);
+        Set<UUID> inserted = new HashSet<>();
+
+        List<UUID> results = readAllPages(Status.PROCESSING, 2, () -> {
+            if (inserted.size() < 3) {
+                inserted.addAll(addBatches(Status.PROCESSING, 1));
+            }
+        });
+        assertEquals(ids, results.subList(0, ids.size()));
+        assertEquals(results.size(), new HashSet<>(results).size());
+        assertEquals(inserted, new HashSet<>(results.subList(ids.size(), results.size())));
+    }
+
+    @Test
+    public void getByStatusWithCreateTimeAscendingThatDoesNotExist() throws Exception {
+        addBatches(Status.PROCESSING, 2);
+        assertEquals(0, dao.getByStatusWithCreateTimeAscending(Status.ERROR, null, null, 10).size());
+    }
+
+    private List<UUID> readAllPages(Status status, int limit, PageListener pageListener) throws Exception {
+        List<UUID> results = new ArrayList<>();
+        ClaimValidationBatch last = null;
+        while (true) {
+            List<ClaimValidationBatch> page = dao.getByStatusWithCreateTimeAscending(status,
+                    last == null ? null : last.getCreateDate(), last == null ? null : last.getClaimValidationBatchId(),
+                    limit);
+            if (page.isEmpty()) {
+                return results;
+            }
+            page.forEach(batch -> results.add(batch.getClaimValidationBatchId()));
+            last = page.get(page.size() - 1);
+            if (pageListener != null) {
+                pageListener.onPage();
+            }
+        }
+    }
+
+    private List<UUID> addBatches(Status status, int count) throws Exception {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(batchDao.add(new ClaimValidationBatch(null, 1L, "filename", status, 1L, "gcn", null, null)));
+        }
+        return ids;
+    }
+
+    private interface PageListener {
+        void onPage() throws Exception;
+    }
+
+}
@@ -0,0 +1,195 @@
+package com.doradosystems.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.apache.log4j.Logger;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.doradosystems.mis.dao.ClaimValidationBatchDao;
+import com.doradosystems.mis.dao.ClaimValidationBatchWorkQueue;
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationBatch.Status;
+import com.doradosystems.mis.domain.ClaimValidationBatchLease;
+
+/**
+ *
+ * @author Arthur Tolentino
+ *
+ */
+@RunWith(SpringRunner.class)
+@ContextConfiguration({ "/applicationContext-components.xml", "/applicationContext-property-placeholder.xml" })
+public class ClaimValidationBatchWorkQueueIT {
+
+    private static final Logger LOGGER = Logger.getLogger(ClaimValidationBatchWorkQueueIT.class);
+
+    @Autowired
+    private ClaimValidationBatchWorkQueue workQueue;
+    @Autowired
+    private ClaimValidationBatchDao batchDao;
+    @Autowired
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void cleanup() throws Exception {
+        if (jdbcTemplate == null) {
+            jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+        TestDatabase.reset(jdbcTemplate);
+    }
+
+    @Test
+    public void claimNext() throws Exception {
+        List<UUID> ids = addBatches(3);
+
+        List<ClaimValidationBatchLease> claimed = workQueue.claimNext(Status.LOADING, Status.PROCESSING, 2);
+        assertEquals(2, claimed.size());
+        claimed.forEach(lease -> {
+            assertEquals(Status.PROCESSING, lease.getClaimValidationBatch().getStatus());
+            assertTrue(ids.subList(0, 2).contains(lease.getClaimValidationBatchId()));
+            assertNotNull(lease.getLeaseToken());
+        });
+        assertEquals(1, batchDao.countByStatus(Status.LOADING));
+        assertEquals(1, workQueue.claimNext(Status.LOADING, Status.PROCESSING, 2).size());
+        assertEquals(0, workQueue.claimNext(Status.LOADING, Status.PROCESSING, 2).size());
+    }
+
+    @Test
+    public void release() throws Exception {
+        addBatches(1);
+        ClaimValidationBatchLease lease = workQueue.claimNext(Status.LOADING, Status.PROCESSING, 1).get(0);
+        UUID id = lease.getClaimValidationBatchId();
+
+        ClaimValidationBatchLease forged = new ClaimValidationBatchLease(lease.getClaimValidationBatch(),
+                UUID.randomUUID(), lease.getLeaseExpiresAt());
+        assertFalse(workQueue.release(forged, Status.ERROR));
+        assertTrue(workQueue.renewLease(lease));
+        assertTrue(workQueue.release(lease, Status.COMPLETE));
+        assertEquals(Status.COMPLETE, batchDao.get(id).getStatus());
+        assertFalse(workQueue.release(lease, Status.COMPLETE));
+    }
+
+    @Test
+    public void reclaimExpired() throws Exception {
+        addBatches(2);
+        ClaimValidationBatchWorkQueue crashedNode = new ClaimValidationBatchWorkQueue(dataSource, "crashed",
+                Duration.ofMillis(1));
+        List<ClaimValidationBatchLease> claimed = crashedNode.claimNext(Status.LOADING, Status.PROCESSING, 2);
+        assertEquals(2, claimed.size());
+        assertEquals(0, workQueue.reclaimExpired(Status.LOADING, Status.LOADING));
+
+        Thread.sleep(50);
+        assertEquals(2, workQueue.reclaimExpired(Status.PROCESSING, Status.LOADING));
+        assertEquals(2, workQueue.claimNext(Status.LOADING, Status.PROCESSING, 2).size());
+        assertFalse(crashedNode.release(claimed.get(0), Status.COMPLETE));
+    }
+
+    @Test
+    public void staleLeaseOfTheSameOwnerCannotReleaseANewerClaim() throws Exception {
+        addBatches(1);
+        ClaimValidationBatchWorkQueue shortLeases = new ClaimValidationBatchWorkQueue(dataSource,
+                workQueue.getOwner(), Duration.ofMillis(1));
+        ClaimValidationBatchLease stale = shortLeases.claimNext(Status.LOADING, Status.PROCESSING, 1).get(0);
+        Thread.sleep(50);
+        assertEquals(1, workQueue.reclaimExpired(Status.PROCESSING, Status.LOADING));
+        ClaimValidationBatchLease current = workQueue.claimNext(Status.LOADING, Status.PROCESSING, 1).get(0);
+
+        assertFalse(shortLeases.renewLease(stale));
+        assertFalse(shortLeases.release(stale, Status.ERROR));
+        assertEquals(Status.PROCESSING, batchDao.get(current.getClaimValidationBatchId()).getStatus());
+        assertTrue(workQueue.release(current, Status.COMPLETE));
+    }
+
+    @Test
+    public void claimNextWithConcurrentNodes() throws Exception {
+        int batches = 300;
+        addBatches(batches);
+        Set<UUID> processed = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+
+        long nanos = process(4, 4, processed, duplicates);
+        LOGGER.info(String.format("4 nodes x 4 threads: %.0f batches/sec", batches / (nanos / 1e9)));
+        assertEquals(0, duplicates.get());
+        assertEquals(batches, processed.size());
+        assertEquals(batches, batchDao.countByStatus(Status.COMPLETE));
+    }
+
+    @Test
+    public void claimNextThroughputByWorkerCount() throws Exception {
+        int batches = 200;
+        for (int threads : new int[] { 1, 2, 4, 8 }) {
+            cleanup();
+            addBatches(batches);
+            Set<UUID> processed = ConcurrentHashMap.newKeySet();
+            AtomicInteger duplicates = new AtomicInteger();
+
+            long nanos = process(2, threads, processed, duplicates);
+            LOGGER.info(String.format("2 nodes x %d threads: %.0f batches/sec", threads, batches / (nanos / 1e9)));
+            assertEquals(0, duplicates.get());
+            assertEquals(batches, processed.size());
+        }
+    }
+
+    private long process(int nodes, int threadsPerNode, Set<UUID> processed, AtomicInteger duplicates)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(nodes * threadsPerNode);
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int node = 0; node < nodes; node++) {
+            ClaimValidationBatchWorkQueue nodeQueue = new ClaimValidationBatchWorkQueue(dataSource, "node-" + node,
+                    Duration.ofMinutes(1));
+            for (int thread = 0; thread < threadsPerNode; thread++) {
+                futures.add(executor.submit(() -> {
+                    List<ClaimValidationBatchLease> claimed;
+                    while (!(claimed = nodeQueue.claimNext(Status.LOADING, Status.PROCESSING, 5)).isEmpty()) {
+                        for (ClaimValidationBatchLease lease : claimed) {
+                            if (!processed.add(lease.getClaimValidationBatchId())) {
+                                duplicates.incrementAndGet();
+                            }
+                            assertTrue(nodeQueue.release(lease, Status.COMPLETE));
+                        }
+                    }
+                    return null;
+                }));
+            }
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long nanos = System.nanoTime() - start;
+        executor.shutdown();
+        return nanos;
+    }
+
+    private List<UUID> addBatches(int count) throws Exception {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(batchDao.add(new ClaimValidationBatch(null, 1L, "filename", Status.LOADING, 1L, "gcn", null,
+                    null)));
+        }
+        return ids;
+    }
+
+}
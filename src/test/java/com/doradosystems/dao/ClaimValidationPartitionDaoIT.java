@@ -0,0 +1,228 @@
+package com.doradosystems.dao;
+
+import static com.doradosystems.dao.TestFixtures.newBatch;
+import static com.doradosystems.dao.TestFixtures.newRecords;
+import static com.doradosystems.dao.TestFixtures.newResponse;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.doradosystems.exception.DataPersistenceException;
+import com.doradosystems.mis.dao.ClaimValidationBatchDao;
+import com.doradosystems.mis.dao.ClaimValidationPartitionDao;
+import com.doradosystems.mis.dao.ClaimValidationRecordBulkDao;
+import com.doradosystems.mis.dao.ClaimValidationRecordDao;
+import com.doradosystems.mis.dao.ClaimValidationResponseDao;
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationRecord.Status;
+
+/**
+ *
+ * @author Arthur Tolentino
+ *
+ */
+@RunWith(SpringRunner.class)
+@ContextConfiguration({ "/applicationContext-components.xml", "/applicationContext-property-placeholder.xml" })
+public class ClaimValidationPartitionDaoIT {
+
+    private static final Logger LOGGER = Logger.getLogger(ClaimValidationPartitionDaoIT.class);
+
+    private static final String SELECT_BY_BATCH_ID_AND_RUN_NUMBER_SQL = "SELECT * "
+            + "FROM mis_claim_validation_service.claim_validation_record"
+            + " WHERE claim_validation_batch_id = ? AND run_number = ?";
+
+    @Autowired
+    private ClaimValidationPartitionDao dao;
+    @Autowired
+    private ClaimValidationBatchDao batchDao;
+    @Autowired
+    private ClaimValidationRecordDao recordDao;
+    @Autowired
+    private ClaimValidationRecordBulkDao recordBulkDao;
+    @Autowired
+    private ClaimValidationResponseDao responseDao;
+    @Autowired
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    @After
+    public void cleanup() throws Exception {
+        if (jdbcTemplate == null) {
+            jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+        dao.purgeOlderThan(Instant.now().plus(1, ChronoUnit.DAYS));
+    }
+
+    @Test
+    public void queriesArePrunedToTheBatchPartition() throws Exception {
+        UUID batchId = dao.addBatch(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        UUID otherBatchId = dao.addBatch(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        recordBulkDao.addAll(newRecords(batchId, 10));
+        recordBulkDao.addAll(newRecords(otherBatchId, 10));
+
+        String plan = String.join("\n",
+                jdbcTemplate.queryForList("EXPLAIN " + SELECT_BY_BATCH_ID_AND_RUN_NUMBER_SQL, String.class, batchId, 1L));
+        LOGGER.info(plan);
+        assertThat(plan, containsString(partition("claim_validation_record", batchId)));
+        assertThat(plan, not(containsString(partition("claim_validation_record", otherBatchId))));
+        assertThat(plan, not(containsString("claim_validation_record_default")));
+
+        assertEquals(10, recordDao.getByBatchIdAndRunNumber(batchId, 1L).size());
+        assertEquals(10, recordDao.countByBatchIdAndRunNumberAndStatus(batchId, 1L, Status.INCOMPLETE));
+    }
+
+    @Test
+    public void batchesWithoutPartitionsUseTheDefaultPartition() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        recordBulkDao.addAll(newRecords(batchId, 3));
+
+        assertFalse(dao.hasPartitions(batchId));
+        assertEquals(3, recordDao.getByBatchIdAndRunNumber(batchId, 1L).size());
+        assertEquals(3, (int) jdbcTemplate.queryForObject("SELECT count(*)"
+                + " FROM mis_claim_validation_service.claim_validation_record_default"
+                + " WHERE claim_validation_batch_id = ?", Integer.class, batchId));
+    }
+
+    @Test(expected = DataPersistenceException.class)
+    public void createPartitionsFailsOnceRowsAreInTheDefaultPartition() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        recordBulkDao.addAll(newRecords(batchId, 1));
+
+        dao.createPartitions(batchId);
+    }
+
+    @Test
+    public void drainDefaultPartitionMovesRowsIntoPartitions() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        UUID recordId = recordBulkDao.addAll(newRecords(batchId, 3)).get(0);
+        responseDao.add(newResponse(batchId, recordId));
+        UUID partitionedBatchId = dao.addBatch(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        recordBulkDao.addAll(newRecords(partitionedBatchId, 2));
+
+        assertEquals(1, dao.drainDefaultPartition());
+
+        assertTrue(dao.hasPartitions(batchId));
+        assertEquals(0, (int) jdbcTemplate.queryForObject("SELECT count(*)"
+                + " FROM mis_claim_validation_service.claim_validation_record_default", Integer.class));
+        assertEquals(0, (int) jdbcTemplate.queryForObject("SELECT count(*)"
+                + " FROM mis_claim_validation_service.claim_validation_response_default", Integer.class));
+        assertEquals(3, recordDao.countByBatchIdAndRunNumberAndStatus(batchId, 1L, Status.INCOMPLETE));
+        assertEquals(1, responseDao.get(batchId, 1L).size());
+        assertEquals(2, recordDao.countByBatchIdAndRunNumberAndStatus(partitionedBatchId, 1L, Status.INCOMPLETE));
+        assertEquals(0, dao.drainDefaultPartition());
+    }
+
+    @Test
+    public void addBatchDoesNotWaitForReadersOfOtherBatches() throws Exception {
+        UUID batchId = dao.addBatch(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        recordBulkDao.addAll(newRecords(batchId, 10));
+
+        long relations = countRelations();
+        try (Connection reader = dataSource.getConnection()) {
+            reader.setAutoCommit(false);
+            try (Statement statement = reader.createStatement()) {
+                statement.executeQuery("SELECT count(*) FROM mis_claim_validation_service.claim_validation_record"
+                        + " WHERE claim_validation_batch_id = '" + batchId + "'").close();
+            }
+            CompletableFuture<UUID> added = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return dao.addBatch(newBatch(ClaimValidationBatch.Status.PROCESSING));
+                } catch (DataPersistenceException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            try {
+                assertTrue(dao.hasPartitions(added.get(10, TimeUnit.SECONDS)));
+            } finally {
+                reader.rollback();
+            }
+        }
+        LOGGER.info("One batch's partitions add " + (countRelations() - relations) + " relations");
+    }
+
+    @Test
+    public void responsesMustReferenceARecordOfTheirBatch() throws Exception {
+        UUID batchId = dao.addBatch(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        UUID otherBatchId = dao.addBatch(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        UUID recordId = recordDao.add(newRecords(batchId, 1).get(0));
+
+        responseDao.add(newResponse(batchId, recordId));
+        try {
+            responseDao.add(newResponse(otherBatchId, recordId));
+            fail("Expected DataPersistenceException");
+        } catch (DataPersistenceException e) {
+        }
+    }
+
+    @Test
+    public void purgeOlderThan() throws Exception {
+        List<UUID> oldBatchIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            UUID batchId = dao.addBatch(newBatch(ClaimValidationBatch.Status.PROCESSING));
+            UUID recordId = recordBulkDao.addAll(newRecords(batchId, 2000)).get(0);
+            responseDao.add(newResponse(batchId, recordId));
+            oldBatchIds.add(batchId);
+        }
+        UUID unpartitionedBatchId = batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        recordBulkDao.addAll(newRecords(unpartitionedBatchId, 100));
+        oldBatchIds.add(unpartitionedBatchId);
+        UUID newBatchId = dao.addBatch(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        recordBulkDao.addAll(newRecords(newBatchId, 100));
+        jdbcTemplate.update("UPDATE mis_claim_validation_service.claim_validation_batch"
+                + " SET create_date = now() - interval '60 days' WHERE claim_validation_batch_id <> ?", newBatchId);
+
+        long start = System.nanoTime();
+        assertEquals(6, dao.purgeOlderThan(Instant.now().minus(30, ChronoUnit.DAYS)));
+        LOGGER.info("Purged 6 batches (10100 records) in " + Duration.ofNanos(System.nanoTime() - start).toMillis()
+                + " ms");
+
+        for (UUID batchId : oldBatchIds) {
+            assertFalse(dao.hasPartitions(batchId));
+            assertEquals(0, recordDao.countByBatchIdAndRunNumberAndStatus(batchId, 1L, Status.INCOMPLETE));
+            assertEquals(0, (int) jdbcTemplate.queryForObject("SELECT count(*)"
+                    + " FROM mis_claim_validation_service.claim_validation_batch WHERE claim_validation_batch_id = ?",
+                    Integer.class, batchId));
+        }
+        assertTrue(dao.hasPartitions(newBatchId));
+        assertEquals(100, recordDao.countByBatchIdAndRunNumberAndStatus(newBatchId, 1L, Status.INCOMPLETE));
+    }
+
+    private long countRelations() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM pg_class c"
+                + " JOIN pg_namespace n ON n.oid = c.relnamespace"
+                + " WHERE n.nspname IN ('mis_claim_validation_service', 'pg_toast')", Long.class);
+    }
+
+    private String partition(String table, UUID batchId) {
+        return table + "_" + batchId.toString().replace("-", "");
+    }
+
+}
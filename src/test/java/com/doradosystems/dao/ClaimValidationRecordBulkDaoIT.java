@@ -0,0 +1,223 @@
+package com.doradosystems.dao;
+
+import static com.doradosystems.dao.TestFixtures.newBatch;
+import static com.doradosystems.dao.TestFixtures.newRecords;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.doradosystems.exception.DataPersistenceException;
+import com.doradosystems.mis.dao.ClaimValidationBatchDao;
+import com.doradosystems.mis.dao.ClaimValidationRecordBulkDao;
+import com.doradosystems.mis.dao.ClaimValidationRecordDao;
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationRecord;
+import com.doradosystems.mis.domain.ClaimValidationRecord.Status;
+
+/**
+ *
+ * @author Arthur Tolentino
+ *
+ */
+@RunWith(SpringRunner.class)
+@ContextConfiguration({ "/applicationContext-components.xml", "/applicationContext-property-placeholder.xml" })
+public class ClaimValidationRecordBulkDaoIT {
+
+    private static final Logger LOGGER = Logger.getLogger(ClaimValidationRecordBulkDaoIT.class);
+
+    @Autowired
+    private ClaimValidationRecordBulkDao dao;
+    @Autowired
+    private ClaimValidationRecordDao recordDao;
+    @Autowired
+    private ClaimValidationBatchDao batchDao;
+    @Autowired
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    @After
+    public void cleanup() throws Exception {
+        if (jdbcTemplate == null) {
+            jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+        TestDatabase.reset(jdbcTemplate);
+    }
+
+    @Test
+    public void addAll() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        List<ClaimValidationRecord> records = newRecords(batchId, 3);
+
+        List<UUID> ids = dao.addAll(records);
+        assertEquals(3, ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            ClaimValidationRecord result = recordDao.get(ids.get(i));
+            assertEquals(batchId, result.getClaimValidationBatchId());
+            assertEquals(records.get(i).getClaimNumber(), result.getClaimNumber());
+            assertEquals(records.get(i).getRecord(), result.getRecord());
+            assertEquals(records.get(i).getRunNumber(), result.getRunNumber());
+            assertEquals(records.get(i).getStatus(), result.getStatus());
+        }
+    }
+
+    @Test
+    public void addAllEmpty() throws Exception {
+        List<UUID> ids = dao.addAll(Collections.<ClaimValidationRecord> emptyList());
+        assertEquals(0, ids.size());
+    }
+
+    @Test
+    public void addAllIteratorSpanningChunks() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        ClaimValidationRecordBulkDao smallChunkDao = new ClaimValidationRecordBulkDao(dataSource, 2);
+        List<ClaimValidationRecord> records = newRecords(batchId, 5);
+
+        List<UUID> ids = smallChunkDao.addAll(records.iterator());
+        assertEquals(5, ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(records.get(i).getClaimNumber(), recordDao.get(ids.get(i)).getClaimNumber());
+        }
+        assertEquals(5, recordDao.countByBatchIdAndRunNumberAndStatus(batchId, 1L, Status.INCOMPLETE));
+    }
+
+    @Test(expected = DataPersistenceException.class)
+    public void addAllIllegalBatchId() throws Exception {
+        dao.addAll(newRecords(UUID.randomUUID(), 3));
+    }
+
+    @Test(expected = DataPersistenceException.class)
+    public void addAllNullRunNumber() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        dao.addAll(Collections.singletonList(new ClaimValidationRecord(null, batchId, null, Status.INCOMPLETE,
+                "claimNumber", "record", null, null)));
+    }
+
+    @Test
+    public void addAllIllegalBatchIdInLaterChunk() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        ClaimValidationRecordBulkDao smallChunkDao = new ClaimValidationRecordBulkDao(dataSource, 2);
+        List<ClaimValidationRecord> records = newRecords(batchId, 4);
+        records.addAll(newRecords(UUID.randomUUID(), 1));
+
+        try {
+            smallChunkDao.addAll(records);
+            fail("Expected DataPersistenceException");
+        } catch (DataPersistenceException e) {
+            assertThat(e.getMessage(), containsString("chunk 2"));
+        }
+        assertEquals(4, recordDao.countByBatchIdAndRunNumberAndStatus(batchId, 1L, Status.INCOMPLETE));
+    }
+
+    @Test
+    public void addAllThroughputComparedWithAdd() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        int size = 2000;
+
+        List<ClaimValidationRecord> records = newRecords(batchId, size);
+        long start = System.nanoTime();
+        for (ClaimValidationRecord record : records) {
+            recordDao.add(record);
+        }
+        long singleNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        dao.addAll(newRecords(batchId, size));
+        long bulkNanos = System.nanoTime() - start;
+
+        LOGGER.info(String.format("add: %.0f rows/sec, addAll (chunk size %d): %.0f rows/sec",
+                size / (singleNanos / 1e9), dao.getChunkSize(), size / (bulkNanos / 1e9)));
+        assertEquals(2 * size, recordDao.countByBatchIdAndRunNumberAndStatus(batchId, 1L, Status.INCOMPLETE));
+    }
+
+    @Test
+    public void updateStatus() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        List<UUID> ids = dao.addAll(newRecords(batchId, 3));
+        UUID missingId = UUID.randomUUID();
+
+        Set<UUID> updated = dao.updateStatus(Arrays.asList(ids.get(0), ids.get(1), missingId), Status.PENDING);
+        assertEquals(new HashSet<>(ids.subList(0, 2)), updated);
+        assertEquals(Status.PENDING, recordDao.get(ids.get(0)).getStatus());
+        assertEquals(Status.PENDING, recordDao.get(ids.get(1)).getStatus());
+        assertEquals(Status.INCOMPLETE, recordDao.get(ids.get(2)).getStatus());
+    }
+
+    @Test
+    public void updateStatusEmpty() throws Exception {
+        assertTrue(dao.updateStatus(Collections.<UUID> emptyList(), Status.PENDING).isEmpty());
+    }
+
+    @Test
+    public void updateStatusBeyondTheBindParameterLimit() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        List<UUID> ids = dao.addAll(newRecords(batchId, 40000));
+
+        assertEquals(ids.size(), dao.updateStatus(ids, Status.COMPLETE).size());
+        assertEquals(ids.size(), recordDao.countByBatchIdAndRunNumberAndStatus(batchId, 1L, Status.COMPLETE));
+    }
+
+    @Test
+    public void compareAndSetStatus() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        List<UUID> ids = dao.addAll(newRecords(batchId, 3));
+        recordDao.updateStatus(ids.get(1), Status.COMPLETE);
+
+        Set<UUID> updated = dao.compareAndSetStatus(ids, Status.INCOMPLETE, Status.PENDING);
+        assertEquals(new HashSet<>(Arrays.asList(ids.get(0), ids.get(2))), updated);
+        assertEquals(Status.COMPLETE, recordDao.get(ids.get(1)).getStatus());
+    }
+
+    @Test
+    public void compareAndSetStatusLostRace() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        List<UUID> ids = dao.addAll(newRecords(batchId, 4));
+
+        Set<UUID> first = dao.compareAndSetStatus(ids.subList(0, 3), Status.INCOMPLETE, Status.PENDING);
+        Set<UUID> second = dao.compareAndSetStatus(ids.subList(1, 4), Status.INCOMPLETE, Status.PENDING);
+        assertEquals(3, first.size());
+        assertEquals(Collections.singleton(ids.get(3)), second);
+    }
+
+    @Test
+    public void updateStatusThroughputComparedWithSingleUpdates() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        List<UUID> ids = dao.addAll(newRecords(batchId, 2000));
+
+        long start = System.nanoTime();
+        for (UUID id : ids) {
+            recordDao.updateStatus(id, Status.PENDING);
+        }
+        long singleNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        dao.updateStatus(ids, Status.COMPLETE);
+        long bulkNanos = System.nanoTime() - start;
+
+        LOGGER.info(String.format("updateStatus: %.0f rows/sec, bulk updateStatus: %.0f rows/sec",
+                ids.size() / (singleNanos / 1e9), ids.size() / (bulkNanos / 1e9)));
+        assertEquals(ids.size(), recordDao.countByBatchIdAndRunNumberAndStatus(batchId, 1L, Status.COMPLETE));
+    }
+
+}
@@ -0,0 +1,223 @@
+package com.doradosystems.dao;
+
+import static com.doradosystems.dao.TestFixtures.newBatch;
+import static com.doradosystems.dao.TestFixtures.newRecords;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.doradosystems.mis.dao.ClaimValidationBatchDao;
+import com.doradosystems.mis.dao.ClaimValidationRecordBulkDao;
+import com.doradosystems.mis.dao.ClaimValidationRecordQueryDao;
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationRecord;
+import com.doradosystems.mis.domain.ClaimValidationRecord.Status;
+
+/**
+ *
+ * @author Arthur Tolentino
+ *
+ */
+@RunWith(SpringRunner.class)
+@ContextConfiguration({ "/applicationContext-components.xml", "/applicationContext-property-placeholder.xml" })
+public class ClaimValidationRecordQueryDaoIT {
+
+    @Autowired
+    private ClaimValidationRecordQueryDao dao;
+    @Autowired
+    private ClaimValidationRecordBulkDao bulkDao;
+    @Autowired
+    private ClaimValidationBatchDao batchDao;
+    @Autowired
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    @After
+    public void cleanup() throws Exception {
+        if (jdbcTemplate == null) {
+            jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+        TestDatabase.reset(jdbcTemplate);
+    }
+
+    @Test
+    public void streamByBatchIdAndRunNumber() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        List<UUID> ids = bulkDao.addAll(newRecords(batchId, 1L, 5));
+        bulkDao.addAll(newRecords(batchId, 2L, 3));
+
+        ClaimValidationRecordQueryDao smallFetchDao = new ClaimValidationRecordQueryDao(dataSource, 2);
+        try (Stream<ClaimValidationRecord> records = smallFetchDao.streamByBatchIdAndRunNumber(batchId, 1L)) {
+            Set<UUID> results = records.map(ClaimValidationRecord::getClaimValidationRecordId)
+                    .collect(Collectors.toSet());
+            assertEquals(new HashSet<>(ids), results);
+        }
+    }
+
+    @Test
+    public void streamByBatchIdAndRunNumberWhereBatchIdDoesNotExist() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        bulkDao.addAll(newRecords(batchId, 1L, 2));
+
+        try (Stream<ClaimValidationRecord> records = dao.streamByBatchIdAndRunNumber(UUID.randomUUID(), 1L)) {
+            assertEquals(0, records.count());
+        }
+    }
+
+    @Test
+    public void forEachByBatchIdAndRunNumber() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        List<UUID> ids = bulkDao.addAll(newRecords(batchId, 1L, 5));
+
+        List<ClaimValidationRecord> results = new ArrayList<>();
+        new ClaimValidationRecordQueryDao(dataSource, 2).forEachByBatchIdAndRunNumber(batchId, 1L, results::add);
+        assertEquals(ids.size(), results.size());
+        results.forEach(record -> {
+            assertEquals(batchId, record.getClaimValidationBatchId());
+            assertEquals(Status.INCOMPLETE, record.getStatus());
+        });
+    }
+
+    @Test
+    public void streamAbandonedEarlyReleasesConnection() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        bulkDao.addAll(newRecords(batchId, 1L, 10));
+
+        OpenConnectionCountingDataSource countingDataSource = new OpenConnectionCountingDataSource(dataSource);
+        ClaimValidationRecordQueryDao countingDao = new ClaimValidationRecordQueryDao(countingDataSource, 2);
+        try (Stream<ClaimValidationRecord> records = countingDao.streamByBatchIdAndRunNumber(batchId, 1L)) {
+            assertEquals(3, records.limit(3).count());
+            assertEquals(1, countingDataSource.getOpenConnections());
+        }
+        assertEquals(0, countingDataSource.getOpenConnections());
+
+        try (Stream<ClaimValidationRecord> records = countingDao.streamByBatchIdAndRunNumber(batchId, 1L)) {
+            assertEquals(1, countingDataSource.getOpenConnections());
+        }
+        assertEquals(0, countingDataSource.getOpenConnections());
+    }
+
+    @Test
+    public void getByBatchIdAndRunNumberOrderByUpdateDateDescendingPages() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        List<UUID> ids = new ArrayList<>();
+        for (ClaimValidationRecord record : newRecords(batchId, 1L, 5)) {
+            ids.addAll(bulkDao.addAll(Collections.singletonList(record)));
+        }
+
+        List<UUID> results = readAllPages(batchId, 2, null);
+        assertEquals(5, results.size());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(ids.get(ids.size() - 1 - i), results.get(i));
+        }
+    }
+
+    @Test
+    public void getByBatchIdAndRunNumberOrderByUpdateDateDescendingWithEqualUpdateDates() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        bulkDao.addAll(newRecords(batchId, 1L, 7));
+        jdbcTemplate.update("UPDATE mis_claim_validation_service.claim_validation_record SET updated_date = ?",
+                new Timestamp(System.currentTimeMillis()));
+        List<UUID> expected = jdbcTemplate.queryForList("SELECT claim_validation_record_id"
+                + " FROM mis_claim_validation_service.claim_validation_record"
+                + " ORDER BY claim_validation_record_id DESC", UUID.class);
+
+        assertEquals(expected, readAllPages(batchId, 2, null));
+    }
+
+    @Test
+    public void getByBatchIdAndRunNumberOrderByUpdateDateDescendingWithConcurrentInserts() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        Set<UUID> ids = new HashSet<>(bulkDao.addAll(newRecords(batchId, 1L, 6)));
+        Set<UUID> inserted = new HashSet<>();
+
+        List<UUID> results = readAllPages(batchId, 2,
+                () -> inserted.addAll(bulkDao.addAll(newRecords(batchId, 1L, 1))));
+        assertEquals(ids.size(), results.size());
+        assertEquals(ids, new HashSet<>(results));
+        assertEquals(3, inserted.size());
+    }
+
+    @Test
+    public void getByClaimNumbersAcrossBatchesAndRuns() throws Exception {
+        UUID firstBatchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        UUID secondBatchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        bulkDao.addAll(newRecords(firstBatchId, 1L, 3));
+        bulkDao.addAll(newRecords(firstBatchId, 2L, 1));
+        bulkDao.addAll(newRecords(secondBatchId, 1L, 2));
+
+        Map<String, List<ClaimValidationRecord>> results = dao.getByClaimNumbers(Arrays.asList("claimNumber0",
+                "claimNumber2", "claimNumber0", "unknown"));
+        assertEquals(2, results.size());
+        assertEquals(3, results.get("claimNumber0").size());
+        assertEquals(1, results.get("claimNumber2").size());
+        assertEquals(firstBatchId, results.get("claimNumber2").get(0).getClaimValidationBatchId());
+        assertEquals(2, dao.getByClaimNumber("claimNumber1").size());
+        assertTrue(dao.getByClaimNumber("unknown").isEmpty());
+        assertTrue(dao.getByClaimNumbers(Collections.emptyList()).isEmpty());
+    }
+
+    @Test
+    public void getByClientIdAndClaimNumbers() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        UUID otherClientBatchId = batchDao.add(newBatch(2L, ClaimValidationBatch.Status.COMPLETE));
+        bulkDao.addAll(newRecords(batchId, 1L, 2));
+        bulkDao.addAll(newRecords(otherClientBatchId, 1L, 3));
+
+        Map<String, List<ClaimValidationRecord>> results = dao.getByClientIdAndClaimNumbers(1L,
+                Arrays.asList("claimNumber0", "claimNumber2"));
+        assertEquals(Collections.singleton("claimNumber0"), results.keySet());
+        assertEquals(batchId, results.get("claimNumber0").get(0).getClaimValidationBatchId());
+
+        List<String> claimNumbers = new ArrayList<>();
+        new ClaimValidationRecordQueryDao(dataSource, 2).forEachClaimNumberByClientId(2L, claimNumbers::add);
+        Collections.sort(claimNumbers);
+        assertEquals(Arrays.asList("claimNumber0", "claimNumber1", "claimNumber2"), claimNumbers);
+    }
+
+    private List<UUID> readAllPages(UUID batchId, int limit, PageListener pageListener) throws Exception {
+        List<UUID> results = new ArrayList<>();
+        ClaimValidationRecord last = null;
+        while (true) {
+            List<ClaimValidationRecord> page = dao.getByBatchIdAndRunNumberOrderByUpdateDateDescending(batchId, 1L,
+                    last == null ? null : last.getUpdatedDate(), last == null ? null : last.getClaimValidationRecordId(),
+                    limit);
+            if (page.isEmpty()) {
+                return results;
+            }
+            page.forEach(record -> results.add(record.getClaimValidationRecordId()));
+            last = page.get(page.size() - 1);
+            if (pageListener != null) {
+                pageListener.onPage();
+            }
+        }
+    }
+
+    private interface PageListener {
+        void onPage() throws Exception;
+    }
+
+}
@@ -0,0 +1,231 @@
+package com.doradosystems.dao;
+
+import static com.doradosystems.dao.TestFixtures.newBatch;
+import static com.doradosystems.dao.TestFixtures.newRecord;
+import static com.doradosystems.dao.TestFixtures.newResponse;
+import static com.doradosystems.dao.TestFixtures.newResponses;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.doradosystems.mis.dao.ClaimValidationBatchDao;
+import com.doradosystems.mis.dao.ClaimValidationRecordDao;
+import com.doradosystems.mis.dao.ClaimValidationResponseBulkDao;
+import com.doradosystems.mis.dao.ClaimValidationResponseDao;
+import com.doradosystems.mis.domain.BulkAddResult;
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationRecord;
+import com.doradosystems.mis.domain.ClaimValidationResponse;
+
+/**
+ *
+ * @author Arthur Tolentino
+ *
+ */
+@RunWith(SpringRunner.class)
+@ContextConfiguration({ "/applicationContext-components.xml", "/applicationContext-property-placeholder.xml" })
+public class ClaimValidationResponseBulkDaoIT {
+
+    private static final Logger LOGGER = Logger.getLogger(ClaimValidationResponseBulkDaoIT.class);
+
+    @Autowired
+    private ClaimValidationResponseBulkDao dao;
+    @Autowired
+    private ClaimValidationResponseDao responseDao;
+    @Autowired
+    private ClaimValidationRecordDao recordDao;
+    @Autowired
+    private ClaimValidationBatchDao batchDao;
+    @Autowired
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    @After
+    public void cleanup() throws Exception {
+        if (jdbcTemplate == null) {
+            jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+        TestDatabase.reset(jdbcTemplate);
+    }
+
+    @Test
+    public void addAll() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        UUID recordId = recordDao.add(newRecord(batchId, 1L, ClaimValidationRecord.Status.COMPLETE));
+
+        List<ClaimValidationResponse> responses = newResponses(batchId, recordId, 1L, 3);
+        BulkAddResult result = dao.addAll(responses);
+        assertFalse(result.hasFailures());
+        assertEquals(3, result.getAddedCount());
+
+        List<ClaimValidationResponse> stored = responseDao.get(batchId, 1L);
+        assertEquals(3, stored.size());
+        for (UUID id : result.getIds()) {
+            int count = jdbcTemplate.queryForObject(
+                    "select count(*) from mis_claim_validation_service.claim_validation_response where claim_validation_response_id = ?",
+                    new Object[] { id }, Integer.class);
+            assertEquals(1, count);
+        }
+    }
+
+    @Test
+    public void addAllBatchIdDoesNotExist() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        UUID recordId = recordDao.add(newRecord(batchId, 1L, ClaimValidationRecord.Status.COMPLETE));
+
+        List<ClaimValidationResponse> responses = newResponses(batchId, recordId, 1L, 2);
+        responses.add(1, newResponse(UUID.randomUUID(), recordId, "missingBatch"));
+        BulkAddResult result = dao.addAll(responses);
+
+        assertTrue(result.hasFailures());
+        assertEquals(1, result.getFailures().size());
+        assertThat(result.getFailures().get(1), containsString("batch"));
+        assertThat(result.getIds().get(0), notNullValue());
+        assertThat(result.getIds().get(1), nullValue());
+        assertThat(result.getIds().get(2), notNullValue());
+        assertEquals(2, responseDao.get(batchId, 1L).size());
+    }
+
+    @Test
+    public void addAllRecordIdDoesNotExist() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        UUID recordId = recordDao.add(newRecord(batchId, 1L, ClaimValidationRecord.Status.COMPLETE));
+
+        List<ClaimValidationResponse> responses = newResponses(batchId, recordId, 1L, 2);
+        responses.add(newResponse(batchId, UUID.randomUUID(), "missingRecord"));
+        BulkAddResult result = dao.addAll(responses);
+
+        assertEquals(1, result.getFailures().size());
+        assertThat(result.getFailures().get(2), containsString("record"));
+        assertEquals(2, result.getAddedCount());
+        assertEquals(2, responseDao.get(batchId, 1L).size());
+    }
+
+    @Test
+    public void addAllRecordOfAnotherBatch() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        UUID recordId = recordDao.add(newRecord(batchId, 1L, ClaimValidationRecord.Status.COMPLETE));
+        UUID otherBatchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+
+        List<ClaimValidationResponse> responses = newResponses(batchId, recordId, 1L, 2);
+        responses.add(1, newResponse(otherBatchId, recordId, "otherBatch"));
+        BulkAddResult result = dao.addAll(responses);
+
+        assertEquals(1, result.getFailures().size());
+        assertThat(result.getFailures().get(1), containsString("does not belong"));
+        assertEquals(2, result.getAddedCount());
+        assertEquals(2, responseDao.get(batchId, 1L).size());
+        assertEquals(0, responseDao.get(otherBatchId, 1L).size());
+    }
+
+    @Test
+    public void addAllSpanningChunks() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        UUID recordId = recordDao.add(newRecord(batchId, 1L, ClaimValidationRecord.Status.COMPLETE));
+        ClaimValidationResponseBulkDao smallChunkDao = new ClaimValidationResponseBulkDao(dataSource, 2);
+
+        List<ClaimValidationResponse> responses = newResponses(batchId, recordId, 1L, 5);
+        responses.add(2, newResponse(batchId, UUID.randomUUID(), "missingRecord"));
+        BulkAddResult result = smallChunkDao.addAll(responses);
+
+        assertEquals(5, result.getAddedCount());
+        assertThat(result.getIds().get(2), nullValue());
+        assertEquals(5, responseDao.get(batchId, 1L).size());
+    }
+
+    @Test
+    public void addAllEveryElementFails() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        UUID recordId = recordDao.add(newRecord(batchId, 1L, ClaimValidationRecord.Status.COMPLETE));
+
+        List<ClaimValidationResponse> responses = new ArrayList<>();
+        responses.add(newResponse(UUID.randomUUID(), recordId, "a"));
+        responses.add(newResponse(batchId, UUID.randomUUID(), "b"));
+        BulkAddResult result = dao.addAll(responses);
+
+        assertEquals(2, result.getFailures().size());
+        assertEquals(0, result.getAddedCount());
+        assertEquals(0, responseDao.get(batchId, 1L).size());
+    }
+
+    @Test
+    public void addAllThroughputComparedWithAdd() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        UUID recordId = recordDao.add(newRecord(batchId, 1L, ClaimValidationRecord.Status.COMPLETE));
+        int size = 2000;
+
+        long start = System.nanoTime();
+        for (ClaimValidationResponse response : newResponses(batchId, recordId, 1L, size)) {
+            responseDao.add(response);
+        }
+        long singleNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        dao.addAll(newResponses(batchId, recordId, 1L, size));
+        long bulkNanos = System.nanoTime() - start;
+
+        LOGGER.info(String.format("add: %.0f rows/sec, addAll: %.0f rows/sec", size / (singleNanos / 1e9),
+                size / (bulkNanos / 1e9)));
+        assertEquals(2 * size, responseDao.get(batchId, 1L).size());
+    }
+
+    @Test
+    public void updateStatus() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        UUID recordId = recordDao.add(newRecord(batchId, 1L, ClaimValidationRecord.Status.COMPLETE));
+        List<UUID> ids = dao.addAll(newResponses(batchId, recordId, 1L, 3)).getIds();
+
+        Set<UUID> updated = dao.updateStatus(Arrays.asList(ids.get(0), ids.get(2), UUID.randomUUID()),
+                ClaimValidationResponse.Status.COMPLETE);
+        assertEquals(new HashSet<>(Arrays.asList(ids.get(0), ids.get(2))), updated);
+        assertEquals(1, countResponses(ids.get(1), ClaimValidationResponse.Status.PENDING));
+        assertEquals(1, countResponses(ids.get(2), ClaimValidationResponse.Status.COMPLETE));
+    }
+
+    @Test
+    public void compareAndSetStatusLostRace() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        UUID recordId = recordDao.add(newRecord(batchId, 1L, ClaimValidationRecord.Status.COMPLETE));
+        List<UUID> ids = dao.addAll(newResponses(batchId, recordId, 1L, 3)).getIds();
+
+        Set<UUID> first = dao.compareAndSetStatus(ids.subList(0, 2), ClaimValidationResponse.Status.PENDING,
+                ClaimValidationResponse.Status.COMPLETE);
+        Set<UUID> second = dao.compareAndSetStatus(ids, ClaimValidationResponse.Status.PENDING,
+                ClaimValidationResponse.Status.COMPLETE);
+        assertEquals(new HashSet<>(ids.subList(0, 2)), first);
+        assertEquals(Collections.singleton(ids.get(2)), second);
+    }
+
+    private int countResponses(UUID responseId, ClaimValidationResponse.Status status) {
+        return jdbcTemplate.queryForObject(
+                "select count(*) from mis_claim_validation_service.claim_validation_response"
+                        + " where claim_validation_response_id = ? and status = ?::mis_claim_validation_service.status",
+                new Object[] { responseId, status.toString() }, Integer.class);
+    }
+
+}
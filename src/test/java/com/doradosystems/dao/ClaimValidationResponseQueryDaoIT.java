@@ -0,0 +1,107 @@
+package com.doradosystems.dao;
+
+import static com.doradosystems.dao.TestFixtures.newBatch;
+import static com.doradosystems.dao.TestFixtures.newRecord;
+import static com.doradosystems.dao.TestFixtures.newResponses;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.doradosystems.mis.dao.ClaimValidationBatchDao;
+import com.doradosystems.mis.dao.ClaimValidationRecordDao;
+import com.doradosystems.mis.dao.ClaimValidationResponseBulkDao;
+import com.doradosystems.mis.dao.ClaimValidationResponseQueryDao;
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationRecord;
+import com.doradosystems.mis.domain.ClaimValidationResponse;
+
+/**
+ *
+ * @author Arthur Tolentino
+ *
+ */
+@RunWith(SpringRunner.class)
+@ContextConfiguration({ "/applicationContext-components.xml", "/applicationContext-property-placeholder.xml" })
+public class ClaimValidationResponseQueryDaoIT {
+
+    @Autowired
+    private ClaimValidationResponseQueryDao dao;
+    @Autowired
+    private ClaimValidationResponseBulkDao bulkDao;
+    @Autowired
+    private ClaimValidationRecordDao recordDao;
+    @Autowired
+    private ClaimValidationBatchDao batchDao;
+    @Autowired
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    @After
+    public void cleanup() throws Exception {
+        if (jdbcTemplate == null) {
+            jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+        TestDatabase.reset(jdbcTemplate);
+    }
+
+    @Test
+    public void streamByBatchIdAndRunNumber() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        UUID recordId = recordDao.add(newRecord(batchId, 1L, ClaimValidationRecord.Status.COMPLETE));
+        List<UUID> ids = bulkDao.addAll(newResponses(batchId, recordId, 1L, 5)).getIds();
+        bulkDao.addAll(newResponses(batchId, recordId, 2L, 3));
+
+        ClaimValidationResponseQueryDao smallFetchDao = new ClaimValidationResponseQueryDao(dataSource, 2);
+        try (Stream<ClaimValidationResponse> responses = smallFetchDao.streamByBatchIdAndRunNumber(batchId, 1L)) {
+            Set<UUID> results = responses.map(ClaimValidationResponse::getClaimValidationResponseId)
+                    .collect(Collectors.toSet());
+            assertEquals(new HashSet<>(ids), results);
+        }
+    }
+
+    @Test
+    public void forEachByBatchIdAndRunNumber() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        UUID recordId = recordDao.add(newRecord(batchId, 1L, ClaimValidationRecord.Status.COMPLETE));
+        bulkDao.addAll(newResponses(batchId, recordId, 1L, 5));
+
+        List<ClaimValidationResponse> results = new ArrayList<>();
+        dao.forEachByBatchIdAndRunNumber(batchId, 1L, results::add);
+        assertEquals(5, results.size());
+        results.forEach(response -> assertEquals(recordId, response.getClaimValidationRecordId()));
+    }
+
+    @Test
+    public void streamAbandonedEarlyReleasesConnection() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        UUID recordId = recordDao.add(newRecord(batchId, 1L, ClaimValidationRecord.Status.COMPLETE));
+        bulkDao.addAll(newResponses(batchId, recordId, 1L, 10));
+
+        OpenConnectionCountingDataSource countingDataSource = new OpenConnectionCountingDataSource(dataSource);
+        ClaimValidationResponseQueryDao countingDao = new ClaimValidationResponseQueryDao(countingDataSource, 2);
+        try (Stream<ClaimValidationResponse> responses = countingDao.streamByBatchIdAndRunNumber(batchId, 1L)) {
+            assertEquals(1, responses.limit(1).count());
+            assertEquals(1, countingDataSource.getOpenConnections());
+        }
+        assertEquals(0, countingDataSource.getOpenConnections());
+    }
+
+}
@@ -0,0 +1,235 @@
+package com.doradosystems.dao;
+
+import static com.doradosystems.dao.TestFixtures.newBatch;
+import static com.doradosystems.dao.TestFixtures.newRecord;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.doradosystems.mis.dao.ClaimValidationBatchDao;
+import com.doradosystems.mis.dao.ClaimValidationRecordDao;
+import com.doradosystems.mis.dao.ClaimValidationResponseDao;
+import com.doradosystems.mis.dao.ClaimValidationResponseWorkQueue;
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationRecord;
+import com.doradosystems.mis.domain.ClaimValidationResponse;
+import com.doradosystems.mis.domain.ClaimValidationResponseLease;
+
+/**
+ *
+ * @author Arthur Tolentino
+ *
+ */
+@RunWith(SpringRunner.class)
+@ContextConfiguration({ "/applicationContext-components.xml", "/applicationContext-property-placeholder.xml" })
+public class ClaimValidationResponseWorkQueueIT {
+
+    private static final Duration LEASE = Duration.ofMinutes(1);
+
+    @Autowired
+    private ClaimValidationResponseWorkQueue workQueue;
+    @Autowired
+    private ClaimValidationResponseDao responseDao;
+    @Autowired
+    private ClaimValidationRecordDao recordDao;
+    @Autowired
+    private ClaimValidationBatchDao batchDao;
+    @Autowired
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    @After
+    public void cleanup() throws Exception {
+        if (jdbcTemplate == null) {
+            jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+        TestDatabase.reset(jdbcTemplate);
+    }
+
+    @Test
+    public void claimPendingResponseIdentifiers() throws Exception {
+        addPendingGroups(3);
+
+        List<ClaimValidationResponseLease> leases = workQueue.claimPendingResponseIdentifiers(2, LEASE);
+        assertEquals(2, leases.size());
+        assertEquals(1, workQueue.claimPendingResponseIdentifiers(2, LEASE).size());
+        assertEquals(0, workQueue.claimPendingResponseIdentifiers(2, LEASE).size());
+        assertEquals(0, responseDao.getPendingResponseIdentifiers().size());
+    }
+
+    @Test
+    public void claimMovesResponsesToProcessing() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        addResponse(batchId, 1L, ClaimValidationResponse.Status.PENDING);
+        addResponse(batchId, 1L, ClaimValidationResponse.Status.PENDING);
+        addResponse(batchId, 1L, ClaimValidationResponse.Status.COMPLETE);
+
+        ClaimValidationResponseLease lease = workQueue.claimPendingResponseIdentifiers(10, LEASE).get(0);
+        assertEquals(2, lease.getClaimValidationResponseIds().size());
+        for (ClaimValidationResponse response : responseDao.get(batchId, 1L)) {
+            assertEquals(lease.getClaimValidationResponseIds().contains(response.getClaimValidationResponseId()),
+                    response.getStatus() == ClaimValidationResponse.Status.PROCESSING);
+        }
+    }
+
+    @Test
+    public void completeLeavesResponsesAddedAfterClaimPending() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        addResponse(batchId, 1L, ClaimValidationResponse.Status.PENDING);
+        ClaimValidationResponseLease lease = workQueue.claimPendingResponseIdentifiers(10, LEASE).get(0);
+
+        addResponse(batchId, 1L, ClaimValidationResponse.Status.PENDING);
+        assertEquals(0, workQueue.claimPendingResponseIdentifiers(10, LEASE).size());
+        assertTrue(workQueue.complete(lease, ClaimValidationResponse.Status.COMPLETE));
+
+        assertEquals(1, responseDao.getPendingResponseIdentifiers().size());
+        ClaimValidationResponseLease next = workQueue.claimPendingResponseIdentifiers(10, LEASE).get(0);
+        assertEquals(1, next.getClaimValidationResponseIds().size());
+        assertFalse(lease.getClaimValidationResponseIds().containsAll(next.getClaimValidationResponseIds()));
+    }
+
+    @Test
+    public void claimCapsResponsesPerLease() throws Exception {
+        ClaimValidationResponseWorkQueue cappedQueue = new ClaimValidationResponseWorkQueue(dataSource,
+                workQueue.getOwner(), 2);
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        for (int i = 0; i < 5; i++) {
+            addResponse(batchId, 1L, ClaimValidationResponse.Status.PENDING);
+        }
+
+        Set<UUID> claimed = new HashSet<>();
+        for (int expected : new int[] { 2, 2, 1 }) {
+            List<ClaimValidationResponseLease> leases = cappedQueue.claimPendingResponseIdentifiers(10, LEASE);
+            assertEquals(1, leases.size());
+            assertEquals(expected, leases.get(0).getClaimValidationResponseIds().size());
+            assertEquals(0, cappedQueue.claimPendingResponseIdentifiers(10, LEASE).size());
+            claimed.addAll(leases.get(0).getClaimValidationResponseIds());
+            assertTrue(cappedQueue.complete(leases.get(0), ClaimValidationResponse.Status.COMPLETE));
+        }
+        assertEquals(5, claimed.size());
+        assertEquals(0, cappedQueue.claimPendingResponseIdentifiers(10, LEASE).size());
+        assertEquals(Integer.valueOf(0), jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM mis_claim_validation_service.claim_validation_response_lease", Integer.class));
+    }
+
+    @Test
+    public void claimPendingResponseIdentifiersSkipsCompletedResponses() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        addResponse(batchId, 1L, ClaimValidationResponse.Status.COMPLETE);
+
+        assertEquals(0, workQueue.claimPendingResponseIdentifiers(10, LEASE).size());
+    }
+
+    @Test
+    public void complete() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        addResponse(batchId, 1L, ClaimValidationResponse.Status.PENDING);
+        addResponse(batchId, 1L, ClaimValidationResponse.Status.PENDING);
+
+        ClaimValidationResponseLease lease = workQueue.claimPendingResponseIdentifiers(10, LEASE).get(0);
+        assertEquals(batchId, lease.getClaimValidationBatchId());
+        assertTrue(workQueue.complete(lease, ClaimValidationResponse.Status.COMPLETE));
+        assertEquals(0, responseDao.getPendingResponseIdentifiers().size());
+        responseDao.get(batchId, 1L)
+                .forEach(response -> assertEquals(ClaimValidationResponse.Status.COMPLETE, response.getStatus()));
+
+        assertFalse(workQueue.complete(lease, ClaimValidationResponse.Status.COMPLETE));
+        assertFalse(workQueue.renew(lease, LEASE));
+        assertEquals(0, workQueue.claimPendingResponseIdentifiers(10, LEASE).size());
+    }
+
+    @Test
+    public void claimAfterLeaseExpires() throws Exception {
+        addPendingGroups(1);
+        ClaimValidationResponseWorkQueue crashedDispatcher = new ClaimValidationResponseWorkQueue(dataSource,
+                "crashed");
+
+        ClaimValidationResponseLease expired = crashedDispatcher.claimPendingResponseIdentifiers(1, Duration.ofMillis(1))
+                .get(0);
+        Thread.sleep(50);
+        List<ClaimValidationResponseLease> leases = workQueue.claimPendingResponseIdentifiers(1, LEASE);
+        assertEquals(1, leases.size());
+        assertEquals(expired.getClaimValidationBatchId(), leases.get(0).getClaimValidationBatchId());
+
+        assertEquals(expired.getClaimValidationResponseIds(), leases.get(0).getClaimValidationResponseIds());
+
+        assertFalse(crashedDispatcher.complete(expired, ClaimValidationResponse.Status.COMPLETE));
+        assertEquals(0, responseDao.getPendingResponseIdentifiers().size());
+        assertTrue(workQueue.complete(leases.get(0), ClaimValidationResponse.Status.COMPLETE));
+        responseDao.get(expired.getClaimValidationBatchId(), 1L)
+                .forEach(response -> assertEquals(ClaimValidationResponse.Status.COMPLETE, response.getStatus()));
+    }
+
+    @Test
+    public void claimPendingResponseIdentifiersWithConcurrentDispatchers() throws Exception {
+        int groups = 100;
+        addPendingGroups(groups);
+        Set<UUID> completed = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            ClaimValidationResponseWorkQueue dispatcher = new ClaimValidationResponseWorkQueue(dataSource,
+                    "dispatcher-" + i);
+            futures.add(executor.submit(() -> {
+                while (!responseDao.getPendingResponseIdentifiers().isEmpty()) {
+                    List<ClaimValidationResponseLease> leases = dispatcher.claimPendingResponseIdentifiers(3, LEASE);
+                    for (ClaimValidationResponseLease lease : leases) {
+                        if (!completed.add(lease.getClaimValidationBatchId())) {
+                            duplicates.incrementAndGet();
+                        }
+                        assertTrue(dispatcher.complete(lease, ClaimValidationResponse.Status.COMPLETE));
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(0, duplicates.get());
+        assertEquals(groups, completed.size());
+        assertEquals(0, responseDao.getPendingResponseIdentifiers().size());
+    }
+
+    private void addPendingGroups(int count) throws Exception {
+        for (int i = 0; i < count; i++) {
+            UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+            addResponse(batchId, 1L, ClaimValidationResponse.Status.PENDING);
+        }
+    }
+
+    private void addResponse(UUID batchId, Long runNumber, ClaimValidationResponse.Status status) throws Exception {
+        UUID recordId = recordDao.add(newRecord(batchId, runNumber, ClaimValidationRecord.Status.COMPLETE));
+        responseDao.add(new ClaimValidationResponse(null, batchId, runNumber, status, "claimNumber", "response", null,
+                null, recordId));
+    }
+
+}
@@ -0,0 +1,181 @@
+package com.doradosystems.dao;
+
+import static com.doradosystems.dao.TestFixtures.newBatch;
+import static com.doradosystems.dao.TestFixtures.newRecord;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.doradosystems.exception.DataPersistenceException;
+import com.doradosystems.exception.NotFoundException;
+import com.doradosystems.mis.dao.ClaimValidationBatchDao;
+import com.doradosystems.mis.dao.ClaimValidationRecordDao;
+import com.doradosystems.mis.dao.ClaimValidationResponseDao;
+import com.doradosystems.mis.dao.ClaimValidationRunRolloverDao;
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationRecord;
+import com.doradosystems.mis.domain.ClaimValidationResponse;
+import com.doradosystems.mis.domain.RunRolloverResult;
+import com.doradosystems.mis.domain.RunRolloverStatusMapping;
+
+/**
+ *
+ * @author Arthur Tolentino
+ *
+ */
+@RunWith(SpringRunner.class)
+@ContextConfiguration({ "/applicationContext-components.xml", "/applicationContext-property-placeholder.xml" })
+public class ClaimValidationRunRolloverDaoIT {
+
+    private static final Logger LOGGER = Logger.getLogger(ClaimValidationRunRolloverDaoIT.class);
+
+    private static final String INSERT_RECORDS_SQL = "INSERT INTO mis_claim_validation_service.claim_validation_record"
+            + " (claim_validation_batch_id, run_number, status, claim_number, record)"
+            + " SELECT ?, 1, (CASE WHEN i % 10 = 0 THEN 'ERROR' ELSE 'COMPLETE' END)::mis_claim_validation_service.status,"
+            + " 'CLM' || i, 'record' FROM generate_series(1, ?) i";
+    private static final String COUNT_RECORDS_SQL = "SELECT count(*) FROM mis_claim_validation_service.claim_validation_record"
+            + " WHERE claim_validation_batch_id = ? AND run_number = ? AND status = ?::mis_claim_validation_service.status";
+
+    @Autowired
+    private ClaimValidationRunRolloverDao dao;
+    @Autowired
+    private ClaimValidationBatchDao batchDao;
+    @Autowired
+    private ClaimValidationRecordDao recordDao;
+    @Autowired
+    private ClaimValidationResponseDao responseDao;
+    @Autowired
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    @After
+    public void cleanup() throws Exception {
+        if (jdbcTemplate == null) {
+            jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+        TestDatabase.reset(jdbcTemplate);
+    }
+
+    @Test
+    public void rolloverRun() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        UUID completeId = recordDao.add(newRecord(batchId, 1L, ClaimValidationRecord.Status.COMPLETE));
+        UUID errorId = recordDao.add(newRecord(batchId, 1L, ClaimValidationRecord.Status.ERROR));
+        UUID pendingId = recordDao.add(newRecord(batchId, 1L, ClaimValidationRecord.Status.PENDING));
+        UUID earlierRunId = recordDao.add(newRecord(batchId, 0L, ClaimValidationRecord.Status.COMPLETE));
+        responseDao.add(new ClaimValidationResponse(null, batchId, 1L, ClaimValidationResponse.Status.COMPLETE,
+                "claimNumber", "response", null, null, completeId));
+
+        RunRolloverResult result = dao.rolloverRun(batchId, 1L, 2L, reprocess());
+        assertEquals(3, result.getRecordCount());
+        assertEquals(1, result.getResponseCount());
+
+        ClaimValidationBatch batch = batchDao.get(batchId);
+        assertEquals(Long.valueOf(2L), batch.getRunNumber());
+        assertEquals(ClaimValidationBatch.Status.PROCESSING, batch.getStatus());
+        assertRecord(completeId, 2L, ClaimValidationRecord.Status.INCOMPLETE);
+        assertRecord(errorId, 2L, ClaimValidationRecord.Status.INCOMPLETE);
+        assertRecord(pendingId, 2L, ClaimValidationRecord.Status.PENDING);
+        assertRecord(earlierRunId, 0L, ClaimValidationRecord.Status.COMPLETE);
+        assertEquals(ClaimValidationResponse.Status.PENDING, responseDao.get(batchId, 2L).get(0).getStatus());
+        assertEquals(0, responseDao.get(batchId, 1L).size());
+    }
+
+    @Test
+    public void rolloverRunWhereBatchIsAtAnotherRun() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        recordDao.add(newRecord(batchId, 1L, ClaimValidationRecord.Status.COMPLETE));
+        dao.rolloverRun(batchId, 1L, 2L, reprocess());
+
+        assertNull(dao.rolloverRun(batchId, 1L, 2L, reprocess()));
+        assertEquals(1, recordDao.countByBatchIdAndRunNumberAndStatus(batchId, 2L,
+                ClaimValidationRecord.Status.INCOMPLETE));
+    }
+
+    @Test
+    public void rolloverRunWhereBatchDoesNotExist() throws Exception {
+        try {
+            dao.rolloverRun(UUID.randomUUID(), 1L, 2L, reprocess());
+            fail("Expected NotFoundException");
+        } catch (NotFoundException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void rolloverRunIsAtomic() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        UUID recordId = recordDao.add(newRecord(batchId, 1L, ClaimValidationRecord.Status.COMPLETE));
+        responseDao.add(new ClaimValidationResponse(null, batchId, 1L, ClaimValidationResponse.Status.COMPLETE,
+                "claimNumber", "response", null, null, recordId));
+
+        jdbcTemplate.execute("CREATE FUNCTION mis_claim_validation_service.fail_rollover() RETURNS trigger AS"
+                + " $$ BEGIN RAISE EXCEPTION 'injected failure'; END $$ LANGUAGE plpgsql");
+        jdbcTemplate.execute("CREATE TRIGGER fail_rollover BEFORE UPDATE"
+                + " ON mis_claim_validation_service.claim_validation_response"
+                + " FOR EACH STATEMENT EXECUTE PROCEDURE mis_claim_validation_service.fail_rollover()");
+        try {
+            dao.rolloverRun(batchId, 1L, 2L, reprocess());
+            fail("Expected DataPersistenceException");
+        } catch (DataPersistenceException e) {
+            // expected
+        } finally {
+            jdbcTemplate.execute("DROP FUNCTION mis_claim_validation_service.fail_rollover() CASCADE");
+        }
+
+        assertEquals(Long.valueOf(1L), batchDao.get(batchId).getRunNumber());
+        assertEquals(ClaimValidationBatch.Status.COMPLETE, batchDao.get(batchId).getStatus());
+        assertRecord(recordId, 1L, ClaimValidationRecord.Status.COMPLETE);
+        assertEquals(ClaimValidationResponse.Status.COMPLETE, responseDao.get(batchId, 1L).get(0).getStatus());
+    }
+
+    @Test
+    public void rolloverRunOfLargeBatch() throws Exception {
+        int size = 500000;
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.COMPLETE));
+        jdbcTemplate.update(INSERT_RECORDS_SQL, batchId, size);
+
+        long start = System.nanoTime();
+        RunRolloverResult result = dao.rolloverRun(batchId, 1L, 2L, reprocess());
+        LOGGER.info("Rolled over " + size + " records in " + (System.nanoTime() - start) / 1000000 + " ms");
+
+        assertEquals(size, result.getRecordCount());
+        assertEquals(Integer.valueOf(size), jdbcTemplate.queryForObject(COUNT_RECORDS_SQL, Integer.class, batchId,
+                2L, "INCOMPLETE"));
+    }
+
+    private RunRolloverStatusMapping reprocess() {
+        Map<ClaimValidationRecord.Status, ClaimValidationRecord.Status> recordStatuses = new EnumMap<>(
+                ClaimValidationRecord.Status.class);
+        recordStatuses.put(ClaimValidationRecord.Status.COMPLETE, ClaimValidationRecord.Status.INCOMPLETE);
+        recordStatuses.put(ClaimValidationRecord.Status.ERROR, ClaimValidationRecord.Status.INCOMPLETE);
+        return new RunRolloverStatusMapping(ClaimValidationBatch.Status.PROCESSING, recordStatuses,
+                Collections.singletonMap(ClaimValidationResponse.Status.COMPLETE,
+                        ClaimValidationResponse.Status.PENDING));
+    }
+
+    private void assertRecord(UUID recordId, Long runNumber, ClaimValidationRecord.Status status) throws Exception {
+        ClaimValidationRecord record = recordDao.get(recordId);
+        assertEquals(runNumber, record.getRunNumber());
+        assertEquals(status, record.getStatus());
+    }
+
+}
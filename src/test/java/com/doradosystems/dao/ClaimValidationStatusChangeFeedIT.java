@@ -0,0 +1,226 @@
+package com.doradosystems.dao;
+
+import static com.doradosystems.dao.TestFixtures.newBatch;
+import static com.doradosystems.dao.TestFixtures.newRecords;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.doradosystems.mis.dao.ClaimValidationBatchDao;
+import com.doradosystems.mis.dao.ClaimValidationRecordBulkDao;
+import com.doradosystems.mis.dao.ClaimValidationResponseDao;
+import com.doradosystems.mis.dao.ClaimValidationStatusChangeFeed;
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationRecord.Status;
+import com.doradosystems.mis.domain.ClaimValidationResponse;
+import com.doradosystems.mis.domain.StatusChangeEvent;
+import com.doradosystems.mis.domain.StatusChangeEvent.Type;
+
+/**
+ *
+ * @author Arthur Tolentino
+ *
+ */
+@RunWith(SpringRunner.class)
+@ContextConfiguration({ "/applicationContext-components.xml", "/applicationContext-property-placeholder.xml" })
+public class ClaimValidationStatusChangeFeedIT {
+
+    private static final Logger LOGGER = Logger.getLogger(ClaimValidationStatusChangeFeedIT.class);
+
+    private static final String UPDATE_STATUS_SQL = "UPDATE mis_claim_validation_service.claim_validation_record"
+            + " SET status = 'ERROR' WHERE claim_validation_batch_id = ?";
+
+    @Autowired
+    private ClaimValidationStatusChangeFeed feed;
+    @Autowired
+    private ClaimValidationBatchDao batchDao;
+    @Autowired
+    private ClaimValidationRecordBulkDao bulkDao;
+    @Autowired
+    private ClaimValidationResponseDao responseDao;
+    @Autowired
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private final BlockingQueue<StatusChangeEvent> events = new LinkedBlockingQueue<>();
+    private final ClaimValidationStatusChangeFeed.Listener listener = events::add;
+
+    @Before
+    public void setup() throws Exception {
+        cleanup();
+        awaitConnected();
+        feed.addListener(listener);
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        feed.removeListener(listener);
+        if (jdbcTemplate == null) {
+            jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+        TestDatabase.reset(jdbcTemplate);
+    }
+
+    @Test
+    public void statusTransitionsAreDelivered() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        StatusChangeEvent event = next(batchId, Type.BATCH);
+        assertEquals(ClaimValidationBatch.Status.PROCESSING.name(), event.getStatus());
+        assertEquals(Long.valueOf(1L), event.getRunNumber());
+
+        List<UUID> ids = bulkDao.addAll(newRecords(batchId, 3));
+        event = next(batchId, Type.RECORD);
+        assertEquals(Status.INCOMPLETE.name(), event.getStatus());
+        assertEquals(3, event.getCount());
+
+        bulkDao.updateStatus(ids, Status.COMPLETE);
+        event = next(batchId, Type.RECORD);
+        assertEquals(Status.COMPLETE.name(), event.getStatus());
+        assertEquals(3, event.getCount());
+
+        responseDao.add(new ClaimValidationResponse(null, batchId, 1L, ClaimValidationResponse.Status.PENDING,
+                "claimNumber", "response", null, null, ids.get(0)));
+        event = next(batchId, Type.RESPONSE);
+        assertEquals(ClaimValidationResponse.Status.PENDING.name(), event.getStatus());
+        assertFalse(event.isCatchUp());
+    }
+
+    @Test
+    public void updatesWithoutStatusChangeAreNotDelivered() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        List<UUID> ids = bulkDao.addAll(newRecords(batchId, 1));
+        next(batchId, Type.RECORD);
+
+        bulkDao.updateStatus(ids, Status.INCOMPLETE);
+        bulkDao.updateStatus(ids, Status.COMPLETE);
+        assertEquals(Status.COMPLETE.name(), next(batchId, Type.RECORD).getStatus());
+    }
+
+    @Test
+    public void notificationLatency() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        List<UUID> ids = bulkDao.addAll(newRecords(batchId, 1));
+        next(batchId, Type.RECORD);
+
+        int updates = 100;
+        List<Long> latencies = new ArrayList<>(updates);
+        for (int i = 0; i < updates; i++) {
+            long start = System.nanoTime();
+            bulkDao.updateStatus(ids, i % 2 == 0 ? Status.COMPLETE : Status.PENDING);
+            next(batchId, Type.RECORD);
+            latencies.add(System.nanoTime() - start);
+        }
+        Collections.sort(latencies);
+        LOGGER.info(String.format("Update to notification: p50 %.1f ms, p99 %.1f ms, max %.1f ms",
+                latencies.get(updates / 2) / 1e6, latencies.get(updates * 99 / 100) / 1e6,
+                latencies.get(updates - 1) / 1e6));
+    }
+
+    @Test
+    public void missedNotificationsAreRecovered() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        List<UUID> ids = bulkDao.addAll(newRecords(batchId, 2));
+        next(batchId, Type.RECORD);
+        long reconnects = feed.getReconnectCount();
+
+        disconnect();
+        bulkDao.updateStatus(ids, Status.ERROR);
+
+        StatusChangeEvent event = next(batchId, Type.RECORD, Status.ERROR);
+        assertTrue(event.isCatchUp());
+        assertEquals(Status.ERROR.name(), event.getStatus());
+        assertEquals(2, event.getCount());
+        assertEquals(reconnects + 1, feed.getReconnectCount());
+        assertTrue(feed.getCatchUpEventCount() > 0);
+    }
+
+    @Test
+    public void transactionsOpenAcrossTheDisconnectAreRecovered() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        bulkDao.addAll(newRecords(batchId, 2));
+        next(batchId, Type.RECORD);
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(UPDATE_STATUS_SQL)) {
+                ps.setObject(1, batchId);
+                assertEquals(2, ps.executeUpdate());
+            }
+            // longer than any overlap on timestamps would cover, with the feed polling meanwhile
+            Thread.sleep(3000);
+            disconnect();
+            connection.commit();
+        }
+
+        StatusChangeEvent event = next(batchId, Type.RECORD, Status.ERROR);
+        assertTrue(event.isCatchUp());
+        assertEquals(2, event.getCount());
+    }
+
+    private void disconnect() throws InterruptedException {
+        jdbcTemplate.queryForList("SELECT pg_terminate_backend(pid) FROM pg_stat_activity"
+                + " WHERE application_name = 'claim-validation-status-feed'");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (feed.isConnected() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private void awaitConnected() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!feed.isConnected() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(feed.isConnected());
+    }
+
+    /**
+     * Returns the next event of the batch and type, skipping others, e.g. catch-up events of earlier tests.
+     */
+    private StatusChangeEvent next(UUID batchId, Type type) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (true) {
+            StatusChangeEvent event = events.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            assertNotNull("Expected " + type + " event of batch " + batchId, event);
+            if (event.getClaimValidationBatchId().equals(batchId) && event.getType() == type) {
+                return event;
+            }
+        }
+    }
+
+    /**
+     * Returns the next event of the batch, type and status, skipping others, e.g. catch-up events repeating earlier
+     * transitions.
+     */
+    private StatusChangeEvent next(UUID batchId, Type type, Status status) throws InterruptedException {
+        while (true) {
+            StatusChangeEvent event = next(batchId, type);
+            if (status.name().equals(event.getStatus())) {
+                return event;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,194 @@
+package com.doradosystems.dao;
+
+import static com.doradosystems.dao.TestFixtures.newBatch;
+import static com.doradosystems.dao.TestFixtures.newRecords;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.doradosystems.mis.dao.ClaimValidationBatchDao;
+import com.doradosystems.mis.dao.ClaimValidationRecordBulkDao;
+import com.doradosystems.mis.dao.ClaimValidationRecordDao;
+import com.doradosystems.mis.dao.ClaimValidationStatusCountDao;
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationRecord.Status;
+
+/**
+ *
+ * @author Arthur Tolentino
+ *
+ */
+@RunWith(SpringRunner.class)
+@ContextConfiguration({ "/applicationContext-components.xml", "/applicationContext-property-placeholder.xml" })
+public class ClaimValidationStatusCountDaoIT {
+
+    @Autowired
+    private ClaimValidationStatusCountDao dao;
+    @Autowired
+    private ClaimValidationRecordDao recordDao;
+    @Autowired
+    private ClaimValidationRecordBulkDao recordBulkDao;
+    @Autowired
+    private ClaimValidationBatchDao batchDao;
+    @Autowired
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    @After
+    public void cleanup() throws Exception {
+        if (jdbcTemplate == null) {
+            jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+        TestDatabase.reset(jdbcTemplate);
+    }
+
+    @Test
+    public void countByStatus() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            batchDao.add(newBatch(ClaimValidationBatch.Status.LOADING));
+        }
+        UUID id = batchDao.add(newBatch(ClaimValidationBatch.Status.LOADING));
+        assertEquals(4, dao.countByStatus(ClaimValidationBatch.Status.LOADING));
+
+        batchDao.updateStatus(id, ClaimValidationBatch.Status.COMPLETE);
+        assertEquals(3, dao.countByStatus(ClaimValidationBatch.Status.LOADING));
+        assertEquals(batchDao.countByStatus(ClaimValidationBatch.Status.COMPLETE),
+                dao.countByStatus(ClaimValidationBatch.Status.COMPLETE));
+    }
+
+    @Test
+    public void countByBatchIdAndRunNumberAndStatus() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        List<UUID> ids = recordBulkDao.addAll(newRecords(batchId, 5));
+        assertEquals(5, dao.countByBatchIdAndRunNumberAndStatus(batchId, 1L, Status.INCOMPLETE));
+
+        recordDao.updateStatus(ids.get(0), Status.PENDING);
+        recordDao.updateStatus(ids.get(1), Status.COMPLETE);
+        assertEquals(3, dao.countByBatchIdAndRunNumberAndStatus(batchId, 1L, Status.INCOMPLETE));
+        assertEquals(1, dao.countByBatchIdAndRunNumberAndStatus(batchId, 1L, Status.PENDING));
+        assertEquals(1, dao.countByBatchIdAndRunNumberAndStatus(batchId, 1L, Status.COMPLETE));
+
+        recordDao.updateStatusAndRunNumber(batchId, 1L, Status.INCOMPLETE, 2L, Status.PENDING);
+        assertEquals(0, dao.countByBatchIdAndRunNumberAndStatus(batchId, 1L, Status.INCOMPLETE));
+        assertEquals(3, dao.countByBatchIdAndRunNumberAndStatus(batchId, 2L, Status.PENDING));
+    }
+
+    @Test
+    public void getStatusHistogram() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        List<UUID> ids = recordBulkDao.addAll(newRecords(batchId, 4));
+        recordDao.updateStatus(ids.get(0), Status.COMPLETE);
+        recordDao.updateStatus(ids.get(1), Status.COMPLETE);
+        recordDao.updateStatus(ids.get(2), Status.PENDING);
+
+        Map<Status, Integer> histogram = dao.getStatusHistogram(batchId, 1L);
+        assertEquals(Status.values().length, histogram.size());
+        for (Status status : Status.values()) {
+            assertEquals(recordDao.countByBatchIdAndRunNumberAndStatus(batchId, 1L, status),
+                    histogram.get(status).intValue());
+        }
+        assertEquals(0, dao.getStatusHistogram(UUID.randomUUID(), 1L).get(Status.COMPLETE).intValue());
+    }
+
+    @Test
+    public void countsStayExactUnderConcurrentUpdates() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        List<UUID> ids = recordBulkDao.addAll(newRecords(batchId, 200));
+        Status[] statuses = Status.values();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            int offset = thread;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < ids.size(); i++) {
+                    recordDao.updateStatus(ids.get(i), statuses[(i + offset) % statuses.length]);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertTrue(dao.findRecordCountDrift().isEmpty());
+        int total = 0;
+        for (Status status : statuses) {
+            int count = dao.countByBatchIdAndRunNumberAndStatus(batchId, 1L, status);
+            assertEquals(recordDao.countByBatchIdAndRunNumberAndStatus(batchId, 1L, status), count);
+            total += count;
+        }
+        assertEquals(ids.size(), total);
+    }
+
+    @Test
+    public void recompute() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        recordBulkDao.addAll(newRecords(batchId, 3));
+        jdbcTemplate.update("UPDATE mis_claim_validation_service.claim_validation_record_status_count"
+                + " SET record_count = 42");
+        assertEquals(1, dao.findRecordCountDrift().size());
+
+        dao.recompute();
+        assertTrue(dao.findRecordCountDrift().isEmpty());
+        assertEquals(3, dao.countByBatchIdAndRunNumberAndStatus(batchId, 1L, Status.INCOMPLETE));
+        assertEquals(batchDao.countByStatus(ClaimValidationBatch.Status.PROCESSING),
+                dao.countByStatus(ClaimValidationBatch.Status.PROCESSING));
+    }
+
+    @Test
+    public void batchWritesDoNotWaitForEachOther() throws Exception {
+        UUID first = batchDao.add(newBatch(ClaimValidationBatch.Status.LOADING));
+        UUID second = batchDao.add(newBatch(ClaimValidationBatch.Status.LOADING));
+        try (Connection holder = dataSource.getConnection(); Connection other = dataSource.getConnection()) {
+            holder.setAutoCommit(false);
+            other.setAutoCommit(false);
+            updateStatus(holder, first, ClaimValidationBatch.Status.PROCESSING);
+            try (Statement statement = other.createStatement()) {
+                statement.execute("SET LOCAL lock_timeout = '1s'");
+            }
+            // would wait on the LOADING and PROCESSING counter rows the holder has updated
+            updateStatus(other, second, ClaimValidationBatch.Status.PROCESSING);
+            other.commit();
+            holder.commit();
+        }
+        assertEquals(2, dao.countByStatus(ClaimValidationBatch.Status.PROCESSING));
+        assertEquals(0, dao.countByStatus(ClaimValidationBatch.Status.LOADING));
+    }
+
+    private static void updateStatus(Connection connection, UUID batchId, ClaimValidationBatch.Status status)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "UPDATE mis_claim_validation_service.claim_validation_batch"
+                        + " SET status = ?::mis_claim_validation_service.status WHERE claim_validation_batch_id = ?")) {
+            statement.setString(1, status.toString());
+            statement.setObject(2, batchId);
+            statement.executeUpdate();
+        }
+    }
+
+}
@@ -0,0 +1,203 @@
+package com.doradosystems.dao;
+
+import static com.doradosystems.dao.TestFixtures.newBatch;
+import static com.doradosystems.dao.TestFixtures.newRecords;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.doradosystems.exception.NotFoundException;
+import com.doradosystems.mis.dao.ClaimValidationBatchDao;
+import com.doradosystems.mis.dao.ClaimValidationRecordBulkDao;
+import com.doradosystems.mis.dao.ClaimValidationRecordDao;
+import com.doradosystems.mis.dao.ClaimValidationResponseBulkDao;
+import com.doradosystems.mis.dao.ClaimValidationSummaryDao;
+import com.doradosystems.mis.dao.ClaimValidationSummarySession;
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationRecord;
+import com.doradosystems.mis.domain.ClaimValidationRecordSummary;
+import com.doradosystems.mis.domain.ClaimValidationResponse;
+import com.doradosystems.mis.domain.ClaimValidationResponseSummary;
+import com.doradosystems.mis.domain.LazyPayload;
+
+/**
+ *
+ * @author Arthur Tolentino
+ *
+ */
+@RunWith(SpringRunner.class)
+@ContextConfiguration({ "/applicationContext-components.xml", "/applicationContext-property-placeholder.xml" })
+public class ClaimValidationSummaryDaoIT {
+
+    @Autowired
+    private ClaimValidationSummaryDao dao;
+    @Autowired
+    private ClaimValidationRecordBulkDao recordBulkDao;
+    @Autowired
+    private ClaimValidationResponseBulkDao responseBulkDao;
+    @Autowired
+    private ClaimValidationRecordDao recordDao;
+    @Autowired
+    private ClaimValidationBatchDao batchDao;
+    @Autowired
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    @After
+    public void cleanup() throws Exception {
+        if (jdbcTemplate == null) {
+            jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+        TestDatabase.reset(jdbcTemplate);
+    }
+
+    @Test
+    public void recordPayloadIsLoadedOnlyWhenAccessed() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        recordBulkDao.addAll(newRecords(batchId, 10));
+
+        try (ClaimValidationSummarySession session = dao.openSession()) {
+            List<ClaimValidationRecordSummary> summaries = session.getRecordSummaries(batchId, 1L);
+            assertEquals(10, summaries.size());
+            assertEquals(0, session.getPayloadLoadCount());
+
+            ClaimValidationRecordSummary summary = summaries.get(0);
+            assertEquals(ClaimValidationRecord.Status.INCOMPLETE, summary.getStatus());
+            assertFalse(summary.getRecord().isLoaded());
+            String record = summary.getRecord().get();
+            assertEquals(recordDao.get(summary.getClaimValidationRecordId()).getRecord(), record);
+            assertTrue(summary.getRecord().isLoaded());
+
+            summary.getRecord().get();
+            assertEquals(1, session.getPayloadLoadCount());
+        }
+    }
+
+    @Test
+    public void responsePayloadIsLoadedOnlyWhenAccessed() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        UUID recordId = recordBulkDao.addAll(newRecords(batchId, 1)).get(0);
+        List<ClaimValidationResponse> responses = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            responses.add(new ClaimValidationResponse(null, batchId, 1L, ClaimValidationResponse.Status.PENDING,
+                    "claimNumber", "response" + i, null, null, recordId));
+        }
+        responseBulkDao.addAll(responses);
+
+        try (ClaimValidationSummarySession session = dao.openSession()) {
+            List<ClaimValidationResponseSummary> summaries = session.getResponseSummaries(batchId, 1L);
+            assertEquals(5, summaries.size());
+            assertEquals(0, session.getPayloadLoadCount());
+            assertEquals(recordId, summaries.get(0).getClaimValidationRecordId());
+            assertTrue(summaries.get(0).getResponse().get().startsWith("response"));
+            assertEquals(1, session.getPayloadLoadCount());
+        }
+    }
+
+    @Test
+    public void payloadsOfAListLoadInOneQuery() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        UUID recordId = recordBulkDao.addAll(newRecords(batchId, 5)).get(0);
+        List<ClaimValidationResponse> responses = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            responses.add(new ClaimValidationResponse(null, batchId, 1L, ClaimValidationResponse.Status.PENDING,
+                    "claimNumber", "response" + i, null, null, recordId));
+        }
+        responseBulkDao.addAll(responses);
+
+        try (ClaimValidationSummarySession session = dao.openSession()) {
+            List<ClaimValidationRecordSummary> records = session.getRecordSummaries(batchId, 1L);
+            records.get(0).getRecord().get();
+            assertEquals(1, session.getPayloadQueryCount());
+
+            session.loadRecordPayloads(records);
+            assertEquals(2, session.getPayloadQueryCount());
+            assertEquals(5, session.getPayloadLoadCount());
+            for (ClaimValidationRecordSummary summary : records) {
+                assertTrue(summary.getRecord().isLoaded());
+                assertTrue(summary.getRecord().get().startsWith("record"));
+            }
+
+            List<ClaimValidationResponseSummary> responseSummaries = session.getResponseSummaries(batchId, 1L);
+            session.loadResponsePayloads(responseSummaries);
+            assertEquals(3, session.getPayloadQueryCount());
+            for (ClaimValidationResponseSummary summary : responseSummaries) {
+                assertTrue(summary.getResponse().get().startsWith("response"));
+            }
+            assertEquals(3, session.getPayloadQueryCount());
+        }
+    }
+
+    @Test
+    public void payloadComesFromTheSessionSnapshot() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        UUID id = recordBulkDao.addAll(newRecords(batchId, 1)).get(0);
+
+        try (ClaimValidationSummarySession session = dao.openSession()) {
+            ClaimValidationRecordSummary summary = session.getRecordSummary(id);
+            jdbcTemplate.update("UPDATE mis_claim_validation_service.claim_validation_record SET record = 'changed'"
+                    + " WHERE claim_validation_record_id = ?", id);
+            assertEquals("record0", summary.getRecord().get());
+        }
+    }
+
+    @Test
+    public void payloadFailsAfterSessionIsClosed() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        recordBulkDao.addAll(newRecords(batchId, 2));
+
+        List<ClaimValidationRecordSummary> summaries;
+        try (ClaimValidationSummarySession session = dao.openSession()) {
+            summaries = session.getRecordSummaries(batchId, 1L);
+            summaries.get(0).getRecord().get();
+        }
+        summaries.get(0).getRecord().get();
+
+        LazyPayload unloaded = summaries.get(1).getRecord();
+        try {
+            unloaded.get();
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains(summaries.get(1).getClaimValidationRecordId().toString()));
+        }
+        assertFalse(unloaded.isLoaded());
+    }
+
+    @Test
+    public void closeReleasesConnection() throws Exception {
+        OpenConnectionCountingDataSource countingDataSource = new OpenConnectionCountingDataSource(dataSource);
+        ClaimValidationSummaryDao countingDao = new ClaimValidationSummaryDao(countingDataSource);
+
+        ClaimValidationSummarySession session = countingDao.openSession();
+        assertEquals(1, countingDataSource.getOpenConnections());
+        session.close();
+        session.close();
+        assertEquals(0, countingDataSource.getOpenConnections());
+        assertTrue(session.isClosed());
+    }
+
+    @Test(expected = NotFoundException.class)
+    public void getRecordSummaryNotFound() throws Exception {
+        try (ClaimValidationSummarySession session = dao.openSession()) {
+            session.getRecordSummary(UUID.randomUUID());
+        }
+    }
+
+}
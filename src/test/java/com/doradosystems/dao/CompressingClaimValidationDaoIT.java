@@ -0,0 +1,338 @@
+package com.doradosystems.dao;
+
+import static com.doradosystems.dao.TestFixtures.newBatch;
+import static com.doradosystems.dao.TestFixtures.newRecord;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.doradosystems.exception.DataPersistenceException;
+import com.doradosystems.mis.codec.DeflatePayloadCodec;
+import com.doradosystems.mis.codec.IdentityPayloadCodec;
+import com.doradosystems.mis.codec.Lz4PayloadCodec;
+import com.doradosystems.mis.codec.PayloadCodecs;
+import com.doradosystems.mis.codec.PayloadDictionary;
+import com.doradosystems.mis.dao.AsyncClaimValidationRecordDao;
+import com.doradosystems.mis.dao.AsyncClaimValidationResponseDao;
+import com.doradosystems.mis.dao.ClaimValidationBatchDao;
+import com.doradosystems.mis.dao.ClaimValidationRecordDao;
+import com.doradosystems.mis.dao.ClaimValidationRecordQueryDao;
+import com.doradosystems.mis.dao.ClaimValidationResponseDao;
+import com.doradosystems.mis.dao.ClaimValidationResponseQueryDao;
+import com.doradosystems.mis.dao.ClaimValidationSummaryDao;
+import com.doradosystems.mis.dao.ClaimValidationSummarySession;
+import com.doradosystems.mis.dao.CompressingClaimValidationRecordDao;
+import com.doradosystems.mis.dao.CompressingClaimValidationResponseDao;
+import com.doradosystems.mis.dao.InstrumentedClaimValidationRecordDao;
+import com.doradosystems.mis.dao.ReplicaReadingClaimValidationRecordDao;
+import com.doradosystems.mis.dao.ReplicaReadingClaimValidationResponseDao;
+import com.doradosystems.mis.dao.WriteBehindClaimValidationRecordDao;
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationRecord;
+import com.doradosystems.mis.domain.ClaimValidationResponse;
+
+/**
+ *
+ * @author Arthur Tolentino
+ *
+ */
+@RunWith(SpringRunner.class)
+@ContextConfiguration({ "/applicationContext-components.xml", "/applicationContext-property-placeholder.xml" })
+public class CompressingClaimValidationDaoIT {
+
+    private static final Logger LOGGER = Logger.getLogger(CompressingClaimValidationDaoIT.class);
+
+    @Autowired
+    private ClaimValidationRecordDao recordDao;
+    @Autowired
+    private ClaimValidationResponseDao responseDao;
+    @Autowired
+    private ClaimValidationBatchDao batchDao;
+    @Autowired
+    private CompressingClaimValidationRecordDao compressingRecordDao;
+    @Autowired
+    private CompressingClaimValidationResponseDao compressingResponseDao;
+    @Autowired
+    private AsyncClaimValidationRecordDao asyncRecordDao;
+    @Autowired
+    private AsyncClaimValidationResponseDao asyncResponseDao;
+    @Autowired
+    private WriteBehindClaimValidationRecordDao writeBehindRecordDao;
+    @Autowired
+    private ReplicaReadingClaimValidationRecordDao replicaRecordDao;
+    @Autowired
+    private ReplicaReadingClaimValidationResponseDao replicaResponseDao;
+    @Autowired
+    private InstrumentedClaimValidationRecordDao instrumentedRecordDao;
+    @Autowired
+    private ClaimValidationRecordQueryDao recordQueryDao;
+    @Autowired
+    private ClaimValidationResponseQueryDao responseQueryDao;
+    @Autowired
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private final Random random = new Random(42);
+
+    @Before
+    @After
+    public void cleanup() throws Exception {
+        if (jdbcTemplate == null) {
+            jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+        TestDatabase.reset(jdbcTemplate);
+    }
+
+    @Test
+    public void roundTripsEveryCodec() throws Exception {
+        List<String> samples = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            samples.add(newClaim());
+        }
+        PayloadDictionary dictionary = PayloadDictionary.train(samples, 16 * 1024);
+        LOGGER.info("Trained " + dictionary);
+
+        Map<String, PayloadCodecs> codecs = new LinkedHashMap<>();
+        codecs.put("identity", new PayloadCodecs(new IdentityPayloadCodec()));
+        codecs.put("lz4", new PayloadCodecs(new Lz4PayloadCodec()));
+        codecs.put("deflate", new PayloadCodecs(new DeflatePayloadCodec()));
+        codecs.put("deflate+dictionary", new PayloadCodecs(new DeflatePayloadCodec(6, dictionary)));
+
+        UUID textBatchId = batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        List<String> claims = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            String claim = newClaim();
+            claims.add(claim);
+            recordDao.add(newRecord(textBatchId, claim));
+        }
+        long textBytes = columnBytes("record", textBatchId);
+        LOGGER.info(String.format("%-20s %10d bytes %8.3f ms/read", "text column", textBytes,
+                readMillis(textBatchId, new CompressingClaimValidationRecordDao(dataSource, PayloadCodecs.DEFAULT))));
+
+        Map<String, Long> sizes = new LinkedHashMap<>();
+        for (Map.Entry<String, PayloadCodecs> entry : codecs.entrySet()) {
+            CompressingClaimValidationRecordDao dao = new CompressingClaimValidationRecordDao(dataSource,
+                    entry.getValue());
+            UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING));
+            for (String claim : claims) {
+                dao.add(newRecord(batchId, claim));
+            }
+            for (ClaimValidationRecord record : dao.getByBatchIdAndRunNumber(batchId, 1L)) {
+                assertTrue(claims.contains(record.getRecord()));
+            }
+
+            long bytes = columnBytes("record_data", batchId);
+            sizes.put(entry.getKey(), bytes);
+            LOGGER.info(String.format("%-20s %10d bytes %8.3f ms/read (%.1f%% of text)", entry.getKey(), bytes,
+                    readMillis(batchId, dao), 100.0 * bytes / textBytes));
+        }
+        assertTrue(sizes.get("lz4") < sizes.get("identity"));
+        assertTrue(sizes.get("deflate") < sizes.get("lz4"));
+        assertTrue(sizes.get("deflate+dictionary") < sizes.get("deflate"));
+    }
+
+    @Test
+    public void readsRowsWrittenBeforeCompression() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        String claim = newClaim();
+        UUID id = recordDao.add(newRecord(batchId, claim));
+
+        CompressingClaimValidationRecordDao dao = new CompressingClaimValidationRecordDao(dataSource,
+                PayloadCodecs.named("lz4"));
+        assertEquals(claim, dao.get(id).getRecord());
+        assertNull(jdbcTemplate.queryForObject("SELECT record_data FROM mis_claim_validation_service.claim_validation_record"
+                + " WHERE claim_validation_record_id = ?", byte[].class, id));
+    }
+
+    @Test
+    public void readsRowsWrittenWithAnotherCodec() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        String claim = newClaim();
+        UUID id = new CompressingClaimValidationRecordDao(dataSource, PayloadCodecs.named("lz4"))
+                .add(newRecord(batchId, claim));
+
+        CompressingClaimValidationRecordDao dao = new CompressingClaimValidationRecordDao(dataSource,
+                PayloadCodecs.named("deflate"));
+        assertEquals(claim, dao.get(id).getRecord());
+        assertEquals(claim, dao.getByBatchIdAndRunNumberOrderByUpdateDateDescending(batchId, 1L, 1).get(0)
+                .getRecord());
+    }
+
+    @Test(expected = DataPersistenceException.class)
+    public void dictionaryIsNeededToRead() throws Exception {
+        List<String> samples = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            samples.add(newClaim());
+        }
+        PayloadDictionary dictionary = PayloadDictionary.train(samples, 4096);
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        String claim = newClaim();
+        UUID id = new CompressingClaimValidationRecordDao(dataSource,
+                new PayloadCodecs(new DeflatePayloadCodec(6, dictionary))).add(newRecord(batchId, claim));
+
+        CompressingClaimValidationRecordDao rotated = new CompressingClaimValidationRecordDao(dataSource,
+                new PayloadCodecs(new DeflatePayloadCodec(6, PayloadDictionary.train(samples.subList(0, 10), 4096),
+                        dictionary)));
+        assertEquals(claim, rotated.get(id).getRecord());
+
+        new CompressingClaimValidationRecordDao(dataSource, PayloadCodecs.named("deflate")).get(id);
+    }
+
+    @Test
+    public void namedCodecReadsDictionaryFiles() throws Exception {
+        List<String> samples = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            samples.add(newClaim());
+        }
+        Path oldDictionary = writeDictionary(PayloadDictionary.train(samples, 4096));
+        Path newDictionary = writeDictionary(PayloadDictionary.train(samples.subList(0, 10), 4096));
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        String claim = newClaim();
+        UUID id = new CompressingClaimValidationRecordDao(dataSource, PayloadCodecs.named("deflate:" + oldDictionary))
+                .add(newRecord(batchId, claim));
+
+        CompressingClaimValidationRecordDao rotated = new CompressingClaimValidationRecordDao(dataSource,
+                PayloadCodecs.named("deflate:" + newDictionary + "," + oldDictionary));
+        assertEquals(claim, rotated.get(id).getRecord());
+        assertEquals(claim, rotated.get(rotated.add(newRecord(batchId, claim))).getRecord());
+    }
+
+    @Test
+    public void everyReaderDecodesCompressedRows() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        String claim = newClaim();
+        UUID id = compressingRecordDao.add(new ClaimValidationRecord(null, batchId, 1L,
+                ClaimValidationRecord.Status.INCOMPLETE, "claimNumber", claim, null, null));
+        String response = newClaim();
+        compressingResponseDao.add(new ClaimValidationResponse(null, batchId, 1L,
+                ClaimValidationResponse.Status.PENDING, "claimNumber", response, null, null, id));
+        assertNull(jdbcTemplate.queryForObject("SELECT record FROM mis_claim_validation_service.claim_validation_record"
+                + " WHERE claim_validation_record_id = ?", String.class, id));
+
+        assertEquals(claim, asyncRecordDao.get(batchId, id).get().getRecord());
+        assertEquals(claim, writeBehindRecordDao.get(id).getRecord());
+        assertEquals(claim, replicaRecordDao.get(id).getRecord());
+        assertEquals(claim, instrumentedRecordDao.getByBatchIdAndRunNumber(batchId, 1L).get(0).getRecord());
+        try (Stream<ClaimValidationRecord> records = recordQueryDao.streamByBatchIdAndRunNumber(batchId, 1L)) {
+            assertEquals(claim, records.findFirst().get().getRecord());
+        }
+        assertEquals(claim, recordQueryDao.getByClientIdAndClaimNumbers(1L, Collections.singleton("claimNumber"))
+                .get("claimNumber").get(0).getRecord());
+
+        assertEquals(response, asyncResponseDao.get(batchId, 1L).get().get(0).getResponse());
+        assertEquals(response, replicaResponseDao.get(batchId, 1L).get(0).getResponse());
+        try (Stream<ClaimValidationResponse> responses = responseQueryDao.streamByBatchIdAndRunNumber(batchId, 1L)) {
+            assertEquals(response, responses.findFirst().get().getResponse());
+        }
+    }
+
+    @Test
+    public void responsesRoundTrip() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        UUID recordId = recordDao.add(newRecord(batchId, newClaim()));
+        CompressingClaimValidationResponseDao dao = new CompressingClaimValidationResponseDao(dataSource,
+                PayloadCodecs.named("deflate"));
+        String response = newClaim();
+        dao.add(new ClaimValidationResponse(null, batchId, 1L, ClaimValidationResponse.Status.PENDING, "claimNumber",
+                response, null, null, recordId));
+        responseDao.add(new ClaimValidationResponse(null, batchId, 1L, ClaimValidationResponse.Status.PENDING,
+                "claimNumber", "uncompressed", null, null, recordId));
+
+        List<ClaimValidationResponse> results = dao.get(batchId, 1L);
+        assertEquals(2, results.size());
+        assertTrue(results.stream().anyMatch(result -> response.equals(result.getResponse())));
+        assertTrue(results.stream().anyMatch(result -> "uncompressed".equals(result.getResponse())));
+    }
+
+    @Test
+    public void summaryPayloadsAreDecoded() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        String claim = newClaim();
+        UUID id = new CompressingClaimValidationRecordDao(dataSource, PayloadCodecs.named("lz4"))
+                .add(newRecord(batchId, claim));
+
+        try (ClaimValidationSummarySession session = new ClaimValidationSummaryDao(dataSource).openSession()) {
+            assertEquals(claim, session.getRecordSummary(id).getRecord().get());
+        }
+    }
+
+    private Path writeDictionary(PayloadDictionary dictionary) throws IOException {
+        Path file = Files.createTempFile("payload", ".dictionary");
+        file.toFile().deleteOnExit();
+        return Files.write(file, dictionary.getBytes());
+    }
+
+    private double readMillis(UUID batchId, CompressingClaimValidationRecordDao dao) throws Exception {
+        dao.getByBatchIdAndRunNumber(batchId, 1L);
+        int iterations = 20;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            dao.getByBatchIdAndRunNumber(batchId, 1L);
+        }
+        return (System.nanoTime() - start) / 1e6 / iterations;
+    }
+
+    private long columnBytes(String column, UUID batchId) {
+        return jdbcTemplate.queryForObject("SELECT coalesce(sum(pg_column_size(" + column + ")), 0)"
+                + " FROM mis_claim_validation_service.claim_validation_record WHERE claim_validation_batch_id = ?",
+                Long.class, batchId);
+    }
+
+    /**
+     * Builds an 837P-style professional claim: fixed segment layout with per-claim identifiers, dates and amounts.
+     */
+    private String newClaim() {
+        String memberId = String.format("%09d", random.nextInt(1000000000));
+        String claimId = String.format("%012d", Math.abs(random.nextLong() % 1000000000000L));
+        String date = String.format("2019%02d%02d", 1 + random.nextInt(12), 1 + random.nextInt(28));
+        StringBuilder claim = new StringBuilder()
+                .append("ISA*00*          *00*          *ZZ*DORADO         *ZZ*MEDICARE       *")
+                .append(date.substring(2)).append("*1200*^*00501*").append(claimId.substring(3)).append("*0*P*:~")
+                .append("GS*HC*DORADO*MEDICARE*").append(date).append("*1200*1*X*005010X222A1~")
+                .append("ST*837*0001*005010X222A1~BHT*0019*00*").append(claimId).append('*').append(date)
+                .append("*1200*CH~NM1*41*2*DORADO SYSTEMS*****46*DORADO~PER*IC*CLAIMS DEPT*TE*8005551212~")
+                .append("NM1*40*2*MEDICARE*****46*00120~HL*1**20*1~PRV*BI*PXC*207Q00000X~")
+                .append("NM1*85*2*DORADO MEDICAL GROUP*****XX*1234567893~N3*100 MAIN STREET~N4*SPRINGFIELD*IL*62701~")
+                .append("REF*EI*123456789~HL*2*1*22*0~SBR*P*18*******MB~NM1*IL*1*DOE*JOHN****MI*").append(memberId)
+                .append("A~N3*").append(100 + random.nextInt(900)).append(" ELM STREET~N4*SPRINGFIELD*IL*62704~")
+                .append("DMG*D8*19").append(40 + random.nextInt(40)).append("0101*M~")
+                .append("NM1*PR*2*MEDICARE*****PI*00120~CLM*").append(claimId).append('*');
+        int lines = 1 + random.nextInt(6);
+        int total = 0;
+        StringBuilder serviceLines = new StringBuilder();
+        for (int i = 1; i <= lines; i++) {
+            int amount = 50 + random.nextInt(950);
+            total += amount;
+            serviceLines.append("LX*").append(i).append("~SV1*HC:9921").append(random.nextInt(6)).append('*')
+                    .append(amount).append("*UN*1***1~DTP*472*D8*").append(date).append('~');
+        }
+        claim.append(total).append("***11:B:1*Y*A*Y*Y~HI*ABK:I10*ABF:E119~").append(serviceLines)
+                .append("SE*").append(20 + lines * 3).append("*0001~GE*1*1~IEA*1*").append(claimId.substring(3))
+                .append('~');
+        return claim.toString();
+    }
+
+}
@@ -0,0 +1,152 @@
+package com.doradosystems.dao;
+
+import static com.doradosystems.dao.TestFixtures.newBatch;
+import static com.doradosystems.dao.TestFixtures.newRecords;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.doradosystems.mis.dao.ClaimValidationBatchDao;
+import com.doradosystems.mis.dao.ClaimValidationBatchWorkQueue;
+import com.doradosystems.mis.dao.ClaimValidationRecordBulkDao;
+import com.doradosystems.mis.dao.ClaimValidationStatusCountDao;
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationBatchLease;
+import com.doradosystems.mis.domain.ClaimValidationRecord;
+
+/**
+ * Runs the DAOs from several threads at once against one database, as the services using them do.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+@RunWith(SpringRunner.class)
+@ContextConfiguration({ "/applicationContext-components.xml", "/applicationContext-property-placeholder.xml" })
+public class ConcurrentClaimValidationDaoIT {
+
+    private static final int THREADS = 8;
+    private static final int BATCHES_PER_THREAD = 10;
+    private static final int RECORDS_PER_BATCH = 20;
+    private static final int COMPLETED_PER_BATCH = 5;
+
+    @Autowired
+    private ClaimValidationBatchDao batchDao;
+    @Autowired
+    private ClaimValidationRecordBulkDao bulkDao;
+    @Autowired
+    private ClaimValidationStatusCountDao statusCountDao;
+    @Autowired
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        if (jdbcTemplate == null) {
+            jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+        TestDatabase.reset(jdbcTemplate);
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        TestDatabase.reset(jdbcTemplate);
+    }
+
+    @Test
+    public void concurrentWritersKeepCountsExact() throws Exception {
+        List<UUID> batchIds = Collections.synchronizedList(new ArrayList<>());
+        runConcurrently(() -> {
+            for (int i = 0; i < BATCHES_PER_THREAD; i++) {
+                UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.LOADING));
+                List<UUID> recordIds = bulkDao.addAll(newRecords(batchId, RECORDS_PER_BATCH));
+                bulkDao.updateStatus(recordIds.subList(0, COMPLETED_PER_BATCH), ClaimValidationRecord.Status.COMPLETE);
+                batchIds.add(batchId);
+            }
+            return null;
+        });
+
+        assertEquals(THREADS * BATCHES_PER_THREAD, batchIds.size());
+        assertEquals(THREADS * BATCHES_PER_THREAD, statusCountDao.countByStatus(ClaimValidationBatch.Status.LOADING));
+        for (UUID batchId : batchIds) {
+            assertEquals(COMPLETED_PER_BATCH, statusCountDao.countByBatchIdAndRunNumberAndStatus(batchId, 1L,
+                    ClaimValidationRecord.Status.COMPLETE));
+            assertEquals(RECORDS_PER_BATCH - COMPLETED_PER_BATCH, statusCountDao.countByBatchIdAndRunNumberAndStatus(
+                    batchId, 1L, ClaimValidationRecord.Status.INCOMPLETE));
+        }
+        assertTrue(statusCountDao.findRecordCountDrift().isEmpty());
+    }
+
+    @Test
+    public void concurrentWorkersClaimEachBatchOnce() throws Exception {
+        for (int i = 0; i < THREADS * BATCHES_PER_THREAD; i++) {
+            batchDao.add(newBatch(ClaimValidationBatch.Status.LOADING));
+        }
+
+        Set<UUID> claimed = ConcurrentHashMap.newKeySet();
+        List<UUID> claims = Collections.synchronizedList(new ArrayList<>());
+        runConcurrently(() -> {
+            ClaimValidationBatchWorkQueue workQueue = new ClaimValidationBatchWorkQueue(dataSource,
+                    "worker-" + Thread.currentThread().getId(), Duration.ofMinutes(5));
+            List<ClaimValidationBatchLease> leases;
+            while (!(leases = workQueue.claimNext(ClaimValidationBatch.Status.LOADING,
+                    ClaimValidationBatch.Status.PROCESSING, 3)).isEmpty()) {
+                for (ClaimValidationBatchLease lease : leases) {
+                    claimed.add(lease.getClaimValidationBatchId());
+                    claims.add(lease.getClaimValidationBatchId());
+                }
+            }
+            return null;
+        });
+
+        assertEquals(THREADS * BATCHES_PER_THREAD, claimed.size());
+        assertEquals(THREADS * BATCHES_PER_THREAD, claims.size());
+        assertEquals(THREADS * BATCHES_PER_THREAD,
+                statusCountDao.countByStatus(ClaimValidationBatch.Status.PROCESSING));
+    }
+
+    /**
+     * Starts {@code task} on every thread at the same moment and waits for all of them, rethrowing the first failure.
+     */
+    private void runConcurrently(Callable<Void> task) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+        start.countDown();
+        for (Future<Void> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+    }
+
+}
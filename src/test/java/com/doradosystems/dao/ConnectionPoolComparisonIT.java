@@ -0,0 +1,228 @@
+package com.doradosystems.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.doradosystems.mis.dao.ClaimValidationBatchDao;
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationBatch.Status;
+import com.doradosystems.mis.jdbc.C3p0ConnectionPoolMetrics;
+import com.doradosystems.mis.jdbc.ConnectionPoolMetrics;
+import com.doradosystems.mis.jdbc.HikariConnectionPoolMetrics;
+import com.mchange.v2.c3p0.ComboPooledDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Runs the same concurrent DAO load through a HikariCP pool and a c3p0 pool configured as the old
+ * {@code dataSource} bean was, and logs the latency percentiles of each.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+@RunWith(SpringRunner.class)
+@ContextConfiguration({ "/applicationContext-components.xml", "/applicationContext-property-placeholder.xml" })
+public class ConnectionPoolComparisonIT {
+
+    private static final Logger LOGGER = Logger.getLogger(ConnectionPoolComparisonIT.class);
+
+    private static final int THREADS = 32;
+    private static final int CALLS_PER_THREAD = 200;
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private ConnectionPoolMetrics connectionPoolMetrics;
+    @Value("${jdbc.driver.class}")
+    private String driverClass;
+    @Autowired
+    private TestDatabase testDatabase;
+    @Value("${jdbc.pool.size.max}")
+    private int maxPoolSize;
+    private JdbcTemplate jdbcTemplate;
+    private List<UUID> batchIds;
+
+    @Before
+    @After
+    public void cleanup() throws Exception {
+        if (jdbcTemplate == null) {
+            jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+        TestDatabase.reset(jdbcTemplate);
+    }
+
+    @Test
+    public void connectionPoolMetricsTrackCheckouts() throws Exception {
+        seed();
+        long before = connectionPoolMetrics.getAcquireCount();
+        ClaimValidationBatchDao dao = new ClaimValidationBatchDao(dataSource);
+        for (UUID id : batchIds) {
+            dao.get(id);
+        }
+        assertTrue(connectionPoolMetrics.getAcquireCount() - before >= batchIds.size());
+        assertEquals(0, connectionPoolMetrics.getConnectionTimeoutCount());
+    }
+
+    @Test
+    public void compareLatencyUnderConcurrentLoad() throws Exception {
+        seed();
+        HikariConnectionPoolMetrics hikariMetrics = new HikariConnectionPoolMetrics();
+        try (HikariDataSource hikari = new HikariDataSource()) {
+            hikari.setDriverClassName(driverClass);
+            hikari.setJdbcUrl(testDatabase.getJdbcUrl());
+            hikari.setUsername(testDatabase.getUsername());
+            hikari.setPassword(testDatabase.getPassword());
+            hikari.setMaximumPoolSize(maxPoolSize);
+            hikari.setMetricsTrackerFactory(hikariMetrics);
+            report("hikari", runLoad(hikari), hikariMetrics);
+        }
+
+        ComboPooledDataSource c3p0 = new ComboPooledDataSource();
+        try {
+            c3p0.setDriverClass(driverClass);
+            c3p0.setJdbcUrl(testDatabase.getJdbcUrl());
+            c3p0.setUser(testDatabase.getUsername());
+            c3p0.setPassword(testDatabase.getPassword());
+            c3p0.setMaxPoolSize(maxPoolSize);
+            c3p0.setTestConnectionOnCheckout(true);
+            C3p0ConnectionPoolMetrics c3p0Metrics = new C3p0ConnectionPoolMetrics(c3p0);
+            report("c3p0", runLoad(c3p0Metrics), c3p0Metrics);
+        } finally {
+            c3p0.close();
+        }
+    }
+
+    @Test
+    public void c3p0CountsCheckoutTimeouts() throws Exception {
+        ComboPooledDataSource c3p0 = c3p0(testDatabase.getUsername());
+        try {
+            c3p0.setMaxPoolSize(1);
+            c3p0.setCheckoutTimeout(100);
+            C3p0ConnectionPoolMetrics c3p0Metrics = new C3p0ConnectionPoolMetrics(c3p0);
+            try (Connection held = c3p0Metrics.getConnection()) {
+                c3p0Metrics.getConnection().close();
+                fail("Expected SQLException");
+            } catch (SQLException e) {
+                assertEquals(1, c3p0Metrics.getConnectionTimeoutCount());
+            }
+        } finally {
+            c3p0.close();
+        }
+    }
+
+    @Test
+    public void c3p0DoesNotCountRefusedConnectionsAsTimeouts() throws Exception {
+        // the embedded database trusts any password, but not an unknown role
+        ComboPooledDataSource c3p0 = c3p0("no_such_role");
+        try {
+            c3p0.setAcquireRetryAttempts(1);
+            C3p0ConnectionPoolMetrics c3p0Metrics = new C3p0ConnectionPoolMetrics(c3p0);
+            try (Connection connection = c3p0Metrics.getConnection()) {
+                fail("Expected SQLException");
+            } catch (SQLException e) {
+                assertEquals(0, c3p0Metrics.getConnectionTimeoutCount());
+            }
+        } finally {
+            c3p0.close();
+        }
+    }
+
+    private ComboPooledDataSource c3p0(String username) throws Exception {
+        ComboPooledDataSource c3p0 = new ComboPooledDataSource();
+        c3p0.setDriverClass(driverClass);
+        c3p0.setJdbcUrl(testDatabase.getJdbcUrl());
+        c3p0.setUser(username);
+        c3p0.setPassword(testDatabase.getPassword());
+        return c3p0;
+    }
+
+    private void seed() throws Exception {
+        ClaimValidationBatchDao dao = new ClaimValidationBatchDao(dataSource);
+        batchIds = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            batchIds.add(dao.add(new ClaimValidationBatch(null, 1L, "filename", Status.LOADING, 1L, "gcn", null,
+                    null)));
+        }
+    }
+
+    private long[] runLoad(DataSource pool) throws Exception {
+        ClaimValidationBatchDao dao = new ClaimValidationBatchDao(pool);
+        // warm the pool up to its maximum size before measuring
+        for (int i = 0; i < maxPoolSize; i++) {
+            dao.countByStatus(Status.LOADING);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            futures.add(executor.submit(() -> {
+                long[] latencies = new long[CALLS_PER_THREAD];
+                for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                    long start = System.nanoTime();
+                    if (i % 2 == 0) {
+                        dao.get(batchIds.get(ThreadLocalRandom.current().nextInt(batchIds.size())));
+                    } else {
+                        dao.countByStatus(Status.LOADING);
+                    }
+                    latencies[i] = System.nanoTime() - start;
+                }
+                return latencies;
+            }));
+        }
+        long[] latencies = new long[THREADS * CALLS_PER_THREAD];
+        int offset = 0;
+        for (Future<long[]> future : futures) {
+            long[] threadLatencies = future.get();
+            System.arraycopy(threadLatencies, 0, latencies, offset, threadLatencies.length);
+            offset += threadLatencies.length;
+        }
+        executor.shutdown();
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private void report(String pool, long[] latencies, ConnectionPoolMetrics metrics) {
+        assertEquals(0, metrics.getConnectionTimeoutCount());
+        assertTrue(metrics.getAcquireCount() >= latencies.length);
+        LOGGER.info(String.format("%s: p50 %.2f ms, p95 %.2f ms, p99 %.2f ms, max %.2f ms;"
+                + " mean acquire %.3f ms, max acquire %.2f ms", pool,
+                millis(percentile(latencies, 50)), millis(percentile(latencies, 95)),
+                millis(percentile(latencies, 99)), millis(latencies[latencies.length - 1]),
+                millis(metrics.getAcquireTimeNanos() / metrics.getAcquireCount()),
+                millis(metrics.getMaxAcquireTimeNanos())));
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+}
@@ -0,0 +1,247 @@
+package com.doradosystems.dao;
+
+import static com.doradosystems.dao.TestFixtures.newBatch;
+import static com.doradosystems.dao.TestFixtures.newRecords;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.doradosystems.mis.dao.ClaimNumberBloomFilter;
+import com.doradosystems.mis.dao.ClaimValidationBatchDao;
+import com.doradosystems.mis.dao.ClaimValidationRecordBulkDao;
+import com.doradosystems.mis.dao.ClaimValidationRecordQueryDao;
+import com.doradosystems.mis.dao.DuplicateClaimDetector;
+import com.doradosystems.mis.dao.ScalableClaimNumberBloomFilter;
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationRecord;
+
+/**
+ *
+ * @author Arthur Tolentino
+ *
+ */
+@RunWith(SpringRunner.class)
+@ContextConfiguration({ "/applicationContext-components.xml", "/applicationContext-property-placeholder.xml" })
+public class DuplicateClaimDetectorIT {
+
+    private static final Logger LOGGER = Logger.getLogger(DuplicateClaimDetectorIT.class);
+
+    private static final String INSERT_CLAIMS_SQL = "INSERT INTO mis_claim_validation_service.claim_validation_record"
+            + " (claim_validation_batch_id, run_number, status, claim_number, record)"
+            + " SELECT ?, 1, 'INCOMPLETE'::mis_claim_validation_service.status, 'CLM' || lpad(i::text, 9, '0'), 'record'"
+            + " FROM generate_series(?, ?) i";
+
+    @Autowired
+    private DuplicateClaimDetector detector;
+    @Autowired
+    private ClaimValidationRecordQueryDao queryDao;
+    @Autowired
+    private ClaimValidationRecordBulkDao bulkDao;
+    @Autowired
+    private ClaimValidationBatchDao batchDao;
+    @Autowired
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    @After
+    public void cleanup() throws Exception {
+        if (jdbcTemplate == null) {
+            jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+        TestDatabase.reset(jdbcTemplate);
+        detector.invalidate(1L);
+        detector.invalidate(2L);
+    }
+
+    @Test
+    public void findDuplicatesAcrossFilesOfTheSameClient() throws Exception {
+        UUID firstFile = batchDao.add(newBatch(1L, ClaimValidationBatch.Status.PROCESSING));
+        UUID otherClientFile = batchDao.add(newBatch(2L, ClaimValidationBatch.Status.PROCESSING));
+        bulkDao.addAll(newRecords(firstFile, "A", "B"));
+        bulkDao.addAll(newRecords(otherClientFile, "C"));
+
+        Map<String, List<ClaimValidationRecord>> duplicates = detector.findDuplicates(1L,
+                Arrays.asList("A", "C", "D"));
+        assertEquals(Collections.singleton("A"), duplicates.keySet());
+        assertEquals(firstFile, duplicates.get("A").get(0).getClaimValidationBatchId());
+        assertTrue(detector.isDuplicate(2L, "C"));
+        assertFalse(detector.isDuplicate(2L, "A"));
+    }
+
+    @Test
+    public void registeredClaimsAreDetected() throws Exception {
+        UUID firstFile = batchDao.add(newBatch(1L, ClaimValidationBatch.Status.PROCESSING));
+        assertFalse(detector.isDuplicate(1L, "A"));
+
+        bulkDao.addAll(newRecords(firstFile, "A"));
+        detector.register(1L, Collections.singleton("A"));
+        assertTrue(detector.isDuplicate(1L, "A"));
+    }
+
+    @Test
+    public void newClaimsSkipTheDatabase() throws Exception {
+        bulkDao.addAll(newRecords(batchDao.add(newBatch(1L, ClaimValidationBatch.Status.PROCESSING)), "A"));
+        List<String> claimNumbers = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            claimNumbers.add("NEW" + i);
+        }
+
+        long skipped = detector.getSkippedCount();
+        assertTrue(detector.findDuplicates(1L, claimNumbers).isEmpty());
+        assertTrue(detector.getSkippedCount() - skipped > 950);
+    }
+
+    @Test
+    public void falsePositivesAreConfirmedAgainstTheDatabase() throws Exception {
+        UUID batchId = batchDao.add(newBatch(1L, ClaimValidationBatch.Status.PROCESSING));
+        List<String> stored = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            stored.add("STORED" + i);
+        }
+        bulkDao.addAll(newRecords(batchId, stored.toArray(new String[0])));
+        DuplicateClaimDetector undersized = new DuplicateClaimDetector(queryDao, 10, 0.5);
+        List<String> candidates = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            candidates.add("NEW" + i);
+        }
+        candidates.add("STORED7");
+
+        Map<String, List<ClaimValidationRecord>> duplicates = undersized.findDuplicates(1L, candidates);
+        assertEquals(Collections.singleton("STORED7"), duplicates.keySet());
+        assertTrue(undersized.getFalsePositiveCount() > 0);
+        assertEquals(candidates.size(), undersized.getCheckedCount());
+    }
+
+    @Test
+    public void bloomFilterFalsePositiveRate() throws Exception {
+        ClaimNumberBloomFilter filter = new ClaimNumberBloomFilter(100000, 0.01);
+        for (int i = 0; i < 100000; i++) {
+            filter.put("CLM" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100000; i++) {
+            assertTrue(filter.mightContain("CLM" + i));
+            if (filter.mightContain("NEW" + i)) {
+                falsePositives++;
+            }
+        }
+        LOGGER.info("Bloom filter of " + filter.getBitCount() + " bits and " + filter.getHashCount()
+                + " hashes: false positive rate " + falsePositives / 100000.0);
+        assertTrue(falsePositives < 2000);
+    }
+
+    @Test
+    public void staleFilterPicksUpClaimsStoredWithoutRegistering() throws Exception {
+        UUID batchId = batchDao.add(newBatch(1L, ClaimValidationBatch.Status.PROCESSING));
+        DuplicateClaimDetector shortLived = new DuplicateClaimDetector(queryDao, 16, 0.01, Duration.ofMillis(100));
+        assertFalse(shortLived.isDuplicate(1L, "A"));
+
+        // stored by another node, which cannot register it with this detector
+        bulkDao.addAll(newRecords(batchId, "A"));
+        Thread.sleep(200);
+        assertTrue(shortLived.isDuplicate(1L, "A"));
+    }
+
+    @Test
+    public void filterGrowsWithTheClient() throws Exception {
+        UUID batchId = batchDao.add(newBatch(1L, ClaimValidationBatch.Status.PROCESSING));
+        bulkDao.addAll(newRecords(batchId, 1000));
+        UUID otherBatchId = batchDao.add(newBatch(2L, ClaimValidationBatch.Status.PROCESSING));
+        jdbcTemplate.update(INSERT_CLAIMS_SQL, otherBatchId, 1, 100000);
+
+        assertTrue(detector.isDuplicate(1L, "claimNumber7"));
+        assertTrue(detector.isDuplicate(2L, claimNumber(7)));
+        long smallClient = detector.getFilterBitCount(1L);
+        long largeClient = detector.getFilterBitCount(2L);
+        LOGGER.info("Filter of 1000 claims: " + smallClient / 8 + " bytes, of 100000 claims: " + largeClient / 8
+                + " bytes");
+        assertTrue(smallClient / 8 < 16 * 1024);
+        assertTrue(largeClient > 50 * smallClient);
+    }
+
+    @Test
+    public void scalableBloomFilterFalsePositiveRate() throws Exception {
+        ScalableClaimNumberBloomFilter filter = new ScalableClaimNumberBloomFilter(1024, 0.01);
+        for (int i = 0; i < 100000; i++) {
+            filter.put("CLM" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100000; i++) {
+            assertTrue(filter.mightContain("CLM" + i));
+            if (filter.mightContain("NEW" + i)) {
+                falsePositives++;
+            }
+        }
+        LOGGER.info("Scalable Bloom filter of " + filter.getBitCount() + " bits: false positive rate "
+                + falsePositives / 100000.0);
+        assertTrue(falsePositives < 1000);
+    }
+
+    @Test
+    public void lookupLatencyWithOneMillionClaims() throws Exception {
+        int files = 10;
+        int claimsPerFile = 100000;
+        for (int i = 0; i < files; i++) {
+            UUID batchId = batchDao.add(newBatch(1L, ClaimValidationBatch.Status.PROCESSING));
+            jdbcTemplate.update(INSERT_CLAIMS_SQL, batchId, i * claimsPerFile + 1, (i + 1) * claimsPerFile);
+        }
+        jdbcTemplate.execute("ANALYZE mis_claim_validation_service.claim_validation_record");
+
+        long start = System.nanoTime();
+        assertTrue(detector.isDuplicate(1L, claimNumber(1)));
+        LOGGER.info("First lookup, including the filter load: " + (System.nanoTime() - start) / 1000000 + " ms");
+
+        int lookups = 1000;
+        start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            assertEquals(1, queryDao.getByClaimNumber(claimNumber(i * 997 + 1)).size());
+        }
+        LOGGER.info(String.format("Indexed single lookup: %.3f ms", (System.nanoTime() - start) / 1e6 / lookups));
+
+        List<String> claimNumbers = new ArrayList<>();
+        for (int i = 0; i < lookups; i++) {
+            claimNumbers.add(claimNumber(i * 997 + 1));
+        }
+        start = System.nanoTime();
+        assertEquals(lookups, queryDao.getByClaimNumbers(claimNumbers).size());
+        LOGGER.info(String.format("Indexed lookup of %d claim numbers: %.3f ms", lookups,
+                (System.nanoTime() - start) / 1e6));
+
+        List<String> newClaimNumbers = new ArrayList<>();
+        for (int i = 0; i < lookups; i++) {
+            newClaimNumbers.add("NEW" + i);
+        }
+        long skipped = detector.getSkippedCount();
+        start = System.nanoTime();
+        assertTrue(detector.findDuplicates(1L, newClaimNumbers).isEmpty());
+        LOGGER.info(String.format("Filtered check of %d new claim numbers: %.3f ms, %d skipped the database", lookups,
+                (System.nanoTime() - start) / 1e6, detector.getSkippedCount() - skipped));
+        assertTrue(detector.getSkippedCount() - skipped > 950);
+    }
+
+    private static String claimNumber(int i) {
+        return String.format("CLM%09d", i);
+    }
+
+}
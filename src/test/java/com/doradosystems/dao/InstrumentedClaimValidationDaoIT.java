@@ -0,0 +1,159 @@
+package com.doradosystems.dao;
+
+import static com.doradosystems.dao.TestFixtures.newBatch;
+import static com.doradosystems.dao.TestFixtures.newRecord;
+import static com.doradosystems.dao.TestFixtures.newResponse;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.doradosystems.exception.DataPersistenceException;
+import com.doradosystems.exception.NotFoundException;
+import com.doradosystems.mis.dao.ClaimValidationBatchDao;
+import com.doradosystems.mis.dao.InstrumentedClaimValidationBatchDao;
+import com.doradosystems.mis.dao.InstrumentedClaimValidationRecordDao;
+import com.doradosystems.mis.dao.InstrumentedClaimValidationResponseDao;
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationRecord;
+import com.doradosystems.mis.domain.ClaimValidationResponse;
+import com.doradosystems.mis.metrics.DaoMetrics;
+import com.doradosystems.mis.metrics.HdrHistogramDaoMetrics;
+
+/**
+ *
+ * @author Arthur Tolentino
+ *
+ */
+@RunWith(SpringRunner.class)
+@ContextConfiguration({ "/applicationContext-components.xml", "/applicationContext-property-placeholder.xml" })
+public class InstrumentedClaimValidationDaoIT {
+
+    @Autowired
+    private InstrumentedClaimValidationBatchDao batchDao;
+    @Autowired
+    private InstrumentedClaimValidationRecordDao recordDao;
+    @Autowired
+    private InstrumentedClaimValidationResponseDao responseDao;
+    @Autowired
+    private HdrHistogramDaoMetrics metrics;
+    @Autowired
+    private ClaimValidationBatchDao uninstrumentedBatchDao;
+    @Autowired
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    @After
+    public void cleanup() throws Exception {
+        if (jdbcTemplate == null) {
+            jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+        TestDatabase.reset(jdbcTemplate);
+        metrics.reset();
+    }
+
+    @Test
+    public void batchDaoCounters() throws Exception {
+        UUID id = batchDao.add(newBatch(ClaimValidationBatch.Status.LOADING));
+        batchDao.add(newBatch(ClaimValidationBatch.Status.LOADING));
+        batchDao.get(id);
+        assertEquals(2, batchDao.getByStatus(ClaimValidationBatch.Status.LOADING).size());
+        batchDao.countByStatus(ClaimValidationBatch.Status.LOADING);
+        batchDao.updateStatus(id, ClaimValidationBatch.Status.PROCESSING);
+        batchDao.updateStatusAndRunNumber(id, ClaimValidationBatch.Status.COMPLETE, 2L);
+
+        assertEquals(2, metrics.getCallCount(InstrumentedClaimValidationBatchDao.ADD));
+        assertEquals(1, metrics.getCallCount(InstrumentedClaimValidationBatchDao.GET));
+        assertEquals(1, metrics.getCallCount(InstrumentedClaimValidationBatchDao.GET_BY_STATUS));
+        assertEquals(2, metrics.getRowCount(InstrumentedClaimValidationBatchDao.GET_BY_STATUS));
+        assertEquals(1, metrics.getCallCount(InstrumentedClaimValidationBatchDao.COUNT_BY_STATUS));
+        assertEquals(1, metrics.getRowCount(InstrumentedClaimValidationBatchDao.UPDATE_STATUS));
+        assertEquals(1, metrics.getRowCount(InstrumentedClaimValidationBatchDao.UPDATE_STATUS_AND_RUN_NUMBER));
+        assertEquals(1, metrics.getLatencyHistogram(InstrumentedClaimValidationBatchDao.GET).getTotalCount());
+        assertTrue(metrics.getLatencyHistogram(InstrumentedClaimValidationBatchDao.GET).getMaxValue() > 0);
+    }
+
+    @Test
+    public void errorCountsPerExceptionType() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            try {
+                batchDao.get(UUID.randomUUID());
+                fail("Expected NotFoundException");
+            } catch (NotFoundException e) {
+                // expected
+            }
+        }
+        try {
+            recordDao.add(newRecord(UUID.randomUUID(), 1L, ClaimValidationRecord.Status.PENDING));
+            fail("Expected DataPersistenceException");
+        } catch (DataPersistenceException e) {
+            // expected
+        }
+
+        assertEquals(3, metrics.getCallCount(InstrumentedClaimValidationBatchDao.GET));
+        assertEquals(3, metrics.getErrorCount(InstrumentedClaimValidationBatchDao.GET, NotFoundException.class));
+        assertEquals(0, metrics.getRowCount(InstrumentedClaimValidationBatchDao.GET));
+        assertEquals(1, metrics.getErrorCount(InstrumentedClaimValidationRecordDao.ADD,
+                DataPersistenceException.class));
+        assertEquals(0, metrics.getErrorCount(InstrumentedClaimValidationRecordDao.ADD, NotFoundException.class));
+    }
+
+    @Test
+    public void recordAndResponseDaoCounters() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.LOADING));
+        UUID recordId = recordDao.add(newRecord(batchId, 1L, ClaimValidationRecord.Status.PENDING));
+        recordDao.add(newRecord(batchId, 1L, ClaimValidationRecord.Status.PENDING));
+        recordDao.get(recordId);
+        assertEquals(2, recordDao.getByBatchIdAndRunNumber(batchId, 1L).size());
+        recordDao.getByBatchIdAndRunNumberOrderByUpdateDateDescending(batchId, 1L, 1);
+        recordDao.countByBatchIdAndRunNumberAndStatus(batchId, 1L, ClaimValidationRecord.Status.PENDING);
+        recordDao.updateStatus(recordId, ClaimValidationRecord.Status.COMPLETE);
+        recordDao.updateStatusAndRunNumber(batchId, 1L, ClaimValidationRecord.Status.PENDING, 2L,
+                ClaimValidationRecord.Status.PENDING);
+
+        responseDao.add(newResponse(batchId, recordId));
+        responseDao.add(newResponse(batchId, recordId));
+        responseDao.get(batchId, 1L);
+        responseDao.getPendingResponseIdentifiers();
+        responseDao.updateStatus(batchId, 1L, ClaimValidationResponse.Status.COMPLETE);
+
+        assertEquals(2, metrics.getCallCount(InstrumentedClaimValidationRecordDao.ADD));
+        assertEquals(1, metrics.getCallCount(InstrumentedClaimValidationRecordDao.GET));
+        assertEquals(2, metrics.getRowCount(InstrumentedClaimValidationRecordDao.GET_BY_BATCH_ID_AND_RUN_NUMBER));
+        assertEquals(1, metrics.getRowCount(
+                InstrumentedClaimValidationRecordDao.GET_BY_BATCH_ID_AND_RUN_NUMBER_ORDER_BY_UPDATE_DATE_DESCENDING));
+        assertEquals(1, metrics.getCallCount(
+                InstrumentedClaimValidationRecordDao.COUNT_BY_BATCH_ID_AND_RUN_NUMBER_AND_STATUS));
+        assertEquals(1, metrics.getRowCount(InstrumentedClaimValidationRecordDao.UPDATE_STATUS));
+        assertEquals(1, metrics.getRowCount(InstrumentedClaimValidationRecordDao.UPDATE_STATUS_AND_RUN_NUMBER));
+
+        assertEquals(2, metrics.getCallCount(InstrumentedClaimValidationResponseDao.ADD));
+        assertEquals(2, metrics.getRowCount(InstrumentedClaimValidationResponseDao.GET));
+        assertEquals(1, metrics.getCallCount(InstrumentedClaimValidationResponseDao.GET_PENDING_RESPONSE_IDENTIFIERS));
+        assertEquals(2, metrics.getRowCount(InstrumentedClaimValidationResponseDao.UPDATE_STATUS));
+    }
+
+    @Test
+    public void noOpMetricsRecordNothing() throws Exception {
+        InstrumentedClaimValidationBatchDao dao = new InstrumentedClaimValidationBatchDao(uninstrumentedBatchDao);
+        UUID id = dao.add(newBatch(ClaimValidationBatch.Status.LOADING));
+        dao.get(id);
+
+        assertTrue(metrics.getOperations().isEmpty());
+        assertEquals(0L, DaoMetrics.NOOP.startTime());
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.doradosystems.dao;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Test {@link DataSource} that tracks how many connections it has handed out and not yet had closed.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class OpenConnectionCountingDataSource extends DelegatingDataSource {
+
+    private final AtomicInteger openConnections = new AtomicInteger();
+
+    public OpenConnectionCountingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return track(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return track(super.getConnection(username, password));
+    }
+
+    public int getOpenConnections() {
+        return openConnections.get();
+    }
+
+    private Connection track(Connection connection) {
+        openConnections.incrementAndGet();
+        AtomicInteger closeCount = new AtomicInteger();
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+                (proxy, method, args) -> {
+                    if ("close".equals(method.getName()) && closeCount.getAndIncrement() == 0) {
+                        openConnections.decrementAndGet();
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+}
@@ -0,0 +1,166 @@
+package com.doradosystems.dao;
+
+import static com.doradosystems.dao.TestFixtures.newBatch;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.doradosystems.mis.dao.ClaimValidationBatchDao;
+import com.doradosystems.mis.dao.ReplicaReadingClaimValidationBatchDao;
+import com.doradosystems.mis.dao.ReplicaReadingClaimValidationRecordDao;
+import com.doradosystems.mis.dao.ReplicaReadingClaimValidationResponseDao;
+import com.doradosystems.mis.domain.ClaimValidationBatch.Status;
+import com.doradosystems.mis.domain.ClaimValidationRecord;
+import com.doradosystems.mis.jdbc.PostgresReplicationLag;
+import com.doradosystems.mis.jdbc.ReplicaRoutingDataSource;
+import com.doradosystems.mis.jdbc.ReplicaRoutingDataSource.UnitOfWork;
+
+/**
+ *
+ * @author Arthur Tolentino
+ *
+ */
+@RunWith(SpringRunner.class)
+@ContextConfiguration({ "/applicationContext-components.xml", "/applicationContext-property-placeholder.xml" })
+public class ReplicaRoutingDataSourceIT {
+
+    @Autowired
+    private ReplicaRoutingDataSource routingDataSource;
+    @Autowired
+    private ReplicaReadingClaimValidationBatchDao batchDao;
+    @Autowired
+    private ReplicaReadingClaimValidationRecordDao recordDao;
+    @Autowired
+    private ReplicaReadingClaimValidationResponseDao responseDao;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    @After
+    public void cleanup() throws Exception {
+        if (jdbcTemplate == null) {
+            jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+        TestDatabase.reset(jdbcTemplate);
+    }
+
+    @Test
+    public void readsGoToReplicaAndWritesToPrimary() throws Exception {
+        long primary = routingDataSource.getPrimaryConnectionCount();
+        long replica = routingDataSource.getReplicaConnectionCount();
+
+        UUID batchId = batchDao.add(newBatch(Status.PROCESSING));
+        assertTrue(routingDataSource.getPrimaryConnectionCount() > primary);
+        assertEquals(replica, routingDataSource.getReplicaConnectionCount());
+
+        primary = routingDataSource.getPrimaryConnectionCount();
+        assertEquals(batchId, batchDao.get(batchId).getClaimValidationBatchId());
+        assertEquals(1, batchDao.countByStatus(Status.PROCESSING));
+        assertEquals(0, recordDao.getByBatchIdAndRunNumber(batchId, 1L).size());
+        assertEquals(0, responseDao.getPendingResponseIdentifiers().size());
+        assertTrue(routingDataSource.getReplicaConnectionCount() >= replica + 4);
+        assertEquals(primary, routingDataSource.getPrimaryConnectionCount());
+    }
+
+    @Test
+    public void staleReplicaIsNotRead() throws Exception {
+        AtomicReference<Duration> lag = new AtomicReference<>(Duration.ofSeconds(5));
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(dataSource, replicaDataSource, lag::get,
+                Duration.ofSeconds(1));
+        ReplicaReadingClaimValidationBatchDao dao = new ReplicaReadingClaimValidationBatchDao(
+                new ClaimValidationBatchDao(routing), routing);
+        UUID batchId = dao.add(newBatch(Status.PROCESSING));
+
+        dao.get(batchId);
+        assertEquals(0, routing.getReplicaConnectionCount());
+        long staleReads = routing.getStaleReadCount();
+        assertTrue(staleReads > 0);
+
+        lag.set(Duration.ofMillis(200));
+        dao.get(batchId);
+        assertTrue(routing.getReplicaConnectionCount() > 0);
+        assertEquals(staleReads, routing.getStaleReadCount());
+    }
+
+    @Test
+    public void readsAfterWriteInUnitOfWorkGoToPrimary() throws Exception {
+        UUID batchId = batchDao.add(newBatch(Status.PROCESSING));
+        long replica = routingDataSource.getReplicaConnectionCount();
+
+        try (UnitOfWork work = routingDataSource.unitOfWork()) {
+            batchDao.get(batchId);
+            assertTrue(routingDataSource.getReplicaConnectionCount() > replica);
+            assertFalse(work.hasWritten());
+            replica = routingDataSource.getReplicaConnectionCount();
+
+            recordDao.add(new ClaimValidationRecord(null, batchId, 1L, ClaimValidationRecord.Status.INCOMPLETE,
+                    "claimNumber", "record", null, null));
+            assertTrue(work.hasWritten());
+            assertEquals(1, recordDao.countByBatchIdAndRunNumberAndStatus(batchId, 1L,
+                    ClaimValidationRecord.Status.INCOMPLETE));
+            try (UnitOfWork nested = routingDataSource.unitOfWork()) {
+                batchDao.get(batchId);
+                assertTrue(nested.hasWritten());
+            }
+            batchDao.get(batchId);
+            assertEquals(replica, routingDataSource.getReplicaConnectionCount());
+        }
+
+        batchDao.get(batchId);
+        assertTrue(routingDataSource.getReplicaConnectionCount() > replica);
+    }
+
+    @Test
+    public void readsInTransactionGoToPrimary() throws Exception {
+        UUID batchId = batchDao.add(newBatch(Status.PROCESSING));
+        long replica = routingDataSource.getReplicaConnectionCount();
+
+        new TransactionTemplate(transactionManager).execute(status -> {
+            try {
+                return batchDao.get(batchId);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertEquals(replica, routingDataSource.getReplicaConnectionCount());
+    }
+
+    @Test
+    public void replicationLag() throws Exception {
+        // the test replica is the primary itself, so only the time since the measurement counts
+        PostgresReplicationLag lag = new PostgresReplicationLag(dataSource, replicaDataSource, Duration.ofMinutes(1));
+        assertTrue(lag.get().compareTo(Duration.ofSeconds(1)) < 0);
+        Thread.sleep(200);
+        assertTrue(lag.get().compareTo(Duration.ofMillis(200)) >= 0);
+
+        DriverManagerDataSource unreachable = new DriverManagerDataSource("jdbc:postgresql://localhost:1/dorado");
+        assertEquals(PostgresReplicationLag.UNAVAILABLE,
+                new PostgresReplicationLag(dataSource, unreachable, Duration.ofSeconds(1)).get());
+    }
+
+}
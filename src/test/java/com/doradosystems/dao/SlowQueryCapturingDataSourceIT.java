@@ -0,0 +1,179 @@
+package com.doradosystems.dao;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.doradosystems.mis.dao.ClaimValidationBatchDao;
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationBatch.Status;
+import com.doradosystems.mis.jdbc.SlowQuery;
+import com.doradosystems.mis.jdbc.SlowQueryCapturingDataSource;
+import com.doradosystems.mis.jdbc.SlowQueryLog;
+
+/**
+ *
+ * @author Arthur Tolentino
+ *
+ */
+@RunWith(SpringRunner.class)
+@ContextConfiguration({ "/applicationContext-components.xml", "/applicationContext-property-placeholder.xml" })
+public class SlowQueryCapturingDataSourceIT {
+
+    private static final String SLOW_COUNT_SQL = "SELECT count(*)"
+            + " FROM mis_claim_validation_service.claim_validation_batch, pg_sleep(0.2)"
+            + " WHERE status = ?::mis_claim_validation_service.status";
+
+    @Autowired
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private SlowQueryCapturingDataSource capturingDataSource;
+
+    @Before
+    @After
+    public void cleanup() throws Exception {
+        if (jdbcTemplate == null) {
+            jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+        TestDatabase.reset(jdbcTemplate);
+        capturingDataSource = new SlowQueryCapturingDataSource(dataSource, Duration.ofMillis(100),
+                new SlowQueryLog(3), 8);
+    }
+
+    @Test
+    public void capturesSlowQueryWithBindParameters() throws Exception {
+        new ClaimValidationBatchDao(dataSource).add(new ClaimValidationBatch(null, 1L, "filename", Status.LOADING, 1L,
+                "gcn", null, null));
+        JdbcTemplate capturing = new JdbcTemplate(capturingDataSource);
+
+        assertEquals(1, capturing.queryForObject(SLOW_COUNT_SQL, Integer.class, Status.LOADING.toString()).intValue());
+
+        List<SlowQuery> captured = capturingDataSource.getSlowQueryLog().dump();
+        assertEquals(1, captured.size());
+        assertEquals(SLOW_COUNT_SQL, captured.get(0).getSql());
+        assertEquals(Arrays.asList("LOADING"), captured.get(0).getBindParameters());
+        assertTrue(captured.get(0).getElapsedMillis() >= 100);
+    }
+
+    @Test
+    public void fastQueriesAreNotCaptured() throws Exception {
+        new ClaimValidationBatchDao(capturingDataSource).countByStatus(Status.LOADING);
+        assertTrue(capturingDataSource.getSlowQueryLog().dump().isEmpty());
+    }
+
+    @Test
+    public void truncatesLongBindParameters() throws Exception {
+        char[] payload = new char[1000];
+        Arrays.fill(payload, 'x');
+        new JdbcTemplate(capturingDataSource).queryForObject("SELECT length(?) FROM pg_sleep(0.2)", Integer.class,
+                new String(payload));
+
+        String bindParameter = capturingDataSource.getSlowQueryLog().dump().get(0).getBindParameters().get(0);
+        assertEquals("xxxxxxxx...<1000 chars>", bindParameter);
+    }
+
+    @Test
+    public void explain() throws Exception {
+        new JdbcTemplate(capturingDataSource).queryForObject(SLOW_COUNT_SQL, Integer.class,
+                Status.PROCESSING.toString());
+
+        String plan = capturingDataSource.explain(capturingDataSource.getSlowQueryLog().dump().get(0));
+        assertThat(plan, containsString("actual time"));
+    }
+
+    @Test
+    public void explainBindsRedactedParametersAsNullOrAsGiven() throws Exception {
+        char[] payload = new char[1000];
+        Arrays.fill(payload, 'x');
+        new JdbcTemplate(capturingDataSource).queryForObject("SELECT length(?::text) FROM pg_sleep(0.2)",
+                Integer.class, new String(payload));
+        SlowQuery slowQuery = capturingDataSource.getSlowQueryLog().dump().get(0);
+
+        assertThat(capturingDataSource.explain(slowQuery), containsString("actual time"));
+        assertThat(capturingDataSource.explain(slowQuery, Collections.singletonMap(1, "given")),
+                containsString("actual time"));
+    }
+
+    @Test
+    public void explainOnlyPlansWritableCtesAndLockingSelects() throws Exception {
+        UUID id = new ClaimValidationBatchDao(dataSource).add(new ClaimValidationBatch(null, 1L, "filename",
+                Status.LOADING, 1L, "gcn", null, null));
+        JdbcTemplate capturing = new JdbcTemplate(capturingDataSource);
+        capturing.queryForObject("WITH renamed AS (UPDATE mis_claim_validation_service.claim_validation_batch"
+                + " SET run_number = run_number + 1 FROM pg_sleep(0.2) WHERE claim_validation_batch_id = ?"
+                + " RETURNING run_number) SELECT run_number FROM renamed", Long.class, id);
+        capturing.queryForObject("SELECT run_number FROM mis_claim_validation_service.claim_validation_batch,"
+                + " pg_sleep(0.2) WHERE claim_validation_batch_id = ? FOR UPDATE", Long.class, id);
+
+        List<SlowQuery> captured = capturingDataSource.getSlowQueryLog().dump();
+        assertEquals(2, captured.size());
+        for (SlowQuery slowQuery : captured) {
+            assertThat(capturingDataSource.explain(slowQuery, Collections.singletonMap(1, id)),
+                    not(containsString("actual time")));
+        }
+        assertEquals(2L, jdbcTemplate.queryForObject("SELECT run_number"
+                + " FROM mis_claim_validation_service.claim_validation_batch WHERE claim_validation_batch_id = ?",
+                Long.class, id).longValue());
+    }
+
+    @Test
+    public void capturesEveryRowOfBatch() throws Exception {
+        UUID id = new ClaimValidationBatchDao(dataSource).add(new ClaimValidationBatch(null, 1L, "filename",
+                Status.LOADING, 1L, "gcn", null, null));
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            rows.add(new Object[] { "file" + i, id });
+        }
+        new JdbcTemplate(capturingDataSource).batchUpdate("UPDATE mis_claim_validation_service.claim_validation_batch"
+                + " SET filename = ? FROM pg_sleep(0.05) WHERE claim_validation_batch_id = ?", rows);
+
+        SlowQuery slowQuery = capturingDataSource.getSlowQueryLog().dump().get(0);
+        assertEquals(3, slowQuery.getBatchSize());
+        assertEquals(3, slowQuery.getBatchBindParameters().size());
+        assertEquals(Arrays.asList("file0", id.toString()), slowQuery.getBindParameters());
+        assertEquals(Arrays.asList("file2", id.toString()), slowQuery.getBatchBindParameters().get(2));
+    }
+
+    @Test
+    public void disabledCapturesNothing() throws Exception {
+        capturingDataSource.setEnabled(false);
+        new JdbcTemplate(capturingDataSource).queryForObject("SELECT 1 FROM pg_sleep(0.2)", Integer.class);
+        assertTrue(capturingDataSource.getSlowQueryLog().dump().isEmpty());
+    }
+
+    @Test
+    public void ringBufferKeepsMostRecent() throws Exception {
+        JdbcTemplate capturing = new JdbcTemplate(capturingDataSource);
+        for (int i = 0; i < 5; i++) {
+            capturing.queryForObject("SELECT " + i + " FROM pg_sleep(0.11)", Integer.class);
+        }
+
+        List<SlowQuery> captured = capturingDataSource.getSlowQueryLog().dump();
+        assertEquals(3, captured.size());
+        assertEquals(5, capturingDataSource.getSlowQueryLog().getCapturedCount());
+        assertThat(captured.get(0).getSql(), startsWith("SELECT 2 "));
+        assertThat(captured.get(2).getSql(), startsWith("SELECT 4 "));
+    }
+
+}
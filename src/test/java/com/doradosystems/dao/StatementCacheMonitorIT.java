@@ -0,0 +1,222 @@
+package com.doradosystems.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.doradosystems.mis.dao.ClaimValidationBatchDao;
+import com.doradosystems.mis.dao.ClaimValidationRecordDao;
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationBatch.Status;
+import com.doradosystems.mis.domain.ClaimValidationRecord;
+import com.doradosystems.mis.jdbc.SlowQueryCapturingDataSource;
+import com.doradosystems.mis.jdbc.SlowQueryLog;
+import com.doradosystems.mis.jdbc.StatementCacheMonitor;
+import com.doradosystems.mis.jdbc.StatementCacheStatistics;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ *
+ * @author Arthur Tolentino
+ *
+ */
+@RunWith(SpringRunner.class)
+@ContextConfiguration({ "/applicationContext-components.xml", "/applicationContext-property-placeholder.xml" })
+public class StatementCacheMonitorIT {
+
+    private static final Logger LOGGER = Logger.getLogger(StatementCacheMonitorIT.class);
+
+    private static final String SELECT_SERVER_PREPARED_SQL = "SELECT count(*) FROM pg_prepared_statements"
+            + " WHERE NOT from_sql";
+    private static final int CALLS = 100;
+    private static final int BENCHMARK_CALLS = 2000;
+    private static final int RECORDS = 50;
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private StatementCacheMonitor statementCacheMonitor;
+    @Autowired
+    private TestDatabase testDatabase;
+    @Value("${jdbc.driver.class}")
+    private String driverClass;
+    @Value("${jdbc.statement.cache.queries}")
+    private int cacheSize;
+    private JdbcTemplate jdbcTemplate;
+    private UUID batchId;
+
+    @Before
+    @After
+    public void cleanup() throws Exception {
+        if (jdbcTemplate == null) {
+            jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+        TestDatabase.reset(jdbcTemplate);
+    }
+
+    @Test
+    public void hotQueriesReuseServerSideStatements() throws Exception {
+        seed();
+        try (HikariDataSource pool = pool(1)) {
+            StatementCacheMonitor monitor = new StatementCacheMonitor(cacheSize);
+            DataSource monitoring = monitored(pool, monitor);
+            runHotQueries(monitoring, CALLS);
+
+            // one connection, so every hot query is prepared once and reused from then on
+            int hotQueries = 0;
+            for (StatementCacheStatistics statistics : monitor.getStatistics()) {
+                LOGGER.info(statistics);
+                if (statistics.getExecutionCount() >= CALLS) {
+                    hotQueries++;
+                    assertEquals(1, statistics.getPrepareCount());
+                    assertEquals(statistics.getExecutionCount() - 1, statistics.getHitCount());
+                }
+            }
+            assertTrue(hotQueries >= 3);
+            assertTrue(monitor.getHitRate() > 0.95);
+            assertTrue(new JdbcTemplate(monitoring).queryForObject(SELECT_SERVER_PREPARED_SQL, Integer.class) >= 3);
+        }
+    }
+
+    @Test
+    public void thresholdZeroParsesEveryExecution() throws Exception {
+        seed();
+        try (HikariDataSource pool = pool(0)) {
+            StatementCacheMonitor monitor = new StatementCacheMonitor(cacheSize);
+            DataSource monitoring = monitored(pool, monitor);
+            runHotQueries(monitoring, CALLS);
+
+            assertTrue(monitor.getExecutionCount() >= 3 * CALLS);
+            assertEquals(0, monitor.getHitCount());
+            for (StatementCacheStatistics statistics : monitor.getStatistics()) {
+                assertEquals(statistics.getExecutionCount(), statistics.getUnpreparedCount());
+            }
+            assertEquals(0, new JdbcTemplate(monitoring).queryForObject(SELECT_SERVER_PREPARED_SQL, Integer.class)
+                    .intValue());
+        }
+    }
+
+    @Test
+    public void configuredDataSourceReportsHitRate() throws Exception {
+        seed();
+        statementCacheMonitor.reset();
+        runHotQueries(dataSource, CALLS);
+
+        LOGGER.info(String.format("hit rate through the dataSource bean: %.1f%%",
+                statementCacheMonitor.getHitRate() * 100));
+        assertTrue(statementCacheMonitor.getExecutionCount() >= 3 * CALLS);
+        assertTrue(statementCacheMonitor.getHitRate() > 0.8);
+    }
+
+    @Test
+    public void compareUnpreparedWithServerPreparedLatency() throws Exception {
+        seed();
+        try (HikariDataSource unprepared = pool(0); HikariDataSource prepared = pool(1)) {
+            long[] unpreparedNanos = timeHotQueries(unprepared);
+            long[] preparedNanos = timeHotQueries(prepared);
+            String[] queries = { "get by id", "countByStatus", "getByBatchIdAndRunNumber" };
+            for (int i = 0; i < queries.length; i++) {
+                LOGGER.info(String.format("%s: unnamed %.1f us, server-prepared %.1f us per call (%.0f%% saved)",
+                        queries[i], micros(unpreparedNanos[i]), micros(preparedNanos[i]),
+                        100 - preparedNanos[i] * 100.0 / unpreparedNanos[i]));
+            }
+        }
+    }
+
+    private void seed() throws Exception {
+        batchId = new ClaimValidationBatchDao(dataSource).add(new ClaimValidationBatch(null, 1L, "filename",
+                Status.PROCESSING, 1L, "gcn", null, null));
+        ClaimValidationRecordDao recordDao = new ClaimValidationRecordDao(dataSource);
+        for (int i = 0; i < RECORDS; i++) {
+            recordDao.add(new ClaimValidationRecord(null, batchId, 1L, ClaimValidationRecord.Status.INCOMPLETE,
+                    "claimNumber" + i, "record", null, null));
+        }
+    }
+
+    private void runHotQueries(DataSource target, int calls) throws Exception {
+        ClaimValidationBatchDao batchDao = new ClaimValidationBatchDao(target);
+        ClaimValidationRecordDao recordDao = new ClaimValidationRecordDao(target);
+        for (int i = 0; i < calls; i++) {
+            batchDao.get(batchId);
+            assertEquals(1, batchDao.countByStatus(Status.PROCESSING));
+            assertEquals(RECORDS, recordDao.getByBatchIdAndRunNumber(batchId, 1L).size());
+        }
+    }
+
+    /**
+     * Returns the mean nanoseconds per call of get by id, count by status and getByBatchIdAndRunNumber, in that
+     * order, after a warm-up long enough for PostgreSQL to settle on a generic plan.
+     */
+    private long[] timeHotQueries(DataSource pool) throws Exception {
+        ClaimValidationBatchDao batchDao = new ClaimValidationBatchDao(pool);
+        ClaimValidationRecordDao recordDao = new ClaimValidationRecordDao(pool);
+        runHotQueries(pool, CALLS);
+
+        long[] nanos = new long[3];
+        long start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_CALLS; i++) {
+            batchDao.get(batchId);
+        }
+        nanos[0] = (System.nanoTime() - start) / BENCHMARK_CALLS;
+        start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_CALLS; i++) {
+            batchDao.countByStatus(Status.PROCESSING);
+        }
+        nanos[1] = (System.nanoTime() - start) / BENCHMARK_CALLS;
+        start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_CALLS; i++) {
+            List<ClaimValidationRecord> records = recordDao.getByBatchIdAndRunNumber(batchId, 1L);
+            assertEquals(RECORDS, records.size());
+        }
+        nanos[2] = (System.nanoTime() - start) / BENCHMARK_CALLS;
+        return nanos;
+    }
+
+    /**
+     * Returns {@code pool} with slow query capture off, so that only {@code monitor} is told about executions.
+     */
+    private static DataSource monitored(DataSource pool, StatementCacheMonitor monitor) {
+        SlowQueryCapturingDataSource monitored = new SlowQueryCapturingDataSource(pool, Duration.ofMinutes(1),
+                new SlowQueryLog(1), 0);
+        monitored.setEnabled(false);
+        monitored.setStatementCacheMonitor(monitor);
+        return monitored;
+    }
+
+    /**
+     * Returns a single-connection pool, so that every call shares one driver statement cache.
+     */
+    private HikariDataSource pool(int prepareThreshold) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setDriverClassName(driverClass);
+        pool.setJdbcUrl(testDatabase.getJdbcUrl());
+        pool.setUsername(testDatabase.getUsername());
+        pool.setPassword(testDatabase.getPassword());
+        pool.setMaximumPoolSize(1);
+        pool.addDataSourceProperty("prepareThreshold", String.valueOf(prepareThreshold));
+        pool.addDataSourceProperty("preparedStatementCacheQueries", String.valueOf(cacheSize));
+        return pool;
+    }
+
+    private static double micros(long nanos) {
+        return nanos / (double) TimeUnit.MICROSECONDS.toNanos(1);
+    }
+
+}
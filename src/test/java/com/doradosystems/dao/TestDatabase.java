@@ -0,0 +1,156 @@
+package com.doradosystems.dao;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import liquibase.integration.spring.SpringLiquibase;
+
+/**
+ * Database the integration tests run against.
+ * <p>
+ * When {@code embedded} is set, the first instance in a JVM starts a private PostgreSQL server on a free port and
+ * migrates a template database with liquibase. Every instance, i.e. every Spring test context, then gets its own
+ * database cloned from that template, which takes milliseconds instead of a full migration. The server is stopped
+ * when the JVM exits. Otherwise the instance simply points at {@code endpoint}, and at {@code replicaEndpoint} for
+ * replica reads when one is given.
+ * <p>
+ * Because the server is private to the JVM, failsafe forks running in parallel never see each other's tables. The
+ * fork number failsafe passes as {@code it.fork.number} only appears in database names and log lines. Forks sharing
+ * {@code endpoint} would truncate each other's tables, so a non-embedded instance refuses to start when
+ * {@code it.fork.count} is above one.
+ * <p>
+ * Tests reset state with {@link #reset(JdbcTemplate)}, which truncates every table in the schema in one statement
+ * instead of deleting row by row.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public class TestDatabase {
+
+    private static final Logger LOGGER = Logger.getLogger(TestDatabase.class);
+
+    private static final String SCHEMA = "mis_claim_validation_service";
+    private static final String TEMPLATE = "dorado_template";
+    private static final String USERNAME = "postgres";
+    private static final String SELECT_TABLES_SQL = "SELECT format('%I.%I', schemaname, tablename) FROM pg_tables"
+            + " WHERE schemaname = ?";
+    private static final String FORK = System.getProperty("it.fork.number", "1");
+    private static final int FORK_COUNT = Integer.getInteger("it.fork.count", 1);
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private static EmbeddedPostgres server;
+
+    private final String jdbcUrl;
+    private final String replicaJdbcUrl;
+    private final String username;
+    private final String password;
+
+    public TestDatabase(boolean embedded, String endpoint, String replicaEndpoint, String username, String password)
+            throws Exception {
+        if (!embedded) {
+            if (FORK_COUNT > 1) {
+                throw new IllegalStateException(FORK_COUNT + " test forks would share " + endpoint
+                        + " and truncate each other's tables; run with -Dpostgres.embedded=false or -Dit.fork.count=1");
+            }
+            this.jdbcUrl = endpoint;
+            this.replicaJdbcUrl = replicaEndpoint.isEmpty() ? endpoint : replicaEndpoint;
+            this.username = username;
+            this.password = password;
+            return;
+        }
+        EmbeddedPostgres postgres = server();
+        String database = "dorado_" + FORK + "_" + DATABASES.incrementAndGet();
+        long start = System.nanoTime();
+        try (Connection connection = postgres.getPostgresDatabase().getConnection();
+                Statement statement = connection.createStatement()) {
+            statement.execute("CREATE DATABASE " + database + " TEMPLATE " + TEMPLATE);
+        }
+        LOGGER.info("Cloned database " + database + " from template in " + millisSince(start) + " ms");
+        this.jdbcUrl = "jdbc:postgresql://localhost:" + postgres.getPort() + "/" + database + "?currentSchema="
+                + SCHEMA;
+        this.replicaJdbcUrl = jdbcUrl;
+        this.username = USERNAME;
+        this.password = "";
+    }
+
+    /**
+     * Empties every table of the schema, including partitions and the status counters, which the triggers would not
+     * reset on TRUNCATE.
+     */
+    public static void reset(JdbcTemplate jdbcTemplate) {
+        List<String> tables = jdbcTemplate.queryForList(SELECT_TABLES_SQL, String.class, SCHEMA);
+        if (!tables.isEmpty()) {
+            jdbcTemplate.execute("TRUNCATE " + String.join(", ", tables));
+        }
+    }
+
+    public String getJdbcUrl() {
+        return jdbcUrl;
+    }
+
+    /**
+     * Returns the URL of the replica, which is the primary itself unless a replica endpoint was given.
+     */
+    public String getReplicaJdbcUrl() {
+        return replicaJdbcUrl;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    private static synchronized EmbeddedPostgres server() throws Exception {
+        if (server != null) {
+            return server;
+        }
+        long start = System.nanoTime();
+        EmbeddedPostgres postgres = EmbeddedPostgres.builder()
+                .setServerConfig("fsync", "off")
+                .setServerConfig("synchronous_commit", "off")
+                .setServerConfig("full_page_writes", "off")
+                .start();
+        LOGGER.info("Started embedded PostgreSQL for fork " + FORK + " on port " + postgres.getPort() + " in "
+                + millisSince(start) + " ms");
+
+        start = System.nanoTime();
+        try (Connection connection = postgres.getPostgresDatabase().getConnection();
+                Statement statement = connection.createStatement()) {
+            statement.execute("CREATE DATABASE " + TEMPLATE);
+        }
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDataSource(postgres.getDatabase(USERNAME, TEMPLATE));
+        liquibase.setChangeLog("classpath:db/changelog/db.changelog-master.xml");
+        liquibase.setDefaultSchema("public");
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        liquibase.afterPropertiesSet();
+        LOGGER.info("Migrated template database in " + millisSince(start) + " ms");
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            long stop = System.nanoTime();
+            try {
+                postgres.close();
+                LOGGER.info("Stopped embedded PostgreSQL in " + millisSince(stop) + " ms");
+            } catch (Exception e) {
+                LOGGER.warn("Unable to stop embedded PostgreSQL", e);
+            }
+        }, "embedded-postgres-shutdown"));
+        server = postgres;
+        return server;
+    }
+
+    private static long millisSince(long start) {
+        return (System.nanoTime() - start) / 1000000;
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.doradosystems.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationRecord;
+import com.doradosystems.mis.domain.ClaimValidationResponse;
+
+/**
+ * Unsaved batches, records and responses for the integration tests. Values a test does not pass in are fixed
+ * placeholders; the n-th element of a list gets claim number {@code "claimNumber" + n} and payload
+ * {@code "record" + n} or {@code "response" + n}.
+ *
+ * @author Arthur Tolentino
+ *
+ */
+public final class TestFixtures {
+
+    private TestFixtures() {
+    }
+
+    public static ClaimValidationBatch newBatch(ClaimValidationBatch.Status status) {
+        return newBatch(1L, status);
+    }
+
+    public static ClaimValidationBatch newBatch(Long clientId, ClaimValidationBatch.Status status) {
+        return new ClaimValidationBatch(null, clientId, "filename", status, 1L, "gcn", null, null);
+    }
+
+    public static ClaimValidationRecord newRecord(UUID batchId) {
+        return newRecord(batchId, 1L, ClaimValidationRecord.Status.INCOMPLETE);
+    }
+
+    public static ClaimValidationRecord newRecord(UUID batchId, String record) {
+        return new ClaimValidationRecord(null, batchId, 1L, ClaimValidationRecord.Status.INCOMPLETE, "claimNumber",
+                record, null, null);
+    }
+
+    public static ClaimValidationRecord newRecord(UUID batchId, Long runNumber, ClaimValidationRecord.Status status) {
+        return new ClaimValidationRecord(null, batchId, runNumber, status, "claimNumber", "record", null, null);
+    }
+
+    public static List<ClaimValidationRecord> newRecords(UUID batchId, int count) {
+        return newRecords(batchId, 1L, count);
+    }
+
+    public static List<ClaimValidationRecord> newRecords(UUID batchId, Long runNumber, int count) {
+        List<ClaimValidationRecord> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            records.add(new ClaimValidationRecord(null, batchId, runNumber, ClaimValidationRecord.Status.INCOMPLETE,
+                    "claimNumber" + i, "record" + i, null, null));
+        }
+        return records;
+    }
+
+    public static List<ClaimValidationRecord> newRecords(UUID batchId, String... claimNumbers) {
+        List<ClaimValidationRecord> records = new ArrayList<>(claimNumbers.length);
+        for (String claimNumber : claimNumbers) {
+            records.add(new ClaimValidationRecord(null, batchId, 1L, ClaimValidationRecord.Status.INCOMPLETE,
+                    claimNumber, "record", null, null));
+        }
+        return records;
+    }
+
+    public static ClaimValidationResponse newResponse(UUID batchId, UUID recordId) {
+        return newResponse(batchId, recordId, "response");
+    }
+
+    public static ClaimValidationResponse newResponse(UUID batchId, UUID recordId, String response) {
+        return new ClaimValidationResponse(null, batchId, 1L, ClaimValidationResponse.Status.PENDING, "claimNumber",
+                response, null, null, recordId);
+    }
+
+    public static List<ClaimValidationResponse> newResponses(UUID batchId, UUID recordId, Long runNumber,
+            int count) {
+        List<ClaimValidationResponse> responses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            responses.add(new ClaimValidationResponse(null, batchId, runNumber, ClaimValidationResponse.Status.PENDING,
+                    "claimNumber" + i, "response" + i, null, null, recordId));
+        }
+        return responses;
+    }
+
+}
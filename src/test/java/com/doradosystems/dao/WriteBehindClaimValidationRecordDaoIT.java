@@ -0,0 +1,227 @@
+package com.doradosystems.dao;
+
+import static com.doradosystems.dao.TestFixtures.newBatch;
+import static com.doradosystems.dao.TestFixtures.newRecord;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.doradosystems.exception.DataPersistenceException;
+import com.doradosystems.mis.dao.ClaimValidationBatchDao;
+import com.doradosystems.mis.dao.ClaimValidationRecordBulkDao;
+import com.doradosystems.mis.dao.ClaimValidationRecordDao;
+import com.doradosystems.mis.dao.WriteBehindClaimValidationRecordDao;
+import com.doradosystems.mis.domain.ClaimValidationBatch;
+import com.doradosystems.mis.domain.ClaimValidationRecord.Status;
+
+/**
+ *
+ * @author Arthur Tolentino
+ *
+ */
+@RunWith(SpringRunner.class)
+@ContextConfiguration({ "/applicationContext-components.xml", "/applicationContext-property-placeholder.xml" })
+public class WriteBehindClaimValidationRecordDaoIT {
+
+    @Autowired
+    private ClaimValidationRecordDao recordDao;
+    @Autowired
+    private ClaimValidationRecordBulkDao bulkDao;
+    @Autowired
+    private ClaimValidationBatchDao batchDao;
+    @Autowired
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private WriteBehindClaimValidationRecordDao dao;
+
+    @Before
+    @After
+    public void cleanup() throws Exception {
+        if (dao != null) {
+            dao.close();
+        }
+        if (jdbcTemplate == null) {
+            jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+        TestDatabase.reset(jdbcTemplate);
+        dao = new WriteBehindClaimValidationRecordDao(recordDao, bulkDao, 100, Duration.ofMinutes(1));
+    }
+
+    @Test
+    public void updatesAreCoalesced() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        UUID id = dao.add(newRecord(batchId));
+
+        dao.updateStatus(id, Status.PENDING);
+        dao.updateStatus(id, Status.PROCESSING);
+        dao.updateStatus(id, Status.COMPLETE);
+        assertEquals(Status.INCOMPLETE, recordDao.get(id).getStatus());
+        assertEquals(1, dao.getPendingCount());
+
+        dao.flush();
+        assertEquals(Status.COMPLETE, recordDao.get(id).getStatus());
+        assertEquals(3, dao.getUpdateCount());
+        assertEquals(1, dao.getWrittenCount());
+        assertEquals(0, dao.getPendingCount());
+    }
+
+    @Test
+    public void getReadsItsOwnWrites() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        UUID id = dao.add(newRecord(batchId));
+        UUID other = dao.add(newRecord(batchId));
+
+        dao.updateStatus(id, Status.PENDING);
+        dao.updateStatus(other, Status.PENDING);
+        assertEquals(Status.PENDING, dao.get(id).getStatus());
+        assertEquals(Status.INCOMPLETE, recordDao.get(other).getStatus());
+        assertEquals(1, dao.getPendingCount());
+    }
+
+    @Test
+    public void batchReadsFlushEverything() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        for (int i = 0; i < 10; i++) {
+            dao.updateStatus(dao.add(newRecord(batchId)), Status.COMPLETE);
+        }
+
+        assertEquals(10, dao.countByBatchIdAndRunNumberAndStatus(batchId, 1L, Status.COMPLETE));
+        assertEquals(0, dao.getPendingCount());
+    }
+
+    @Test
+    public void fullBufferFlushes() throws Exception {
+        dao.close();
+        dao = new WriteBehindClaimValidationRecordDao(recordDao, bulkDao, 5, Duration.ofMinutes(1));
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING));
+
+        for (int i = 0; i < 5; i++) {
+            dao.updateStatus(dao.add(newRecord(batchId)), Status.COMPLETE);
+        }
+        assertEquals(0, dao.getPendingCount());
+        assertEquals(5, recordDao.countByBatchIdAndRunNumberAndStatus(batchId, 1L, Status.COMPLETE));
+    }
+
+    @Test
+    public void timerFlushes() throws Exception {
+        dao.close();
+        dao = new WriteBehindClaimValidationRecordDao(recordDao, bulkDao, 100, Duration.ofMillis(50));
+        UUID id = dao.add(newRecord(batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING))));
+
+        dao.updateStatus(id, Status.COMPLETE);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (recordDao.get(id).getStatus() != Status.COMPLETE && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(Status.COMPLETE, recordDao.get(id).getStatus());
+    }
+
+    @Test
+    public void closeFlushesAndRejectsUpdates() throws Exception {
+        UUID id = dao.add(newRecord(batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING))));
+        dao.updateStatus(id, Status.COMPLETE);
+
+        dao.close();
+        assertEquals(Status.COMPLETE, recordDao.get(id).getStatus());
+        try {
+            dao.updateStatus(id, Status.ERROR);
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+        }
+    }
+
+    @Test
+    public void unclosedBufferLosesUpdates() throws Exception {
+        UUID id = dao.add(newRecord(batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING))));
+        WriteBehindClaimValidationRecordDao crashed = new WriteBehindClaimValidationRecordDao(recordDao, bulkDao, 100,
+                Duration.ofHours(1));
+
+        crashed.updateStatus(id, Status.COMPLETE);
+        assertEquals(Status.INCOMPLETE, recordDao.get(id).getStatus());
+    }
+
+    @Test
+    public void failedFlushKeepsUpdates() throws Exception {
+        UUID id = dao.add(newRecord(batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING))));
+        FailingDataSource failing = new FailingDataSource(dataSource);
+        dao.close();
+        dao = new WriteBehindClaimValidationRecordDao(recordDao, new ClaimValidationRecordBulkDao(failing), 100,
+                Duration.ofMinutes(1));
+
+        dao.updateStatus(id, Status.PENDING);
+        failing.fail = true;
+        try {
+            dao.flush();
+            fail("Expected DataPersistenceException");
+        } catch (DataPersistenceException e) {
+        }
+        assertEquals(1, dao.getPendingCount());
+
+        dao.updateStatus(id, Status.COMPLETE);
+        failing.fail = false;
+        dao.flush();
+        assertEquals(Status.COMPLETE, recordDao.get(id).getStatus());
+    }
+
+    @Test
+    public void missingRecordsAreDropped() throws Exception {
+        dao.updateStatus(UUID.randomUUID(), Status.COMPLETE);
+
+        dao.flush();
+        assertEquals(1, dao.getDroppedCount());
+        assertEquals(0, dao.getWrittenCount());
+    }
+
+    @Test
+    public void compareAndSetStatusLeavesOtherWritersStatus() throws Exception {
+        UUID batchId = batchDao.add(newBatch(ClaimValidationBatch.Status.PROCESSING));
+        UUID id = dao.add(newRecord(batchId));
+        UUID other = dao.add(newRecord(batchId));
+
+        assertEquals(1, dao.compareAndSetStatus(id, Status.INCOMPLETE, Status.PENDING));
+        assertEquals(1, dao.compareAndSetStatus(id, Status.PENDING, Status.COMPLETE));
+        assertEquals(0, dao.compareAndSetStatus(id, Status.PENDING, Status.ERROR));
+        assertEquals(1, dao.compareAndSetStatus(other, Status.INCOMPLETE, Status.COMPLETE));
+        recordDao.updateStatus(other, Status.ERROR);
+
+        dao.flush();
+        assertEquals(Status.COMPLETE, recordDao.get(id).getStatus());
+        assertEquals(Status.ERROR, recordDao.get(other).getStatus());
+        assertEquals(1, dao.getWrittenCount());
+        assertEquals(1, dao.getDroppedCount());
+    }
+
+    private static class FailingDataSource extends DelegatingDataSource {
+
+        private volatile boolean fail;
+
+        FailingDataSource(DataSource targetDataSource) {
+            super(targetDataSource);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (fail) {
+                throw new SQLException("Connection refused");
+            }
+            return super.getConnection();
+        }
+    }
+
+}